@@ -0,0 +1,86 @@
+package com.lpin.realtime_camera;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+
+import java.util.List;
+
+// 기기별로 고른 실행 환경을 SharedPreferences 에 저장하고 읽는 클래스
+public class BackendSettings {
+    private static final String TAG = "[IC]BackendSettings";
+    private static final String PREFS_NAME = "classifier_backend";
+    // 측정할 때 실행 횟수
+    private static final int TUNING_WARMUPS = 3;
+    private static final int TUNING_RUNS = 10;
+
+    private BackendSettings() {
+    }
+
+    // 기기와 모델마다 다른 값을 저장하기 위한 키
+    public static String deviceKey(String modelPath) {
+        return Build.MANUFACTURER + "/" + Build.MODEL + "/" + Build.VERSION.SDK_INT
+                + "/" + modelPath;
+    }
+
+    // 저장된 설정을 리턴하고, 없으면 기본 설정을 리턴하는 메소드
+    public static ClassifierOptions load(Context context) {
+        String modelPath = ClassifierOptions.DEFAULT_MODEL_PATH;
+        ClassifierOptions saved = createTuner(context).loadSaved(
+                deviceKey(modelPath), candidates(modelPath));
+        return saved != null ? saved : ClassifierOptions.defaults();
+    }
+
+    // 저장된 설정이 있는지 확인하는 메소드
+    public static boolean isTuned(Context context) {
+        String modelPath = ClassifierOptions.DEFAULT_MODEL_PATH;
+        return createTuner(context).loadSaved(deviceKey(modelPath), candidates(modelPath)) != null;
+    }
+
+    // 후보를 모두 측정해서 가장 빠른 설정을 저장하고 리턴하는 메소드
+    // 인터프리터를 여러 번 만들기 때문에 백그라운드 스레드에서 호출해야 합니다.
+    public static ClassifierOptions tune(Context context) {
+        String modelPath = ClassifierOptions.DEFAULT_MODEL_PATH;
+        BackendTuner tuner = createTuner(context);
+        ClassifierOptions best = tuner.choose(deviceKey(modelPath), candidates(modelPath));
+        for (String line : tuner.getReport()) {
+            Log.d(TAG, line);
+        }
+        Log.d(TAG, "selected : " + best);
+        return best;
+    }
+
+    private static List<ClassifierOptions> candidates(String modelPath) {
+        return BackendTuner.defaultCandidates(
+                modelPath, Runtime.getRuntime().availableProcessors());
+    }
+
+    private static BackendTuner createTuner(Context context) {
+        final Context appContext = context.getApplicationContext();
+        final SharedPreferences prefs =
+                appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        return new BackendTuner(
+                (options, warmups, runs) -> {
+                    Classifier classifier = new Classifier(appContext, options);
+                    try {
+                        classifier.init();
+                        return classifier.benchmark(warmups, runs);
+                    } finally {
+                        classifier.finish();
+                    }
+                },
+                new BackendTuner.Store() {
+                    @Override
+                    public String load(String key) {
+                        return prefs.getString(key, null);
+                    }
+
+                    @Override
+                    public void save(String key, String value) {
+                        prefs.edit().putString(key, value).apply();
+                    }
+                },
+                TUNING_WARMUPS, TUNING_RUNS);
+    }
+}
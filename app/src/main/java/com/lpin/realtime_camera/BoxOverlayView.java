@@ -0,0 +1,114 @@
+package com.lpin.realtime_camera;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.View;
+
+import java.util.Arrays;
+
+// 카메라 미리보기 위에 추적 상자를 그리는 뷰
+// 상자 좌표는 회전한 프레임 기준 0~1 이므로 뷰 크기를 곱해서 그립니다.
+// 카메라 스레드에서 setResult 로 결과를 복사해 두고, UI 스레드에서 복사본을 그립니다.
+// 상자 위의 글자는 추적 번호가 바뀔 때만 새로 만들어서 프레임마다 문자열을 만들지 않습니다.
+public class BoxOverlayView extends View {
+    private static final int MAX_BOXES = 32;
+    // 추적 번호마다 다른 색
+    private static final int[] COLORS = {
+            Color.rgb(0xF4, 0x43, 0x36), Color.rgb(0x21, 0x96, 0xF3), Color.rgb(0x4C, 0xAF, 0x50),
+            Color.rgb(0xFF, 0xC1, 0x07), Color.rgb(0x9C, 0x27, 0xB0), Color.rgb(0x00, 0xBC, 0xD4),
+            Color.rgb(0xFF, 0x57, 0x22), Color.rgb(0x8B, 0xC3, 0x4A)};
+
+    private final Paint boxPaint = new Paint();
+    private final Paint textPaint = new Paint();
+    private final Paint statusPaint = new Paint();
+
+    // 다른 스레드에서 넘겨받은 결과와 그리는 중인 결과 (lock 으로 보호)
+    private final Object lock = new Object();
+    private final DetectionResult pending = new DetectionResult(MAX_BOXES);
+    private final DetectionResult drawing = new DetectionResult(MAX_BOXES);
+    private String status;
+    // 자리 i 에 마지막으로 그린 추적 번호와 그 글자
+    private final int[] textIds = new int[MAX_BOXES];
+    private final String[] texts = new String[MAX_BOXES];
+
+    public BoxOverlayView(final Context context) {
+        this(context, null);
+    }
+
+    public BoxOverlayView(final Context context, final AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public BoxOverlayView(final Context context, final AttributeSet attrs, final int defStyle) {
+        super(context, attrs, defStyle);
+        float density = getResources().getDisplayMetrics().density;
+        boxPaint.setStyle(Paint.Style.STROKE);
+        boxPaint.setStrokeWidth(2 * density);
+        textPaint.setTextSize(12 * density);
+        textPaint.setAntiAlias(true);
+        statusPaint.setTextSize(10 * density);
+        statusPaint.setAntiAlias(true);
+        statusPaint.setColor(Color.WHITE);
+        statusPaint.setShadowLayer(2 * density, 0, 0, Color.BLACK);
+        Arrays.fill(textIds, Integer.MIN_VALUE);
+    }
+
+    // 그릴 결과를 넘기는 메소드 (어느 스레드에서나 호출 가능)
+    public void setResult(DetectionResult result) {
+        synchronized (lock) {
+            pending.copyFrom(result);
+        }
+        postInvalidate();
+    }
+
+    // 오른쪽 아래에 표시할 상태 (검출 빈도, 키프레임 간격 등)
+    public void setStatus(String status) {
+        synchronized (lock) {
+            this.status = status;
+        }
+        postInvalidate();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        String currentStatus;
+        synchronized (lock) {
+            drawing.copyFrom(pending);
+            currentStatus = status;
+        }
+        int width = getWidth();
+        int height = getHeight();
+        for (int i = 0; i < drawing.size(); i++) {
+            int id = drawing.getTrackId(i);
+            int color = COLORS[Math.floorMod(id, COLORS.length)];
+            boxPaint.setColor(color);
+            textPaint.setColor(color);
+            float left = drawing.getLeft(i) * width;
+            float top = drawing.getTop(i) * height;
+            canvas.drawRect(left, top, drawing.getRight(i) * width,
+                    drawing.getBottom(i) * height, boxPaint);
+            canvas.drawText(textFor(i, id), left, top - textPaint.descent(), textPaint);
+        }
+        if (currentStatus != null) {
+            canvas.drawText(currentStatus, width - statusPaint.measureText(currentStatus)
+                    - statusPaint.getTextSize() / 2, height - statusPaint.descent(), statusPaint);
+        }
+    }
+
+    // 자리 i 의 추적 번호가 바뀌었을 때만 "#번호 레이블" 글자를 새로 만드는 메소드
+    private String textFor(int i, int id) {
+        if (textIds[i] != id || texts[i] == null) {
+            String label = drawing.getLabel(i);
+            if (label == null || label.isEmpty()) {
+                label = String.valueOf(drawing.getClassIndex(i));
+            }
+            texts[i] = id >= 0 ? "#" + id + " " + label : label;
+            textIds[i] = id;
+        }
+        return texts[i];
+    }
+}
@@ -0,0 +1,56 @@
+package com.lpin.realtime_camera;
+
+import android.media.Image;
+import android.media.ImageReader;
+
+// ImageReader 로 받은 카메라 이미지를 공급하는 프레임 소스
+// CameraFragment 의 이미지 리스너로 등록하고, 이미지의 평면을 복사하지 않고 YuvFrame 으로 감싸서 넘깁니다.
+// acquireLatestFrame 과 releaseFrame 은 카메라 스레드에서 호출해야 합니다.
+public class CameraFrameSource implements FrameSource, ImageReader.OnImageAvailableListener {
+    private volatile Listener listener;
+    private ImageReader reader;
+    // 현재 받는 쪽이 사용 중인 이미지와 그 이미지를 감싼 프레임
+    private Image image;
+    private final YuvFrame frame = new YuvFrame();
+
+    @Override
+    public void start(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void stop() {
+        listener = null;
+    }
+
+    @Override
+    public void onImageAvailable(ImageReader reader) {
+        this.reader = reader;
+        Listener l = listener;
+        if (l != null) {
+            l.onFrameAvailable(this);
+        }
+    }
+
+    @Override
+    public YuvFrame acquireLatestFrame() {
+        if (reader == null || image != null) {
+            return null;
+        }
+        image = reader.acquireLatestImage();
+        if (image == null) {
+            return null;
+        }
+        ImageUtils.toYuvFrame(image, frame);
+        return frame;
+    }
+
+    // 이미지를 닫아서 ImageReader 가 다음 프레임을 받을 수 있게 함
+    @Override
+    public void releaseFrame(YuvFrame frame) {
+        if (image != null) {
+            image.close();
+            image = null;
+        }
+    }
+}
@@ -2,70 +2,185 @@ package com.lpin.realtime_camera;
 
 import android.content.Context;
 import android.graphics.Bitmap;
+import android.media.Image;
 import android.util.Pair;
 import android.util.Size;
 
+import org.tensorflow.lite.DataType;
 import org.tensorflow.lite.Tensor;
 import org.tensorflow.lite.support.common.FileUtil;
-import org.tensorflow.lite.support.common.ops.NormalizeOp;
-import org.tensorflow.lite.support.image.ImageProcessor;
-import org.tensorflow.lite.support.image.TensorImage;
-import org.tensorflow.lite.support.image.ops.ResizeOp;
-import org.tensorflow.lite.support.image.ops.ResizeWithCropOrPadOp;
-import org.tensorflow.lite.support.image.ops.Rot90Op;
-import org.tensorflow.lite.support.label.TensorLabel;
-import org.tensorflow.lite.support.model.Model;
-import org.tensorflow.lite.support.tensorbuffer.TensorBuffer;
-import static org.tensorflow.lite.support.image.ops.ResizeOp.ResizeMethod.NEAREST_NEIGHBOR;
+import org.tensorflow.lite.Interpreter;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class Classifier {
+
+    // 다른 스레드에서 전처리한 모델 입력과 전처리할 때의 입력 번호
+    // 파이프라인처럼 전처리와 추론(입력 크기 변경)을 다른 스레드에서 할 때 사용
+    public static class PreparedInput {
+        ByteBuffer buffer;
+        int version = -1;
+
+        public ByteBuffer getBuffer() {
+            return buffer;
+        }
+    }
     
-    //  추론을 위한 2개의 파일의 이름을 상수로 설정
-    private static final String MODEL_NAME = "mobilenet_imagenet_model.tflite";
+    //  추론을 위한 레이블 파일의 이름을 상수로 설정
+    // 모델 파일의 이름은 ClassifierOptions 에서 설정
     private static final String LABEL_FILE = "labels.txt";
+    // 보관할 전처리 파이프라인의 수
+    private static final int PIPELINE_CACHE_SIZE = 4;
+    // 프레임의 일부 영역을 전처리하는 파이프라인을 보관할 수
+    private static final int CROP_CACHE_SIZE = 8;
 
     // 앱내의 자원을 사용하기 위한 인스턴스 참조 변수
     Context context;
     
+    // 실행 환경 설정
+    private final ClassifierOptions options;
+
     // 추론을 하기 위한 인스턴스 참조 변수
-    Model model;
+    Interpreter interpreter;
+    // 인터프리터와 위임을 만들고 정리하는 객체
+    private final InterpreterHolder interpreterHolder;
     
     // 추론을 위해서 사용할 입력에 관한 변수
     // 전처리를 위해 사용
     int modelInputWidth, modelInputHeight, modelInputChannel;
-    TensorImage inputImage;
+    // 입출력 텐서의 자료형과 양자화 정보
+    TensorSpec inputSpec, outputSpec;
+
+    // 입력 버퍼는 한 번만 만들고 전처리 결과를 그 자리에 덮어씀
+    // 배치 크기가 B 이면 입력 B 개를 이어서 담음
+    private ByteBuffer inputBuffer;
+    // 입력 텐서의 배치 크기와 입력 하나의 크기 (byte)
+    private int batchSize = 1;
+    // 바꾸지 못한 가장 작은 배치 크기 (이 크기 이상은 다시 시도하지 않음)
+    private int unsupportedBatchSize = Integer.MAX_VALUE;
+    private int itemInputBytes;
+    // 프레임 기하 정보(너비, 높이, 회전)별로 미리 만든 전처리 파이프라인
+    private final PipelineCache<FramePreprocessor> preprocessorCache =
+            new PipelineCache<>(PIPELINE_CACHE_SIZE);
+    // 프레임의 일부 영역을 영역 크기와 회전별로 전처리하는 파이프라인 (preprocessorCache 로 동기화)
+    // 가득 차면 가장 오래 사용하지 않은 파이프라인을 교체
+    private final PipelineCache<FramePreprocessor> cropCache =
+            new PipelineCache<>(CROP_CACHE_SIZE);
+    // 프레임마다 다시 만들지 않는 변수
+    private final YuvFrame yuvFrame = new YuvFrame();
+    private int[] pixelBuffer = new int[0];
     
     // 추론 결과를 저장하기 위한 변수
-    TensorBuffer outputBuffer;
+    ByteBuffer outputBuffer;
+    // interpreter 에 넘기는 입출력 (재사용)
+    private Object[] inputs;
+    // 밖에서 만든 입력 버퍼로 추론할 때 사용하는 입력 배열 (재사용)
+    private final Object[] externalInputs = new Object[1];
+    private final Map<Integer, Object> outputs = new HashMap<>();
+    // 추론 결과를 기본형 배열로 읽기 위한 변수 (마지막으로 읽은 입력 하나의 점수)
+    // float 모델은 scores, 양자화 모델은 rawScores 를 사용
+    private FloatBuffer scoreView;
+    private float[] scores;
+    private byte[] rawScores;
+    private int numClasses;
+    // Pair 를 리턴하는 메소드에서 사용하는 결과 객체
+    private final TopKResult top1 = new TopKResult(1);
     
     // 추론 결과 해석을 위해서 레이블 파일의 내용을 저장할 변수
-    private List<String> labels;
+    // 문자열은 결과를 표시할 때만 만듭니다.
+    private LabelTable labels;
     // 초기화 수행 여부를 저장할 변수
-    private boolean isInitialized = false;
+    // 백그라운드에서 초기화한 뒤 다른 스레드에서 읽으므로 volatile
+    private volatile boolean isInitialized = false;
+
+    // 단계별 지연 시간 기록
+    private final PerfStats perfStats = PerfStats.global();
+
+    // 실행 중에 바꿀 수 있는 설정 (추론 스레드에서만 변경)
+    private int numThreads;
+    private float inputScale = 1.0f;
+    // 처음 읽은 입력 모양 (입력 크기를 바꿀 때 기준)
+    private int[] baseInputShape;
+    // 입력 텐서를 다시 할당하는 동안과 다른 스레드에서 입력 크기를 읽고 전처리하는 동안 잡는 lock
+    private final Object inputLock = new Object();
+    // 입력 텐서를 다시 할당할 때마다 늘어나는 번호 (inputLock 으로 보호)
+    private int inputVersion = 0;
+
+    // 비슷한 프레임의 추론 결과를 다시 사용하는 캐시 (없으면 null, 추론 전에 UI 스레드에서 정함)
+    private volatile ResultCache resultCache;
+    // 마지막 결과를 캐시에서 찾았는지 여부와 그 결과 (copyScores 에서 사용)
+    private boolean lastFromCache = false;
+    private TopKResult cachedResult = new TopKResult(1);
+    // 캐시에 넣을 결과 (요청한 k 와 관계없이 캐시의 topK 개를 보관하도록 따로 추론)
+    private TopKResult cacheEntry = new TopKResult(1);
 
     // Classifier 생성자
-    // Context 만 넘겨받아서 대입합니다.
+    // Context 만 넘겨받으면 기본 실행 환경을 사용합니다.
     public Classifier(Context context) {
+        this(context, ClassifierOptions.defaults());
+    }
+
+    public Classifier(Context context, ClassifierOptions options) {
         this.context = context;
+        this.options = options;
+        interpreterHolder = new InterpreterHolder(context, options);
+    }
+
+    public ClassifierOptions getOptions() {
+        return options;
     }
 
     // 초기화 메소드
     public void init() throws IOException {
         // 모델 생성
-        model = Model.createModel(context, MODEL_NAME);
+        interpreter = interpreterHolder.open();
+        numThreads = options.getNumThreads();
+        baseInputShape = interpreter.getInputTensor(0).shape().clone();
         // 입출력 관련 데이터를 설정하는 메소드 호출
         initModelShape();
         // 레이블 파일의 내용을 읽어옵니다.
-        labels = FileUtil.loadLabels(context, LABEL_FILE);
+        labels = loadLabels(context, LABEL_FILE);
         // 초기화를 수행했다고 표시
         isInitialized = true;
     }
 
+    // executor 에서 init 을 실행하고 끝나면 완료되는 future 를 리턴하는 메소드
+    // 모델은 파일을 메모리에 매핑해서 읽으므로 복사 없이 인터프리터에 넘어갑니다.
+    // 실패하면 IOException 등으로 예외 완료
+    public CompletableFuture<Classifier> initAsync(Executor executor) {
+        CompletableFuture<Classifier> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                init();
+                future.complete(this);
+            } catch (IOException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    // 레이블 파일을 읽는 메소드
+    // 압축하지 않은 asset 은 메모리에 매핑하고, 압축된 asset 은 byte 배열 하나로 읽음
+    static LabelTable loadLabels(Context context, String fileName) throws IOException {
+        try {
+            return LabelTable.wrap(FileUtil.loadMappedFile(context, fileName));
+        } catch (FileNotFoundException e) {
+            try (InputStream in = context.getAssets().open(fileName)) {
+                return LabelTable.read(in);
+            }
+        }
+    }
+
     // 초기화 여부를 저장한 변수를 리턴하는 메소드
     public boolean isInitialized() {
         return isInitialized;
@@ -74,21 +189,75 @@ public class Classifier {
     // 입출력 정보를 설정하기 위한 메소드
     private void initModelShape() {
         // 모델의 입력 데이터에 대한 정보 가져오기
-        Tensor inputTensor = model.getInputTensor(0);
+        Tensor inputTensor = interpreter.getInputTensor(0);
         
-        // 입력데이터의 모양을 변수에 저장
+        // 입력데이터의 모양을 변수에 저장 ([배치, 높이, 너비, 채널])
         int[] shape = inputTensor.shape();
-        modelInputChannel = shape[0];
-        modelInputWidth = shape[1];
-        modelInputHeight = shape[2];
+        TensorSpec previousSpec = inputSpec;
+        int previousWidth = modelInputWidth;
+        int previousHeight = modelInputHeight;
+        batchSize = shape[0];
+        modelInputHeight = shape[1];
+        modelInputWidth = shape[2];
+        modelInputChannel = shape[3];
         
         // 입력데이터 모양을 설정
-        inputImage = new TensorImage(inputTensor.dataType());
+        inputSpec = toTensorSpec(inputTensor);
+        inputBuffer = ByteBuffer.allocateDirect(inputTensor.numBytes())
+                .order(ByteOrder.nativeOrder());
+        itemInputBytes = inputTensor.numBytes() / batchSize;
+        inputs = new Object[]{inputBuffer};
+        // 배치 크기만 바뀐 경우에는 전처리 파이프라인을 그대로 사용
+        if (previousSpec == null || previousSpec.getType() != inputSpec.getType()
+                || previousWidth != modelInputWidth || previousHeight != modelInputHeight) {
+            synchronized (preprocessorCache) {
+                preprocessorCache.clear();
+                cropCache.clear();
+            }
+        }
 
-        // 출력 데이터 모양을 설정
-        Tensor outputTensor = model.getOutputTensor(0);
-        outputBuffer = TensorBuffer.createFixedSize(outputTensor.shape(),
-                outputTensor.dataType());
+        // 출력 데이터 모양을 설정 ([배치, 클래스 수])
+        Tensor outputTensor = interpreter.getOutputTensor(0);
+        outputSpec = toTensorSpec(outputTensor);
+        outputBuffer = ByteBuffer.allocateDirect(outputTensor.numBytes())
+                .order(ByteOrder.nativeOrder());
+        outputs.put(0, outputBuffer);
+        numClasses = outputTensor.numElements() / batchSize;
+        if (outputSpec.isQuantized()) {
+            rawScores = new byte[numClasses];
+        } else {
+            scoreView = outputBuffer.asFloatBuffer();
+            scores = new float[numClasses];
+        }
+    }
+
+    // 텐서의 자료형과 양자화 정보를 읽는 메소드
+    static TensorSpec toTensorSpec(Tensor tensor) {
+        DataType dataType = tensor.dataType();
+        if (dataType == DataType.FLOAT32) {
+            return TensorSpec.FLOAT32;
+        }
+        TensorSpec.ElementType type;
+        if (dataType == DataType.UINT8) {
+            type = TensorSpec.ElementType.UINT8;
+        } else if (dataType == DataType.INT8) {
+            type = TensorSpec.ElementType.INT8;
+        } else {
+            throw new IllegalArgumentException("unsupported tensor type : " + dataType);
+        }
+        Tensor.QuantizationParams params = tensor.quantizationParams();
+        // 양자화 정보가 없는 경우 0~255 를 그대로 확률로 보고 1/255 를 사용
+        float scale = params.getScale() > 0 ? params.getScale() : 1.0f / 255.0f;
+        return new TensorSpec(type, scale, params.getZeroPoint());
+    }
+
+    // 입출력 텐서 정보를 리턴하는 메소드
+    public TensorSpec getInputSpec() {
+        return inputSpec;
+    }
+
+    public TensorSpec getOutputSpec() {
+        return outputSpec;
     }
     
     // 입력에 사용할 이미지의 크기를 리턴하는 메소드
@@ -98,87 +267,521 @@ public class Classifier {
         return new Size(modelInputWidth, modelInputHeight);
     }
 
-    // Android 카메라로 촬영한 이미지를 추론에 맞는 형태로 변환해주는 메소드
-    private Bitmap convertBitmapToARGB8888(Bitmap bitmap) {
-        return bitmap.copy(Bitmap.Config.ARGB_8888, true);
+    // 모델 입력 하나의 크기 (byte)
+    public int getInputBytes() {
+        return itemInputBytes;
     }
 
-    // 
-    private TensorImage loadImage(final Bitmap bitmap, int sensorOrientation) {
-        // 형식변환
-        if (bitmap.getConfig() != Bitmap.Config.ARGB_8888) {
-            inputImage.load(convertBitmapToARGB8888(bitmap));
-        } else {
-            inputImage.load(bitmap);
+    // 지금 입력 텐서의 배치 크기
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    public float getInputScale() {
+        return inputScale;
+    }
+
+    // 실행 중에 인터프리터 스레드 수를 바꾸는 메소드
+    // 같은 설정에 스레드 수만 바꿔서 인터프리터를 다시 만들고 지금 입력 모양을 다시 적용합니다.
+    // 다시 만든 뒤 첫 추론은 느리지만, 거버너가 스레드 수를 자주 바꾸지 않으므로 드물게 일어남
+    // 추론과 같은 스레드에서 호출해야 합니다.
+    public void setNumThreads(int numThreads) {
+        if (numThreads == this.numThreads) {
+            return;
         }
-        // 자를 이미지의 크기를 설정
-        // 최솟값의 크기를 찾아서 이미지를 최솟값 크기에 맞는 정사각형으로 만들기 위해서   
-        int cropSize = Math.min(bitmap.getWidth(), bitmap.getHeight());
-        // 회전을 처리하기 위한 설정
-        int numRotation = sensorOrientation / 90;
+        // 다른 스레드의 전처리가 끝난 뒤에 바꾸고, 그 전에 전처리한 입력은 사용하지 않도록 함
+        synchronized (inputLock) {
+            interpreter = interpreterHolder.reopen(numThreads);
+            this.numThreads = numThreads;
+            resizeInputTensor(batchSize, inputScale);
+        }
+    }
+
+    // 입력 높이와 너비가 고정되지 않은 모델인지 확인하는 메소드
+    public boolean supportsInputScaling() {
+        int[] signature = interpreter.getInputTensor(0).shapeSignature();
+        return signature.length == 4 && signature[1] == -1 && signature[2] == -1;
+    }
+
+    // 입력 크기를 기본 크기의 scale 배로 바꾸는 메소드
+    // 입력 크기가 고정된 모델이면 바꾸지 않고 false 를 리턴
+    // 입력 크기가 바뀌면 결과도 달라지므로 결과 캐시를 비움
+    // 추론과 같은 스레드에서 호출해야 합니다.
+    public boolean setInputScale(float scale) {
+        if (scale == inputScale) {
+            return true;
+        }
+        if (!supportsInputScaling()) {
+            return false;
+        }
+        resizeInputTensor(batchSize, scale);
+        final ResultCache cache = resultCache;
+        if (cache != null) {
+            cache.clear();
+        }
+        return true;
+    }
+
+    // 입력 텐서를 입력 batchSize 개로 바꾸는 메소드
+    // 모델이 배치 크기를 바꿀 수 없으면 원래대로 두고 false 를 리턴
+    // 추론과 같은 스레드에서 호출해야 하며, 입력 버퍼를 다시 만들므로 전처리 전에 호출해야 합니다.
+    public boolean setBatchSize(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("batch size must be positive");
+        }
+        if (size == batchSize) {
+            return true;
+        }
+        if (size >= unsupportedBatchSize) {
+            return false;
+        }
+        int previous = batchSize;
+        try {
+            resizeInputTensor(size, inputScale);
+            return true;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            unsupportedBatchSize = size;
+            resizeInputTensor(previous, inputScale);
+            return false;
+        }
+    }
+
+    // 기본 입력 모양에서 배치 크기와 입력 크기 비율을 바꿔서 텐서를 다시 할당하는 메소드
+    // 출력 모양도 바로 바뀌도록 allocateTensors 를 호출합니다.
+    // 다른 스레드의 전처리가 끝난 뒤에 바꾸고, 바꾼 뒤에는 그 전에 전처리한 입력을 사용하지 않도록 입력 번호를 올림
+    private void resizeInputTensor(int batch, float scale) {
+        int[] shape = baseInputShape.clone();
+        shape[0] = batch;
+        shape[1] = Math.max(1, Math.round(shape[1] * scale));
+        shape[2] = Math.max(1, Math.round(shape[2] * scale));
+        synchronized (inputLock) {
+            interpreter.resizeInput(0, shape);
+            interpreter.allocateTensors();
+            inputScale = scale;
+            initModelShape();
+            inputVersion++;
+        }
+    }
+
+    // 지연 시간 거버너가 정한 스레드 수와 입력 크기를 적용하는 메소드
+    // 바뀐 것이 없으면 아무것도 하지 않습니다.
+    public void adapt(LatencyGovernor governor) {
+        if (governor.getNumThreads() != numThreads) {
+            setNumThreads(governor.getNumThreads());
+        }
+        if (governor.getInputScale() != inputScale) {
+            setInputScale(governor.getInputScale());
+        }
+    }
 
-        // 이미지 전처리
+    // 프레임 기하 정보에 맞는 전처리 파이프라인을 리턴하는 메소드
+    // 크기와 회전은 거의 바뀌지 않으므로 캐시에 없을 때만 새로 만듭니다.
+    // 파이프라인에서는 전처리와 추론이 다른 스레드에서 실행되므로 캐시를 동기화합니다.
+    private FramePreprocessor getPreprocessor(int width, int height, int numRotation) {
+        synchronized (preprocessorCache) {
+            return getPreprocessorLocked(width, height, numRotation);
+        }
+    }
 
-        ImageProcessor imageProcessor = new ImageProcessor.Builder()
-                // 1. 이미지 확대 축소 - 정사각형인지 직사각형인지에 따라 다르므로 논문을 읽어봐야 합니다.
-                // 이미지 잡음이 들어가므로 작은 사이즈에 맞춰서 해야됨.
-                // 확대의 경우는 padding으로 옆의 데이터를 설정하므로 잡음이 확대 될수도 잇음
-                // 직사각형이면 하지 않아도 됩니다.
-                .add(new ResizeWithCropOrPadOp(cropSize, cropSize))
-                // 2. 이미지 사이즈조정
-                .add(new ResizeOp(modelInputWidth, modelInputHeight, NEAREST_NEIGHBOR))
-                // 3. 회전
-                .add(new Rot90Op(numRotation))
-                // 4. 정규화 - 전이 학습을 하는 경우는 논문을 읽어봐야 합니다.
-                .add(new NormalizeOp(0.0f, 255.0f))
-                .build();
-        return imageProcessor.process(inputImage);
+    private FramePreprocessor getPreprocessorLocked(int width, int height, int numRotation) {
+        FramePreprocessor preprocessor = preprocessorCache.get(width, height, numRotation);
+        if (preprocessor == null) {
+            // 최솟값의 크기를 찾아서 이미지를 최솟값 크기에 맞는 정사각형으로 자르고
+            // 모델 크기로 조정, 회전, 정규화(0 ~ 255 -> 0 ~ 1)
+            // 양자화 모델은 정규화하지 않은 픽셀 값을 그대로 사용
+            preprocessor = FramePreprocessor.centerCrop(width, height, numRotation,
+                    modelInputWidth, modelInputHeight,
+                    FramePreprocessor.ResizeMethod.NEAREST_NEIGHBOR, 0.0f, 255.0f,
+                    inputSpec.getType());
+            preprocessorCache.put(width, height, numRotation, preprocessor);
+        }
+        return preprocessor;
+    }
+
+    // 프레임 안의 width x height 영역에 맞는 전처리 파이프라인을 리턴하는 메소드
+    // 영역의 위치는 전처리할 때 넘기므로 크기와 회전이 같으면 위치가 달라도 재사용합니다.
+    // 영역이 정사각형이 아니면 모델 크기로 늘리거나 줄입니다.
+    private FramePreprocessor getCropPreprocessor(int width, int height, int numRotation) {
+        synchronized (preprocessorCache) {
+            FramePreprocessor preprocessor = cropCache.get(width, height, numRotation);
+            if (preprocessor == null) {
+                preprocessor = new FramePreprocessor(0, 0, width, height,
+                        numRotation, modelInputWidth, modelInputHeight,
+                        FramePreprocessor.ResizeMethod.NEAREST_NEIGHBOR, 0.0f, 255.0f,
+                        inputSpec.getType());
+                cropCache.put(width, height, numRotation, preprocessor);
+            }
+            return preprocessor;
+        }
+    }
+
+    // 비트맵을 미리 만들어 둔 입력 버퍼에 전처리해서 기록하는 메소드
+    // getPixels 는 ARGB_8888 이 아닌 비트맵도 변환해 주므로 복사본을 만들지 않습니다.
+    private void loadImage(final Bitmap bitmap, int sensorOrientation) {
+        long start = System.nanoTime();
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        if (pixelBuffer.length < width * height) {
+            pixelBuffer = new int[width * height];
+        }
+        bitmap.getPixels(pixelBuffer, 0, width, 0, 0, width, height);
+        // 회전을 처리하기 위한 설정
+        int numRotation = sensorOrientation / 90;
+        getPreprocessor(width, height, numRotation)
+                .process(pixelBuffer, width, inputBuffer, 0);
+        perfStats.record(PerfStats.Stage.PREPROCESS, System.nanoTime() - start);
     }
 
     // 추론 메소드
+    // classifyTopK 를 k = 1 로 호출하는 간단한 버전
     public Pair<String, Float> classify(Bitmap image, int sensorOrientation) {
-        // 입력데이터 생성
-        inputImage = loadImage(image, sensorOrientation);
-        
-        Object[] inputs = new Object[]{inputImage.getBuffer()};
-        Map<Integer, Object> outputs = new HashMap();
-        outputs.put(0, outputBuffer.getBuffer().rewind());
-        // 추론
-        model.run(inputs, outputs);
-        // 추론 결과를 저장
-        Map<String, Float> output =
-                new TensorLabel(labels, outputBuffer).getMapWithFloatValue();
-        // 추론 결과를 해석하는 메소드를 호출해서 리턴
-        return argmax(output);
+        classifyTopK(image, sensorOrientation, 1, -Float.MAX_VALUE, top1);
+        return toPair(top1);
+    }
+
+    // 카메라 이미지(YUV_420_888)를 비트맵으로 바꾸지 않고 바로 추론하는 메소드
+    public Pair<String, Float> classify(Image image, int sensorOrientation) {
+        classifyTopK(image, sensorOrientation, 1, -Float.MAX_VALUE, top1);
+        return toPair(top1);
+    }
+
+    // YUV 프레임을 자르기, 크기 조정, 회전, 색 변환, 정규화를 한 번에 처리해서 추론하는 메소드
+    public Pair<String, Float> classify(YuvFrame frame, int sensorOrientation) {
+        classifyTopK(frame, sensorOrientation, 1, -Float.MAX_VALUE, top1);
+        return toPair(top1);
     }
 
     // 기기 방향이 없을 때 추론하는 메소드
     public Pair<String, Float> classify(Bitmap image) {
         return classify(image, 0);
     }
-    
-    // 추론 결과 해석 메소드
-    // 추론을 하면 클래스의 레이블이 리턴되지 않고 인덱스가 리턴되므로
-    // 인덱스를 레이블로 변경하고 가장 확률이 높은 데이터만 추출
-    private Pair<String, Float> argmax(Map<String, Float> map) {
-        String maxKey = "";
-        float maxVal = -1;
-        for (Map.Entry<String, Float> entry : map.entrySet()) {
-            float f = entry.getValue();
-            if (f > maxVal) {
-                maxKey = entry.getKey();
-                maxVal = f;
+
+    // 점수가 minScore 이상인 상위 k 개의 결과를 result 에 기록하는 추론 메소드
+    // result 를 재사용하면 추론 결과를 해석할 때 할당이 없습니다.
+    public void classifyTopK(Bitmap image, int sensorOrientation, int k, float minScore,
+                             TopKResult result) {
+        setBatchSize(1);
+        // 입력데이터 생성
+        loadImage(image, sensorOrientation);
+        run(inputs, k, minScore, result);
+    }
+
+    public void classifyTopK(Image image, int sensorOrientation, int k, float minScore,
+                             TopKResult result) {
+        ImageUtils.toYuvFrame(image, yuvFrame);
+        classifyTopK(yuvFrame, sensorOrientation, k, minScore, result);
+    }
+
+    // 캐시가 있으면 프레임의 지각 해시로 비슷한 프레임의 결과를 먼저 찾고, 없을 때만 추론해서 넣음
+    public void classifyTopK(YuvFrame frame, int sensorOrientation, int k, float minScore,
+                             TopKResult result) {
+        setBatchSize(1);
+        classifyFullFrame(frame, sensorOrientation, k, minScore, result);
+    }
+
+    // 추론 결과 캐시를 정하는 메소드 (null 이면 사용하지 않음)
+    // 캐시는 YuvFrame 으로 추론할 때만 사용하며, 요청한 k 와 관계없이 캐시의 topK 개를 보관합니다.
+    public void setResultCache(ResultCache cache) {
+        if (cache != null && cachedResult.capacity() < cache.getTopK()) {
+            cachedResult = new TopKResult(cache.getTopK());
+            cacheEntry = new TopKResult(cache.getTopK());
+        }
+        resultCache = cache;
+    }
+
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    // 마지막 결과를 추론하지 않고 캐시에서 찾았는지 여부
+    public boolean isLastFromCache() {
+        return lastFromCache;
+    }
+
+    // 캐시에서 hash 와 비슷한 프레임의 결과를 찾아서 result 에 기록하는 메소드
+    // 찾으면 다음 copyScores 는 캐시의 결과로 점수를 채움
+    boolean lookupCache(ResultCache cache, long hash, int k, float minScore,
+                        TopKResult result) {
+        if (!cache.lookup(hash, System.nanoTime(), k, minScore, result)) {
+            return false;
+        }
+        cachedResult.copyFrom(result, cachedResult.capacity(), -Float.MAX_VALUE);
+        lastFromCache = true;
+        return true;
+    }
+
+    // 모델 입력 하나 크기의 버퍼를 만드는 메소드
+    // 전처리와 추론을 다른 스레드에서 할 때 프레임마다 하나씩 사용
+    public ByteBuffer allocateInputBuffer() {
+        return ByteBuffer.allocateDirect(itemInputBytes).order(ByteOrder.nativeOrder());
+    }
+
+    // YUV 프레임을 target 버퍼에 전처리만 하는 메소드
+    // 추론과 다른 스레드에서 호출해도 됩니다.
+    public void preprocess(YuvFrame frame, int sensorOrientation, ByteBuffer target) {
+        preprocess(frame, sensorOrientation, target, 0);
+    }
+
+    // 추론과 다른 스레드에서 전처리하는 메소드
+    // 입력 크기를 읽고 전처리하는 동안 입력 크기가 바뀌지 않으므로 버퍼 크기와 전처리 결과가 항상 맞고,
+    // 버퍼 크기가 지금 입력 크기와 다르면 새로 만듦
+    public void preprocess(YuvFrame frame, int sensorOrientation, PreparedInput target) {
+        synchronized (inputLock) {
+            if (target.buffer == null || target.buffer.capacity() != itemInputBytes) {
+                target.buffer = allocateInputBuffer();
             }
+            preprocess(frame, sensorOrientation, target.buffer, 0);
+            target.version = inputVersion;
+        }
+    }
+
+    // 지금 입력 크기로 전처리한 입력인지 확인하는 메소드 (추론 스레드에서 추론 전에 확인)
+    public boolean isCurrent(PreparedInput input) {
+        synchronized (inputLock) {
+            return input.version == inputVersion;
+        }
+    }
+
+    // target 의 offset 위치부터 기록하는 메소드
+    public void preprocess(YuvFrame frame, int sensorOrientation, ByteBuffer target, int offset) {
+        long start = System.nanoTime();
+        getPreprocessor(frame.getWidth(), frame.getHeight(), sensorOrientation / 90)
+                .process(frame, target, offset);
+        perfStats.record(PerfStats.Stage.PREPROCESS, System.nanoTime() - start);
+    }
+
+    // 프레임 안의 (left, top, width, height) 영역만 target 의 offset 위치부터 전처리하는 메소드
+    public void preprocessCrop(YuvFrame frame, int sensorOrientation, int left, int top,
+                               int width, int height, ByteBuffer target, int offset) {
+        long start = System.nanoTime();
+        getCropPreprocessor(width, height, sensorOrientation / 90)
+                .process(frame, left, top, target, offset);
+        perfStats.record(PerfStats.Stage.PREPROCESS, System.nanoTime() - start);
+    }
+
+    // preprocess 로 채운 버퍼로 추론하는 메소드
+    public void classifyTopK(ByteBuffer input, int k, float minScore, TopKResult result) {
+        setBatchSize(1);
+        externalInputs[0] = input;
+        run(externalInputs, k, minScore, result);
+    }
+
+    // 배치 입력 버퍼의 item 번째 자리에 프레임 전체를 전처리하는 메소드
+    // setBatchSize 로 배치 크기를 정한 뒤에 호출해야 합니다.
+    public void preprocessBatchItem(YuvFrame frame, int sensorOrientation, int item) {
+        preprocess(frame, sensorOrientation, inputBuffer, batchOffset(item));
+    }
+
+    // 배치 입력 버퍼의 item 번째 자리에 프레임의 한 영역을 전처리하는 메소드
+    public void preprocessBatchItem(YuvFrame frame, int sensorOrientation, int left, int top,
+                                    int width, int height, int item) {
+        preprocessCrop(frame, sensorOrientation, left, top, width, height, inputBuffer,
+                batchOffset(item));
+    }
+
+    private int batchOffset(int item) {
+        if (item < 0 || item >= batchSize) {
+            throw new IndexOutOfBoundsException("item " + item + ", batch size " + batchSize);
+        }
+        return item * itemInputBytes;
+    }
+
+    // 배치 입력 버퍼에 채운 count 개의 입력을 한 번에 추론하고 입력마다 상위 k 개를 results 에 기록하는 메소드
+    // count 가 배치 크기보다 작으면 남은 자리는 계산만 하고 버립니다.
+    public void classifyBatch(int count, int k, float minScore, TopKResult[] results) {
+        if (count > batchSize) {
+            throw new IllegalArgumentException("count " + count + " > batch size " + batchSize);
+        }
+        invoke(inputs);
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            readScores(i);
+            selectTopK(k, minScore, results[i]);
+        }
+        perfStats.record(PerfStats.Stage.POSTPROCESS, System.nanoTime() - start);
+    }
+
+    // 프레임에서 고른 영역(ROI)들을 원래 해상도에서 잘라 모델 크기로 추론하고 영역마다 상위 k 개를 results 에 기록하는 메소드
+    // 고른 영역이 없으면 배치 크기 1 로 프레임 전체를 추론해서 results[0] 에 기록합니다. (캐시가 있으면 먼저 찾음)
+    // 모델이 배치 크기를 바꿀 수 있으면 영역이 있는 동안 입력 텐서를 rois.getMaxRois() 크기로 두고,
+    // 영역이 적은 프레임은 남은 자리를 계산만 하고 버립니다. (프레임마다 텐서를 다시 할당하지 않음)
+    // 추적은 여러 프레임 동안 이어지므로 텐서는 영역이 생기거나 모두 없어질 때만 다시 할당됩니다.
+    // 아니면 하나씩 추론하며, 이 경우 copyBatchScores 는 사용할 수 없고 copyScores 는 마지막 영역의 점수입니다.
+    public void classifyRois(YuvFrame frame, int sensorOrientation, RoiSelector rois, int k,
+                             float minScore, TopKResult[] results) {
+        int count = rois.size();
+        if (count == 0) {
+            // 영역이 없는 가장 흔한 경우에 빈 자리까지 추론하지 않도록 배치 크기 1 로 추론
+            classifyTopK(frame, sensorOrientation, k, minScore, results[0]);
+            return;
+        }
+        if (setBatchSize(rois.getMaxRois())) {
+            for (int i = 0; i < count; i++) {
+                int size = rois.getSize(i);
+                preprocessBatchItem(frame, sensorOrientation, rois.getLeft(i), rois.getTop(i),
+                        size, size, i);
+            }
+            classifyBatch(count, k, minScore, results);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            int size = rois.getSize(i);
+            preprocessCrop(frame, sensorOrientation, rois.getLeft(i), rois.getTop(i), size, size,
+                    inputBuffer, 0);
+            run(inputs, k, minScore, results[i]);
+        }
+    }
+
+    // 지금 배치 크기를 바꾸지 않고 입력 버퍼의 첫 자리에 프레임 전체를 전처리해서 추론하는 메소드
+    private void classifyFullFrame(YuvFrame frame, int sensorOrientation, int k, float minScore,
+                                   TopKResult result) {
+        final ResultCache cache = resultCache;
+        long hash = 0;
+        if (cache != null) {
+            hash = PerceptualHash.dHash(frame);
+            if (lookupCache(cache, hash, k, minScore, result)) {
+                return;
+            }
+        }
+        preprocess(frame, sensorOrientation, inputBuffer, 0);
+        if (cache == null) {
+            run(inputs, k, minScore, result);
+            return;
+        }
+        // 다음에 더 많은 결과를 찾는 경로도 쓸 수 있도록 캐시의 topK 개를 넣고, 요청한 만큼만 돌려줌
+        run(inputs, cache.getTopK(), -Float.MAX_VALUE, cacheEntry);
+        cache.put(hash, System.nanoTime(), cacheEntry);
+        result.copyFrom(cacheEntry, k, minScore);
+    }
+
+    // 마지막 배치 추론에서 item 번째 입력의 전체 점수를 out 에 복사하는 메소드
+    public void copyBatchScores(int item, float[] out) {
+        readScores(item);
+        copyScores(out);
+    }
+
+    // 입력 버퍼로 추론하고 결과를 해석하는 메소드
+    // 입출력 배열과 맵은 미리 만들어 둔 것을 재사용
+    private void run(Object[] in, int k, float minScore, TopKResult result) {
+        invoke(in);
+        long start = System.nanoTime();
+        readScores(0);
+        selectTopK(k, minScore, result);
+        perfStats.record(PerfStats.Stage.POSTPROCESS, System.nanoTime() - start);
+    }
+
+    // 인터프리터를 한 번 실행하는 메소드
+    private void invoke(Object[] in) {
+        lastFromCache = false;
+        ((ByteBuffer) in[0]).rewind();
+        outputBuffer.rewind();
+        long start = System.nanoTime();
+        interpreter.runForMultipleInputsOutputs(in, outputs);
+        perfStats.record(PerfStats.Stage.INFERENCE, System.nanoTime() - start);
+    }
+
+    // 출력 버퍼에서 item 번째 입력의 점수를 기본형 배열로 복사하는 메소드
+    private void readScores(int item) {
+        if (outputSpec.isQuantized()) {
+            outputBuffer.position(item * numClasses);
+            outputBuffer.get(rawScores);
+        } else {
+            scoreView.position(item * numClasses);
+            scoreView.get(scores);
+        }
+    }
+
+    // 읽어 둔 점수에서 상위 k 개를 찾아 result 에 기록하는 메소드
+    // 양자화 모델은 상위 k 개의 점수만 실제 값으로 바꿈
+    private void selectTopK(int k, float minScore, TopKResult result) {
+        if (outputSpec.isQuantized()) {
+            TopKSelector.selectQuantized(rawScores, numClasses, outputSpec, k, minScore, result);
+        } else {
+            TopKSelector.select(scores, numClasses, k, minScore, result);
+        }
+        // 레이블은 결과에서 읽을 때 레이블 표에서 문자열로 만듦
+        result.labelTable = labels;
+    }
+
+    // 클래스 수
+    public int getNumClasses() {
+        return numClasses;
+    }
+
+    // 클래스 번호의 레이블 (없으면 빈 문자열)
+    public String getLabel(int index) {
+        return labels.get(index);
+    }
+
+    // 마지막 추론의 전체 점수를 out 에 복사하는 메소드
+    // 양자화 모델은 모든 클래스를 실제 값으로 바꿔서 기록합니다.
+    // 마지막 결과를 캐시에서 찾았으면 캐시에 있는 순위만 채우고 나머지는 0
+    public void copyScores(float[] out) {
+        if (lastFromCache) {
+            cachedResult.fillScores(out);
+        } else if (outputSpec.isQuantized()) {
+            for (int i = 0; i < numClasses; i++) {
+                out[i] = outputSpec.dequantize(outputSpec.rawValue(rawScores[i]));
+            }
+        } else {
+            System.arraycopy(scores, 0, out, 0, numClasses);
+        }
+    }
+
+    // 첫 프레임 전에 합성 입력으로 runs 번 추론해서 한 번만 드는 비용을 미리 치르는 메소드
+    // 메모리 할당, 커널 준비, 위임 컴파일 등은 첫 실행에서 일어납니다.
+    // 입력 버퍼를 0 으로 채우고 실행하며 회차별 시간(나노초)을 리턴
+    public long[] warmUp(int runs) {
+        long[] times = new long[Math.max(0, runs)];
+        for (int i = 0; i < inputBuffer.capacity(); i++) {
+            inputBuffer.put(i, (byte) 0);
+        }
+        for (int i = 0; i < times.length; i++) {
+            long start = System.nanoTime();
+            inputBuffer.rewind();
+            outputBuffer.rewind();
+            interpreter.runForMultipleInputsOutputs(inputs, outputs);
+            times[i] = System.nanoTime() - start;
+        }
+        return times;
+    }
+
+    // 지금 입력 버퍼의 내용(처음에는 0 으로 채워진 합성 입력)으로 추론 시간을 재는 메소드
+    // warmups 번 실행한 뒤 runs 번 실행한 평균 시간(나노초)을 리턴
+    public long benchmark(int warmups, int runs) {
+        for (int i = 0; i < warmups; i++) {
+            inputBuffer.rewind();
+            outputBuffer.rewind();
+            interpreter.runForMultipleInputsOutputs(inputs, outputs);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            inputBuffer.rewind();
+            outputBuffer.rewind();
+            interpreter.runForMultipleInputsOutputs(inputs, outputs);
+        }
+        return (System.nanoTime() - start) / Math.max(1, runs);
+    }
+
+    // 가장 확률이 높은 결과를 Pair 로 바꾸는 메소드
+    private static Pair<String, Float> toPair(TopKResult result) {
+        if (result.size() == 0) {
+            return new Pair<>("", -1f);
         }
-        return new Pair<>(maxKey, maxVal);
+        return new Pair<>(result.getLabel(0), result.getScore(0));
     }
 
     // 메모리 정리하는 메소드
     public void finish() {
-        if (model != null) {
-            model.close();
+        if (interpreter != null) {
+            interpreter = null;
             isInitialized = false;
         }
+        interpreterHolder.close();
     }
 
 }
\ No newline at end of file
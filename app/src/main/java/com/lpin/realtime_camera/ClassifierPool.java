@@ -0,0 +1,213 @@
+package com.lpin.realtime_camera;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.Locale;
+
+// 독립된 Classifier(인터프리터) 여러 개로 프레임을 동시에 추론하는 클래스
+// 카메라 이미지는 비어 있는 인스턴스의 슬롯에 복사한 뒤 바로 닫을 수 있고,
+// 결과는 프레임 번호 순서대로 전달됩니다.
+public class ClassifierPool {
+    private static final String TAG = "[IC]ClassifierPool";
+
+    // 추론 결과를 받는 인터페이스
+    // 추론 스레드에서 프레임 번호 순서대로 호출되며 result 와 scores 는 호출이 끝나면 재사용됩니다.
+    // timestampNs 는 추론한 프레임의 촬영 시각, scores 는 모든 클래스의 점수
+    public interface ResultListener {
+        void onResult(long sequence, long timestampNs, TopKResult result, float[] scores);
+    }
+
+    // 인스턴스마다 하나씩 있는 입력 슬롯
+    static class FrameSlot {
+        final YuvFrame frame = new YuvFrame();
+        int sensorOrientation;
+        // 카메라에서 프레임을 받은 시간 (전체 지연 시간 측정용)
+        long captureNs;
+    }
+
+    // 결과 보관함 하나 (상위 k 개와 전체 점수)
+    static class Result {
+        final TopKResult top;
+        final float[] scores;
+        long timestampNs;
+
+        Result(int topK, int numClasses) {
+            top = new TopKResult(topK);
+            scores = new float[numClasses];
+        }
+    }
+
+    private final Classifier[] classifiers;
+    private final InferencePool<FrameSlot, Result> pool;
+    // 지연 시간 목표에 맞춰 설정을 바꾸는 거버너 (없으면 null)
+    private volatile LatencyGovernor latencyGovernor;
+
+    // size : 인터프리터 인스턴스 수
+    // topK : 결과에 담을 상위 클래스 수
+    public ClassifierPool(Context context, int size, int topK, ResultListener listener)
+            throws IOException {
+        this(context, ClassifierOptions.defaults(), size, topK, listener);
+    }
+
+    // options : 모든 인스턴스에 같은 실행 환경을 사용
+    public ClassifierPool(Context context, ClassifierOptions options, int size, int topK,
+                          ResultListener listener) throws IOException {
+        this(createClassifiers(context, options, size), topK, listener);
+    }
+
+    // 이미 만든 분류기로 묶음을 만드는 생성자 (인스턴스 수는 분류기 수)
+    ClassifierPool(Classifier[] classifiers, int topK, ResultListener listener) {
+        this.classifiers = classifiers;
+        int size = classifiers.length;
+        pool = new InferencePool<>(size,
+                instance -> (slot, result) -> classify(classifiers[instance], slot, topK, result),
+                instance -> new FrameSlot(),
+                instance -> new Result(topK, classifiers[0].getNumClasses()),
+                (sequence, result, failed) -> {
+                    if (!failed) {
+                        listener.onResult(sequence, result.timestampNs, result.top,
+                                result.scores);
+                    }
+                });
+    }
+
+    // 인스턴스 수만큼 분류기를 만들고 초기화하는 메소드
+    // 하나라도 실패하면 만든 분류기를 정리하고 예외를 던짐
+    private static Classifier[] createClassifiers(Context context, ClassifierOptions options,
+                                                  int size) throws IOException {
+        Classifier[] classifiers = new Classifier[size];
+        try {
+            for (int i = 0; i < size; i++) {
+                classifiers[i] = new Classifier(context, options);
+                classifiers[i].init();
+            }
+        } catch (IOException e) {
+            closeClassifiers(classifiers);
+            throw e;
+        }
+        return classifiers;
+    }
+
+    // 인스턴스 하나에서 추론하고 거버너가 있으면 지연 시간을 기록하는 메소드
+    // 캐시에서 찾은 결과는 추론 시간에 넣지 않음
+    private void classify(Classifier classifier, FrameSlot slot, int topK, Result result) {
+        LatencyGovernor governor = latencyGovernor;
+        if (governor != null) {
+            classifier.adapt(governor);
+        }
+        long start = System.nanoTime();
+        classifier.classifyTopK(slot.frame, slot.sensorOrientation, topK, -Float.MAX_VALUE,
+                result.top);
+        classifier.copyScores(result.scores);
+        result.timestampNs = slot.frame.getTimestampNs();
+        if (governor != null) {
+            long end = System.nanoTime();
+            if (!classifier.isLastFromCache()) {
+                governor.recordInference(end - start);
+            }
+            if (governor.recordEndToEnd(end - slot.captureNs)) {
+                Log.d(TAG, "governor : " + governor.getLastDecision());
+            }
+        }
+    }
+
+    // 지연 시간 거버너를 설정하는 메소드
+    // 스레드 수와 입력 크기는 인스턴스마다 다음 추론 전에 적용됩니다.
+    public void setLatencyGovernor(LatencyGovernor governor) {
+        latencyGovernor = governor;
+    }
+
+    // 모든 인스턴스가 함께 사용할 추론 결과 캐시를 정하는 메소드 (null 이면 사용하지 않음)
+    // 비슷한 프레임의 결과가 있으면 인스턴스는 전처리와 추론 없이 그 결과를 전달합니다.
+    // 캐시는 동기화되어 있으므로 인스턴스끼리 결과를 나눠 씀
+    public void setResultCache(ResultCache cache) {
+        for (Classifier classifier : classifiers) {
+            classifier.setResultCache(cache);
+        }
+    }
+
+    // 모든 인스턴스에서 합성 입력으로 미리 추론하는 메소드
+    // 첫 프레임을 넘기기 전에 호출
+    public void warmUp(int runs) {
+        for (Classifier classifier : classifiers) {
+            classifier.warmUp(runs);
+        }
+    }
+
+    public int size() {
+        return pool.size();
+    }
+
+    // 비어 있는 인스턴스가 있으면 프레임을 복사해서 추론을 시작하는 메소드
+    // 모두 바쁘면 false 를 리턴 (프레임을 버림)
+    // 어느 경우든 리턴한 뒤에는 프레임을 돌려줘도(이미지를 닫아도) 됩니다.
+    // captureNs : 카메라에서 프레임을 받은 시간 (System.nanoTime 기준, 거버너의 전체 지연 시간 측정용)
+    public boolean submit(YuvFrame frame, int sensorOrientation, long captureNs) {
+        FrameSlot slot = pool.acquireInput();
+        if (slot == null) {
+            return false;
+        }
+        // 복사하다가 실패하면 예약을 취소해서 인스턴스가 예약된 채로 남지 않도록 함
+        boolean copied = false;
+        try {
+            long start = System.nanoTime();
+            slot.frame.copyFrom(frame);
+            PerfStats.global().record(PerfStats.Stage.REPACK, System.nanoTime() - start);
+            slot.sensorOrientation = sensorOrientation;
+            slot.captureNs = captureNs;
+            copied = true;
+        } finally {
+            if (!copied) {
+                pool.cancel(slot);
+            }
+        }
+        pool.submit(slot);
+        return true;
+    }
+
+    // 인스턴스 수를 정하기 위한 처리량과 인스턴스별 사용률
+    public double getThroughput() {
+        return pool.getThroughput();
+    }
+
+    public double getUtilization(int instance) {
+        return pool.getUtilization(instance);
+    }
+
+    public long getDropped() {
+        return pool.getRejected();
+    }
+
+    public long getCompleted() {
+        return pool.getCompleted();
+    }
+
+    public String getStats() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ENGLISH, "pool(%d) %.1f fps, dropped %d, util [",
+                pool.size(), pool.getThroughput(), pool.getRejected()));
+        for (int i = 0; i < pool.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(String.format(Locale.ENGLISH, "%.0f%%", pool.getUtilization(i) * 100));
+        }
+        return sb.append(']').toString();
+    }
+
+    // 진행 중인 추론이 끝나기를 기다리고 메모리를 정리하는 메소드
+    public void close() {
+        pool.shutdown();
+        closeClassifiers(classifiers);
+    }
+
+    private static void closeClassifiers(Classifier[] classifiers) {
+        for (Classifier classifier : classifiers) {
+            if (classifier != null) {
+                classifier.finish();
+            }
+        }
+    }
+}
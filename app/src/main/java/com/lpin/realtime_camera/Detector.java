@@ -0,0 +1,339 @@
+package com.lpin.realtime_camera;
+
+import android.content.Context;
+import android.util.Size;
+
+import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+// SSD, YOLO 형태의 TFLite 검출 모델을 실행하는 클래스
+// 출력 텐서의 수와 모양으로 출력 형식을 정하고, 상자와 점수를 미리 만든 기본형 배열로 읽어서
+// BoxDecoder 로 상자를 풀고 NonMaxSuppression 으로 겹치는 상자를 제거합니다.
+// 프레임마다 새로 할당하는 객체가 없고, 한 스레드에서만 사용합니다.
+public class Detector {
+    // 검출 모델과 레이블 파일의 이름
+    public static final String DEFAULT_MODEL_PATH = "detect.tflite";
+    private static final String LABEL_FILE = "detect_labels.txt";
+    // TFLite 예제 레이블 파일의 첫 줄 (배경 자리)
+    private static final String BACKGROUND_LABEL = "???";
+    // 기본 점수 임계값, IoU 임계값
+    public static final float DEFAULT_MIN_SCORE = 0.5f;
+    public static final float DEFAULT_IOU_THRESHOLD = 0.5f;
+
+    // 모델 출력 형식
+    public enum OutputFormat {
+        // TFLite_Detection_PostProcess 를 포함한 SSD
+        // 상자 [1, N, 4] (ymin, xmin, ymax, xmax), 클래스 [1, N], 점수 [1, N], 개수 [1]
+        SSD_POSTPROCESSED,
+        // 후처리가 없는 SSD
+        // 상자 [1, N, 4] (ty, tx, th, tw, 앵커 기준), 클래스 로짓 [1, N, C] (클래스 0 은 배경)
+        SSD_RAW,
+        // YOLO (v5) : [1, N, 5 + C] (cx, cy, w, h 는 0~1, objectness, 클래스 점수)
+        YOLO
+    }
+
+    private final Context context;
+
+    private Interpreter interpreter;
+    // 인터프리터와 위임을 만들고 정리하는 객체 (Classifier 와 같은 방법으로 위임을 고름)
+    private final InterpreterHolder interpreterHolder;
+    private OutputFormat format;
+
+    // 입력 (모델 입력 크기, 자료형, 재사용하는 버퍼와 전처리기)
+    private int inputWidth, inputHeight;
+    private TensorSpec inputSpec;
+    private ByteBuffer inputBuffer;
+    private Object[] inputs;
+    private FramePreprocessor preprocessor;
+
+    // 출력 텐서와 float 로 읽은 값 (출력 순서)
+    private ByteBuffer[] outputBuffers;
+    // float 출력을 읽기 위한 view (양자화 출력은 null)
+    private FloatBuffer[] outputViews;
+    private TensorSpec[] outputSpecs;
+    private float[][] outputValues;
+    private final Map<Integer, Object> outputs = new HashMap<>();
+    // 형식별로 사용하는 출력 번호
+    private int boxOutput, classOutput, scoreOutput, countOutput;
+
+    // 상자 수, 클래스 수 (배경 제외)
+    private int numBoxes, numClasses;
+    // SSD_RAW 의 앵커 (중심 y, 중심 x, 높이, 너비)
+    private float[] anchors;
+    // 풀어 낸 상자 (left, top, right, bottom)
+    private float[] boxes;
+    private final NonMaxSuppression nms = new NonMaxSuppression(DEFAULT_IOU_THRESHOLD);
+    private float minScore = DEFAULT_MIN_SCORE;
+
+    // 레이블 (없으면 null), 클래스 0 의 레이블 위치
+    private LabelTable labels;
+    private int labelOffset;
+    private boolean isInitialized = false;
+
+    // 단계별 지연 시간 기록
+    private final PerfStats perfStats = PerfStats.global();
+
+    // options 의 모델 경로 대신 DEFAULT_MODEL_PATH 를 사용하려면 toBuilder 로 바꿔서 넘김
+    public Detector(Context context, ClassifierOptions options) {
+        this.context = context;
+        interpreterHolder = new InterpreterHolder(context, options);
+    }
+
+    // 초기화 메소드
+    public void init() throws IOException {
+        interpreter = interpreterHolder.open();
+        try {
+            initInput();
+            initOutputs();
+        } catch (RuntimeException e) {
+            finish();
+            throw e;
+        }
+        try {
+            labels = Classifier.loadLabels(context, LABEL_FILE);
+            labelOffset = labels.size() > 0 && BACKGROUND_LABEL.equals(labels.get(0)) ? 1 : 0;
+        } catch (IOException e) {
+            // 레이블 파일이 없으면 클래스 번호만 사용
+            labels = null;
+        }
+        isInitialized = true;
+    }
+
+    public boolean isInitialized() {
+        return isInitialized;
+    }
+
+    // 입력 모양 ([1, 높이, 너비, 3]) 을 읽는 메소드
+    private void initInput() {
+        Tensor inputTensor = interpreter.getInputTensor(0);
+        int[] shape = inputTensor.shape();
+        inputHeight = shape[1];
+        inputWidth = shape[2];
+        inputSpec = Classifier.toTensorSpec(inputTensor);
+        inputBuffer = ByteBuffer.allocateDirect(inputTensor.numBytes())
+                .order(ByteOrder.nativeOrder());
+        inputs = new Object[]{inputBuffer};
+    }
+
+    // 출력 텐서의 수와 모양으로 형식을 정하고 출력 버퍼를 만드는 메소드
+    private void initOutputs() {
+        int count = interpreter.getOutputTensorCount();
+        outputBuffers = new ByteBuffer[count];
+        outputViews = new FloatBuffer[count];
+        outputSpecs = new TensorSpec[count];
+        outputValues = new float[count][];
+        for (int i = 0; i < count; i++) {
+            Tensor tensor = interpreter.getOutputTensor(i);
+            outputSpecs[i] = Classifier.toTensorSpec(tensor);
+            outputBuffers[i] = ByteBuffer.allocateDirect(tensor.numBytes())
+                    .order(ByteOrder.nativeOrder());
+            outputValues[i] = new float[tensor.numElements()];
+            if (!outputSpecs[i].isQuantized()) {
+                outputViews[i] = outputBuffers[i].asFloatBuffer();
+            }
+            outputs.put(i, outputBuffers[i]);
+        }
+
+        if (count == 4) {
+            // TF1 로 만든 모델은 상자, 클래스, 점수, 개수 순서
+            // TF2 로 만든 모델은 점수, 상자, 개수, 클래스 순서
+            format = OutputFormat.SSD_POSTPROCESSED;
+            if (isBoxTensor(interpreter.getOutputTensor(0))) {
+                boxOutput = 0;
+                classOutput = 1;
+                scoreOutput = 2;
+                countOutput = 3;
+            } else {
+                scoreOutput = 0;
+                boxOutput = 1;
+                countOutput = 2;
+                classOutput = 3;
+            }
+            numBoxes = interpreter.getOutputTensor(scoreOutput).numElements();
+            // 출력에 클래스 수가 없음
+            numClasses = 0;
+        } else if (count == 2) {
+            format = OutputFormat.SSD_RAW;
+            boxOutput = isBoxTensor(interpreter.getOutputTensor(0)) ? 0 : 1;
+            scoreOutput = 1 - boxOutput;
+            int[] scoreShape = interpreter.getOutputTensor(scoreOutput).shape();
+            numBoxes = scoreShape[1];
+            numClasses = scoreShape[2] - 1;
+            anchors = BoxDecoder.ssdAnchors(inputHeight);
+            if (anchors.length != 4 * numBoxes) {
+                throw new IllegalStateException("unsupported anchor layout : " + numBoxes
+                        + " boxes, expected " + anchors.length / 4);
+            }
+        } else if (count == 1) {
+            format = OutputFormat.YOLO;
+            int[] shape = interpreter.getOutputTensor(0).shape();
+            numBoxes = shape[1];
+            numClasses = shape[2] - 5;
+            boxOutput = scoreOutput = 0;
+        } else {
+            throw new IllegalStateException("unsupported detection outputs : " + count);
+        }
+        boxes = new float[4 * numBoxes];
+    }
+
+    // [1, N, 4] 모양인지 확인하는 메소드
+    private static boolean isBoxTensor(Tensor tensor) {
+        int[] shape = tensor.shape();
+        return shape.length == 3 && shape[2] == 4;
+    }
+
+    public OutputFormat getOutputFormat() {
+        return format;
+    }
+
+    public Size getModelInputSize() {
+        if (!isInitialized) {
+            return new Size(0, 0);
+        }
+        return new Size(inputWidth, inputHeight);
+    }
+
+    public int getNumBoxes() {
+        return numBoxes;
+    }
+
+    // 결과에 남길 최소 점수
+    public void setMinScore(float minScore) {
+        if (!(minScore >= 0)) {
+            throw new IllegalArgumentException("minScore must not be negative");
+        }
+        this.minScore = minScore;
+    }
+
+    // 같은 클래스의 상자를 하나로 볼 IoU
+    public void setIouThreshold(float iouThreshold) {
+        nms.setIouThreshold(iouThreshold);
+    }
+
+    // 클래스 번호의 레이블 (레이블 파일이 없으면 빈 문자열)
+    public String getLabel(int classIndex) {
+        return labels != null ? labels.get(classIndex + labelOffset) : "";
+    }
+
+    // 프레임 전체를 회전하고 모델 입력 크기로 늘려서 검출하는 메소드
+    // 결과 상자는 회전한 프레임 기준 0~1 좌표이고, 점수가 높은 순서로 최대 out.capacity() 개
+    public void detect(YuvFrame frame, int sensorOrientation, DetectionResult out) {
+        long start = System.nanoTime();
+        int numRotation = sensorOrientation / 90;
+        if (preprocessor == null
+                || !preprocessor.matches(0, 0, frame.width, frame.height, numRotation)) {
+            preprocessor = createPreprocessor(frame.width, frame.height, numRotation);
+        }
+        preprocessor.process(frame, inputBuffer, 0);
+        perfStats.record(PerfStats.Stage.PREPROCESS, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        invoke();
+        perfStats.record(PerfStats.Stage.INFERENCE, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        readOutputs();
+        decode(out);
+        out.labelTable = labels;
+        out.labelOffset = labelOffset;
+        perfStats.record(PerfStats.Stage.POSTPROCESS, System.nanoTime() - start);
+    }
+
+    // SSD 는 -1~1, YOLO 는 0~1 로 정규화 (양자화 모델은 픽셀 값을 그대로 사용)
+    private FramePreprocessor createPreprocessor(int width, int height, int numRotation) {
+        float mean = format == OutputFormat.YOLO ? 0.0f : 127.5f;
+        float std = format == OutputFormat.YOLO ? 255.0f : 127.5f;
+        return new FramePreprocessor(0, 0, width, height, numRotation, inputWidth, inputHeight,
+                FramePreprocessor.ResizeMethod.BILINEAR, mean, std, inputSpec.getType());
+    }
+
+    private void invoke() {
+        inputBuffer.rewind();
+        for (ByteBuffer buffer : outputBuffers) {
+            buffer.rewind();
+        }
+        interpreter.runForMultipleInputsOutputs(inputs, outputs);
+    }
+
+    // 출력 텐서를 float 배열로 읽는 메소드 (양자화 출력은 실제 값으로 바꿈)
+    private void readOutputs() {
+        for (int i = 0; i < outputBuffers.length; i++) {
+            float[] values = outputValues[i];
+            FloatBuffer view = outputViews[i];
+            if (view != null) {
+                view.rewind();
+                view.get(values);
+            } else {
+                ByteBuffer buffer = outputBuffers[i];
+                TensorSpec spec = outputSpecs[i];
+                for (int j = 0; j < values.length; j++) {
+                    values[j] = spec.dequantize(spec.rawValue(buffer.get(j)));
+                }
+            }
+        }
+    }
+
+    // 형식에 맞게 상자를 풀고 겹치는 상자를 제거해서 out 에 기록하는 메소드
+    private void decode(DetectionResult out) {
+        switch (format) {
+            case SSD_POSTPROCESSED: {
+                // 모델 안에서 NMS 까지 끝났으므로 점수 임계값만 적용
+                int count = Math.min(numBoxes, (int) outputValues[countOutput][0]);
+                BoxDecoder.decodeCorners(outputValues[boxOutput], count, boxes);
+                float[] classes = outputValues[classOutput];
+                float[] scores = outputValues[scoreOutput];
+                out.clear();
+                for (int i = 0; i < count && !out.isFull(); i++) {
+                    if (scores[i] > minScore) {
+                        int b = 4 * i;
+                        out.add(boxes[b], boxes[b + 1], boxes[b + 2], boxes[b + 3],
+                                (int) classes[i], scores[i]);
+                    }
+                }
+                break;
+            }
+            case SSD_RAW:
+                BoxDecoder.decodeSsd(outputValues[boxOutput], anchors, numBoxes, boxes);
+                nms.reset();
+                nms.addLogits(outputValues[scoreOutput], numBoxes, numClasses + 1, 1, minScore);
+                nms.run(boxes, out);
+                break;
+            case YOLO:
+            default: {
+                float[] rows = outputValues[0];
+                int stride = 5 + numClasses;
+                BoxDecoder.decodeCenterSize(rows, stride, numBoxes, 1, 1, boxes);
+                nms.reset();
+                nms.addYolo(rows, stride, numBoxes, numClasses, minScore);
+                nms.run(boxes, out);
+                break;
+            }
+        }
+    }
+
+    // 첫 프레임 전에 합성 입력으로 runs 번 추론해서 한 번만 드는 비용을 미리 치르는 메소드
+    public void warmUp(int runs) {
+        for (int i = 0; i < inputBuffer.capacity(); i++) {
+            inputBuffer.put(i, (byte) 0);
+        }
+        for (int i = 0; i < runs; i++) {
+            invoke();
+        }
+    }
+
+    // 메모리 정리하는 메소드
+    public void finish() {
+        if (interpreter != null) {
+            interpreter = null;
+            isInitialized = false;
+        }
+        interpreterHolder.close();
+    }
+}
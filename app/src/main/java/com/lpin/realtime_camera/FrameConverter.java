@@ -0,0 +1,29 @@
+package com.lpin.realtime_camera;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+
+// 카메라 프레임(YUV_420_888)을 비트맵으로 바꾸는 변환기의 공통 인터페이스
+// 실행 중에 RenderScript 와 순수 자바 변환기 중 하나를 선택할 수 있습니다.
+public interface FrameConverter {
+    // 변환기 종류
+    enum Backend {
+        RENDERSCRIPT,
+        JAVA
+    }
+
+    void yuvToRgb(YuvFrame frame, Bitmap output);
+
+    void release();
+
+    // 종류에 맞는 변환기를 생성해서 리턴하는 팩토리 메소드
+    static FrameConverter create(Context context, Backend backend) {
+        switch (backend) {
+            case JAVA:
+                return new JavaYuvToRGBConverter();
+            case RENDERSCRIPT:
+            default:
+                return new YuvToRGBConverter(context);
+        }
+    }
+}
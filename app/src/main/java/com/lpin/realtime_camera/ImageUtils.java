@@ -0,0 +1,24 @@
+package com.lpin.realtime_camera;
+
+import android.graphics.ImageFormat;
+import android.graphics.Rect;
+import android.media.Image;
+
+// android.media.Image 를 순수 자바 클래스에서 사용할 수 있는 형태로 바꾸는 메소드 모음
+public class ImageUtils {
+    private ImageUtils() {
+    }
+
+    // Image 의 평면 버퍼를 복사하지 않고 YuvFrame 에 연결하는 메소드
+    public static void toYuvFrame(Image image, YuvFrame frame) {
+        assert image.getFormat() == ImageFormat.YUV_420_888;
+        Image.Plane[] planes = image.getPlanes();
+        Rect crop = image.getCropRect();
+        frame.setPlanes(
+                planes[0].getBuffer(), planes[0].getRowStride(), planes[0].getPixelStride(),
+                planes[1].getBuffer(), planes[2].getBuffer(),
+                planes[1].getRowStride(), planes[1].getPixelStride());
+        frame.setCrop(crop.left, crop.top, crop.width(), crop.height());
+        frame.timestampNs = image.getTimestamp();
+    }
+}
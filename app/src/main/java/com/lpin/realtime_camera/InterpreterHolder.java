@@ -0,0 +1,105 @@
+package com.lpin.realtime_camera;
+
+import android.content.Context;
+
+import org.tensorflow.lite.Delegate;
+import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.support.common.FileUtil;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+
+// 실행 환경 설정에 맞게 TFLite 인터프리터와 위임을 만들고 정리하는 클래스
+// Classifier 와 Detector 가 같은 방법으로 위임(NNAPI, GPU, XNNPACK)을 고르고
+// 인터프리터를 만들지 못했을 때 위임을 정리하도록 함께 사용합니다.
+class InterpreterHolder {
+    // GPU 위임 클래스 (tensorflow-lite-gpu 가 있을 때만 사용)
+    private static final String GPU_DELEGATE_CLASS = "org.tensorflow.lite.gpu.GpuDelegate";
+
+    private final Context context;
+    private final ClassifierOptions options;
+    // 메모리에 매핑한 모델 (인터프리터를 다시 만들 때 파일을 다시 읽지 않음)
+    private MappedByteBuffer model;
+    private Interpreter interpreter;
+    // 사용 중인 위임 (없으면 null)
+    private Delegate delegate;
+
+    InterpreterHolder(Context context, ClassifierOptions options) {
+        this.context = context;
+        this.options = options;
+    }
+
+    // 설정에 맞게 인터프리터를 만드는 메소드
+    // 만들지 못하면 위임을 정리하고 예외를 그대로 던짐
+    Interpreter open() throws IOException {
+        model = FileUtil.loadMappedFile(context, options.getModelPath());
+        return create(options.getNumThreads());
+    }
+
+    // 지금 인터프리터와 위임을 정리하고 스레드 수만 바꿔서 다시 만드는 메소드
+    // 스레드 수는 인터프리터를 만들 때만 정할 수 있음 (Interpreter.setNumThreads 는 deprecated)
+    // 입력 모양은 모델의 기본 모양으로 돌아가므로 호출한 쪽에서 다시 바꿔야 합니다.
+    Interpreter reopen(int numThreads) {
+        close();
+        return create(numThreads);
+    }
+
+    private Interpreter create(int numThreads) {
+        Interpreter.Options interpreterOptions = new Interpreter.Options();
+        if (numThreads > 0) {
+            interpreterOptions.setNumThreads(numThreads);
+        }
+        interpreterOptions.setUseXNNPACK(options.isUseXnnpack());
+        switch (options.getDelegate()) {
+            case NNAPI:
+                interpreterOptions.setUseNNAPI(true);
+                break;
+            case GPU:
+                delegate = createGpuDelegate();
+                interpreterOptions.addDelegate(delegate);
+                break;
+            case CPU:
+            default:
+                break;
+        }
+        try {
+            interpreter = new Interpreter(model, interpreterOptions);
+            return interpreter;
+        } catch (RuntimeException e) {
+            closeDelegate();
+            throw e;
+        }
+    }
+
+    // GPU 위임은 라이브러리가 있을 때만 만들 수 있으므로 리플렉션으로 생성
+    // 생성자에서 난 예외도 InvocationTargetException 으로 감싸져서 함께 처리됨
+    static Delegate createGpuDelegate() {
+        try {
+            return (Delegate) Class.forName(GPU_DELEGATE_CLASS).getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("GPU delegate is not available", e);
+        }
+    }
+
+    private void closeDelegate() {
+        if (delegate instanceof Closeable) {
+            try {
+                ((Closeable) delegate).close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        delegate = null;
+    }
+
+    // 인터프리터와 위임을 정리하는 메소드
+    void close() {
+        if (interpreter != null) {
+            interpreter.close();
+            interpreter = null;
+        }
+        closeDelegate();
+    }
+}
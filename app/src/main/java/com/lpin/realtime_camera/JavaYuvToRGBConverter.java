@@ -0,0 +1,34 @@
+package com.lpin.realtime_camera;
+
+import android.graphics.Bitmap;
+
+// FixedPointYuvConverter 를 사용하는 변환기
+// RenderScript 를 사용하지 않으므로 deprecated API 에 의존하지 않습니다.
+public class JavaYuvToRGBConverter implements FrameConverter {
+    private final FixedPointYuvConverter converter = new FixedPointYuvConverter();
+    // 프레임 사이에 재사용하는 변수
+    private final YuvFrame frame = new YuvFrame();
+    private int[] argbBuffer = new int[0];
+
+    @Override
+    public synchronized void yuvToRgb(YuvFrame source, Bitmap output) {
+        // 자르기 영역을 비트맵 크기에 맞추기 위해 원본 대신 평면을 같이 쓰는 프레임을 사용
+        frame.setPlanes(source.yPlane, source.yRowStride, source.yPixelStride,
+                source.uPlane, source.vPlane, source.uvRowStride, source.uvPixelStride);
+        int width = Math.min(source.width, output.getWidth());
+        int height = Math.min(source.height, output.getHeight());
+        frame.setCrop(source.cropLeft, source.cropTop, width, height);
+        // 자르기 크기가 커진 경우에만 배열을 다시 만듭니다.
+        if (argbBuffer.length < width * height) {
+            argbBuffer = new int[width * height];
+        }
+        converter.convert(frame, argbBuffer);
+        output.setPixels(argbBuffer, 0, width, 0, 0, width, height);
+    }
+
+    @Override
+    public synchronized void release() {
+        converter.release();
+        argbBuffer = new int[0];
+    }
+}
@@ -12,34 +12,228 @@ import android.graphics.Bitmap;
 import android.hardware.camera2.CameraAccessException;
 import android.hardware.camera2.CameraCharacteristics;
 import android.hardware.camera2.CameraManager;
-import android.media.Image;
-import android.media.ImageReader;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
 import android.util.Log;
-import android.util.Pair;
 import android.util.Size;
 import android.view.Surface;
+import android.view.View;
 import android.view.WindowManager;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class MainActivity extends AppCompatActivity {
     public static final String TAG = "[IC]MainActivity";
 
+    // 카메라 스레드에서 추론 스레드로 넘기는 프레임
+    // YUV 복사본이나 변환한 비트맵을 가지고 있으므로 넘긴 뒤에는 이미지를 바로 닫을 수 있음
+    static class CameraFrame {
+        final YuvFrame yuv = new YuvFrame();
+        Bitmap bitmap;
+        boolean fused;
+        int sensorOrientation;
+        // 카메라에서 받은 시간 (전체 지연 시간 측정용)
+        long captureNs;
+        // 촬영 시각 (녹화 파일에 결과를 남기기 위해 사용)
+        long timestampNs;
+    }
+
+    // 전처리 -> 추론 -> 결과 표시 파이프라인에서 단계 사이를 오가는 프레임
+    static class PipelineFrame {
+        final YuvFrame yuv = new YuvFrame();
+        int sensorOrientation;
+        // 전처리한 모델 입력 (버퍼는 처음 사용할 때와 입력 크기가 바뀌었을 때 만듦)
+        final Classifier.PreparedInput input = new Classifier.PreparedInput();
+        // 캐시에 넣을 수 있도록 RESULT_CACHE_TOP_K 개를 보관 (표시와 기록에는 첫 번째만 사용)
+        final TopKResult result = new TopKResult(RESULT_CACHE_TOP_K);
+        // 전체 점수 (처음 사용할 때 만듦)
+        float[] scores;
+        // 카메라에서 받은 시간 (전체 지연 시간 측정용)
+        long captureNs;
+        // 프레임의 지각 해시와 결과를 캐시에서 찾았는지 여부 (찾았으면 전처리와 추론을 건너뜀)
+        long hash;
+        boolean cached;
+    }
+
     //카메라 사용 권한을 위한 변수
     private static final String CAMERA_PERMISSION = Manifest.permission.CAMERA;
     //사용 권한을 요청하고 구분하기 위한 변수
     private static final int PERMISSION_REQUEST_CODE = 1;
+    // 분류 프레임을 넘기는 경로 (검출기나 모델 묶음이 없을 때)
+    // 기본은 전처리, 추론, 결과 표시를 겹쳐서 실행하는 파이프라인입니다.
+    // USE_INFERENCE_POOL 이면 인터프리터 여러 개로 동시에 추론하는 분류기 묶음을,
+    // USE_BATCHING 이면 여러 프레임을 모아서 한 번에 추론하는 배처를 파이프라인 대신 사용
+    private static final boolean USE_INFERENCE_POOL = false;
+    // 분류기 묶음에서 동시에 추론할 인터프리터 수 (1 이면 분류기 묶음을 만들지 않음)
+    private static final int INFERENCE_POOL_SIZE = InferencePool.defaultSize();
+    // 분류기 묶음의 통계를 출력할 간격 (프레임 수)
+    private static final int POOL_STATS_INTERVAL = 100;
+    // 파이프라인 단계마다 처리를 기다릴 수 있는 프레임 수
+    private static final int PIPELINE_DEPTH = 1;
+    // 분류기 묶음이 없을 때 파이프라인 대신 여러 프레임을 모아서 한 번에 추론할지 여부
+    private static final boolean USE_BATCHING = false;
+    // 한 번에 추론할 최대 프레임 수와 묶음의 첫 프레임이 기다릴 수 있는 시간
+    private static final int MAX_BATCH_SIZE = 4;
+    private static final long BATCH_FLUSH_TIMEOUT_MS = 30;
+    // 입력 텐서에 사용할 배치 크기와, 더 작은 크기로 줄이기 전에 연속으로 작아야 하는 묶음 수
+    private static final int[] BATCH_TENSOR_SIZES = {1, 2, MAX_BATCH_SIZE};
+    private static final int BATCH_SHRINK_AFTER = 8;
+    // 카메라 프레임을 받은 때부터 결과가 나올 때까지 걸리는 시간의 p95 목표
+    private static final long LATENCY_TARGET_MS = 100;
+    // 입력 크기를 바꿀 수 있는 모델에서 사용할 입력 크기 비율
+    private static final float[] INPUT_SCALE_LEVELS = {1.0f, 0.75f, 0.5f};
+    // 장면이 바뀌었는지 비교할 밝기 썸네일 크기
+    private static final int SCENE_THUMBNAIL_COLUMNS = 16;
+    private static final int SCENE_THUMBNAIL_ROWS = 12;
+    // 썸네일 블록 밝기가 평균적으로 이만큼(0 ~ 255) 바뀌어야 다시 추론
+    private static final float SCENE_CHANGE_THRESHOLD = 6.0f;
+    // 장면이 그대로여도 다시 추론하는 간격
+    private static final long SCENE_REFRESH_MS = 2000;
+    // 결과를 정할 때 평균을 내는 최근 프레임 수
+    private static final int SMOOTHING_FRAMES = 5;
+    // 단계별 지연 시간 오버레이를 보여 줄지 여부
+    private static final boolean SHOW_PERF_OVERLAY = false;
+    // 오버레이를 갱신하는 간격
+    private static final long PERF_OVERLAY_INTERVAL_MS = 500;
+    // 앱 전용 폴더에 이 이름의 녹화 파일이 있으면 카메라 대신 반복 재생
+    private static final String REPLAY_FILE_NAME = "replay.yuv";
+    // 녹화 파일을 재생하는 속도
+    private static final ReplayFrameSource.Pacing REPLAY_PACING =
+            ReplayFrameSource.Pacing.REAL_TIME;
+    // 카메라 프레임과 추론 결과를 앱 전용 폴더에 녹화할지 여부
+    private static final boolean RECORD_FRAMES = false;
+    private static final String RECORD_FILE_NAME = "record.yuv";
+    // 녹화 파일에 남길 최근 시간 (초) 과 그 시간 동안의 예상 프레임 수
+    private static final int RECORD_SECONDS = 10;
+    private static final int RECORD_FPS = 30;
+    // 첫 프레임 전에 합성 입력으로 미리 추론할 횟수 (0 이면 미리 추론하지 않음)
+    private static final int WARMUP_RUNS = 3;
+    // 검출 모델이 있을 때 한 프레임에서 표시할 최대 물체 수
+    private static final int MAX_DETECTIONS = 10;
+    // 검출 모델을 실행하는 키프레임 간격 K 의 범위
+    private static final int MIN_KEYFRAME_INTERVAL = 1;
+    private static final int MAX_KEYFRAME_INTERVAL = 10;
+    // 키프레임에서 추적기의 예측 오차(중심 거리 / 상자 크기)가 LOW 보다 작으면 K 를 늘리고 HIGH 보다 크면 줄임
+    private static final float TRACK_ERROR_LOW = 0.05f;
+    private static final float TRACK_ERROR_HIGH = 0.2f;
+    // 검출기가 있을 때 추적 상자 주변을 원래 해상도의 프레임에서 잘라서 분류할지 여부 (ROI 모드)
+    // 추적 중인 물체가 없으면 프레임 전체를 분류
+    private static final boolean USE_ROI_CLASSIFICATION = true;
+    // 한 프레임에서 분류할 최대 영역 수와 상자 둘레에 더할 여백 비율
+    private static final int MAX_ROIS_PER_FRAME = 3;
+    private static final float ROI_MARGIN = 0.15f;
+    // 첫 모델의 결과가 확실하지 않을 때 차례로 실행할 더 큰 모델 파일 (레이블이 같아야 하며 없는 파일은 건너뜀)
+    private static final String[] CASCADE_MODEL_PATHS = {"model_large.tflite"};
+    // 1 순위 점수가 CASCADE_MIN_CONFIDENCE 보다 작거나 1, 2 순위 차이가 CASCADE_MIN_MARGIN 보다 작으면 다음 모델로 넘김
+    private static final float CASCADE_MIN_CONFIDENCE = 0.6f;
+    private static final float CASCADE_MIN_MARGIN = 0.2f;
+    // 카메라가 같은 곳을 다시 비출 때 지각 해시가 비슷한 프레임의 결과를 추론 없이 다시 사용할지 여부
+    private static final boolean USE_RESULT_CACHE = true;
+    // 캐시의 최대 항목 수와 메모리 상한 (byte), 항목마다 보관할 결과 수
+    private static final int RESULT_CACHE_ENTRIES = 256;
+    private static final long RESULT_CACHE_MAX_BYTES = 64 * 1024;
+    private static final int RESULT_CACHE_TOP_K = 5;
+    // 같은 장면으로 볼 최대 해밍 거리 (64 비트 중)와 결과의 수명
+    private static final int RESULT_CACHE_MAX_DISTANCE = 6;
+    private static final long RESULT_CACHE_TTL_MS = 3000;
 
     //결과를 출력할 텍스트 뷰
     private TextView textView;
-    //분류기
-    private Classifier cls;
+    // 단계별 지연 시간을 출력할 텍스트 뷰 (누르면 파일로 저장)
+    private TextView perfOverlay;
+    // 단계별 지연 시간 기록
+    private final PerfStats perfStats = PerfStats.global();
+    // 오버레이를 주기적으로 갱신하는 작업
+    private final Runnable perfOverlayUpdater = new Runnable() {
+        @Override
+        public void run() {
+            perfOverlay.setText(perfStats.summary() + "\n" + startupTimeline.summary());
+            if (detector != null) {
+                updateTrackingStatus();
+            }
+            if (modelCascade != null) {
+                perfOverlay.append("\n" + modelCascade.getPolicy().summary());
+            }
+            if (resultCache != null) {
+                perfOverlay.append("\n" + resultCache.summary());
+            }
+            perfOverlay.append("\n" + dropSummary());
+            perfOverlay.postDelayed(this, PERF_OVERLAY_INTERVAL_MS);
+        }
+    };
+    //분류기 (실행 환경을 정한 뒤 초기화 스레드에서 만듦)
+    private volatile Classifier cls;
+    // 모델 읽기와 미리 추론을 UI 스레드 밖에서 실행하는 스레드
+    // 분류기 정리도 이 스레드에서 해서 진행 중인 초기화가 끝난 뒤에 일어나도록 함
+    private final ExecutorService initExecutor = Executors.newSingleThreadExecutor(
+            r -> new Thread(r, "ClassifierInit"));
+    // 초기화 결과를 UI 스레드에서 처리하기 위한 Executor
+    private final Executor uiExecutor = this::runOnUiThread;
+    // 모델을 읽고 미리 추론까지 마쳐서 프레임을 추론에 넘겨도 되는지 여부
+    // 그 전에 들어온 프레임은 바로 돌려줌
+    private volatile boolean isModelReady = false;
+    // 모델을 읽었는지 여부 (UI 스레드에서만 사용, 카메라 설정에 모델 입력 크기가 필요)
+    private boolean isModelLoaded = false;
+    // onResume 과 onPause 사이인지 여부
+    private boolean isResumed = false;
+    // 프로세스 시작부터 첫 결과까지의 단계별 시각
+    private StartupTimeline startupTimeline;
+    // 작은 모델부터 차례로 실행하는 분류 모델 묶음 (더 큰 모델 파일이 있을 때만 만들고, 첫 모델은 cls)
+    private volatile ModelCascade modelCascade;
+    // 지각 해시가 비슷한 프레임의 분류 결과를 다시 사용하는 캐시 (USE_RESULT_CACHE 일 때만 만듦)
+    private volatile ResultCache resultCache;
+    // 물체 검출기 (검출 모델 파일이 있을 때만 만들고, 있으면 분류 대신 검출과 추적을 실행)
+    private volatile Detector detector;
+    // 키프레임의 검출 결과를 다음 키프레임까지 이어 주는 추적기
+    private final ObjectTracker objectTracker = ObjectTracker.create(MAX_DETECTIONS);
+    // 추적기의 예측 오차에 맞춰 키프레임 간격을 정하는 스케줄러
+    private final KeyframeScheduler keyframeScheduler = new KeyframeScheduler(
+            MIN_KEYFRAME_INTERVAL, MAX_KEYFRAME_INTERVAL, TRACK_ERROR_LOW, TRACK_ERROR_HIGH);
+    // 검출 스레드에 넘기는 키프레임과 검출 결과 (isDetecting 이 true 인 동안은 검출 스레드만 사용)
+    private final YuvFrame keyframe = new YuvFrame();
+    private int keyframeOrientation;
+    private final DetectionResult detectionResult = new DetectionResult(MAX_DETECTIONS);
+    // 키프레임 검출이 진행 중인지 여부
+    private final AtomicBoolean isDetecting = new AtomicBoolean(false);
+    // 모든 프레임에서 추적기로 옮긴 상자 (카메라 스레드에서만 사용)
+    private final DetectionResult trackedResult = new DetectionResult(MAX_DETECTIONS);
+    // 추적 상자를 그리는 뷰
+    private BoxOverlayView boxOverlay;
+    // 분류할 영역을 고르는 선택기 (모델을 읽은 뒤 만들고, isClassifyingRoi 가 true 인 동안은 추론 스레드만 사용)
+    private RoiSelector roiSelector;
+    // ROI 분류 스레드에 넘기는 프레임과 영역마다의 결과
+    private final YuvFrame roiFrame = new YuvFrame();
+    private int roiOrientation;
+    private final TopKResult[] roiResults = new TopKResult[MAX_ROIS_PER_FRAME];
+    // ROI 분류가 진행 중인지 여부
+    private final AtomicBoolean isClassifyingRoi = new AtomicBoolean(false);
+    // 마지막으로 화면에 표시한 영역별 추적 번호와 클래스 (바뀔 때만 문자열을 만듦, 추론 스레드에서만 사용)
+    private final int[] shownRoiTracks = new int[MAX_ROIS_PER_FRAME];
+    private final int[] shownRoiClasses = new int[MAX_ROIS_PER_FRAME];
+    private int shownRoiCount = -1;
+    // 검출 빈도와 표시 빈도를 계산하기 위한 이전 값 (UI 스레드에서만 사용)
+    private long lastStatusNs = 0;
+    private long lastStatusKeyframes = 0;
+    private long lastStatusFrames = 0;
+    // 여러 프레임을 동시에 추론하는 분류기 묶음 (USE_INFERENCE_POOL 이고 코어가 충분할 때만 사용)
+    private ClassifierPool classifierPool;
     // thread 참조 변수
     private HandlerThread handlerThread;
     // thread 가 작업을 수행하다가 화면 출력을 하기 위해 사용하는 개개=
@@ -47,17 +241,58 @@ public class MainActivity extends AppCompatActivity {
     // 카메라 미리보기의 크기
     private int previewWidth = 0;
     private int previewHeight = 0;
-    // 카메라 이미지
-    private Bitmap rgbFrameBitmap = null;
-    // 작업 중인지 확인
-    // boolean 변수는 앞에 is를 붙여서 구분
-    private boolean isProcessingFrame = false;
+    // 기본 분류 경로로, 분류기 묶음이 없을 때 전처리, 추론, 결과 표시를 겹쳐서 실행하는 파이프라인
+    // onResume 에서 만들고 onPause 에서 정리
+    private volatile FramePipeline<PipelineFrame> framePipeline;
+    // 여러 프레임을 모아서 한 번에 추론하는 배처 (USE_BATCHING 일 때 파이프라인 대신 사용)
+    private volatile AdaptiveBatcher<PipelineFrame> frameBatcher;
+    // 배처에서 추론 결과를 받는 변수 (배처 스레드에서만 사용)
+    private final TopKResult[] batchResults = new TopKResult[MAX_BATCH_SIZE];
+    private float[] batchScores;
+    // 묶음 크기에 맞춰 입력 텐서의 배치 크기를 정하는 정책 (배처 스레드에서만 사용)
+    private final BatchSizePolicy batchSizePolicy =
+            new BatchSizePolicy(BATCH_TENSOR_SIZES, BATCH_SHRINK_AFTER);
+    // 모델이 배치 크기를 바꿀 수 없다고 로그를 남겼는지 여부 (배처 스레드에서만 사용)
+    private boolean isBatchUnsupported = false;
+    // 지연 시간 목표에 맞춰 프레임 간격, 스레드 수, 입력 크기를 바꾸는 거버너
+    private LatencyGovernor latencyGovernor;
+    // 장면이 거의 바뀌지 않은 프레임을 건너뛰기 위한 검출기 (카메라 스레드에서만 사용)
+    private final SceneChangeDetector sceneChangeDetector = new SceneChangeDetector(
+            SCENE_THUMBNAIL_COLUMNS, SCENE_THUMBNAIL_ROWS, SCENE_CHANGE_THRESHOLD,
+            SCENE_REFRESH_MS * 1_000_000L);
+    // 최근 프레임의 점수 평균으로 결과를 정해서 화면의 결과가 깜빡이지 않도록 함
+    private ScoreSmoother scoreSmoother;
+    // 우편함 방식에서 추론 결과를 받는 변수 (추론 스레드에서만 사용)
+    private final TopKResult mailboxResult = new TopKResult(1);
+    private float[] mailboxScores;
+    // 카메라 스레드에서 추론 스레드로 가장 최근 프레임만 넘기는 우편함
+    private final FrameMailbox<CameraFrame> frameMailbox =
+            new FrameMailbox<>(index -> new CameraFrame());
+    // 우편함을 비우는 작업이 추론 스레드에 예약되어 있는지 여부
+    private final AtomicBoolean isDrainScheduled = new AtomicBoolean(false);
+    // 녹화 파일을 재생하는 프레임 소스 (카메라를 사용하면 null)
+    // onResume 에서 재생하고 onPause 에서 멈춤
+    private ReplayFrameSource replaySource;
+    // 카메라 프레임을 녹화하는 링 파일 (RECORD_FRAMES 일 때 첫 프레임에서 만듦, 카메라 스레드에서만 만듦)
+    private volatile FrameRecorder frameRecorder;
+    // Yuv 를 rgb 로 바꾸는 변환기
+    // 미리보기 크기마다 한 번 만들고 onPause 에서 정리
+    private FrameConverter yuvConverter = null;
+    private FrameConverter.Backend yuvConverterBackend = null;
+    // 사용할 변환기 종류
+    // 결과 텍스트를 길게 누르면 실행 중에 바꿀 수 있음
+    private volatile FrameConverter.Backend converterBackend = FrameConverter.Backend.RENDERSCRIPT;
+    // 비트맵을 만들지 않고 YUV 에서 바로 모델 입력을 만들지 여부
+    // 결과 텍스트를 누르면 실행 중에 바꿀 수 있음
+    private volatile boolean useFusedPreprocessing = true;
     // 기기 방향을 위한 변수
     private int sensorOrientation = 0;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(null);
+        startupTimeline = new StartupTimeline(processStartNs());
+        startupTimeline.mark(StartupTimeline.Milestone.CREATE);
         setContentView(R.layout.activity_main);
 
         // 액티비티가 실행되는 동안 화면이 계속 켜져 있도록 설정
@@ -65,22 +300,194 @@ public class MainActivity extends AppCompatActivity {
         getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
 
         textView = findViewById(R.id.textView);
+        textView.setOnClickListener(v -> toggleFusedPreprocessing());
+        textView.setOnLongClickListener(v -> {
+            toggleConverterBackend();
+            return true;
+        });
+        perfOverlay = findViewById(R.id.perfOverlay);
+        perfOverlay.setVisibility(SHOW_PERF_OVERLAY ? View.VISIBLE : View.GONE);
+        perfOverlay.setOnClickListener(v -> dumpPerfStats());
+        boxOverlay = findViewById(R.id.boxOverlay);
 
-        try {
-            cls = new Classifier(this);
-            cls.init();
-        } catch (IOException ioe) {
-            ioe.printStackTrace();
-        }
+        // 모델은 백그라운드에서 읽고 UI 스레드는 바로 첫 화면을 그림
+        loadClassifierOptions()
+                .thenCompose(options -> {
+                    Log.d(TAG, "classifier options : " + options);
+                    cls = new Classifier(this, options);
+                    return cls.initAsync(initExecutor).thenApply(c -> options);
+                })
+                .thenAcceptAsync(this::onModelLoaded, uiExecutor)
+                .exceptionally(e -> {
+                    Log.e(TAG, "failed to load model", e);
+                    runOnUiThread(() -> Toast.makeText(this, "failed to load model",
+                            Toast.LENGTH_LONG).show());
+                    return null;
+                });
         
+        // 녹화 파일이 있으면 카메라 권한 없이 재생
+        if (openReplay()) {
+            return;
+        }
+
         // 동적 권한을 설정
-        // 권한이 있는 경우
-        if(checkSelfPermission(CAMERA_PERMISSION) == PackageManager.PERMISSION_GRANTED) {
+        // 권한이 없는 경우, 모델을 읽는 동안 권한 요청
+        // 카메라는 권한이 있고 모델을 읽은 뒤에 설정
+        if(checkSelfPermission(CAMERA_PERMISSION) != PackageManager.PERMISSION_GRANTED) {
+            requestPermissions(new String[]{CAMERA_PERMISSION}, PERMISSION_REQUEST_CODE);
+        }
+    }
+
+    // 프로세스가 시작된 시각 (System.nanoTime 기준)
+    private static long processStartNs() {
+        long sinceStartMs = SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime();
+        return System.nanoTime() - sinceStartMs * 1_000_000L;
+    }
+
+    // 모델을 읽은 뒤 UI 스레드에서 호출되는 메소드
+    // 카메라 설정을 시작하고, 카메라가 설정되는 동안 초기화 스레드에서 미리 추론
+    private void onModelLoaded(ClassifierOptions options) {
+        if (isDestroyed()) {
+            return;
+        }
+        startupTimeline.mark(StartupTimeline.Milestone.MODEL_LOADED);
+        isModelLoaded = true;
+        scoreSmoother = ScoreSmoother.window(cls.getNumClasses(), SMOOTHING_FRAMES);
+        mailboxScores = new float[cls.getNumClasses()];
+        // 작은 물체도 모델 입력 크기 이상으로 잘라서 늘리지 않고 원래 픽셀로 분류
+        Size inputSize = cls.getModelInputSize();
+        roiSelector = new RoiSelector(MAX_ROIS_PER_FRAME,
+                Math.max(inputSize.getWidth(), inputSize.getHeight()), ROI_MARGIN);
+        for (int i = 0; i < roiResults.length; i++) {
+            roiResults[i] = new TopKResult(1);
+        }
+        // 모델이나 실행 환경이 바뀌었으면 이전 분류기의 결과를 쓰지 않도록 캐시를 비움
+        if (USE_RESULT_CACHE) {
+            if (resultCache == null) {
+                resultCache = new ResultCache(RESULT_CACHE_ENTRIES, RESULT_CACHE_MAX_BYTES,
+                        RESULT_CACHE_TOP_K, RESULT_CACHE_MAX_DISTANCE,
+                        RESULT_CACHE_TTL_MS * 1_000_000L);
+            } else {
+                resultCache.clear();
+            }
+            cls.setResultCache(resultCache);
+        }
+        startCamera();
+        CompletableFuture.runAsync(() -> warmUpClassifiers(options), initExecutor)
+                .thenRunAsync(() -> onModelReady(options), uiExecutor)
+                .exceptionally(e -> {
+                    Log.e(TAG, "failed to warm up model", e);
+                    return null;
+                });
+    }
+
+    // 초기화 스레드에서 합성 입력으로 미리 추론하고 검출기나 분류기 묶음을 만드는 메소드
+    private void warmUpClassifiers(ClassifierOptions options) {
+        long[] times = cls.warmUp(WARMUP_RUNS);
+        if (times.length > 0) {
+            Log.d(TAG, String.format(Locale.ENGLISH, "warm-up : first %.1f ms, last %.1f ms",
+                    times[0] / 1e6, times[times.length - 1] / 1e6));
+        }
+        // 분류기 묶음은 USE_INFERENCE_POOL 일 때만 만들고, 검출기나 모델 묶음을 사용하면 만들지 않음
+        detector = loadDetector(options);
+        modelCascade = loadCascade(options);
+        // 모델 묶음을 쓰면 결과가 달라지므로 첫 모델로만 추론한 결과는 지움
+        if (modelCascade != null && resultCache != null) {
+            resultCache.clear();
+        }
+        if (USE_INFERENCE_POOL && detector == null && modelCascade == null
+                && INFERENCE_POOL_SIZE > 1) {
+            try {
+                classifierPool = new ClassifierPool(this, options, INFERENCE_POOL_SIZE, 1,
+                        this::onPoolResult);
+                // 분류기 묶음의 인스턴스도 같은 캐시를 사용
+                classifierPool.setResultCache(resultCache);
+                classifierPool.warmUp(WARMUP_RUNS);
+            } catch (IOException e) {
+                Log.e(TAG, "failed to create classifier pool", e);
+            }
+        }
+    }
+
+    // 검출 모델 파일이 있으면 검출기를 만들고 미리 추론하는 메소드 (없거나 읽을 수 없으면 null)
+    private Detector loadDetector(ClassifierOptions options) {
+        Detector d = new Detector(this,
+                options.toBuilder().setModelPath(Detector.DEFAULT_MODEL_PATH).build());
+        try {
+            d.init();
+        } catch (IOException e) {
+            Log.d(TAG, "no detection model : " + e.getMessage());
+            return null;
+        } catch (IllegalStateException e) {
+            Log.e(TAG, "unsupported detection model", e);
+            return null;
+        }
+        d.warmUp(WARMUP_RUNS);
+        Log.d(TAG, "detector : " + d.getOutputFormat() + ", input " + d.getModelInputSize());
+        return d;
+    }
+
+    // cls 뒤에 실행할 모델 파일이 있으면 읽고 미리 추론해서 모델 묶음을 만드는 메소드 (없으면 null)
+    // 없는 파일과 읽을 수 없는 모델은 건너뜀
+    private ModelCascade loadCascade(ClassifierOptions options) {
+        List<Classifier> stages = new ArrayList<>();
+        stages.add(cls);
+        for (String path : CASCADE_MODEL_PATHS) {
+            Classifier stage = new Classifier(this, options.toBuilder().setModelPath(path).build());
+            try {
+                stage.init();
+            } catch (IOException e) {
+                Log.d(TAG, "no cascade model " + path + " : " + e.getMessage());
+                continue;
+            }
+            stage.warmUp(WARMUP_RUNS);
+            stages.add(stage);
+        }
+        if (stages.size() == 1) {
+            return null;
+        }
+        try {
+            ModelCascade cascade = new ModelCascade(stages.toArray(new Classifier[0]),
+                    new CascadePolicy(stages.size(), CASCADE_MIN_CONFIDENCE, CASCADE_MIN_MARGIN));
+            Log.d(TAG, "cascade : " + stages.size() + " models");
+            return cascade;
+        } catch (IllegalStateException e) {
+            Log.e(TAG, "cascade models do not match", e);
+            for (int i = 1; i < stages.size(); i++) {
+                stages.get(i).finish();
+            }
+            return null;
+        }
+    }
+
+    // 미리 추론까지 끝난 뒤 UI 스레드에서 호출되는 메소드
+    // 이때부터 프레임을 추론에 넘김
+    private synchronized void onModelReady(ClassifierOptions options) {
+        if (isDestroyed()) {
+            return;
+        }
+        startupTimeline.mark(StartupTimeline.Milestone.WARMED_UP);
+        latencyGovernor = createLatencyGovernor(options);
+        if (classifierPool != null) {
+            classifierPool.setLatencyGovernor(latencyGovernor);
+        }
+        if (detector != null) {
+            boxOverlay.setVisibility(View.VISIBLE);
+        }
+        isModelReady = true;
+        Log.d(TAG, startupTimeline.summary());
+        if (isResumed) {
+            startInference();
+        }
+    }
+
+    // 권한이 있고 모델을 읽었으면 카메라를 설정하는 메소드
+    // 녹화 파일을 재생하는 경우는 카메라를 사용하지 않음
+    private void startCamera() {
+        if (replaySource == null && isModelLoaded
+                && checkSelfPermission(CAMERA_PERMISSION) == PackageManager.PERMISSION_GRANTED) {
             // Fragment 설정을 위한 메소드 호출
             setFragment();
-        } else {
-            // 권한이 없는 경우, 권한 요청
-            requestPermissions(new String[]{CAMERA_PERMISSION}, PERMISSION_REQUEST_CODE);
         }
     }
 
@@ -91,7 +498,7 @@ public class MainActivity extends AppCompatActivity {
         if(requestCode == PERMISSION_REQUEST_CODE) {
             // 권한 사용을 허가하면 호출
             if(grantResults.length > 0 && allPermissionsGranted(grantResults)) {
-                setFragment();
+                startCamera();
             }
             // 권한 사용을 취소하면 호출
             else {
@@ -111,6 +518,28 @@ public class MainActivity extends AppCompatActivity {
         return true;
     }
 
+    // 앱 전용 폴더의 녹화 파일을 여는 메소드
+    // 파일이 없거나 열 수 없으면 false 를 리턴하고 카메라를 사용
+    private boolean openReplay() {
+        File dir = getExternalFilesDir(null);
+        File file = dir != null ? new File(dir, REPLAY_FILE_NAME) : null;
+        if (file == null || !file.exists()) {
+            return false;
+        }
+        try {
+            replaySource = ReplayFrameSource.open(file, REPLAY_PACING);
+        } catch (IOException | IllegalArgumentException e) {
+            Log.e(TAG, "failed to open replay file " + file, e);
+            return false;
+        }
+        replaySource.setLooping(true);
+        previewWidth = replaySource.getWidth();
+        previewHeight = replaySource.getHeight();
+        Log.d(TAG, "replay : " + file + ", " + replaySource.getFrameCount() + " frames");
+        Toast.makeText(this, "replay : " + file.getName(), Toast.LENGTH_SHORT).show();
+        return true;
+    }
+
     // Fragment 설정 메소드
     protected void setFragment() {
         // model 의 input 크기 가져오기
@@ -120,15 +549,18 @@ public class MainActivity extends AppCompatActivity {
 
         // 모델의 크기를 가지고 카메라 화면의 크기를 설정
         if(inputSize.getWidth() > 0 && inputSize.getHeight() > 0 && !cameraId.isEmpty()) {
+            CameraFrameSource cameraSource = new CameraFrameSource();
+            cameraSource.start(this::processImage);
             Fragment fragment = CameraFragment.newInstance(
 
                     (size, rotation) -> {
+                        // 미리보기 크기가 바뀌면 다음 프레임에서 비트맵을 다시 만듦
                         previewWidth = size.getWidth();
                         previewHeight = size.getHeight();
                         sensorOrientation = rotation - getScreenOrientation();
                     },
                     // 카메라로부터 이미지 받아오기
-                    reader->processImage(reader),
+                    cameraSource,
                     inputSize,
                     cameraId);
 
@@ -142,53 +574,620 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    // 카메라에서 넘겨받은 이미지를 이용해서 추론하는 메소드
-    protected void processImage(ImageReader reader) {
+    // 프레임 소스(카메라 또는 녹화 파일)에서 넘겨받은 프레임을 이용해서 추론하는 메소드
+    protected void processImage(FrameSource source) {
         // 이미지의 크기가 없으면 종료
         if (previewWidth == 0 || previewHeight == 0) {
             return;
         }
-        // 이미지를 저장할 비트맵이 준비되어 있지 않으면 생성함
-        if(rgbFrameBitmap == null) {
-            rgbFrameBitmap = Bitmap.createBitmap(
-                    previewWidth,
-                    previewHeight,
-                    Bitmap.Config.ARGB_8888);
+        long acquireStart = System.nanoTime();
+        final YuvFrame image = source.acquireLatestFrame();
+        if (image == null) {
+            return;
+        }
+        // 프레임을 받은 시간 (모든 경로에서 전체 지연 시간을 여기서부터 측정)
+        final long captureNs = System.nanoTime();
+        perfStats.record(PerfStats.Stage.ACQUIRE, captureNs - acquireStart);
+        startupTimeline.mark(StartupTimeline.Milestone.FIRST_FRAME);
+        // 모델이 준비되기 전(카메라가 설정되는 동안 미리 추론 중)에 들어온 프레임은 바로 돌려줌
+        if (!isModelReady) {
+            source.releaseFrame(image);
+            return;
+        }
+        // 녹화 파일은 녹화할 때의 방향을 사용
+        final int orientation = source == replaySource
+                ? replaySource.getSensorOrientation() : sensorOrientation;
+        // 건너뛰는 프레임까지 카메라가 준 그대로 녹화 (기록이 밀리면 버림)
+        if (RECORD_FRAMES && replaySource == null) {
+            recordFrame(image, orientation);
+        }
+        // 검출기가 있으면 키프레임에서만 검출하고, 모든 프레임에서 추적한 상자를 표시
+        // 장면이 그대로여도 상자는 계속 옮겨야 하므로 거버너와 장면 비교보다 먼저 처리
+        if (detector != null) {
+            trackFrame(image, orientation);
+            source.releaseFrame(image);
+            return;
+        }
+        // 지연 시간 목표를 맞추기 위해 건너뛰는 프레임과
+        // 장면이 거의 바뀌지 않은 프레임은 변환과 추론 없이 돌려줌 (화면에는 이전 결과가 남음)
+        // 장면 비교의 기준은 프레임을 실제로 넘긴 뒤에만 바꿈 (넘기지 못한 프레임이 기준이 되지 않도록)
+        if (!latencyGovernor.admitFrame() || !hasSceneChanged(image)) {
+            source.releaseFrame(image);
+            return;
+        }
+        // 분류기 묶음이 있으면 비어 있는 인스턴스에 프레임을 복사해서 넘기고 바로 돌려줌
+        if (classifierPool != null && useFusedPreprocessing) {
+            if (classifierPool.submit(image, orientation, captureNs)) {
+                sceneChangeDetector.commit();
+            }
+            source.releaseFrame(image);
+            return;
+        }
+        // 배처가 있으면 프레임을 복사해서 넘기고 바로 돌려줌
+        // 처리가 밀리면 배처 스레드에서 여러 프레임을 한 번에 추론
+        final AdaptiveBatcher<PipelineFrame> batcher = frameBatcher;
+        if (batcher != null && useFusedPreprocessing) {
+            PipelineFrame frame = batcher.obtain();
+            if (frame != null) {
+                long repackStart = System.nanoTime();
+                frame.yuv.copyFrom(image);
+                perfStats.record(PerfStats.Stage.REPACK, System.nanoTime() - repackStart);
+                frame.sensorOrientation = orientation;
+                frame.captureNs = captureNs;
+                batcher.submit(frame);
+                sceneChangeDetector.commit();
+            }
+            source.releaseFrame(image);
+            return;
+        }
+        // 파이프라인이 있으면 프레임을 복사해서 넘기고 바로 돌려줌
+        // 전처리, 추론, 결과 표시는 단계별 스레드에서 겹쳐서 진행
+        final FramePipeline<PipelineFrame> pipeline = framePipeline;
+        if (pipeline != null && useFusedPreprocessing) {
+            PipelineFrame frame = pipeline.obtain();
+            if (frame != null) {
+                long repackStart = System.nanoTime();
+                frame.yuv.copyFrom(image);
+                perfStats.record(PerfStats.Stage.REPACK, System.nanoTime() - repackStart);
+                frame.sensorOrientation = orientation;
+                frame.captureNs = captureNs;
+                pipeline.submit(frame);
+                sceneChangeDetector.commit();
+            }
+            source.releaseFrame(image);
+            return;
         }
 
-        if (isProcessingFrame) {
+        // 채울 버퍼가 없으면 (정상적으로는 일어나지 않음) 프레임을 버림
+        CameraFrame frame = frameMailbox.obtain();
+        if (frame == null) {
+            source.releaseFrame(image);
             return;
         }
+        frame.fused = useFusedPreprocessing;
+        frame.sensorOrientation = orientation;
+        frame.captureNs = captureNs;
+        frame.timestampNs = image.getTimestampNs();
+        if (frame.fused) {
+            // 비트맵을 거치지 않는 경우는 YUV 를 복사해 두고 추론 스레드에서 바로 전처리
+            long repackStart = System.nanoTime();
+            frame.yuv.copyFrom(image);
+            perfStats.record(PerfStats.Stage.REPACK, System.nanoTime() - repackStart);
+        } else {
+            prepareConverter();
+            prepareBitmap(frame);
+            // Yuv 포맷을 rgb 포맷으로 변경 (RenderScript 변환기는 내부에서 REPACK 도 기록)
+            long convertStart = System.nanoTime();
+            yuvConverter.yuvToRgb(image, frame.bitmap);
+            perfStats.record(PerfStats.Stage.CONVERT, System.nanoTime() - convertStart);
+        }
+        source.releaseFrame(image);
 
-        isProcessingFrame = true;
+        // 처리되지 않은 프레임이 있으면 새 프레임으로 바뀌고, 없으면 추론 스레드에 작업을 예약
+        frameMailbox.post(frame);
+        sceneChangeDetector.commit();
+        if (isDrainScheduled.compareAndSet(false, true)) {
+            runInBackground(this::drainMailbox);
+        }
+    }
 
-        final Image image = reader.acquireLatestImage();
-        if (image == null) {
-            isProcessingFrame = false;
+    // 키프레임이면 프레임을 복사해서 검출 스레드에 넘기고, 추적 상자를 이 프레임의 시각으로 옮겨서 표시하는 메소드
+    // 검출이 끝나지 않았으면 다음 프레임에서 다시 키프레임을 시도하므로 화면 갱신은 검출 속도와 상관없음
+    private void trackFrame(YuvFrame image, int orientation) {
+        if (keyframeScheduler.onFrame() && isDetecting.compareAndSet(false, true)) {
+            keyframeScheduler.keyframeStarted();
+            long repackStart = System.nanoTime();
+            keyframe.copyFrom(image);
+            perfStats.record(PerfStats.Stage.REPACK, System.nanoTime() - repackStart);
+            keyframeOrientation = orientation;
+            runInBackground(this::detectKeyframe);
+        }
+        long start = System.nanoTime();
+        objectTracker.snapshot(image.getTimestampNs(), trackedResult);
+        boxOverlay.setResult(trackedResult);
+        perfStats.frame();
+        perfStats.record(PerfStats.Stage.PUBLISH, System.nanoTime() - start);
+        if (USE_ROI_CLASSIFICATION && isClassifyingRoi.compareAndSet(false, true)) {
+            // 이 프레임의 추적 상자에서 영역을 고르고 (없으면 프레임 전체) 프레임을 복사해서 넘김
+            roiSelector.select(trackedResult, image.getWidth(), image.getHeight(), orientation);
+            long repackStart = System.nanoTime();
+            roiFrame.copyFrom(image);
+            perfStats.record(PerfStats.Stage.REPACK, System.nanoTime() - repackStart);
+            roiOrientation = orientation;
+            runInBackground(this::classifyRois);
+        }
+    }
+
+    // 추론 스레드에서 고른 영역들을 한 번에 분류하는 메소드
+    // 추적 중인 물체가 없으면 프레임 전체를 분류해서 기존 결과 표시 방식으로 보여 줌
+    private void classifyRois() {
+        try {
+            if (cls == null || !cls.isInitialized()) {
+                return;
+            }
+            // 영역이 없는 프레임도 같은 배치 크기로 추론해서 입력 텐서 크기가 바뀌지 않도록 함
+            int count = roiSelector.size();
+            cls.classifyRois(roiFrame, roiOrientation, roiSelector, 1, -Float.MAX_VALUE,
+                    roiResults);
+            if (count == 0) {
+                cls.copyScores(mailboxScores);
+                // 영역별 결과를 보여 주고 있었으면 클래스가 그대로여도 프레임 전체 결과로 바꿔 씀
+                publishScores(mailboxScores, shownRoiCount != -1);
+                shownRoiCount = -1;
+            } else {
+                publishRoiResults(count);
+            }
+            long frames = roiSelector.getRoiFrames() + roiSelector.getFullFrames();
+            if (frames % POOL_STATS_INTERVAL == 0) {
+                Log.d(TAG, String.format(Locale.ENGLISH,
+                        "roi frames %d (avg %.2f rois), full frames %d",
+                        roiSelector.getRoiFrames(), roiSelector.getAverageRois(),
+                        roiSelector.getFullFrames()));
+            }
+        } finally {
+            isClassifyingRoi.set(false);
+        }
+    }
+
+    // 영역별 분류 결과를 "#추적 번호 레이블 확률" 줄로 표시하는 메소드
+    // 영역의 추적 번호나 클래스가 바뀌었을 때만 문자열을 만들고 화면을 바꿈
+    private void publishRoiResults(int count) {
+        boolean changed = count != shownRoiCount;
+        for (int i = 0; i < count && !changed; i++) {
+            changed = shownRoiTracks[i] != roiSelector.getTrackId(i)
+                    || shownRoiClasses[i] != roiResults[i].getIndex(0);
+        }
+        if (!changed) {
             return;
         }
-        // Yuv 포맷을 rgb 포맷으로 변경 
-        YuvToRGBConverter.yuvToRgb(this, image, rgbFrameBitmap);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            TopKResult result = roiResults[i];
+            shownRoiTracks[i] = roiSelector.getTrackId(i);
+            shownRoiClasses[i] = result.getIndex(0);
+            if (i > 0) {
+                text.append('\n');
+            }
+            text.append(String.format(Locale.ENGLISH, "#%d %s, prob : %.2f%%",
+                    shownRoiTracks[i], result.getLabel(0), result.getScore(0) * 100));
+        }
+        shownRoiCount = count;
+        final String message = text.toString();
+        runOnUiThread(() -> textView.setText(message));
+    }
+
+    // 추론 스레드에서 키프레임을 검출하고 추적기와 키프레임 간격을 갱신하는 메소드
+    private void detectKeyframe() {
+        try {
+            final Detector d = detector;
+            if (d == null || !d.isInitialized()) {
+                return;
+            }
+            d.detect(keyframe, keyframeOrientation, detectionResult);
+            objectTracker.update(keyframe.getTimestampNs(), detectionResult);
+            keyframeScheduler.keyframeFinished(objectTracker.getLastError(),
+                    objectTracker.getLastBirths());
+            if (startupTimeline.mark(StartupTimeline.Milestone.FIRST_RESULT)) {
+                Log.d(TAG, String.format(Locale.ENGLISH, "time to first result : %.0f ms, %s",
+                        startupTimeline.getTimeToFirstResultMs(), startupTimeline.summary()));
+            }
+            if (keyframeScheduler.getKeyframes() % POOL_STATS_INTERVAL == 0) {
+                Log.d(TAG, String.format(Locale.ENGLISH,
+                        "keyframes %d / %d frames, K %d, tracks %d, error %.3f",
+                        keyframeScheduler.getKeyframes(), keyframeScheduler.getFrames(),
+                        keyframeScheduler.getInterval(), objectTracker.size(),
+                        objectTracker.getLastError()));
+            }
+        } finally {
+            isDetecting.set(false);
+        }
+    }
 
-        // lambda 를 이용한 thread 처리
-        runInBackground(() -> {
+    // 검출 빈도, 표시 빈도, 키프레임 간격을 상자 오버레이에 표시하는 메소드
+    private void updateTrackingStatus() {
+        long now = System.nanoTime();
+        long keyframes = keyframeScheduler.getKeyframes();
+        long frames = keyframeScheduler.getFrames();
+        if (lastStatusNs != 0 && now > lastStatusNs) {
+            double seconds = (now - lastStatusNs) / 1e9;
+            boxOverlay.setStatus(String.format(Locale.ENGLISH,
+                    "detect %.1f fps, display %.1f fps, K %d",
+                    (keyframes - lastStatusKeyframes) / seconds,
+                    (frames - lastStatusFrames) / seconds, keyframeScheduler.getInterval()));
+        }
+        lastStatusNs = now;
+        lastStatusKeyframes = keyframes;
+        lastStatusFrames = frames;
+    }
+
+    // 프레임을 녹화 파일에 넘기는 메소드
+    // 녹화 파일은 처음 받은 프레임의 크기로 만듦
+    private void recordFrame(YuvFrame image, int orientation) {
+        FrameRecorder recorder = frameRecorder;
+        if (recorder == null) {
+            File dir = getExternalFilesDir(null);
+            if (dir == null) {
+                return;
+            }
+            File file = new File(dir, RECORD_FILE_NAME);
+            try {
+                recorder = FrameRecorder.create(file, image.getWidth(), image.getHeight(),
+                        FrameRecorder.capacityFor(RECORD_SECONDS, RECORD_FPS));
+            } catch (IOException e) {
+                Log.e(TAG, "failed to create record file " + file, e);
+                return;
+            }
+            Log.d(TAG, "recording : " + file);
+            frameRecorder = recorder;
+        }
+        recorder.record(image, orientation);
+    }
+
+    // 추론 결과를 녹화 파일의 프레임 옆에 남기는 메소드
+    private void recordResult(long timestampNs, TopKResult result) {
+        FrameRecorder recorder = frameRecorder;
+        if (recorder != null && result.size() > 0) {
+            recorder.setResult(timestampNs, result.getIndex(0), result.getScore(0));
+        }
+    }
+
+    // 밝기 썸네일을 비교해서 장면이 바뀌었거나 새로 고칠 때가 되었는지 확인하는 메소드
+    // true 이면 프레임을 넘긴 뒤에 sceneChangeDetector.commit 을 호출해야 함
+    private boolean hasSceneChanged(YuvFrame image) {
+        boolean changed = sceneChangeDetector.check(image, System.nanoTime());
+        if (sceneChangeDetector.getFrameCount() % POOL_STATS_INTERVAL == 0) {
+            Log.d(TAG, String.format(Locale.ENGLISH, "scene skip ratio %.1f%% (%d / %d)",
+                    sceneChangeDetector.getSkipRatio() * 100,
+                    sceneChangeDetector.getSkippedCount(), sceneChangeDetector.getFrameCount()));
+        }
+        return changed;
+    }
+
+    // 지금 쓰는 처리 경로에서 버리거나 건너뛴 프레임 수를 한 줄로 만드는 메소드
+    // 슬롯이 없어서 넣지 못한 프레임도 버린 프레임에 포함
+    private String dropSummary() {
+        long dropped;
+        final FramePipeline<PipelineFrame> pipeline = framePipeline;
+        final AdaptiveBatcher<PipelineFrame> batcher = frameBatcher;
+        if (classifierPool != null) {
+            dropped = classifierPool.getDropped();
+        } else if (batcher != null) {
+            dropped = batcher.getDropped();
+        } else if (pipeline != null) {
+            dropped = pipeline.getRejected();
+            for (int i = 0; i < pipeline.getStageCount(); i++) {
+                dropped += pipeline.getDropped(i);
+            }
+        } else {
+            dropped = frameMailbox.getDropped();
+        }
+        return String.format(Locale.ENGLISH, "dropped %d, scene skipped %d / %d",
+                dropped, sceneChangeDetector.getSkippedCount(),
+                sceneChangeDetector.getFrameCount());
+    }
+
+    // 추론 스레드에서 우편함의 가장 최근 프레임을 추론하는 메소드
+    private void drainMailbox() {
+        // 꺼내기 전에 예약 표시를 지워서 이후에 들어온 프레임은 다시 예약되도록 함
+        isDrainScheduled.set(false);
+        CameraFrame frame = frameMailbox.take();
+        if (frame == null) {
+            return;
+        }
+        try {
             if (cls != null && cls.isInitialized()) {
+                cls.adapt(latencyGovernor);
                 // 추론
-                final Pair<String, Float> output = cls.classify(rgbFrameBitmap, sensorOrientation);
-
-                runOnUiThread(() -> {
-                    // 추론한 결과를 출력
-                    String resultStr = String.format(Locale.ENGLISH,
-                            "class : %s, prob : %.2f%%",
-                            output.first, output.second * 100);
-                    // 추론결과를 화면에 표시
-                    textView.setText(resultStr);
-                });
+                long start = System.nanoTime();
+                final ModelCascade cascade = modelCascade;
+                if (frame.fused && cascade != null) {
+                    cascade.classifyTopK(frame.yuv, frame.sensorOrientation, 1, -Float.MAX_VALUE,
+                            mailboxResult);
+                } else if (frame.fused) {
+                    cls.classifyTopK(frame.yuv, frame.sensorOrientation, 1, -Float.MAX_VALUE,
+                            mailboxResult);
+                } else {
+                    cls.classifyTopK(frame.bitmap, frame.sensorOrientation, 1, -Float.MAX_VALUE,
+                            mailboxResult);
+                }
+                long end = System.nanoTime();
+                recordLatency(end - start, end - frame.captureNs);
+                recordResult(frame.timestampNs, mailboxResult);
+                if (frame.fused && cascade != null) {
+                    cascade.copyScores(mailboxScores);
+                } else {
+                    cls.copyScores(mailboxScores);
+                }
+                publishScores(mailboxScores);
+            }
+        } finally {
+            frameMailbox.release(frame);
+        }
+        if (frameMailbox.getProcessed() % POOL_STATS_INTERVAL == 0) {
+            Log.d(TAG, String.format(Locale.ENGLISH, "frames delivered %d, dropped %d, processed %d",
+                    frameMailbox.getDelivered(), frameMailbox.getDropped(),
+                    frameMailbox.getProcessed()));
+        }
+    }
+
+    // 전처리 -> 추론 -> 결과 표시 파이프라인을 만드는 메소드
+    private FramePipeline<PipelineFrame> createPipeline() {
+        FramePipeline<PipelineFrame> pipeline =
+                new FramePipeline<>(PIPELINE_DEPTH, index -> new PipelineFrame());
+        pipeline.addStage("convert", frame -> {
+            // 비슷한 프레임의 결과가 캐시에 있으면 전처리하지 않음
+            final ResultCache cache = resultCache;
+            frame.cached = false;
+            if (cache != null) {
+                frame.hash = PerceptualHash.dHash(frame.yuv);
+                frame.cached = cache.lookup(frame.hash, System.nanoTime(), RESULT_CACHE_TOP_K,
+                        -Float.MAX_VALUE, frame.result);
+                if (frame.cached) {
+                    return true;
+                }
+            }
+            // 입력 크기는 추론 단계에서 바뀌므로 크기를 읽고 전처리하는 동안 바뀌지 않도록 한 번에 처리
+            cls.preprocess(frame.yuv, frame.sensorOrientation, frame.input);
+            return true;
+        }).addStage("infer", frame -> {
+            if (frame.scores == null) {
+                frame.scores = new float[cls.getNumClasses()];
+            }
+            if (frame.cached) {
+                frame.result.fillScores(frame.scores);
+                return frame.result.size() > 0;
+            }
+            // 전처리한 뒤에 입력 크기가 바뀌었으면 그 프레임은 버림
+            if (!cls.isCurrent(frame.input)) {
+                return false;
+            }
+            long start = System.nanoTime();
+            final ModelCascade cascade = modelCascade;
+            if (cascade != null) {
+                // 첫 모델이 확실하지 않은 프레임만 큰 모델로 넘김
+                cascade.classifyTopK(frame.input.getBuffer(), frame.yuv,
+                        frame.sensorOrientation, RESULT_CACHE_TOP_K, -Float.MAX_VALUE,
+                        frame.result);
+            } else {
+                cls.classifyTopK(frame.input.getBuffer(), RESULT_CACHE_TOP_K, -Float.MAX_VALUE,
+                        frame.result);
+            }
+            latencyGovernor.recordInference(System.nanoTime() - start);
+            final ResultCache cache = resultCache;
+            if (cache != null) {
+                cache.put(frame.hash, System.nanoTime(), frame.result);
             }
-            //
-            image.close();
-            isProcessingFrame = false;
+            if (cascade != null) {
+                cascade.copyScores(frame.scores);
+            } else {
+                cls.copyScores(frame.scores);
+            }
+            // 다음 프레임부터 거버너가 정한 설정을 적용
+            cls.adapt(latencyGovernor);
+            return frame.result.size() > 0;
+        }).addStage("present", frame -> {
+            recordResult(frame.yuv.getTimestampNs(), frame.result);
+            publishScores(frame.scores);
+            if (latencyGovernor.recordEndToEnd(System.nanoTime() - frame.captureNs)) {
+                Log.d(TAG, "governor : " + latencyGovernor.getLastDecision());
+            }
+            if (pipeline.getProcessed(2) % POOL_STATS_INTERVAL == 0) {
+                Log.d(TAG, pipeline.getStats());
+                if (modelCascade != null) {
+                    Log.d(TAG, modelCascade.getPolicy().summary());
+                }
+                if (resultCache != null) {
+                    Log.d(TAG, resultCache.summary());
+                }
+            }
+            return true;
         });
+        pipeline.start();
+        return pipeline;
+    }
+
+    // 배처 스레드에서 모인 프레임을 한 번에 전처리하고 추론하는 메소드
+    // 입력 텐서는 묶음이 들어가는 1, 2, 4 중 가장 작은 크기를 쓰므로 한 프레임은 한 프레임만큼만 계산하고,
+    // 줄이는 것은 작은 묶음이 이어질 때만 해서 묶음마다 텐서를 다시 할당하지 않음
+    // 모델이 그 배치 크기를 지원하지 않으면 한 프레임씩 추론
+    private void processBatch(AdaptiveBatcher.Batch<PipelineFrame> batch) {
+        int count = batch.size();
+        if (batchScores == null) {
+            batchScores = new float[cls.getNumClasses()];
+            for (int i = 0; i < batchResults.length; i++) {
+                batchResults[i] = new TopKResult(1);
+            }
+        }
+        int batchSize = batchSizePolicy.update(count);
+        boolean batched = cls.setBatchSize(batchSize);
+        if (!batched && !isBatchUnsupported) {
+            Log.d(TAG, "model does not support batch size " + batchSize);
+            isBatchUnsupported = true;
+        }
+        if (!batched) {
+            for (int i = 0; i < count; i++) {
+                PipelineFrame frame = batch.get(i);
+                long start = System.nanoTime();
+                cls.classifyTopK(frame.yuv, frame.sensorOrientation, 1, -Float.MAX_VALUE,
+                        batchResults[i]);
+                long end = System.nanoTime();
+                recordLatency(end - start, end - frame.captureNs);
+                recordResult(frame.yuv.getTimestampNs(), batchResults[i]);
+                cls.copyScores(batchScores);
+                publishScores(batchScores);
+            }
+        } else {
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                PipelineFrame frame = batch.get(i);
+                cls.preprocessBatchItem(frame.yuv, frame.sensorOrientation, i);
+            }
+            cls.classifyBatch(count, 1, -Float.MAX_VALUE, batchResults);
+            long end = System.nanoTime();
+            // 결과는 프레임 순서대로 반영 (묶음 전체의 처리 시간을 프레임 수로 나눈 값이 프레임마다의 추론 시간)
+            long perFrameNs = (end - start) / count;
+            for (int i = 0; i < count; i++) {
+                PipelineFrame frame = batch.get(i);
+                recordLatency(perFrameNs, end - frame.captureNs);
+                recordResult(frame.yuv.getTimestampNs(), batchResults[i]);
+                cls.copyBatchScores(i, batchScores);
+                publishScores(batchScores);
+            }
+        }
+        // 다음 묶음부터 거버너가 정한 설정을 적용
+        cls.adapt(latencyGovernor);
+        if (frameBatcher != null && frameBatcher.getBatches() % POOL_STATS_INTERVAL == 0) {
+            Log.d(TAG, frameBatcher.getStats() + String.format(Locale.ENGLISH,
+                    ", tensor batch %d (resized %d)", batchSizePolicy.getBatchSize(),
+                    batchSizePolicy.getChanges()));
+        }
+    }
+
+    // 지연 시간 거버너를 만드는 메소드
+    // 분류기 묶음은 인스턴스마다 스레드를 쓰므로 코어를 인스턴스 수로 나눠서 최대 스레드 수를 정함
+    private LatencyGovernor createLatencyGovernor(ClassifierOptions options) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int instances = classifierPool != null ? classifierPool.size() : 1;
+        int maxThreads = Math.max(1, Math.min(4, cores / instances));
+        int initialThreads = options.getNumThreads() > 0 ? options.getNumThreads() : 1;
+        boolean scalable = cls != null && cls.isInitialized() && cls.supportsInputScaling();
+        return LatencyGovernor.create(LATENCY_TARGET_MS, initialThreads, maxThreads,
+                scalable ? INPUT_SCALE_LEVELS : new float[]{1.0f});
+    }
+
+    // 추론 시간과 전체 지연 시간을 거버너에 기록하고 설정이 바뀌면 로그를 출력하는 메소드
+    private void recordLatency(long inferenceNs, long endToEndNs) {
+        latencyGovernor.recordInference(inferenceNs);
+        if (latencyGovernor.recordEndToEnd(endToEndNs)) {
+            Log.d(TAG, "governor : " + latencyGovernor.getLastDecision());
+        }
+    }
+
+    // 이 기기에서 측정해 둔 실행 환경을 리턴하는 메소드
+    // 측정한 적이 없으면 초기화 스레드에서 먼저 측정해서 저장하고 그 설정을 사용
+    // 모델 초기화, 미리 추론, 카메라 추론보다 먼저 끝나므로 다른 추론과 코어를 나눠 쓰지 않고 측정
+    // (처음 실행할 때만 첫 결과가 측정 시간만큼 늦어짐)
+    private CompletableFuture<ClassifierOptions> loadClassifierOptions() {
+        if (BackendSettings.isTuned(this)) {
+            return CompletableFuture.completedFuture(BackendSettings.load(this));
+        }
+        final Context appContext = getApplicationContext();
+        return CompletableFuture.supplyAsync(() -> BackendSettings.tune(appContext),
+                initExecutor);
+    }
+
+    // 분류기 묶음의 결과를 받는 메소드
+    // 프레임 순서대로 호출되므로 오래된 결과가 새 결과를 덮어쓰지 않음
+    private void onPoolResult(long sequence, long timestampNs, TopKResult result,
+                              float[] scores) {
+        recordResult(timestampNs, result);
+        publishScores(scores);
+        if (sequence % POOL_STATS_INTERVAL == 0) {
+            Log.d(TAG, classifierPool.getStats());
+        }
+    }
+
+    // 점수를 최근 프레임 평균에 반영하고, 평균이 가장 높은 클래스가 바뀌었을 때만 화면을 바꾸는 메소드
+    // 결과가 그대로인 프레임은 문자열을 만들거나 UI 스레드에 작업을 보내지 않음
+    private void publishScores(float[] scores) {
+        publishScores(scores, false);
+    }
+
+    // force 이면 가장 높은 클래스가 바뀌지 않았어도 화면을 다시 씀
+    // (다른 형식의 결과가 화면에 남아 있을 때 사용)
+    private void publishScores(float[] scores, boolean force) {
+        final ScoreSmoother smoother = scoreSmoother;
+        if (smoother == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        perfStats.frame();
+        if (startupTimeline.mark(StartupTimeline.Milestone.FIRST_RESULT)) {
+            Log.d(TAG, String.format(Locale.ENGLISH, "time to first result : %.0f ms, %s",
+                    startupTimeline.getTimeToFirstResultMs(), startupTimeline.summary()));
+        }
+        final String label;
+        final float score;
+        synchronized (smoother) {
+            if (!smoother.update(scores) && !force) {
+                perfStats.record(PerfStats.Stage.PUBLISH, System.nanoTime() - start);
+                return;
+            }
+            label = cls.getLabel(smoother.getTopIndex());
+            score = smoother.getTopScore();
+        }
+        runOnUiThread(() -> textView.setText(String.format(Locale.ENGLISH,
+                "class : %s, prob : %.2f%%", label, score * 100)));
+        perfStats.record(PerfStats.Stage.PUBLISH, System.nanoTime() - start);
+    }
+
+    // 단계별 히스토그램을 앱 전용 폴더의 파일로 저장하는 메소드
+    // 폴더를 찾고 파일을 쓰는 일은 초기화 스레드에서 하고, 저장한 뒤 다음 비교를 위해 기록을 지웁니다.
+    private void dumpPerfStats() {
+        CompletableFuture.supplyAsync(() -> {
+            File dir = getExternalFilesDir(null);
+            if (dir == null) {
+                dir = getFilesDir();
+            }
+            File file = new File(dir, "perf-" + System.currentTimeMillis() + ".csv");
+            try (Writer writer = new FileWriter(file)) {
+                perfStats.dump(writer);
+                perfStats.reset();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return file;
+        }, initExecutor).thenAcceptAsync(file -> Toast.makeText(this,
+                "saved : " + file.getAbsolutePath(), Toast.LENGTH_LONG).show(), uiExecutor)
+                .exceptionally(e -> {
+                    Log.e(TAG, "failed to save perf stats", e);
+                    return null;
+                });
+    }
+
+    // 프레임 버퍼의 비트맵을 준비하는 메소드
+    private void prepareBitmap(CameraFrame frame) {
+        // 이미지를 저장할 비트맵이 없거나 미리보기 크기와 다르면 생성함
+        if (frame.bitmap == null || frame.bitmap.getWidth() != previewWidth
+                || frame.bitmap.getHeight() != previewHeight) {
+            frame.bitmap = Bitmap.createBitmap(
+                    previewWidth,
+                    previewHeight,
+                    Bitmap.Config.ARGB_8888);
+        }
+    }
+
+    // 변환기를 준비하는 메소드
+    private void prepareConverter() {
+        // 변환기 종류가 바뀌었으면 기존 변환기를 정리
+        if (yuvConverter != null && yuvConverterBackend != converterBackend) {
+            releaseConverter();
+        }
+        // 변환기가 준비되어 있지 않으면 생성함
+        if (yuvConverter == null) {
+            yuvConverterBackend = converterBackend;
+            yuvConverter = FrameConverter.create(this, yuvConverterBackend);
+        }
     }
 
     // synchronized 는 동기화 메소드를 만들어 줍니다.
@@ -208,11 +1207,56 @@ public class MainActivity extends AppCompatActivity {
         handlerThread = new HandlerThread("InferenceThread");
         handlerThread.start();
         handler = new Handler(handlerThread.getLooper());
+        isDrainScheduled.set(false);
+        isDetecting.set(false);
+        isClassifyingRoi.set(false);
+        if (SHOW_PERF_OVERLAY) {
+            perfOverlay.post(perfOverlayUpdater);
+        }
+        isResumed = true;
+        // 모델이 아직 준비되지 않았으면 준비된 뒤에 시작
+        if (isModelReady) {
+            startInference();
+        }
+    }
+
+    // 추론 스레드 구성을 만들고 녹화 파일 재생을 시작하는 메소드
+    // onResume 과 onModelReady 중 나중에 호출되는 쪽에서 호출
+    private void startInference() {
+        // 검출기를 사용하면 추론 스레드에서 키프레임만 검출하므로 분류 스레드 구성은 만들지 않음
+        if (classifierPool == null && detector == null && cls != null && cls.isInitialized()) {
+            if (USE_BATCHING) {
+                frameBatcher = new AdaptiveBatcher<>(MAX_BATCH_SIZE, BATCH_FLUSH_TIMEOUT_MS,
+                        index -> new PipelineFrame(), this::processBatch);
+            } else {
+                framePipeline = createPipeline();
+            }
+        }
+        if (replaySource != null) {
+            replaySource.start(this::processImage);
+        }
     }
 
     // Activity 가 중지되었을 때 Thread 중지
     @Override
     public synchronized void onPause() {
+        isResumed = false;
+        // 재생 중이면 프레임 공급을 먼저 멈춤
+        if (replaySource != null) {
+            replaySource.stop();
+            Log.d(TAG, String.format(Locale.ENGLISH, "replay %.1f fps, delivered %d, skipped %d",
+                    replaySource.getThroughput(), replaySource.getDelivered(),
+                    replaySource.getSkipped()));
+        }
+        perfOverlay.removeCallbacks(perfOverlayUpdater);
+        if (framePipeline != null) {
+            framePipeline.shutdown();
+            framePipeline = null;
+        }
+        if (frameBatcher != null) {
+            frameBatcher.shutdown();
+            frameBatcher = null;
+        }
         handlerThread.quitSafely();
         try {
             handlerThread.join();
@@ -221,16 +1265,81 @@ public class MainActivity extends AppCompatActivity {
         } catch (final InterruptedException e) {
             e.printStackTrace();
         }
+        // 카메라와 추론 스레드가 모두 멈춘 뒤에 변환기와 남은 프레임을 정리
+        releaseConverter();
+        frameMailbox.clear();
         super.onPause();
     }
 
     // Activity 가 파괴될 때 메모리 정리
     @Override
     protected synchronized void onDestroy() {
-        cls.finish();
+        releaseConverter();
+        if (replaySource != null) {
+            try {
+                replaySource.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            replaySource = null;
+        }
+        if (frameRecorder != null) {
+            Log.d(TAG, String.format(Locale.ENGLISH, "recorded %d frames, dropped %d",
+                    frameRecorder.getWritten(), frameRecorder.getDropped()));
+            try {
+                frameRecorder.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            frameRecorder = null;
+        }
+        // 초기화 스레드에서 진행 중인 작업이 끝난 뒤에 분류기를 정리
+        isModelReady = false;
+        initExecutor.execute(() -> {
+            if (classifierPool != null) {
+                classifierPool.close();
+                classifierPool = null;
+            }
+            if (detector != null) {
+                detector.finish();
+                detector = null;
+            }
+            if (modelCascade != null) {
+                modelCascade.finish();
+                modelCascade = null;
+            }
+            if (cls != null) {
+                cls.finish();
+            }
+        });
+        initExecutor.shutdown();
         super.onDestroy();
     }
 
+    // YUV 에서 바로 전처리하는 방식과 비트맵을 거치는 방식을 바꾸는 메소드
+    private void toggleFusedPreprocessing() {
+        useFusedPreprocessing = !useFusedPreprocessing;
+        Toast.makeText(this, useFusedPreprocessing ? "preprocess : fused" : "preprocess : bitmap",
+                Toast.LENGTH_SHORT).show();
+    }
+
+    // RenderScript 변환기와 순수 자바 변환기를 바꾸는 메소드
+    // 기존 변환기는 카메라 스레드에서 정리하고 다음 프레임에서 새로 만듭니다.
+    private void toggleConverterBackend() {
+        converterBackend = converterBackend == FrameConverter.Backend.RENDERSCRIPT
+                ? FrameConverter.Backend.JAVA
+                : FrameConverter.Backend.RENDERSCRIPT;
+        Toast.makeText(this, "converter : " + converterBackend, Toast.LENGTH_SHORT).show();
+    }
+
+    // 변환기가 사용하는 자원을 정리하는 메소드
+    private void releaseConverter() {
+        if (yuvConverter != null) {
+            yuvConverter.release();
+            yuvConverter = null;
+        }
+    }
+
     // Activity 가 시작될 때 호출되는 메소드
     // 호출된다는 보장이 없어서 잘 안쓰임
     @Override
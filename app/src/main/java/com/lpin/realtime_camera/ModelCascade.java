@@ -0,0 +1,135 @@
+package com.lpin.realtime_camera;
+
+import android.util.Size;
+
+import java.nio.ByteBuffer;
+
+// 레이블이 같은 여러 분류 모델을 빠른 모델부터 차례로 실행하는 클래스
+// 첫 모델의 결과가 CascadePolicy 의 기준보다 확실하지 않을 때만 다음 모델을 실행하므로
+// 대부분의 프레임은 작은 모델의 지연 시간으로 처리하고 어려운 프레임만 큰 모델로 처리합니다.
+// 입력 크기와 자료형이 첫 모델과 같은 모델은 첫 모델이 전처리한 입력을 그대로 사용합니다.
+// 모든 메소드는 추론 스레드 하나에서 호출해야 합니다.
+public class ModelCascade {
+    private final Classifier[] stages;
+    private final CascadePolicy policy;
+    // 다음 모델로 넘길지 정하기 위한 상위 2 개 이상의 결과
+    private TopKResult decision = new TopKResult(2);
+    // 첫 모델의 입력 (YuvFrame 으로 추론할 때 사용)
+    private ByteBuffer sharedInput;
+    // 마지막 프레임에서 결과를 낸 모델
+    private int lastStage = 0;
+
+    // stages : 빠른 모델부터 느린 모델 순서, 모두 초기화된 상태여야 함
+    public ModelCascade(Classifier[] stages, CascadePolicy policy) {
+        if (stages.length != policy.getStages()) {
+            throw new IllegalArgumentException("policy is for " + policy.getStages()
+                    + " stages, got " + stages.length);
+        }
+        for (Classifier stage : stages) {
+            if (stage.getNumClasses() != stages[0].getNumClasses()) {
+                throw new IllegalStateException("cascade models must share the label space : "
+                        + stage.getNumClasses() + " != " + stages[0].getNumClasses());
+            }
+        }
+        this.stages = stages.clone();
+        this.policy = policy;
+    }
+
+    public int size() {
+        return stages.length;
+    }
+
+    public Classifier getStage(int index) {
+        return stages[index];
+    }
+
+    public CascadePolicy getPolicy() {
+        return policy;
+    }
+
+    // 마지막 프레임에서 결과를 낸 모델 번호
+    public int getLastStage() {
+        return lastStage;
+    }
+
+    // 프레임을 첫 모델의 입력으로 전처리하고 필요한 만큼 다음 모델을 실행하는 메소드
+    // 첫 모델에 캐시가 있으면 비슷한 프레임의 최종 결과를 먼저 찾으므로 어느 모델도 실행하지 않을 수 있음
+    public void classifyTopK(YuvFrame frame, int sensorOrientation, int k, float minScore,
+                             TopKResult result) {
+        long start = System.nanoTime();
+        Classifier first = stages[0];
+        final ResultCache cache = first.getResultCache();
+        long hash = 0;
+        if (cache != null) {
+            hash = PerceptualHash.dHash(frame);
+            if (first.lookupCache(cache, hash, k, minScore, result)) {
+                lastStage = 0;
+                return;
+            }
+        }
+        if (sharedInput == null || sharedInput.capacity() != first.getInputBytes()) {
+            sharedInput = first.allocateInputBuffer();
+        }
+        first.preprocess(frame, sensorOrientation, sharedInput);
+        run(sharedInput, frame, sensorOrientation, k, minScore, result, start);
+        if (cache != null) {
+            cache.put(hash, System.nanoTime(), result);
+        }
+    }
+
+    // 첫 모델의 입력으로 이미 전처리한 버퍼로 추론하는 메소드 (파이프라인의 추론 단계에서 사용)
+    // 입력이 다른 모델로 넘길 때는 frame 을 다시 전처리합니다.
+    public void classifyTopK(ByteBuffer input, YuvFrame frame, int sensorOrientation, int k,
+                             float minScore, TopKResult result) {
+        run(input, frame, sensorOrientation, k, minScore, result, System.nanoTime());
+    }
+
+    private void run(ByteBuffer input, YuvFrame frame, int sensorOrientation, int k,
+                     float minScore, TopKResult result, long start) {
+        int needed = Math.max(2, k);
+        if (decision.capacity() < needed) {
+            decision = new TopKResult(needed);
+        }
+        for (int i = 0; i < stages.length; i++) {
+            Classifier stage = stages[i];
+            long stageStart = System.nanoTime();
+            if (i == 0 || sharesInput(stage)) {
+                stage.classifyTopK(input, needed, -Float.MAX_VALUE, decision);
+            } else {
+                stage.classifyTopK(frame, sensorOrientation, needed, -Float.MAX_VALUE, decision);
+            }
+            policy.recordStage(i, System.nanoTime() - stageStart);
+            lastStage = i;
+            if (!policy.shouldEscalate(decision)) {
+                break;
+            }
+        }
+        result.copyFrom(decision, k, minScore);
+        policy.recordFrame(System.nanoTime() - start);
+    }
+
+    // 첫 모델의 입력을 그대로 사용할 수 있는 모델인지 확인하는 메소드
+    // 첫 모델의 입력 크기는 실행 중에 바뀔 수 있으므로 매번 확인
+    private boolean sharesInput(Classifier stage) {
+        Classifier first = stages[0];
+        if (stage.getInputBytes() != first.getInputBytes()
+                || stage.getInputSpec().getType() != first.getInputSpec().getType()) {
+            return false;
+        }
+        Size a = stage.getModelInputSize();
+        Size b = first.getModelInputSize();
+        return a.getWidth() == b.getWidth() && a.getHeight() == b.getHeight();
+    }
+
+    // 마지막 프레임에서 결과를 낸 모델의 전체 점수를 out 에 복사하는 메소드
+    public void copyScores(float[] out) {
+        stages[lastStage].copyScores(out);
+    }
+
+    // 첫 모델을 제외한 모델을 정리하는 메소드 (첫 모델은 만든 쪽에서 정리)
+    public void finish() {
+        for (int i = 1; i < stages.length; i++) {
+            stages[i].finish();
+        }
+    }
+}
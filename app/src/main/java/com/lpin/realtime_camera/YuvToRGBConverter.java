@@ -3,101 +3,105 @@ package com.lpin.realtime_camera;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.ImageFormat;
-import android.graphics.Rect;
-import android.media.Image;
 import android.renderscript.Allocation;
 import android.renderscript.Element;
 import android.renderscript.RenderScript;
 import android.renderscript.ScriptIntrinsicYuvToRGB;
 import android.renderscript.Type;
 
-import java.nio.ByteBuffer;
+// 카메라 미리보기 크기마다 한 번 생성해서 계속 재사용하는 변환기
+// RenderScript, 스크립트, 버퍼, Allocation 을 프레임마다 만들지 않고 유지합니다.
+// 자르기 크기나 출력 비트맵이 바뀔 때만 다시 할당합니다.
+public class YuvToRGBConverter implements FrameConverter {
+    private RenderScript rs;
+    private ScriptIntrinsicYuvToRGB scriptYuvToRgb;
 
-public class YuvToRGBConverter {
-    private static void imageToByteArray(Image image, byte[] outputBuffer, int pixelCount) {
-        assert image.getFormat() == ImageFormat.YUV_420_888;
-        Rect imageCrop = image.getCropRect();
-        Image.Plane[] imagePlanes = image.getPlanes();
-        for(int planeIndex = 0; planeIndex < imagePlanes.length; planeIndex++) {
-            Image.Plane plane = imagePlanes[planeIndex];
-            int outputStride;
-            int outputOffset;
-            switch (planeIndex) {
-                case 0: {
-                    outputStride = 1;
-                    outputOffset = 0;
-                    break;
-                }
-                case 1: {
-                    outputStride = 2;
-                    outputOffset = pixelCount + 1;
-                    break;
-                }
-                case 2: {
-                    outputStride = 2;
-                    outputOffset = pixelCount;
-                    break;
-                }
-                default: {
-                    return;
-                }
-            }
-            ByteBuffer planeBuffer = plane.getBuffer();
-            int rowStride = plane.getRowStride();
-            int pixelStride = plane.getPixelStride();
-            Rect planeCrop;
-            if (planeIndex == 0) {
-                planeCrop = imageCrop;
-            } else {
-                planeCrop = new Rect(
-                        imageCrop.left / 2,
-                        imageCrop.top / 2,
-                        imageCrop.right / 2,
-                        imageCrop.bottom / 2
-                );
-            }
-            int planeWidth = planeCrop.width();
-            int planeHeight = planeCrop.height();
-            byte[] rowBuffer = new byte[plane.getRowStride()];
-            int rowLength;
-            if (pixelStride == 1 && outputStride == 1) {
-                rowLength = planeWidth;
-            } else {
-                rowLength = (planeWidth - 1) * pixelStride + 1;
-            }
-            for(int row = 0; row < planeHeight; row++){
-                planeBuffer.position(
-                        (row + planeCrop.top) * rowStride + planeCrop.left * pixelStride);
-                if (pixelStride == 1 && outputStride == 1) {
-                    planeBuffer.get(outputBuffer, outputOffset, rowLength);
-                    outputOffset += rowLength;
-                } else {
-                    planeBuffer.get(rowBuffer, 0, rowLength);
-                    for (int col = 0; col < planeWidth; col++) {
-                        outputBuffer[outputOffset] = rowBuffer[col * pixelStride];
-                        outputOffset += outputStride;
-                    }
-                }
-            }
-        }
+    // 프레임 사이에 재사용하는 버퍼
+    private byte[] yuvBuffer;
+    private final PlaneRepacker repacker = new PlaneRepacker();
+    private int pixelCount = 0;
+
+    // 재사용하는 Allocation 과 그 Allocation 이 연결된 비트맵
+    private Allocation inputAllocation;
+    private Allocation outputAllocation;
+    private Bitmap outputBitmap;
+
+    public YuvToRGBConverter(Context context) {
+        rs = RenderScript.create(context);
+        scriptYuvToRgb = ScriptIntrinsicYuvToRGB.create(rs, Element.U8_4(rs));
     }
-    public static void yuvToRgb(Context context, Image image, Bitmap output) {
-        RenderScript rs = RenderScript.create(context);
-        ScriptIntrinsicYuvToRGB scriptYuvToRgb =
-                ScriptIntrinsicYuvToRGB.create(rs, Element.U8_4(rs));
-        int pixelCount = image.getCropRect().width() * image.getCropRect().height();
+
+    // 자르기 크기가 바뀐 경우에만 입력 버퍼와 Allocation 을 다시 만듭니다.
+    private void ensureInput(int newPixelCount) {
+        if (yuvBuffer != null && newPixelCount == pixelCount) {
+            return;
+        }
+        if (inputAllocation != null) {
+            inputAllocation.destroy();
+        }
+        pixelCount = newPixelCount;
         int pixelSizeBits = ImageFormat.getBitsPerPixel(ImageFormat.YUV_420_888);
-        byte[] yuvBuffer = new byte[pixelCount * pixelSizeBits / 8];
-        imageToByteArray(image, yuvBuffer, pixelCount);
+        yuvBuffer = new byte[pixelCount * pixelSizeBits / 8];
         Type elemType = new Type.Builder(rs, Element.YUV(rs))
                 .setYuvFormat(ImageFormat.NV21)
                 .create();
-        Allocation inputAllocation =
+        inputAllocation =
                 Allocation.createSized(rs, elemType.getElement(), yuvBuffer.length);
-        Allocation outputAllocation = Allocation.createFromBitmap(rs, output);
-        inputAllocation.copyFrom(yuvBuffer);
         scriptYuvToRgb.setInput(inputAllocation);
+    }
+
+    // 출력 비트맵이 바뀐 경우에만 출력 Allocation 을 다시 만듭니다.
+    private void ensureOutput(Bitmap output) {
+        if (outputAllocation != null && output == outputBitmap) {
+            return;
+        }
+        if (outputAllocation != null) {
+            outputAllocation.destroy();
+        }
+        outputBitmap = output;
+        outputAllocation = Allocation.createFromBitmap(rs, output);
+    }
+
+    // 프레임마다 호출되는 변환 메소드
+    // 크기가 같으면 새로 할당하는 객체가 없습니다.
+    @Override
+    public synchronized void yuvToRgb(YuvFrame frame, Bitmap output) {
+        if (rs == null) {
+            throw new IllegalStateException("YuvToRGBConverter is released");
+        }
+        ensureInput(frame.width * frame.height);
+        ensureOutput(output);
+        // 프레임의 세 평면을 NV21 배열로 다시 담음
+        long start = System.nanoTime();
+        repacker.toNv21(frame, yuvBuffer);
+        PerfStats.global().record(PerfStats.Stage.REPACK, System.nanoTime() - start);
+        inputAllocation.copyFrom(yuvBuffer);
         scriptYuvToRgb.forEach(outputAllocation);
         outputAllocation.copyTo(output);
     }
-}
\ No newline at end of file
+
+    // 메모리 정리하는 메소드
+    // onPause 나 onDestroy 에서 호출
+    @Override
+    public synchronized void release() {
+        if (inputAllocation != null) {
+            inputAllocation.destroy();
+            inputAllocation = null;
+        }
+        if (outputAllocation != null) {
+            outputAllocation.destroy();
+            outputAllocation = null;
+        }
+        if (scriptYuvToRgb != null) {
+            scriptYuvToRgb.destroy();
+            scriptYuvToRgb = null;
+        }
+        if (rs != null) {
+            rs.destroy();
+            rs = null;
+        }
+        outputBitmap = null;
+        yuvBuffer = null;
+        pixelCount = 0;
+    }
+}
@@ -0,0 +1,71 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * ClassifierPool 의 인스턴스가 결과 캐시를 함께 쓰고, 캐시에서 찾으면 추론하지 않는지 확인하는 테스트
+ */
+public class ClassifierPoolTest {
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 48;
+
+    private static YuvFrame frame() {
+        byte[] nv21 = new byte[WIDTH * HEIGHT * 3 / 2];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                nv21[y * WIDTH + x] = (byte) (x * 4 + y);
+            }
+        }
+        YuvFrame frame = new YuvFrame();
+        frame.setNv21(nv21, WIDTH, HEIGHT);
+        return frame;
+    }
+
+    @Test
+    public void cacheHit_skipsInferenceInEveryInstance() throws InterruptedException {
+        // 모델을 읽지 않은 분류기라서 캐시에서 찾지 못하면 추론하다가 실패하고 결과가 오지 않음
+        Classifier[] classifiers = {
+                new Classifier(null, ClassifierOptions.defaults()),
+                new Classifier(null, ClassifierOptions.defaults())
+        };
+        YuvFrame frame = frame();
+        ResultCache cache = new ResultCache(4, 1 << 20, 1, 0, Long.MAX_VALUE / 2);
+        TopKResult cached = new TopKResult(1);
+        cached.indices[0] = 7;
+        cached.scores[0] = 0.9f;
+        cached.size = 1;
+        cache.put(PerceptualHash.dHash(frame), System.nanoTime(), cached);
+
+        int frames = 4;
+        CountDownLatch delivered = new CountDownLatch(frames);
+        int[] indices = new int[frames];
+        ClassifierPool pool = new ClassifierPool(classifiers, 1,
+                (sequence, timestampNs, result, scores) -> {
+                    indices[(int) sequence] = result.getIndex(0);
+                    delivered.countDown();
+                });
+        pool.setResultCache(cache);
+        try {
+            for (int i = 0; i < frames; i++) {
+                // 비어 있는 인스턴스가 생길 때까지 기다렸다가 넣음
+                while (!pool.submit(frame, 0, System.nanoTime())) {
+                    Thread.sleep(1);
+                }
+            }
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        } finally {
+            pool.close();
+        }
+        for (int index : indices) {
+            assertEquals(7, index);
+        }
+        assertEquals(frames, cache.getHits());
+        assertTrue(classifiers[0].getResultCache() == cache);
+        assertTrue(classifiers[1].getResultCache() == cache);
+    }
+}
@@ -0,0 +1,76 @@
+package com.lpin.realtime_camera;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// SSD MobileNet (1917 개 앵커, 배경 포함 91 개 클래스) 출력의 후처리 비용
+// decode 는 상자 풀기, nms 는 후보 모으기 + 정렬 + 클래스별 NMS, decodeAndNms 는 둘 다
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DetectionBenchmark {
+    private static final int CLASSES = 91;
+
+    // 후보 수를 바꾸기 위한 점수 임계값
+    @Param({"0.3", "0.5"})
+    public float minScore;
+
+    private float[] anchors;
+    private float[] rawBoxes;
+    private float[] logits;
+    private float[] boxes;
+    private int count;
+    private final NonMaxSuppression nms = new NonMaxSuppression(0.5f);
+    private final DetectionResult result = new DetectionResult(100);
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        anchors = BoxDecoder.ssdAnchors(300);
+        count = anchors.length / 4;
+        rawBoxes = new float[4 * count];
+        for (int i = 0; i < rawBoxes.length; i++) {
+            rawBoxes[i] = (float) random.nextGaussian();
+        }
+        // 대부분 배경이고 일부 앵커만 물체 점수가 높은 로짓
+        logits = new float[count * CLASSES];
+        for (int i = 0; i < logits.length; i++) {
+            logits[i] = random.nextFloat() < 0.005f ? (float) random.nextGaussian() * 2
+                    : -4 - random.nextFloat() * 4;
+        }
+        boxes = new float[4 * count];
+        BoxDecoder.decodeSsd(rawBoxes, anchors, count, boxes);
+    }
+
+    @Benchmark
+    public float[] decode() {
+        BoxDecoder.decodeSsd(rawBoxes, anchors, count, boxes);
+        return boxes;
+    }
+
+    @Benchmark
+    public DetectionResult nms() {
+        nms.reset();
+        nms.addLogits(logits, count, CLASSES, 1, minScore);
+        nms.run(boxes, result);
+        return result;
+    }
+
+    @Benchmark
+    public DetectionResult decodeAndNms() {
+        BoxDecoder.decodeSsd(rawBoxes, anchors, count, boxes);
+        nms.reset();
+        nms.addLogits(logits, count, CLASSES, 1, minScore);
+        nms.run(boxes, result);
+        return result;
+    }
+}
@@ -0,0 +1,86 @@
+package com.lpin.realtime_camera;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 카메라 평면을 NV21 / I420 배열로 다시 담는 비용
+// SEMI_PLANAR 는 U, V 가 교대로 있는 평면(픽셀 간격 2), PLANAR 는 각각 따로 있는 평면(픽셀 간격 1)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PlaneRepackBenchmark {
+    @Param({"640x480", "1280x720"})
+    public String size;
+
+    @Param({"SEMI_PLANAR", "PLANAR"})
+    public String layout;
+
+    // 기기처럼 행 끝에 여백을 둠
+    private static final int ROW_PADDING = 64;
+
+    private YuvFrame frame;
+    private final YuvFrame copy = new YuvFrame();
+    private final PlaneRepacker repacker = new PlaneRepacker();
+    private byte[] nv21;
+
+    @Setup
+    public void setUp() {
+        String[] parts = size.split("x");
+        int width = Integer.parseInt(parts[0]);
+        int height = Integer.parseInt(parts[1]);
+        frame = createFrame(new Random(1), width, height, "SEMI_PLANAR".equals(layout) ? 2 : 1);
+        nv21 = new byte[width * height * 3 / 2];
+    }
+
+    static YuvFrame createFrame(Random random, int width, int height, int uvPixelStride) {
+        int yRowStride = width + ROW_PADDING;
+        int uvRowStride = (width / 2) * uvPixelStride + ROW_PADDING;
+        byte[] y = new byte[yRowStride * height];
+        random.nextBytes(y);
+        ByteBuffer u, v;
+        if (uvPixelStride == 2) {
+            byte[] uv = new byte[uvRowStride * height / 2];
+            random.nextBytes(uv);
+            u = ByteBuffer.allocateDirect(uv.length).put(uv);
+            v = ByteBuffer.allocateDirect(uv.length).put(uv, 1, uv.length - 1).put((byte) 0);
+        } else {
+            byte[] plane = new byte[uvRowStride * height / 2];
+            random.nextBytes(plane);
+            u = ByteBuffer.allocateDirect(plane.length).put(plane);
+            random.nextBytes(plane);
+            v = ByteBuffer.allocateDirect(plane.length).put(plane);
+        }
+        ByteBuffer yBuffer = ByteBuffer.allocateDirect(y.length).put(y);
+        yBuffer.rewind();
+        u.rewind();
+        v.rewind();
+        YuvFrame frame = new YuvFrame();
+        frame.setPlanes(yBuffer, yRowStride, 1, u, v, uvRowStride, uvPixelStride);
+        frame.setCrop(0, 0, width, height);
+        return frame;
+    }
+
+    // RenderScript 변환기 입력 (YuvToRGBConverter.imageToByteArray)
+    @Benchmark
+    public byte[] toNv21() {
+        repacker.toNv21(frame, nv21);
+        return nv21;
+    }
+
+    // 분류기 묶음과 파이프라인이 카메라 이미지를 바로 닫기 위해 하는 복사
+    @Benchmark
+    public YuvFrame copyToI420() {
+        copy.copyFrom(frame);
+        return copy;
+    }
+}
@@ -0,0 +1,67 @@
+package com.lpin.realtime_camera;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 640x480 프레임을 224x224 모델 입력으로 자르기, 크기 조정, 회전, 정규화하는 비용
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PreprocessBenchmark {
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    private static final int INPUT_SIZE = 224;
+
+    @Param({"NEAREST_NEIGHBOR", "BILINEAR"})
+    public FramePreprocessor.ResizeMethod method;
+
+    @Param({"0", "1"})
+    public int numRotation;
+
+    @Param({"FLOAT32", "UINT8"})
+    public TensorSpec.ElementType outputType;
+
+    private YuvFrame frame;
+    private int[] pixels;
+    private FramePreprocessor preprocessor;
+    private ByteBuffer input;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(3);
+        frame = PlaneRepackBenchmark.createFrame(random, WIDTH, HEIGHT, 2);
+        pixels = new int[WIDTH * HEIGHT];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xff000000 | random.nextInt(0x1000000);
+        }
+        preprocessor = FramePreprocessor.centerCrop(WIDTH, HEIGHT, numRotation,
+                INPUT_SIZE, INPUT_SIZE, method, 0f, 255f, outputType);
+        input = ByteBuffer.allocateDirect(preprocessor.getOutputBytes())
+                .order(ByteOrder.nativeOrder());
+    }
+
+    // YUV 평면에서 바로 모델 입력을 만드는 경로
+    @Benchmark
+    public ByteBuffer fromYuv() {
+        preprocessor.process(frame, input, 0);
+        return input;
+    }
+
+    // 비트맵 픽셀(ARGB) 에서 모델 입력을 만드는 경로
+    @Benchmark
+    public ByteBuffer fromArgb() {
+        preprocessor.process(pixels, WIDTH, input, 0);
+        return input;
+    }
+}
@@ -0,0 +1,99 @@
+package com.lpin.realtime_camera;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 녹화 파일을 최대한 빨리 재생하면서 장면 변화 검사와 전처리까지 하는 처리량
+// replayFile 을 (jmh 블록의 benchmarkParameters 로) 지정하면 그 파일을,
+// 지정하지 않으면 만들어 낸 640x480 파일을 재생합니다.
+// 점수는 초당 재생 횟수이므로 파일의 프레임 수를 곱하면 초당 프레임 수입니다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ReplayBenchmark {
+    private static final int SYNTHETIC_FRAMES = 60;
+
+    @Param({""})
+    public String replayFile;
+
+    private File file;
+    private boolean generated;
+    private ReplayFrameSource source;
+    private SceneChangeDetector detector;
+    private FramePreprocessor preprocessor;
+    private ByteBuffer input;
+
+    @Setup
+    public void setUp() throws IOException {
+        generated = replayFile.isEmpty();
+        file = generated ? generate() : new File(replayFile);
+        source = ReplayFrameSource.open(file, ReplayFrameSource.Pacing.AS_FAST_AS_POSSIBLE);
+        // 기준 간격을 0 으로 두어서 모든 프레임을 전처리
+        detector = new SceneChangeDetector(16, 12, 6.0f, 0);
+        preprocessor = FramePreprocessor.centerCrop(source.getWidth(), source.getHeight(), 1,
+                224, 224, FramePreprocessor.ResizeMethod.BILINEAR, 0f, 255f);
+        input = ByteBuffer.allocateDirect(preprocessor.getOutputBytes())
+                .order(ByteOrder.nativeOrder());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        source.close();
+        if (generated) {
+            file.delete();
+        }
+    }
+
+    // 파일 전체를 한 번 재생하고 처리한 프레임 수를 리턴
+    @Benchmark
+    public long replay() {
+        source.play(s -> {
+            YuvFrame frame = s.acquireLatestFrame();
+            if (detector.shouldProcess(frame, frame.getTimestampNs())) {
+                preprocessor.process(frame, input, 0);
+            }
+            s.releaseFrame(frame);
+        });
+        return source.getDelivered();
+    }
+
+    // 임의의 밝기로 채운 프레임 파일을 만드는 메소드
+    private static File generate() throws IOException {
+        File path = File.createTempFile("replay", ".yuv");
+        FrameFile format = FrameFile.compact(640, 480, SYNTHETIC_FRAMES);
+        Random random = new Random(11);
+        try (RandomAccessFile out = new RandomAccessFile(path, "rw")) {
+            out.setLength(format.getFileSize());
+            ByteBuffer map = out.getChannel()
+                    .map(FileChannel.MapMode.READ_WRITE, 0, format.getFileSize())
+                    .order(FrameFile.ORDER);
+            format.writeHeader(map);
+            byte[] planes = new byte[format.getRecordSize() - FrameFile.RECORD_HEADER_SIZE];
+            for (int i = 0; i < SYNTHETIC_FRAMES; i++) {
+                int offset = (int) format.getRecordOffset(i);
+                map.putLong(offset + FrameFile.TIMESTAMP_OFFSET, i * 33_333_333L);
+                map.putLong(offset + FrameFile.SEQUENCE_OFFSET, i);
+                random.nextBytes(planes);
+                map.position(offset + FrameFile.RECORD_HEADER_SIZE);
+                map.put(planes);
+            }
+        }
+        return path;
+    }
+}
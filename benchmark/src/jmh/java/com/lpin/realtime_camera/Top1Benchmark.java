@@ -0,0 +1,84 @@
+package com.lpin.realtime_camera;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 1001 개 출력에서 가장 높은 클래스를 찾는 비용
+// mapArgmax 는 처음 버전의 Classifier 처럼 레이블 맵을 만들고 찾는 방식 (비교 기준)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class Top1Benchmark {
+    private static final int CLASSES = 1001;
+
+    private final List<String> labels = new ArrayList<>();
+    private final float[] scores = new float[CLASSES];
+    private final byte[] rawScores = new byte[CLASSES];
+    private final TensorSpec quantizedSpec =
+            new TensorSpec(TensorSpec.ElementType.UINT8, 1.0f / 255, 0);
+    private final TopKResult result = new TopKResult(5);
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        for (int i = 0; i < CLASSES; i++) {
+            labels.add("label" + i);
+            scores[i] = random.nextFloat();
+        }
+        random.nextBytes(rawScores);
+    }
+
+    // TensorLabel.getMapWithFloatValue + Map 순회와 같은 방식
+    @Benchmark
+    public String mapArgmax() {
+        Map<String, Float> map = new HashMap<>();
+        for (int i = 0; i < CLASSES; i++) {
+            map.put(labels.get(i), scores[i]);
+        }
+        String maxKey = "";
+        float maxVal = -1;
+        for (Map.Entry<String, Float> entry : map.entrySet()) {
+            float f = entry.getValue();
+            if (f > maxVal) {
+                maxKey = entry.getKey();
+                maxVal = f;
+            }
+        }
+        return maxKey;
+    }
+
+    @Benchmark
+    public int argmax() {
+        return TopKSelector.argmax(scores, CLASSES);
+    }
+
+    @Benchmark
+    public TopKResult top1() {
+        TopKSelector.select(scores, CLASSES, 1, -Float.MAX_VALUE, result);
+        return result;
+    }
+
+    @Benchmark
+    public TopKResult top5() {
+        TopKSelector.select(scores, CLASSES, 5, -Float.MAX_VALUE, result);
+        return result;
+    }
+
+    @Benchmark
+    public TopKResult top5Quantized() {
+        TopKSelector.selectQuantized(rawScores, CLASSES, quantizedSpec, 5, -Float.MAX_VALUE, result);
+        return result;
+    }
+}
@@ -0,0 +1,52 @@
+package com.lpin.realtime_camera;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 전체 프레임을 ARGB 로 바꾸는 고정 소수점 변환 비용 (비트맵 경로)
+// 미리보기 크기와 변환 스레드 수에 따른 처리량 비교
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class YuvConversionBenchmark {
+    @Param({"640x480", "1280x720"})
+    public String size;
+
+    @Param({"1", "2", "4"})
+    public int threads;
+
+    private YuvFrame frame;
+    private int[] argb;
+    private FixedPointYuvConverter converter;
+
+    @Setup
+    public void setUp() {
+        String[] dimensions = size.split("x");
+        int width = Integer.parseInt(dimensions[0]);
+        int height = Integer.parseInt(dimensions[1]);
+        frame = PlaneRepackBenchmark.createFrame(new Random(5), width, height, 2);
+        argb = new int[width * height];
+        converter = new FixedPointYuvConverter(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        converter.release();
+    }
+
+    @Benchmark
+    public int[] convert() {
+        converter.convert(frame, argb);
+        return argb;
+    }
+}
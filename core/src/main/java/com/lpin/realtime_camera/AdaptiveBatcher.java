@@ -0,0 +1,313 @@
+package com.lpin.realtime_camera;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// 들어온 프레임을 모아서 한 번의 추론으로 처리하도록 묶는 배처
+// 처리가 밀려서 기다리는 프레임이 쌓이면 묶음 크기를 maxBatch 까지 늘리고,
+// 묶음이 다 차지 않아도 첫 프레임이 flushTimeout 동안 기다렸으면 있는 만큼 처리합니다.
+// 부하가 적으면 묶음 크기가 1 로 돌아가서 프레임이 기다리지 않습니다.
+// 슬롯은 시작할 때 모두 만들고 재사용하며, 남은 슬롯이 없으면 가장 오래 기다린 프레임을 버립니다.
+public class AdaptiveBatcher<T> {
+    // 묶음 하나를 처리하는 인터페이스 (배처 스레드에서 호출)
+    public interface Handler<T> {
+        void process(Batch<T> batch) throws Exception;
+    }
+
+    // 슬롯을 만드는 인터페이스
+    public interface Factory<T> {
+        T create(int index);
+    }
+
+    // 처리할 묶음 (handler 호출이 끝나면 재사용)
+    public static final class Batch<T> {
+        private final Object[] items;
+        private int size;
+
+        Batch(int capacity) {
+            items = new Object[capacity];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            if (index >= size) {
+                throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+            }
+            return (T) items[index];
+        }
+    }
+
+    // 슬롯과 큐에 들어온 시간
+    private static final class Entry<T> {
+        final T item;
+        long enqueuedNs;
+
+        Entry(T item) {
+            this.item = item;
+        }
+    }
+
+    private final int maxBatch;
+    private final long flushTimeoutNs;
+    private final Handler<T> handler;
+    private final List<Entry<T>> entries;
+    private final Batch<T> batch;
+    // 처리 중인 묶음의 슬롯 (배처 스레드에서만 사용)
+    private final List<Entry<T>> batchEntries;
+    private final Thread thread;
+
+    // 아래 변수는 lock 으로 보호
+    private final Object lock = new Object();
+    private final ArrayDeque<Entry<T>> free = new ArrayDeque<>();
+    private final ArrayDeque<Entry<T>> pending = new ArrayDeque<>();
+    private int targetBatch = 1;
+    private boolean isShutdown = false;
+
+    // 카운터
+    private long dropped = 0;
+    private long batches = 0;
+    private long processed = 0;
+    private long fullBatches = 0;
+    private long waitNs = 0;
+    private long busyNs = 0;
+    private final long startNs = System.nanoTime();
+
+    // maxBatch : 한 번에 처리할 최대 프레임 수
+    // flushTimeoutMs : 묶음의 첫 프레임이 기다릴 수 있는 최대 시간
+    public AdaptiveBatcher(int maxBatch, long flushTimeoutMs, Factory<T> factory,
+                           Handler<T> handler) {
+        if (maxBatch <= 0) {
+            throw new IllegalArgumentException("maxBatch must be positive");
+        }
+        this.maxBatch = maxBatch;
+        this.flushTimeoutNs = TimeUnit.MILLISECONDS.toNanos(flushTimeoutMs);
+        this.handler = handler;
+        // 처리 중인 묶음 하나와 채우는 중인 묶음 하나
+        entries = new ArrayList<>(maxBatch * 2);
+        for (int i = 0; i < maxBatch * 2; i++) {
+            Entry<T> entry = new Entry<>(factory.create(i));
+            entries.add(entry);
+            free.add(entry);
+        }
+        batch = new Batch<>(maxBatch);
+        batchEntries = new ArrayList<>(maxBatch);
+        thread = new Thread(this::runLoop, "AdaptiveBatcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public int getMaxBatch() {
+        return maxBatch;
+    }
+
+    // 채울 슬롯을 꺼내는 메소드 (종료되었으면 null)
+    // 남은 슬롯이 없으면 가장 오래 기다린 프레임을 버리고 그 슬롯을 줍니다.
+    // 기다리는 프레임도 없으면 null 을 리턴하고, 넣지 못한 이 프레임을 버린 프레임으로 셉니다.
+    // 채운 뒤 submit 하거나, 사용하지 않으면 cancel 해야 합니다.
+    public T obtain() {
+        synchronized (lock) {
+            if (isShutdown) {
+                return null;
+            }
+            Entry<T> entry = free.poll();
+            if (entry == null) {
+                entry = pending.poll();
+                dropped++;
+                if (entry == null) {
+                    return null;
+                }
+            }
+            return entry.item;
+        }
+    }
+
+    // 채운 슬롯을 묶음에 넣는 메소드
+    public void submit(T item) {
+        synchronized (lock) {
+            Entry<T> entry = find(item);
+            entry.enqueuedNs = System.nanoTime();
+            pending.add(entry);
+            lock.notifyAll();
+        }
+    }
+
+    // 꺼낸 슬롯을 사용하지 않고 돌려주는 메소드
+    public void cancel(T item) {
+        synchronized (lock) {
+            free.add(find(item));
+        }
+    }
+
+    private Entry<T> find(T item) {
+        for (Entry<T> entry : entries) {
+            if (entry.item == item) {
+                return entry;
+            }
+        }
+        throw new IllegalArgumentException("item does not belong to this batcher");
+    }
+
+    // 배처 스레드
+    private void runLoop() {
+        while (true) {
+            int count;
+            long firstEnqueuedNs;
+            synchronized (lock) {
+                if (!awaitBatch()) {
+                    return;
+                }
+                int waiting = pending.size();
+                count = Math.min(waiting, maxBatch);
+                // 처리하는 동안 쌓인 프레임이 목표보다 많으면 묶음을 키우고,
+                // 시간이 지나서 덜 찬 채로 처리하면 그만큼 줄임
+                if (waiting > targetBatch) {
+                    targetBatch = Math.min(maxBatch, targetBatch + 1);
+                } else if (waiting < targetBatch) {
+                    targetBatch = Math.max(1, waiting);
+                }
+                if (count == maxBatch) {
+                    fullBatches++;
+                }
+                firstEnqueuedNs = pending.peek().enqueuedNs;
+                for (int i = 0; i < count; i++) {
+                    Entry<T> entry = pending.poll();
+                    batchEntries.add(entry);
+                    batch.items[i] = entry.item;
+                }
+                batch.size = count;
+            }
+            long start = System.nanoTime();
+            try {
+                handler.process(batch);
+            } catch (Exception e) {
+                // 묶음 하나의 오류로 배처가 멈추지 않도록 기록만 함 (Error 는 그대로 던짐)
+                e.printStackTrace();
+            } finally {
+                finishBatch(count, firstEnqueuedNs, start);
+            }
+        }
+    }
+
+    // 처리한 묶음의 슬롯을 돌려주고 통계를 기록하는 메소드
+    private void finishBatch(int count, long firstEnqueuedNs, long start) {
+        long end = System.nanoTime();
+        synchronized (lock) {
+            for (int i = 0; i < count; i++) {
+                free.add(batchEntries.get(i));
+                batch.items[i] = null;
+            }
+            batchEntries.clear();
+            batch.size = 0;
+            batches++;
+            processed += count;
+            waitNs += start - firstEnqueuedNs;
+            busyNs += end - start;
+        }
+    }
+
+    // 목표 크기만큼 모이거나 첫 프레임의 기다리는 시간이 끝날 때까지 기다리는 메소드
+    // 종료되면 false (lock 을 잡고 호출)
+    private boolean awaitBatch() {
+        try {
+            while (pending.isEmpty() && !isShutdown) {
+                lock.wait();
+            }
+            while (!isShutdown && pending.size() < targetBatch) {
+                long remaining = pending.peek().enqueuedNs + flushTimeoutNs - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return !isShutdown;
+    }
+
+    // 지금 모으고 있는 묶음 크기
+    public int getTargetBatch() {
+        synchronized (lock) {
+            return targetBatch;
+        }
+    }
+
+    // 슬롯이 모자라서 버린 프레임 수
+    public long getDropped() {
+        synchronized (lock) {
+            return dropped;
+        }
+    }
+
+    public long getBatches() {
+        synchronized (lock) {
+            return batches;
+        }
+    }
+
+    public long getProcessed() {
+        synchronized (lock) {
+            return processed;
+        }
+    }
+
+    // maxBatch 개를 다 채워서 처리한 묶음 수
+    public long getFullBatches() {
+        synchronized (lock) {
+            return fullBatches;
+        }
+    }
+
+    public double getAverageBatchSize() {
+        synchronized (lock) {
+            return batches > 0 ? (double) processed / batches : 0;
+        }
+    }
+
+    // 묶음의 첫 프레임이 처리되기까지 기다린 평균 시간 (밀리초)
+    public double getAverageWaitMs() {
+        synchronized (lock) {
+            return batches > 0 ? waitNs / 1e6 / batches : 0;
+        }
+    }
+
+    // 처리한 프레임 수 / 경과 시간
+    public double getThroughput() {
+        double seconds = (System.nanoTime() - startNs) / 1e9;
+        synchronized (lock) {
+            return seconds > 0 ? processed / seconds : 0;
+        }
+    }
+
+    public String getStats() {
+        synchronized (lock) {
+            return String.format(Locale.ENGLISH,
+                    "batcher %.1f fps, batch %.2f (target %d/%d, full %d), wait %.1f ms, "
+                            + "run %.1f ms, dropped %d",
+                    getThroughput(), getAverageBatchSize(), targetBatch, maxBatch, fullBatches,
+                    getAverageWaitMs(), batches > 0 ? busyNs / 1e6 / batches : 0, dropped);
+        }
+    }
+
+    // 처리 중인 묶음이 끝나기를 기다리고 스레드를 정리하는 메소드
+    // 기다리던 프레임은 처리하지 않습니다.
+    public void shutdown() {
+        synchronized (lock) {
+            isShutdown = true;
+            lock.notifyAll();
+        }
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.lpin.realtime_camera;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 시작할 때 여러 실행 환경으로 추론해 보고 가장 빠른 설정을 고르는 클래스
+// 고른 설정은 기기별 키로 저장해서 다음 실행부터는 다시 측정하지 않습니다.
+public class BackendTuner {
+    // 설정 하나로 추론 시간을 측정하는 인터페이스
+    // warmups 번 실행한 뒤 runs 번 실행한 평균 시간(나노초)을 리턴
+    // 사용할 수 없는 설정이면 예외를 던집니다.
+    public interface Trial {
+        long measureNs(ClassifierOptions options, int warmups, int runs) throws Exception;
+    }
+
+    // 선택한 설정을 저장하는 인터페이스
+    public interface Store {
+        String load(String key);
+
+        void save(String key, String value);
+    }
+
+    private final Trial trial;
+    private final Store store;
+    private final int warmups;
+    private final int runs;
+
+    // 마지막으로 측정한 결과 (로그 출력용)
+    private final List<String> report = new ArrayList<>();
+
+    public BackendTuner(Trial trial, Store store, int warmups, int runs) {
+        this.trial = trial;
+        this.store = store;
+        this.warmups = warmups;
+        this.runs = runs;
+    }
+
+    // 저장된 설정을 리턴하는 메소드
+    // 저장된 것이 없거나 후보에 없는 설정이면 null
+    public ClassifierOptions loadSaved(String deviceKey, List<ClassifierOptions> candidates) {
+        ClassifierOptions saved = ClassifierOptions.parse(store.load(deviceKey));
+        return saved != null && candidates.contains(saved) ? saved : null;
+    }
+
+    // 저장된 설정이 있으면 그것을, 없으면 후보를 모두 측정해서 가장 빠른 설정을 리턴하는 메소드
+    // 모든 후보가 실패하면 첫 번째 후보를 리턴하고 저장하지 않습니다.
+    public ClassifierOptions choose(String deviceKey, List<ClassifierOptions> candidates) {
+        if (candidates.isEmpty()) {
+            throw new IllegalArgumentException("no candidates");
+        }
+        ClassifierOptions saved = loadSaved(deviceKey, candidates);
+        if (saved != null) {
+            return saved;
+        }
+        report.clear();
+        ClassifierOptions best = null;
+        long bestNs = Long.MAX_VALUE;
+        for (ClassifierOptions candidate : candidates) {
+            try {
+                long ns = trial.measureNs(candidate, warmups, runs);
+                report.add(candidate + " : " + ns / 1000 + " us");
+                if (ns < bestNs) {
+                    bestNs = ns;
+                    best = candidate;
+                }
+            } catch (Exception e) {
+                report.add(candidate + " : failed (" + e.getMessage() + ")");
+            }
+        }
+        if (best == null) {
+            return candidates.get(0);
+        }
+        store.save(deviceKey, best.serialize());
+        return best;
+    }
+
+    public List<String> getReport() {
+        return report;
+    }
+
+    // 기본 후보 목록
+    // XNNPACK 을 켜고 끈 CPU 스레드 수 조합과 NNAPI
+    public static List<ClassifierOptions> defaultCandidates(String modelPath, int cores) {
+        List<ClassifierOptions> candidates = new ArrayList<>();
+        ClassifierOptions.Builder base = new ClassifierOptions.Builder().setModelPath(modelPath);
+        for (int threads : Arrays.asList(1, 2, 4)) {
+            if (threads > 1 && threads > cores) {
+                break;
+            }
+            candidates.add(base.setDelegate(ClassifierOptions.Delegate.CPU)
+                    .setNumThreads(threads).setUseXnnpack(true).build());
+            candidates.add(base.setUseXnnpack(false).build());
+        }
+        candidates.add(base.setDelegate(ClassifierOptions.Delegate.NNAPI)
+                .setNumThreads(-1).setUseXnnpack(false).build());
+        return candidates;
+    }
+}
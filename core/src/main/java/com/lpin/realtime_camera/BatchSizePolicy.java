@@ -0,0 +1,74 @@
+package com.lpin.realtime_camera;
+
+// 묶음을 추론할 입력 텐서의 배치 크기를 정하는 클래스
+// 배치 크기는 정해 둔 몇 가지(예: 1, 2, 4) 중에서 묶음이 들어가는 가장 작은 크기를 사용합니다.
+// 묶음이 커지면 바로 키우고, 줄이는 것은 shrinkAfter 개의 묶음이 연속으로 더 작은 크기에
+// 들어갈 때만 합니다. 묶음 크기가 오르내려도 입력 텐서를 매번 다시 할당하지 않습니다.
+public class BatchSizePolicy {
+    private final int[] sizes;
+    private final int shrinkAfter;
+
+    private int current;
+    // 지금 크기보다 작은 크기에 연속으로 들어간 묶음 수와 그동안 필요했던 가장 큰 크기
+    private int smallerBatches = 0;
+    private int largestNeeded = 0;
+    private long changes = 0;
+
+    // sizes : 사용할 배치 크기 (오름차순)
+    // shrinkAfter : 크기를 줄이기 전에 연속으로 더 작은 크기에 들어가야 하는 묶음 수
+    public BatchSizePolicy(int[] sizes, int shrinkAfter) {
+        if (sizes.length == 0 || sizes[0] < 1) {
+            throw new IllegalArgumentException("sizes must start with a positive size");
+        }
+        for (int i = 1; i < sizes.length; i++) {
+            if (sizes[i] <= sizes[i - 1]) {
+                throw new IllegalArgumentException("sizes must be increasing");
+            }
+        }
+        if (shrinkAfter < 1) {
+            throw new IllegalArgumentException("shrinkAfter must be positive");
+        }
+        this.sizes = sizes.clone();
+        this.shrinkAfter = shrinkAfter;
+        current = this.sizes[0];
+    }
+
+    // count 개짜리 묶음을 추론할 배치 크기를 리턴하는 메소드
+    public int update(int count) {
+        int needed = fit(count);
+        if (needed > current) {
+            current = needed;
+            smallerBatches = 0;
+            changes++;
+        } else if (needed < current) {
+            largestNeeded = smallerBatches == 0 ? needed : Math.max(largestNeeded, needed);
+            if (++smallerBatches >= shrinkAfter) {
+                current = largestNeeded;
+                smallerBatches = 0;
+                changes++;
+            }
+        } else {
+            smallerBatches = 0;
+        }
+        return current;
+    }
+
+    // count 개가 들어가는 가장 작은 크기 (가장 큰 크기보다 많으면 가장 큰 크기)
+    private int fit(int count) {
+        for (int size : sizes) {
+            if (size >= count) {
+                return size;
+            }
+        }
+        return sizes[sizes.length - 1];
+    }
+
+    public int getBatchSize() {
+        return current;
+    }
+
+    // 배치 크기를 바꾼 횟수 (입력 텐서를 다시 할당한 횟수)
+    public long getChanges() {
+        return changes;
+    }
+}
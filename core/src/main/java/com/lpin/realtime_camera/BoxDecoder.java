@@ -0,0 +1,154 @@
+package com.lpin.realtime_camera;
+
+// 검출 모델의 상자 출력을 (left, top, right, bottom) 정규화 좌표로 바꾸는 메소드 모음
+// 입력과 출력은 상자마다 4 개씩 이어 붙인 float 배열이고 새로 할당하는 객체가 없습니다.
+public class BoxDecoder {
+    // SSD 상자 인코딩의 크기 배율 (y, x, h, w), TF Object Detection API 의 기본값
+    public static final float SSD_Y_SCALE = 10.0f;
+    public static final float SSD_X_SCALE = 10.0f;
+    public static final float SSD_H_SCALE = 5.0f;
+    public static final float SSD_W_SCALE = 5.0f;
+
+    private BoxDecoder() {
+    }
+
+    // SSD MobileNet (v1, v2) 의 기본 앵커를 만드는 메소드
+    // 특징 맵 6 개 (stride 16 ~ 512), 가장 낮은 층은 상자 3 개, 나머지는 6 개 (300 x 300 입력이면 1917 개)
+    public static float[] ssdAnchors(int inputSize) {
+        return ssdAnchors(inputSize, new int[]{16, 32, 64, 128, 256, 512}, 0.2f, 0.95f,
+                new float[]{1.0f, 2.0f, 0.5f, 3.0f, 1.0f / 3.0f}, true, 1.0f);
+    }
+
+    // TF Object Detection API 의 multiple_grid_anchor_generator 와 같은 순서로 앵커를 만드는 메소드
+    // 앵커 i 는 (중심 y, 중심 x, 높이, 너비) 를 0~1 로 정규화해서 anchors[4 * i] ~ anchors[4 * i + 3] 에 담음
+    // 층마다 특징 맵 크기는 ceil(inputSize / stride), 앵커 순서는 층, 행, 열, 상자 종류
+    // interpolatedScaleAspectRatio 가 0 보다 크면 두 층 크기의 기하 평균인 상자를 하나 더 만듦
+    public static float[] ssdAnchors(int inputSize, int[] strides, float minScale, float maxScale,
+                                     float[] aspectRatios, boolean reduceBoxesInLowestLayer,
+                                     float interpolatedScaleAspectRatio) {
+        int numLayers = strides.length;
+        float[] layerScales = new float[numLayers + 1];
+        for (int i = 0; i < numLayers; i++) {
+            layerScales[i] = numLayers == 1 ? minScale
+                    : minScale + (maxScale - minScale) * i / (numLayers - 1);
+        }
+        layerScales[numLayers] = 1.0f;
+
+        // 층마다 상자 종류 (크기, 가로세로 비율)
+        float[][] boxScales = new float[numLayers][];
+        float[][] boxRatios = new float[numLayers][];
+        int total = 0;
+        for (int layer = 0; layer < numLayers; layer++) {
+            float scale = layerScales[layer];
+            if (layer == 0 && reduceBoxesInLowestLayer) {
+                boxScales[layer] = new float[]{0.1f, scale, scale};
+                boxRatios[layer] = new float[]{1.0f, 2.0f, 0.5f};
+            } else {
+                int n = aspectRatios.length + (interpolatedScaleAspectRatio > 0 ? 1 : 0);
+                boxScales[layer] = new float[n];
+                boxRatios[layer] = new float[n];
+                for (int i = 0; i < aspectRatios.length; i++) {
+                    boxScales[layer][i] = scale;
+                    boxRatios[layer][i] = aspectRatios[i];
+                }
+                if (interpolatedScaleAspectRatio > 0) {
+                    boxScales[layer][n - 1] =
+                            (float) Math.sqrt(scale * layerScales[layer + 1]);
+                    boxRatios[layer][n - 1] = interpolatedScaleAspectRatio;
+                }
+            }
+            int mapSize = (inputSize + strides[layer] - 1) / strides[layer];
+            total += mapSize * mapSize * boxScales[layer].length;
+        }
+
+        float[] anchors = new float[4 * total];
+        int a = 0;
+        for (int layer = 0; layer < numLayers; layer++) {
+            int mapSize = (inputSize + strides[layer] - 1) / strides[layer];
+            for (int y = 0; y < mapSize; y++) {
+                float cy = (y + 0.5f) / mapSize;
+                for (int x = 0; x < mapSize; x++) {
+                    float cx = (x + 0.5f) / mapSize;
+                    for (int i = 0; i < boxScales[layer].length; i++) {
+                        float ratio = (float) Math.sqrt(boxRatios[layer][i]);
+                        anchors[a] = cy;
+                        anchors[a + 1] = cx;
+                        anchors[a + 2] = boxScales[layer][i] / ratio;
+                        anchors[a + 3] = boxScales[layer][i] * ratio;
+                        a += 4;
+                    }
+                }
+            }
+        }
+        return anchors;
+    }
+
+    // SSD 상자 출력 (ty, tx, th, tw) 을 앵커 기준으로 풀어서 out 에 기록하는 메소드
+    // raw, anchors, out 은 상자 count 개 크기 이상
+    public static void decodeSsd(float[] raw, float[] anchors, int count, float[] out) {
+        for (int i = 0; i < 4 * count; i += 4) {
+            float anchorH = anchors[i + 2];
+            float anchorW = anchors[i + 3];
+            float cy = raw[i] / SSD_Y_SCALE * anchorH + anchors[i];
+            float cx = raw[i + 1] / SSD_X_SCALE * anchorW + anchors[i + 1];
+            float halfH = (float) Math.exp(raw[i + 2] / SSD_H_SCALE) * anchorH * 0.5f;
+            float halfW = (float) Math.exp(raw[i + 3] / SSD_W_SCALE) * anchorW * 0.5f;
+            out[i] = cx - halfW;
+            out[i + 1] = cy - halfH;
+            out[i + 2] = cx + halfW;
+            out[i + 3] = cy + halfH;
+        }
+    }
+
+    // (중심 x, 중심 y, 너비, 높이) 를 풀어서 out 에 기록하는 메소드 (YOLO 출력)
+    // 상자 i 는 rows[i * rowStride] 부터 시작하고, 좌표에 scaleX, scaleY 를 곱해서 정규화
+    // (이미 0~1 이면 1, 픽셀 단위면 1 / 입력 크기)
+    public static void decodeCenterSize(float[] rows, int rowStride, int count, float scaleX,
+                                        float scaleY, float[] out) {
+        for (int i = 0; i < count; i++) {
+            int r = i * rowStride;
+            float cx = rows[r] * scaleX;
+            float cy = rows[r + 1] * scaleY;
+            float halfW = rows[r + 2] * scaleX * 0.5f;
+            float halfH = rows[r + 3] * scaleY * 0.5f;
+            int o = 4 * i;
+            out[o] = cx - halfW;
+            out[o + 1] = cy - halfH;
+            out[o + 2] = cx + halfW;
+            out[o + 3] = cy + halfH;
+        }
+    }
+
+    // (ymin, xmin, ymax, xmax) 를 (left, top, right, bottom) 으로 바꿔서 out 에 기록하는 메소드
+    // TFLite_Detection_PostProcess 출력
+    public static void decodeCorners(float[] raw, int count, float[] out) {
+        for (int i = 0; i < 4 * count; i += 4) {
+            float ymin = raw[i];
+            float xmin = raw[i + 1];
+            float ymax = raw[i + 2];
+            float xmax = raw[i + 3];
+            out[i] = xmin;
+            out[i + 1] = ymin;
+            out[i + 2] = xmax;
+            out[i + 3] = ymax;
+        }
+    }
+
+    // 상자 a (boxesA 의 a 번째) 와 상자 b (boxesB 의 b 번째) 의 IoU
+    public static float iou(float[] boxesA, int a, float[] boxesB, int b) {
+        int i = 4 * a;
+        int j = 4 * b;
+        float areaA = (boxesA[i + 2] - boxesA[i]) * (boxesA[i + 3] - boxesA[i + 1]);
+        float areaB = (boxesB[j + 2] - boxesB[j]) * (boxesB[j + 3] - boxesB[j + 1]);
+        if (areaA <= 0 || areaB <= 0) {
+            return 0;
+        }
+        float w = Math.min(boxesA[i + 2], boxesB[j + 2]) - Math.max(boxesA[i], boxesB[j]);
+        float h = Math.min(boxesA[i + 3], boxesB[j + 3]) - Math.max(boxesA[i + 1], boxesB[j + 1]);
+        if (w <= 0 || h <= 0) {
+            return 0;
+        }
+        float intersection = w * h;
+        return intersection / (areaA + areaB - intersection);
+    }
+}
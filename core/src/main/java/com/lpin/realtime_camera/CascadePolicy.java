@@ -0,0 +1,112 @@
+package com.lpin.realtime_camera;
+
+import java.util.Locale;
+
+// 작은 모델을 먼저 실행하고 결과가 확실하지 않을 때만 다음(큰) 모델로 넘기는 기준과 통계
+// 1 순위 점수가 minConfidence 보다 작거나, 1 순위와 2 순위의 차이가 minMargin 보다 작으면 넘깁니다.
+// 단계별 실행 횟수와 시간을 기록해서 넘긴 비율과 프레임당 실제 평균 지연 시간을 계산합니다.
+public class CascadePolicy {
+    private final float minConfidence;
+    private final float minMargin;
+
+    // 통계 (단계 i 를 실행한 프레임 수와 그 단계의 실행 시간 합)
+    private final long[] stageRuns;
+    private final long[] stageNs;
+    private long frames = 0;
+    private long totalNs = 0;
+
+    // stages : 모델 수
+    // minConfidence : 1 순위 점수가 이보다 작으면 다음 모델로 넘김 (0 이면 사용하지 않음)
+    // minMargin : 1 순위와 2 순위 점수 차이가 이보다 작으면 다음 모델로 넘김 (0 이면 사용하지 않음)
+    public CascadePolicy(int stages, float minConfidence, float minMargin) {
+        if (stages < 1) {
+            throw new IllegalArgumentException("stages must be positive");
+        }
+        if (minConfidence < 0 || minMargin < 0) {
+            throw new IllegalArgumentException("thresholds must not be negative");
+        }
+        this.minConfidence = minConfidence;
+        this.minMargin = minMargin;
+        stageRuns = new long[stages];
+        stageNs = new long[stages];
+    }
+
+    public int getStages() {
+        return stageRuns.length;
+    }
+
+    // 점수가 높은 순서의 결과로 다음 모델로 넘길지 정하는 메소드 (결과가 없으면 넘김)
+    public boolean shouldEscalate(TopKResult result) {
+        if (result.size() == 0) {
+            return true;
+        }
+        float top2 = result.size() > 1 ? result.getScore(1) : 0;
+        return shouldEscalate(result.getScore(0), top2);
+    }
+
+    public boolean shouldEscalate(float top1, float top2) {
+        return top1 < minConfidence || top1 - top2 < minMargin;
+    }
+
+    // 단계 stage 를 한 번 실행한 시간을 기록하는 메소드
+    public synchronized void recordStage(int stage, long ns) {
+        stageRuns[stage]++;
+        stageNs[stage] += ns;
+    }
+
+    // 한 프레임의 전체 시간(전처리와 모든 단계의 추론)을 기록하는 메소드
+    public synchronized void recordFrame(long ns) {
+        frames++;
+        totalNs += ns;
+    }
+
+    public synchronized long getFrames() {
+        return frames;
+    }
+
+    // 첫 모델에서 끝나지 않고 다음 모델로 넘긴 프레임의 비율 (0 ~ 1)
+    public synchronized float getEscalationRate() {
+        return getStageRate(Math.min(1, stageRuns.length - 1));
+    }
+
+    // 단계 stage 까지 넘어간 프레임의 비율 (단계 0 은 1)
+    public synchronized float getStageRate(int stage) {
+        if (frames == 0 || stage == 0) {
+            return frames == 0 ? 0 : 1;
+        }
+        return (float) stageRuns[stage] / frames;
+    }
+
+    // 프레임당 평균 지연 시간 (ms), 넘기지 않은 프레임과 넘긴 프레임을 모두 포함
+    public synchronized double getEffectiveLatencyMs() {
+        return frames == 0 ? 0 : totalNs / 1e6 / frames;
+    }
+
+    // 단계 stage 의 한 번 실행 평균 시간 (ms)
+    public synchronized double getStageLatencyMs(int stage) {
+        return stageRuns[stage] == 0 ? 0 : stageNs[stage] / 1e6 / stageRuns[stage];
+    }
+
+    public synchronized void reset() {
+        frames = 0;
+        totalNs = 0;
+        for (int i = 0; i < stageRuns.length; i++) {
+            stageRuns[i] = 0;
+            stageNs[i] = 0;
+        }
+    }
+
+    // 예: "cascade : escalated 23.0%, effective 18.4 ms (stage 0 8.1 ms, stage 1 44.2 ms)"
+    public synchronized String summary() {
+        StringBuilder sb = new StringBuilder(String.format(Locale.ENGLISH,
+                "cascade : escalated %.1f%%, effective %.1f ms (",
+                getEscalationRate() * 100, getEffectiveLatencyMs()));
+        for (int i = 0; i < stageRuns.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(String.format(Locale.ENGLISH, "stage %d %.1f ms", i, getStageLatencyMs(i)));
+        }
+        return sb.append(')').toString();
+    }
+}
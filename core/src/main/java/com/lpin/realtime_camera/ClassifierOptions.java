@@ -0,0 +1,145 @@
+package com.lpin.realtime_camera;
+
+// Classifier 의 실행 환경 설정
+// CPU 스레드 수, XNNPACK 사용 여부, 위임(delegate), 모델 경로를 담습니다.
+// 자동 조정 결과를 저장하기 위해 문자열로 바꾸거나 문자열에서 읽을 수 있습니다.
+public final class ClassifierOptions {
+    // 추론을 맡길 장치
+    public enum Delegate {
+        CPU,
+        NNAPI,
+        GPU
+    }
+
+    public static final String DEFAULT_MODEL_PATH = "mobilenet_imagenet_model.tflite";
+
+    private final String modelPath;
+    private final int numThreads;
+    private final boolean useXnnpack;
+    private final Delegate delegate;
+
+    private ClassifierOptions(Builder builder) {
+        this.modelPath = builder.modelPath;
+        this.numThreads = builder.numThreads;
+        this.useXnnpack = builder.useXnnpack;
+        this.delegate = builder.delegate;
+    }
+
+    // 기본 설정 (CPU, 스레드 수는 인터프리터 기본값, XNNPACK 사용 안 함)
+    public static ClassifierOptions defaults() {
+        return new Builder().build();
+    }
+
+    public String getModelPath() {
+        return modelPath;
+    }
+
+    // -1 이면 인터프리터 기본값
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    public boolean isUseXnnpack() {
+        return useXnnpack;
+    }
+
+    public Delegate getDelegate() {
+        return delegate;
+    }
+
+    public Builder toBuilder() {
+        return new Builder()
+                .setModelPath(modelPath)
+                .setNumThreads(numThreads)
+                .setUseXnnpack(useXnnpack)
+                .setDelegate(delegate);
+    }
+
+    // 저장하기 위한 문자열 (delegate;threads;xnnpack;modelPath)
+    public String serialize() {
+        return delegate + ";" + numThreads + ";" + useXnnpack + ";" + modelPath;
+    }
+
+    // serialize 한 문자열을 읽는 메소드
+    // 형식이 맞지 않으면 null
+    public static ClassifierOptions parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        String[] parts = value.split(";", 4);
+        if (parts.length != 4) {
+            return null;
+        }
+        try {
+            return new Builder()
+                    .setDelegate(Delegate.valueOf(parts[0]))
+                    .setNumThreads(Integer.parseInt(parts[1]))
+                    .setUseXnnpack(Boolean.parseBoolean(parts[2]))
+                    .setModelPath(parts[3])
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ClassifierOptions)) {
+            return false;
+        }
+        ClassifierOptions other = (ClassifierOptions) o;
+        return numThreads == other.numThreads && useXnnpack == other.useXnnpack
+                && delegate == other.delegate && modelPath.equals(other.modelPath);
+    }
+
+    @Override
+    public int hashCode() {
+        return serialize().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return delegate + ", threads=" + numThreads + ", xnnpack=" + useXnnpack
+                + ", model=" + modelPath;
+    }
+
+    public static final class Builder {
+        private String modelPath = DEFAULT_MODEL_PATH;
+        private int numThreads = -1;
+        private boolean useXnnpack = false;
+        private Delegate delegate = Delegate.CPU;
+
+        public Builder setModelPath(String modelPath) {
+            if (modelPath == null || modelPath.isEmpty()) {
+                throw new IllegalArgumentException("modelPath is empty");
+            }
+            this.modelPath = modelPath;
+            return this;
+        }
+
+        public Builder setNumThreads(int numThreads) {
+            if (numThreads == 0 || numThreads < -1) {
+                throw new IllegalArgumentException("numThreads must be positive or -1");
+            }
+            this.numThreads = numThreads;
+            return this;
+        }
+
+        public Builder setUseXnnpack(boolean useXnnpack) {
+            this.useXnnpack = useXnnpack;
+            return this;
+        }
+
+        public Builder setDelegate(Delegate delegate) {
+            this.delegate = delegate;
+            return this;
+        }
+
+        public ClassifierOptions build() {
+            return new ClassifierOptions(this);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.lpin.realtime_camera;
+
+// 물체 검출 결과를 담는 재사용 가능한 객체
+// 상자(left, top, right, bottom), 클래스 번호, 점수를 기본형 배열에 담습니다.
+// 상자는 모델 입력(회전한 프레임) 기준 0~1 로 정규화한 좌표입니다.
+// 검출 결과는 점수가 높은 순서, 추적 결과는 추적 번호가 붙은 추적 순서로 담깁니다.
+public class DetectionResult {
+    // 상자 i 는 boxes[4 * i] ~ boxes[4 * i + 3]
+    final float[] boxes;
+    final int[] classes;
+    final float[] scores;
+    // 추적 번호 (추적하지 않은 결과는 -1)
+    final int[] trackIds;
+    // 클래스 번호의 레이블을 찾을 표와 표에서 클래스 0 의 위치 (없으면 null)
+    LabelTable labelTable;
+    int labelOffset;
+    int size = 0;
+
+    public DetectionResult(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        boxes = new float[4 * capacity];
+        classes = new int[capacity];
+        scores = new float[capacity];
+        trackIds = new int[capacity];
+    }
+
+    public int capacity() {
+        return classes.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == classes.length;
+    }
+
+    // 결과 하나를 뒤에 추가하는 메소드 (가득 차 있으면 false)
+    // 점수 순서는 호출하는 쪽에서 맞춤
+    public boolean add(float left, float top, float right, float bottom, int classIndex,
+                       float score) {
+        return add(left, top, right, bottom, classIndex, score, -1);
+    }
+
+    public boolean add(float left, float top, float right, float bottom, int classIndex,
+                       float score, int trackId) {
+        if (size == classes.length) {
+            return false;
+        }
+        int b = 4 * size;
+        boxes[b] = left;
+        boxes[b + 1] = top;
+        boxes[b + 2] = right;
+        boxes[b + 3] = bottom;
+        classes[size] = classIndex;
+        scores[size] = score;
+        trackIds[size] = trackId;
+        size++;
+        return true;
+    }
+
+    // other 의 결과를 모두 복사하는 메소드 (other 가 더 많으면 capacity 만큼만)
+    public void copyFrom(DetectionResult other) {
+        int count = Math.min(other.size, classes.length);
+        System.arraycopy(other.boxes, 0, boxes, 0, 4 * count);
+        System.arraycopy(other.classes, 0, classes, 0, count);
+        System.arraycopy(other.scores, 0, scores, 0, count);
+        System.arraycopy(other.trackIds, 0, trackIds, 0, count);
+        labelTable = other.labelTable;
+        labelOffset = other.labelOffset;
+        size = count;
+    }
+
+    public float getLeft(int i) {
+        checkIndex(i);
+        return boxes[4 * i];
+    }
+
+    public float getTop(int i) {
+        checkIndex(i);
+        return boxes[4 * i + 1];
+    }
+
+    public float getRight(int i) {
+        checkIndex(i);
+        return boxes[4 * i + 2];
+    }
+
+    public float getBottom(int i) {
+        checkIndex(i);
+        return boxes[4 * i + 3];
+    }
+
+    public int getClassIndex(int i) {
+        checkIndex(i);
+        return classes[i];
+    }
+
+    public float getScore(int i) {
+        checkIndex(i);
+        return scores[i];
+    }
+
+    public int getTrackId(int i) {
+        checkIndex(i);
+        return trackIds[i];
+    }
+
+    // 레이블 표가 없으면 null
+    public String getLabel(int i) {
+        checkIndex(i);
+        return labelTable != null ? labelTable.get(classes[i] + labelOffset) : null;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("index " + i + ", size " + size);
+        }
+    }
+}
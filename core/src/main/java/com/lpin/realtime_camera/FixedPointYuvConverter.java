@@ -0,0 +1,178 @@
+package com.lpin.realtime_camera;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+// RenderScript 없이 YUV_420 을 ARGB 로 바꾸는 순수 자바 변환기
+// BT.601 (video range) 계수를 2^14 배 한 정수로 계산합니다.
+// 행을 코어 수만큼 나눠서 고정된 작업 스레드에서 동시에 변환합니다.
+public class FixedPointYuvConverter {
+    // 고정 소수점 계수
+    static final int SHIFT = 14;
+    private static final int ROUND = 1 << (SHIFT - 1);
+    private static final int COEF_Y = 19071;   // 1.164
+    private static final int COEF_RV = 26149;  // 1.596
+    private static final int COEF_GV = 13320;  // 0.813
+    private static final int COEF_GU = 6406;   // 0.391
+    private static final int COEF_BU = 33063;  // 2.018
+
+    private final int threadCount;
+    private final ExecutorService workers;
+    private final Stripe[] stripes;
+
+    // 작업 스레드가 끝날 때까지 기다리기 위한 변수
+    private final Object lock = new Object();
+    private int pending;
+
+    // 현재 변환 중인 프레임과 출력 배열
+    private YuvFrame frame;
+    private int[] output;
+
+    // 코어 수만큼 스레드를 사용
+    public FixedPointYuvConverter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public FixedPointYuvConverter(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+        // 호출한 스레드도 한 구간을 처리하므로 작업 스레드는 하나 적게 만듭니다.
+        workers = this.threadCount > 1
+                ? Executors.newFixedThreadPool(this.threadCount - 1, new WorkerFactory())
+                : null;
+        stripes = new Stripe[this.threadCount];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    // 프레임 전체를 argb 배열에 변환하는 메소드
+    // argb 배열은 width * height 이상이어야 합니다.
+    public synchronized void convert(YuvFrame frame, int[] argb) {
+        if (argb.length < frame.width * frame.height) {
+            throw new IllegalArgumentException("output is smaller than the frame");
+        }
+        if (workers == null || frame.height < threadCount * 2) {
+            convertRows(frame, argb, 0, frame.height);
+            return;
+        }
+        this.frame = frame;
+        this.output = argb;
+
+        // 색차 행을 공유하지 않도록 두 행 단위로 나눕니다.
+        int rowPairs = (frame.height + 1) / 2;
+        int start = 0;
+        for (int i = 0; i < threadCount; i++) {
+            int end = Math.min(frame.height, (rowPairs * (i + 1) / threadCount) * 2);
+            stripes[i].rowStart = start;
+            stripes[i].rowEnd = end;
+            start = end;
+        }
+
+        synchronized (lock) {
+            pending = threadCount - 1;
+        }
+        for (int i = 1; i < threadCount; i++) {
+            workers.execute(stripes[i]);
+        }
+        // 첫 번째 구간은 호출한 스레드에서 처리
+        convertRows(frame, argb, stripes[0].rowStart, stripes[0].rowEnd);
+
+        // 작업 스레드가 아직 frame 과 output 을 읽고 있을 수 있으므로 인터럽트되어도 끝날 때까지 기다리고
+        // 인터럽트 상태는 다시 설정
+        boolean interrupted = false;
+        synchronized (lock) {
+            while (pending > 0) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        this.frame = null;
+        this.output = null;
+    }
+
+    // rowStart 부터 rowEnd 전까지의 행을 변환하는 메소드
+    static void convertRows(YuvFrame f, int[] argb, int rowStart, int rowEnd) {
+        final int width = f.width;
+        final int yRowStride = f.yRowStride;
+        final int yPixelStride = f.yPixelStride;
+        final int uvRowStride = f.uvRowStride;
+        final int uvPixelStride = f.uvPixelStride;
+        final int cropLeft = f.cropLeft;
+        for (int row = rowStart; row < rowEnd; row++) {
+            int yIndex = (f.cropTop + row) * yRowStride + cropLeft * yPixelStride;
+            // 색차 블록은 자르기 전 프레임 좌표로 정함 (자르기 시작 위치가 홀수여도 맞는 블록을 읽음)
+            int uvRowIndex = ((f.cropTop + row) / 2) * uvRowStride;
+            int out = row * width;
+            for (int col = 0; col < width; col++) {
+                int uvIndex = uvRowIndex + ((cropLeft + col) / 2) * uvPixelStride;
+                argb[out++] = yuvToArgb(
+                        f.yPlane.get(yIndex) & 0xff,
+                        f.uPlane.get(uvIndex) & 0xff,
+                        f.vPlane.get(uvIndex) & 0xff);
+                yIndex += yPixelStride;
+            }
+        }
+    }
+
+    // 한 픽셀을 변환하는 메소드
+    static int yuvToArgb(int y, int u, int v) {
+        int c = (y - 16) * COEF_Y + ROUND;
+        int d = u - 128;
+        int e = v - 128;
+        int r = (c + COEF_RV * e) >> SHIFT;
+        int g = (c - COEF_GV * e - COEF_GU * d) >> SHIFT;
+        int b = (c + COEF_BU * d) >> SHIFT;
+        r = r < 0 ? 0 : (r > 255 ? 255 : r);
+        g = g < 0 ? 0 : (g > 255 ? 255 : g);
+        b = b < 0 ? 0 : (b > 255 ? 255 : b);
+        return 0xff000000 | (r << 16) | (g << 8) | b;
+    }
+
+    // 작업 스레드를 정리하는 메소드
+    public void release() {
+        if (workers != null) {
+            workers.shutdown();
+        }
+    }
+
+    // 작업 스레드 하나가 맡는 행 구간
+    // 프레임마다 새로 만들지 않고 재사용합니다.
+    private class Stripe implements Runnable {
+        int rowStart, rowEnd;
+
+        @Override
+        public void run() {
+            try {
+                convertRows(frame, output, rowStart, rowEnd);
+            } finally {
+                synchronized (lock) {
+                    pending--;
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    // 앱 종료를 막지 않도록 데몬 스레드로 생성
+    private static class WorkerFactory implements ThreadFactory {
+        private int count = 0;
+
+        @Override
+        public synchronized Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "YuvConverter-" + (count++));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
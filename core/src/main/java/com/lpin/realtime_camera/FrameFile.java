@@ -0,0 +1,180 @@
+package com.lpin.realtime_camera;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+// 녹화한 YUV_420 프레임 파일의 형식
+// [파일 헤더 HEADER_SIZE 바이트][프레임 레코드 * capacity]
+// 프레임 레코드 = [레코드 헤더 RECORD_HEADER_SIZE 바이트][Y 평면][U 평면][V 평면]
+// 모든 레코드의 크기가 같아서 위치를 계산으로 찾을 수 있고, 평면은 stride 그대로 저장합니다.
+// 숫자는 little endian 으로 저장합니다.
+public final class FrameFile {
+    static final int MAGIC = 0x52565559; // "YUVR"
+    static final int VERSION = 1;
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    // 파일 헤더의 필드 위치
+    static final int HEADER_SIZE = 64;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int WIDTH_OFFSET = 8;
+    private static final int HEIGHT_OFFSET = 12;
+    private static final int Y_ROW_STRIDE_OFFSET = 16;
+    private static final int UV_ROW_STRIDE_OFFSET = 20;
+    private static final int UV_PIXEL_STRIDE_OFFSET = 24;
+    private static final int CAPACITY_OFFSET = 28;
+    private static final int RECORD_SIZE_OFFSET = 32;
+
+    // 레코드 헤더의 필드 위치
+    static final int RECORD_HEADER_SIZE = 32;
+    static final int TIMESTAMP_OFFSET = 0;
+    // 기록한 순서 (비어 있는 레코드는 -1)
+    static final int SEQUENCE_OFFSET = 8;
+    static final int ORIENTATION_OFFSET = 16;
+    // 이 프레임의 추론 결과 (없으면 클래스 -1)
+    static final int CLASS_INDEX_OFFSET = 20;
+    static final int SCORE_OFFSET = 24;
+
+    static final long EMPTY_SEQUENCE = -1;
+
+    final int width, height;
+    final int yRowStride;
+    final int uvRowStride, uvPixelStride;
+    // 파일에 들어가는 레코드 수
+    final int capacity;
+
+    public FrameFile(int width, int height, int yRowStride, int uvRowStride, int uvPixelStride,
+                     int capacity) {
+        if (width <= 0 || height <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("invalid frame file size");
+        }
+        if (yRowStride < width || uvPixelStride < 1
+                || uvRowStride < ((width + 1) / 2 - 1) * uvPixelStride + 1) {
+            throw new IllegalArgumentException("invalid frame file stride");
+        }
+        this.width = width;
+        this.height = height;
+        this.yRowStride = yRowStride;
+        this.uvRowStride = uvRowStride;
+        this.uvPixelStride = uvPixelStride;
+        this.capacity = capacity;
+    }
+
+    // 여백 없이 평면을 저장하는 형식 (I420)
+    public static FrameFile compact(int width, int height, int capacity) {
+        return new FrameFile(width, height, width, (width + 1) / 2, 1, capacity);
+    }
+
+    // 파일 헤더를 읽는 메소드
+    // 형식이 맞지 않으면 IllegalArgumentException
+    static FrameFile readHeader(ByteBuffer buffer) {
+        ByteBuffer header = buffer.duplicate().order(ORDER);
+        if (header.remaining() < HEADER_SIZE || header.getInt(MAGIC_OFFSET) != MAGIC) {
+            throw new IllegalArgumentException("not a frame file");
+        }
+        if (header.getInt(VERSION_OFFSET) != VERSION) {
+            throw new IllegalArgumentException(
+                    "unsupported frame file version " + header.getInt(VERSION_OFFSET));
+        }
+        FrameFile file = new FrameFile(header.getInt(WIDTH_OFFSET), header.getInt(HEIGHT_OFFSET),
+                header.getInt(Y_ROW_STRIDE_OFFSET), header.getInt(UV_ROW_STRIDE_OFFSET),
+                header.getInt(UV_PIXEL_STRIDE_OFFSET), header.getInt(CAPACITY_OFFSET));
+        if (header.getInt(RECORD_SIZE_OFFSET) != file.getRecordSize()) {
+            throw new IllegalArgumentException("frame file record size mismatch");
+        }
+        return file;
+    }
+
+    // 파일 헤더를 buffer 의 처음에 기록하는 메소드
+    void writeHeader(ByteBuffer buffer) {
+        ByteBuffer header = buffer.duplicate().order(ORDER);
+        for (int i = 0; i < HEADER_SIZE; i += 4) {
+            header.putInt(i, 0);
+        }
+        header.putInt(MAGIC_OFFSET, MAGIC);
+        header.putInt(VERSION_OFFSET, VERSION);
+        header.putInt(WIDTH_OFFSET, width);
+        header.putInt(HEIGHT_OFFSET, height);
+        header.putInt(Y_ROW_STRIDE_OFFSET, yRowStride);
+        header.putInt(UV_ROW_STRIDE_OFFSET, uvRowStride);
+        header.putInt(UV_PIXEL_STRIDE_OFFSET, uvPixelStride);
+        header.putInt(CAPACITY_OFFSET, capacity);
+        header.putInt(RECORD_SIZE_OFFSET, getRecordSize());
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    int getYPlaneSize() {
+        return yRowStride * height;
+    }
+
+    int getUvPlaneSize() {
+        return uvRowStride * ((height + 1) / 2);
+    }
+
+    public int getRecordSize() {
+        return RECORD_HEADER_SIZE + getYPlaneSize() + 2 * getUvPlaneSize();
+    }
+
+    // 헤더를 포함한 파일 전체 크기
+    public long getFileSize() {
+        return HEADER_SIZE + (long) capacity * getRecordSize();
+    }
+
+    // index 번째 레코드가 시작하는 파일 위치
+    long getRecordOffset(int index) {
+        return HEADER_SIZE + (long) index * getRecordSize();
+    }
+
+    // 매핑 하나에 들어가는 레코드 수 (매핑 하나는 2GB 를 넘을 수 없음)
+    int getRecordsPerMap() {
+        return Math.max(1, Integer.MAX_VALUE / getRecordSize());
+    }
+
+    // 모든 레코드를 getRecordsPerMap 개씩 나눠서 매핑하는 메소드
+    // index 번째 레코드는 maps[index / n] 의 (index % n) * getRecordSize() 에서 시작합니다.
+    MappedByteBuffer[] mapRecords(FileChannel channel, FileChannel.MapMode mode)
+            throws IOException {
+        int recordsPerMap = getRecordsPerMap();
+        MappedByteBuffer[] maps = new MappedByteBuffer[(capacity + recordsPerMap - 1) / recordsPerMap];
+        for (int i = 0; i < maps.length; i++) {
+            int first = i * recordsPerMap;
+            int records = Math.min(recordsPerMap, capacity - first);
+            maps[i] = channel.map(mode, getRecordOffset(first), (long) records * getRecordSize());
+        }
+        return maps;
+    }
+
+    // 레코드 하나를 가리키는 buffer 의 평면을 복사하지 않고 frame 에 연결하는 메소드
+    // buffer 의 position 부터 레코드가 시작해야 합니다.
+    void wrapRecord(ByteBuffer record, YuvFrame frame) {
+        int start = record.position();
+        int yStart = start + RECORD_HEADER_SIZE;
+        int uStart = yStart + getYPlaneSize();
+        int vStart = uStart + getUvPlaneSize();
+        frame.setPlanes(slice(record, yStart, getYPlaneSize()), yRowStride, 1,
+                slice(record, uStart, getUvPlaneSize()), slice(record, vStart, getUvPlaneSize()),
+                uvRowStride, uvPixelStride);
+        frame.setCrop(0, 0, width, height);
+        frame.timestampNs = record.duplicate().order(ORDER).getLong(start + TIMESTAMP_OFFSET);
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.limit(offset + length).position(offset);
+        return view.slice();
+    }
+}
@@ -0,0 +1,118 @@
+package com.lpin.realtime_camera;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// 카메라 스레드에서 추론 스레드로 가장 최근 프레임 하나만 넘기는 우편함
+// 처리되지 않은 프레임이 있으면 새 프레임으로 바꾸고 이전 프레임의 버퍼는 재사용합니다.
+// 버퍼는 미리 만들어 두고 락 없이 주고받으므로 프레임마다 할당하지 않습니다.
+// 채우는 스레드 하나와 처리하는 스레드 하나에서 사용하는 것을 가정합니다.
+public class FrameMailbox<T> {
+    // 채우는 중, 우편함, 처리 중에 하나씩 있으면 충분
+    public static final int DEFAULT_CAPACITY = 3;
+
+    // 버퍼를 만드는 인터페이스
+    public interface Factory<T> {
+        T create(int index);
+    }
+
+    // 처리를 기다리는 가장 최근 프레임 (없으면 null)
+    private final AtomicReference<T> latest = new AtomicReference<>();
+    // 사용하지 않는 버퍼 (빈 칸은 null)
+    private final AtomicReferenceArray<T> free;
+
+    // 카운터
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+
+    public FrameMailbox(Factory<T> factory) {
+        this(DEFAULT_CAPACITY, factory);
+    }
+
+    public FrameMailbox(int capacity, Factory<T> factory) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2");
+        }
+        free = new AtomicReferenceArray<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            free.set(i, factory.create(i));
+        }
+    }
+
+    // 채울 버퍼를 꺼내는 메소드
+    // 모든 버퍼가 사용 중이면 null
+    public T obtain() {
+        for (int i = 0; i < free.length(); i++) {
+            T buffer = free.get(i);
+            if (buffer != null && free.compareAndSet(i, buffer, null)) {
+                return buffer;
+            }
+        }
+        return null;
+    }
+
+    // 채운 버퍼를 우편함에 넣는 메소드
+    // 처리되지 않은 프레임이 있었으면 버린 프레임으로 세고 그 버퍼를 재사용합니다.
+    // 우편함이 비어 있었으면 true 를 리턴
+    public boolean post(T buffer) {
+        delivered.incrementAndGet();
+        T previous = latest.getAndSet(buffer);
+        if (previous == null) {
+            return true;
+        }
+        dropped.incrementAndGet();
+        recycle(previous);
+        return false;
+    }
+
+    // 가장 최근 프레임을 꺼내는 메소드 (없으면 null)
+    // 처리가 끝나면 release 로 돌려줘야 합니다.
+    public T take() {
+        return latest.getAndSet(null);
+    }
+
+    // 처리가 끝난 버퍼를 돌려주는 메소드
+    public void release(T buffer) {
+        processed.incrementAndGet();
+        recycle(buffer);
+    }
+
+    // 채우다가 실패한 버퍼를 우편함에 넣지 않고 돌려주는 메소드
+    public void discard(T buffer) {
+        recycle(buffer);
+    }
+
+    // 처리를 기다리는 프레임을 버리는 메소드
+    public void clear() {
+        T previous = latest.getAndSet(null);
+        if (previous != null) {
+            recycle(previous);
+        }
+    }
+
+    private void recycle(T buffer) {
+        for (int i = 0; i < free.length(); i++) {
+            if (free.get(i) == null && free.compareAndSet(i, null, buffer)) {
+                return;
+            }
+        }
+        throw new IllegalStateException("buffer does not belong to this mailbox");
+    }
+
+    // 우편함에 넣은 프레임 수
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    // 처리되기 전에 새 프레임으로 바뀐 프레임 수
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    // 처리가 끝난 프레임 수
+    public long getProcessed() {
+        return processed.get();
+    }
+}
@@ -0,0 +1,318 @@
+package com.lpin.realtime_camera;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// 프레임 처리를 여러 단계(예: 전처리 -> 추론 -> 결과 표시)로 나눠서 동시에 실행하는 파이프라인
+// 단계마다 전용 스레드와 크기가 정해진 입력 큐가 있어서 한 프레임을 추론하는 동안
+// 다음 프레임을 전처리할 수 있습니다. 처리량은 모든 단계의 합이 아니라 가장 느린 단계로 정해집니다.
+// 프레임 슬롯은 시작할 때 모두 만들고 재사용하며, 큐가 가득 차면 가장 오래된 프레임을 버립니다.
+public class FramePipeline<S> {
+    // 단계 하나의 처리 인터페이스
+    // 다음 단계로 넘기려면 true, 여기서 끝내려면 false 를 리턴
+    public interface Stage<S> {
+        boolean process(S slot) throws Exception;
+    }
+
+    // 슬롯을 만드는 인터페이스
+    public interface Factory<S> {
+        S create(int index);
+    }
+
+    private final int depth;
+    private final Factory<S> factory;
+    private final List<StageRunner> runners = new ArrayList<>();
+    // 사용하지 않는 슬롯
+    private SlotQueue free;
+    private volatile boolean isShutdown = false;
+    private long startNs;
+    // 남은 슬롯이 없어서 넣지 못하고 버린 프레임 수 (obtain 을 호출하는 스레드에서만 씀)
+    private volatile long rejected = 0;
+
+    // depth : 단계마다 처리를 기다릴 수 있는 최대 프레임 수
+    public FramePipeline(int depth, Factory<S> factory) {
+        if (depth <= 0) {
+            throw new IllegalArgumentException("depth must be positive");
+        }
+        this.depth = depth;
+        this.factory = factory;
+    }
+
+    // 단계를 추가하는 메소드 (start 전에 순서대로 호출)
+    public FramePipeline<S> addStage(String name, Stage<S> stage) {
+        if (free != null) {
+            throw new IllegalStateException("pipeline already started");
+        }
+        runners.add(new StageRunner(runners.size(), name, stage));
+        return this;
+    }
+
+    // 슬롯을 만들고 단계별 스레드를 시작하는 메소드
+    // 단계마다 큐에 depth 개 + 처리 중 1 개, 그리고 채우는 중인 1 개면 슬롯이 모자라지 않음
+    public void start() {
+        if (runners.isEmpty()) {
+            throw new IllegalStateException("no stages");
+        }
+        int slotCount = runners.size() * (depth + 1) + 1;
+        free = new SlotQueue(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            free.offer(factory.create(i), 0);
+        }
+        startNs = System.nanoTime();
+        for (StageRunner runner : runners) {
+            runner.thread.start();
+        }
+    }
+
+    // 채울 슬롯을 꺼내는 메소드 (모두 사용 중이면 null 을 리턴하고 버린 프레임으로 셈)
+    // 채운 뒤 submit 하거나, 사용하지 않으면 cancel 해야 합니다.
+    public S obtain() {
+        if (isShutdown) {
+            return null;
+        }
+        S slot = free.poll();
+        if (slot == null) {
+            rejected++;
+        }
+        return slot;
+    }
+
+    // 채운 슬롯을 첫 번째 단계로 넘기는 메소드
+    public void submit(S slot) {
+        forward(runners.get(0), slot);
+    }
+
+    // 꺼낸 슬롯을 사용하지 않고 돌려주는 메소드
+    public void cancel(S slot) {
+        free.offer(slot, 0);
+    }
+
+    // 다음 단계의 큐에 넣고, 가득 차서 밀려난 가장 오래된 슬롯은 돌려받음
+    private void forward(StageRunner next, S slot) {
+        S dropped = next.queue.offer(slot, System.nanoTime());
+        if (dropped != null) {
+            free.offer(dropped, 0);
+        }
+    }
+
+    public int getStageCount() {
+        return runners.size();
+    }
+
+    public String getStageName(int stage) {
+        return runners.get(stage).name;
+    }
+
+    // 단계의 큐에서 처리를 기다리는 프레임 수
+    public int getQueueDepth(int stage) {
+        return runners.get(stage).queue.size();
+    }
+
+    public int getMaxQueueDepth(int stage) {
+        return runners.get(stage).queue.maxSize();
+    }
+
+    // 큐가 가득 차서 단계에 들어가지 못하고 버려진 프레임 수
+    public long getDropped(int stage) {
+        return runners.get(stage).queue.dropped();
+    }
+
+    // 슬롯이 모자라서 첫 단계에 넣지 못하고 버린 프레임 수
+    public long getRejected() {
+        return rejected;
+    }
+
+    // 단계가 처리한 프레임 수
+    public long getProcessed(int stage) {
+        return runners.get(stage).processed;
+    }
+
+    // 큐에서 기다린 평균 시간 (밀리초)
+    public double getAverageWaitMs(int stage) {
+        StageRunner runner = runners.get(stage);
+        long processed = runner.processed;
+        return processed > 0 ? runner.waitNs / 1e6 / processed : 0;
+    }
+
+    // 단계 하나의 평균 처리 시간 (밀리초)
+    public double getAverageProcessMs(int stage) {
+        StageRunner runner = runners.get(stage);
+        long processed = runner.processed;
+        return processed > 0 ? runner.busyNs / 1e6 / processed : 0;
+    }
+
+    // 단계가 처리하느라 바빴던 시간의 비율 (0 ~ 1)
+    public double getUtilization(int stage) {
+        long elapsed = System.nanoTime() - startNs;
+        return elapsed > 0 ? (double) runners.get(stage).busyNs / elapsed : 0;
+    }
+
+    // 마지막 단계까지 끝난 프레임 수 / 경과 시간
+    public double getThroughput() {
+        double seconds = (System.nanoTime() - startNs) / 1e9;
+        return seconds > 0 ? runners.get(runners.size() - 1).processed / seconds : 0;
+    }
+
+    public String getStats() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ENGLISH, "pipeline %.1f fps, rejected %d",
+                getThroughput(), rejected));
+        for (int i = 0; i < runners.size(); i++) {
+            sb.append(String.format(Locale.ENGLISH,
+                    ", %s [queue %d/%d, wait %.1f ms, run %.1f ms, dropped %d]",
+                    getStageName(i), getQueueDepth(i), depth, getAverageWaitMs(i),
+                    getAverageProcessMs(i), getDropped(i)));
+        }
+        return sb.toString();
+    }
+
+    // 처리 중인 프레임이 끝나기를 기다리고 스레드를 정리하는 메소드
+    // 큐에 남은 프레임은 처리하지 않습니다.
+    public void shutdown() {
+        isShutdown = true;
+        for (StageRunner runner : runners) {
+            runner.queue.wakeUp();
+        }
+        for (StageRunner runner : runners) {
+            try {
+                runner.thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // 단계 하나를 실행하는 스레드
+    private class StageRunner implements Runnable {
+        final int index;
+        final String name;
+        final Stage<S> stage;
+        final SlotQueue queue = new SlotQueue(depth);
+        final Thread thread;
+
+        // 이 단계의 스레드에서만 쓰고 다른 스레드에서는 읽기만 하는 카운터
+        volatile long processed = 0;
+        volatile long waitNs = 0;
+        volatile long busyNs = 0;
+
+        StageRunner(int index, String name, Stage<S> stage) {
+            this.index = index;
+            this.name = name;
+            this.stage = stage;
+            thread = new Thread(this, "Pipeline-" + name);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            StageRunner next = index + 1 < runners.size() ? runners.get(index + 1) : null;
+            while (true) {
+                S slot = queue.take();
+                if (slot == null) {
+                    return;
+                }
+                long start = System.nanoTime();
+                boolean pass;
+                try {
+                    pass = stage.process(slot);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    pass = false;
+                }
+                long end = System.nanoTime();
+                waitNs += start - queue.lastEnqueuedNs;
+                busyNs += end - start;
+                processed++;
+                if (pass && next != null && !isShutdown) {
+                    forward(next, slot);
+                } else {
+                    free.offer(slot, 0);
+                }
+            }
+        }
+    }
+
+    // 미리 만든 배열을 사용하는 크기가 정해진 원형 큐
+    // 가득 찬 상태에서 넣으면 가장 오래된 항목을 밀어냅니다.
+    private class SlotQueue {
+        private final Object[] items;
+        private final long[] enqueuedNs;
+        private int head = 0;
+        private int count = 0;
+        private int maxCount = 0;
+        private long dropped = 0;
+        // take 로 꺼낸 항목이 큐에 들어온 시간 (꺼낸 스레드에서만 사용)
+        long lastEnqueuedNs;
+
+        SlotQueue(int capacity) {
+            items = new Object[capacity];
+            enqueuedNs = new long[capacity];
+        }
+
+        // 넣고 밀려난 항목을 리턴 (없으면 null)
+        synchronized S offer(S slot, long nowNs) {
+            S evicted = null;
+            if (count == items.length) {
+                evicted = removeHead();
+                dropped++;
+            }
+            int tail = (head + count) % items.length;
+            items[tail] = slot;
+            enqueuedNs[tail] = nowNs;
+            count++;
+            if (count > maxCount) {
+                maxCount = count;
+            }
+            notify();
+            return evicted;
+        }
+
+        // 비어 있으면 null
+        synchronized S poll() {
+            return count > 0 ? removeHead() : null;
+        }
+
+        // 항목이 들어올 때까지 기다려서 꺼내는 메소드 (종료되면 null)
+        synchronized S take() {
+            while (count == 0 && !isShutdown) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+            if (isShutdown) {
+                return null;
+            }
+            lastEnqueuedNs = enqueuedNs[head];
+            return removeHead();
+        }
+
+        @SuppressWarnings("unchecked")
+        private S removeHead() {
+            S slot = (S) items[head];
+            items[head] = null;
+            head = (head + 1) % items.length;
+            count--;
+            return slot;
+        }
+
+        synchronized void wakeUp() {
+            notifyAll();
+        }
+
+        synchronized int size() {
+            return count;
+        }
+
+        synchronized int maxSize() {
+            return maxCount;
+        }
+
+        synchronized long dropped() {
+            return dropped;
+        }
+    }
+}
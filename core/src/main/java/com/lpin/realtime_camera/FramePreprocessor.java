@@ -0,0 +1,285 @@
+package com.lpin.realtime_camera;
+
+import java.nio.ByteBuffer;
+
+// YUV 평면을 읽어서 모델 입력 ByteBuffer 를 바로 채우는 전처리기
+// 자르기, 크기 조정(최근접/양선형), 회전, 색 변환, 정규화를 한 번에 처리합니다.
+// 출력 픽셀만 계산하므로 중간 비트맵이나 전체 프레임 변환이 필요 없습니다.
+// 입력 기하 정보(자르기 영역, 회전, 출력 크기)마다 한 번 만들고 재사용합니다.
+public class FramePreprocessor {
+    // 크기 조정 방법
+    public enum ResizeMethod {
+        NEAREST_NEIGHBOR,
+        BILINEAR
+    }
+
+    // 양선형 보간 가중치의 고정 소수점 자릿수
+    private static final int WEIGHT_BITS = 8;
+    private static final int WEIGHT_ONE = 1 << WEIGHT_BITS;
+
+    // 기하 정보
+    private final int cropLeft, cropTop, cropWidth, cropHeight;
+    private final int numRotation;
+    private final int outputWidth, outputHeight;
+    private final boolean bilinear;
+
+    // 크기 조정된(회전 전) 이미지의 크기
+    private final int resizedWidth, resizedHeight;
+
+    // 크기 조정된 이미지의 열/행이 참조하는 원본 위치와 가중치
+    private final int[] colLow, colHigh, colWeight;
+    private final int[] rowLow, rowHigh, rowWeight;
+
+    // 출력 자료형
+    private final TensorSpec.ElementType outputType;
+    // 0~255 값을 정규화된 값으로 바꾸는 표 (float 모델)
+    private final float[] normalized = new float[256];
+    // 0~255 값을 모델에 넣을 byte 로 바꾸는 표 (양자화 모델)
+    private final byte[] quantized = new byte[256];
+
+    public FramePreprocessor(int cropLeft, int cropTop, int cropWidth, int cropHeight,
+                             int numRotation, int outputWidth, int outputHeight,
+                             ResizeMethod method, float mean, float std) {
+        this(cropLeft, cropTop, cropWidth, cropHeight, numRotation, outputWidth, outputHeight,
+                method, mean, std, TensorSpec.ElementType.FLOAT32);
+    }
+
+    // cropLeft, cropTop, cropWidth, cropHeight : 프레임 안에서 사용할 영역
+    // numRotation : 반시계 방향 90도 회전 횟수 (Rot90Op 와 같음)
+    // mean, std : float 모델에서 (값 - mean) / std 로 정규화
+    // outputType : UINT8 은 픽셀 값을 그대로, INT8 은 128 을 뺀 값을 기록하고 정규화하지 않음
+    public FramePreprocessor(int cropLeft, int cropTop, int cropWidth, int cropHeight,
+                             int numRotation, int outputWidth, int outputHeight,
+                             ResizeMethod method, float mean, float std,
+                             TensorSpec.ElementType outputType) {
+        this.cropLeft = cropLeft;
+        this.cropTop = cropTop;
+        this.cropWidth = cropWidth;
+        this.cropHeight = cropHeight;
+        this.numRotation = ((numRotation % 4) + 4) % 4;
+        this.outputWidth = outputWidth;
+        this.outputHeight = outputHeight;
+        this.bilinear = method == ResizeMethod.BILINEAR;
+        this.outputType = outputType;
+
+        // 홀수 번 회전하면 가로 세로가 바뀌므로 회전 전 크기를 바꿔서 계산
+        boolean swap = (this.numRotation & 1) == 1;
+        resizedWidth = swap ? outputHeight : outputWidth;
+        resizedHeight = swap ? outputWidth : outputHeight;
+
+        colLow = new int[resizedWidth];
+        colHigh = new int[resizedWidth];
+        colWeight = new int[resizedWidth];
+        rowLow = new int[resizedHeight];
+        rowHigh = new int[resizedHeight];
+        rowWeight = new int[resizedHeight];
+        buildAxis(cropWidth, resizedWidth, colLow, colHigh, colWeight);
+        buildAxis(cropHeight, resizedHeight, rowLow, rowHigh, rowWeight);
+
+        for (int i = 0; i < 256; i++) {
+            normalized[i] = (i - mean) / std;
+            quantized[i] = (byte) (outputType == TensorSpec.ElementType.INT8 ? i - 128 : i);
+        }
+    }
+
+    // 프레임의 가운데를 정사각형으로 잘라서 사용하는 전처리기를 만드는 메소드
+    // ResizeWithCropOrPadOp(cropSize, cropSize) 와 같은 영역을 사용
+    public static FramePreprocessor centerCrop(int frameWidth, int frameHeight, int numRotation,
+                                               int outputWidth, int outputHeight,
+                                               ResizeMethod method, float mean, float std) {
+        return centerCrop(frameWidth, frameHeight, numRotation, outputWidth, outputHeight,
+                method, mean, std, TensorSpec.ElementType.FLOAT32);
+    }
+
+    public static FramePreprocessor centerCrop(int frameWidth, int frameHeight, int numRotation,
+                                               int outputWidth, int outputHeight,
+                                               ResizeMethod method, float mean, float std,
+                                               TensorSpec.ElementType outputType) {
+        int cropSize = Math.min(frameWidth, frameHeight);
+        return new FramePreprocessor(
+                (frameWidth - cropSize) / 2, (frameHeight - cropSize) / 2, cropSize, cropSize,
+                numRotation, outputWidth, outputHeight, method, mean, std, outputType);
+    }
+
+    // 한 축의 원본 위치를 미리 계산하는 메소드
+    private void buildAxis(int srcSize, int dstSize, int[] low, int[] high, int[] weight) {
+        float scale = (float) srcSize / dstSize;
+        for (int i = 0; i < dstSize; i++) {
+            if (bilinear) {
+                float src = (i + 0.5f) * scale - 0.5f;
+                if (src < 0) {
+                    src = 0;
+                }
+                int lo = Math.min((int) src, srcSize - 1);
+                low[i] = lo;
+                high[i] = Math.min(lo + 1, srcSize - 1);
+                weight[i] = Math.round((src - lo) * WEIGHT_ONE);
+            } else {
+                // Bitmap.createScaledBitmap(filter = false) 와 같은 위치
+                int src = Math.min((int) ((i + 0.5f) * scale), srcSize - 1);
+                low[i] = src;
+                high[i] = src;
+                weight[i] = 0;
+            }
+        }
+    }
+
+    public int getOutputWidth() {
+        return outputWidth;
+    }
+
+    public int getOutputHeight() {
+        return outputHeight;
+    }
+
+    // 이 전처리기가 주어진 기하 정보로 만들어졌는지 확인하는 메소드
+    public boolean matches(int cropLeft, int cropTop, int cropWidth, int cropHeight,
+                           int numRotation) {
+        return this.cropLeft == cropLeft && this.cropTop == cropTop
+                && this.cropWidth == cropWidth && this.cropHeight == cropHeight
+                && this.numRotation == ((numRotation % 4) + 4) % 4;
+    }
+
+    // 자르기 영역의 위치와 상관없이 크기와 회전만 같은지 확인하는 메소드
+    // 크기가 같으면 process 에 영역의 위치를 넘겨서 다른 위치에도 재사용할 수 있음
+    public boolean matchesSize(int cropWidth, int cropHeight, int numRotation) {
+        return this.cropWidth == cropWidth && this.cropHeight == cropHeight
+                && this.numRotation == ((numRotation % 4) + 4) % 4;
+    }
+
+    public TensorSpec.ElementType getOutputType() {
+        return outputType;
+    }
+
+    // 출력 하나의 크기 (byte)
+    public int getOutputBytes() {
+        return outputWidth * outputHeight * 3 * outputType.byteSize();
+    }
+
+    // 프레임을 NHWC(RGB) 형태로 output 의 offset 위치부터 기록하는 메소드
+    // output 의 position 은 바뀌지 않습니다.
+    public void process(YuvFrame frame, ByteBuffer output, int offset) {
+        process(frame, cropLeft, cropTop, output, offset);
+    }
+
+    // 만들 때 정한 위치 대신 (originX, originY) 에서 시작하는 같은 크기의 영역을 기록하는 메소드
+    // 물체를 따라 움직이는 영역마다 전처리기를 새로 만들지 않기 위해 사용
+    public void process(YuvFrame frame, int originX, int originY, ByteBuffer output,
+                        int offset) {
+        int index = offset;
+        for (int oy = 0; oy < outputHeight; oy++) {
+            for (int ox = 0; ox < outputWidth; ox++) {
+                int argb = sample(frame, originX, originY, resizedX(ox, oy), resizedY(ox, oy));
+                index = put(output, index, argb);
+            }
+        }
+    }
+
+    // ARGB 픽셀 배열(Bitmap.getPixels 결과)을 같은 방식으로 기록하는 메소드
+    // stride 는 배열 한 행의 길이
+    public void process(int[] pixels, int stride, ByteBuffer output, int offset) {
+        int index = offset;
+        for (int oy = 0; oy < outputHeight; oy++) {
+            for (int ox = 0; ox < outputWidth; ox++) {
+                int argb = sample(pixels, stride, resizedX(ox, oy), resizedY(ox, oy));
+                index = put(output, index, argb);
+            }
+        }
+    }
+
+    // RGB 값을 출력 자료형에 맞게 기록하고 다음 위치를 리턴하는 메소드
+    private int put(ByteBuffer output, int index, int argb) {
+        if (outputType != TensorSpec.ElementType.FLOAT32) {
+            output.put(index, quantized[(argb >> 16) & 0xff]);
+            output.put(index + 1, quantized[(argb >> 8) & 0xff]);
+            output.put(index + 2, quantized[argb & 0xff]);
+            return index + 3;
+        }
+        output.putFloat(index, normalized[(argb >> 16) & 0xff]);
+        output.putFloat(index + 4, normalized[(argb >> 8) & 0xff]);
+        output.putFloat(index + 8, normalized[argb & 0xff]);
+        return index + 12;
+    }
+
+    // 회전된 출력 위치를 회전 전 위치로 되돌리는 메소드
+    private int resizedX(int ox, int oy) {
+        switch (numRotation) {
+            case 1:
+                return resizedWidth - 1 - oy;
+            case 2:
+                return resizedWidth - 1 - ox;
+            case 3:
+                return oy;
+            default:
+                return ox;
+        }
+    }
+
+    private int resizedY(int ox, int oy) {
+        switch (numRotation) {
+            case 1:
+                return ox;
+            case 2:
+                return resizedHeight - 1 - oy;
+            case 3:
+                return resizedHeight - 1 - ox;
+            default:
+                return oy;
+        }
+    }
+
+    // 크기 조정된 이미지의 (rx, ry) 위치의 색을 ARGB 배열에서 계산하는 메소드
+    private int sample(int[] pixels, int stride, int rx, int ry) {
+        int x0 = cropLeft + colLow[rx];
+        int y0 = cropTop + rowLow[ry];
+        int p00 = pixels[y0 * stride + x0];
+        if (!bilinear) {
+            return p00;
+        }
+        int x1 = cropLeft + colHigh[rx];
+        int y1 = cropTop + rowHigh[ry];
+        int wx = colWeight[rx];
+        int wy = rowWeight[ry];
+        int p01 = pixels[y0 * stride + x1];
+        int p10 = pixels[y1 * stride + x0];
+        int p11 = pixels[y1 * stride + x1];
+        int result = 0xff000000;
+        for (int shift = 0; shift <= 16; shift += 8) {
+            int top = ((p00 >> shift) & 0xff) * (WEIGHT_ONE - wx) + ((p01 >> shift) & 0xff) * wx;
+            int bottom = ((p10 >> shift) & 0xff) * (WEIGHT_ONE - wx) + ((p11 >> shift) & 0xff) * wx;
+            int value = (top * (WEIGHT_ONE - wy) + bottom * wy + (1 << (2 * WEIGHT_BITS - 1)))
+                    >> (2 * WEIGHT_BITS);
+            result |= value << shift;
+        }
+        return result;
+    }
+
+    // 크기 조정된 이미지의 (rx, ry) 위치의 색을 원본 YUV 에서 계산하는 메소드
+    // 색차는 해상도가 절반이므로 가장 가까운 값을 사용하고 밝기만 보간합니다.
+    private int sample(YuvFrame f, int originX, int originY, int rx, int ry) {
+        int x0 = originX + colLow[rx];
+        int y0 = originY + rowLow[ry];
+        int luma = luma(f, x0, y0);
+        if (bilinear) {
+            int x1 = originX + colHigh[rx];
+            int y1 = originY + rowHigh[ry];
+            int wx = colWeight[rx];
+            int wy = rowWeight[ry];
+            int top = luma * (WEIGHT_ONE - wx) + luma(f, x1, y0) * wx;
+            int bottom = luma(f, x0, y1) * (WEIGHT_ONE - wx) + luma(f, x1, y1) * wx;
+            luma = (top * (WEIGHT_ONE - wy) + bottom * wy + (1 << (2 * WEIGHT_BITS - 1)))
+                    >> (2 * WEIGHT_BITS);
+        }
+        // 색차 블록은 자르기 전 프레임 좌표로 정함 (자르기 시작 위치가 홀수여도 맞는 블록을 읽음)
+        int uvIndex = ((f.cropTop + y0) / 2) * f.uvRowStride
+                + ((f.cropLeft + x0) / 2) * f.uvPixelStride;
+        return FixedPointYuvConverter.yuvToArgb(
+                luma, f.uPlane.get(uvIndex) & 0xff, f.vPlane.get(uvIndex) & 0xff);
+    }
+
+    // 자르기 영역 기준 (x, y) 위치의 밝기 값
+    private static int luma(YuvFrame f, int x, int y) {
+        return f.yPlane.get((f.cropTop + y) * f.yRowStride + (f.cropLeft + x) * f.yPixelStride)
+                & 0xff;
+    }
+}
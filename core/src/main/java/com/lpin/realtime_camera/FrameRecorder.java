@@ -0,0 +1,252 @@
+package com.lpin.realtime_camera;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 카메라 프레임을 미리 크기를 정해 둔 파일(FrameFile 형식)에 링 버퍼로 녹화하는 클래스
+// 파일을 메모리에 매핑해 두고 가장 최근 capacity 개의 프레임만 남기며, ReplayFrameSource 로 재생할 수 있습니다.
+// 카메라 스레드는 비어 있는 임시 버퍼에 프레임을 복사해서 넘기기만 하고 파일 기록은 기록 스레드가 합니다.
+// 기록 스레드가 밀려서 임시 버퍼가 없으면 기다리지 않고 프레임을 버린 뒤 버린 수를 셉니다.
+public class FrameRecorder implements Closeable {
+    // 카메라 스레드와 기록 스레드 사이의 임시 버퍼 수
+    private static final int STAGING_FRAMES = 3;
+    // 기록 전에 도착한 추론 결과를 보관하는 수
+    private static final int PENDING_RESULTS = 16;
+    // 추론 결과의 프레임을 찾을 때 거슬러 올라가는 최대 레코드 수
+    private static final int RESULT_SEARCH_DEPTH = 64;
+
+    // 카메라 스레드에서 기록 스레드로 넘기는 프레임 (I420 으로 복사해 둔 것)
+    private static class StagedFrame {
+        final YuvFrame frame = new YuvFrame();
+        int orientation;
+    }
+
+    private final RandomAccessFile file;
+    private final FrameFile format;
+    private final MappedByteBuffer[] maps;
+    private final int recordsPerMap;
+
+    private final ArrayBlockingQueue<StagedFrame> freeFrames =
+            new ArrayBlockingQueue<>(STAGING_FRAMES);
+    private final ArrayBlockingQueue<StagedFrame> filledFrames =
+            new ArrayBlockingQueue<>(STAGING_FRAMES);
+    private final Thread writer;
+    private volatile boolean closed = false;
+
+    // 아래 변수는 lock 으로 보호 (레코드 헤더도 lock 을 잡고 기록)
+    private final Object lock = new Object();
+    // 레코드마다 기록된 프레임의 순서와 촬영 시각
+    private final long[] slotSequence;
+    private final long[] slotTimestamp;
+    // 기록 전에 도착한 추론 결과
+    private final long[] pendingTimestamp = new long[PENDING_RESULTS];
+    private final int[] pendingClass = new int[PENDING_RESULTS];
+    private final float[] pendingScore = new float[PENDING_RESULTS];
+    private int pendingNext = 0;
+    // 다음에 기록할 프레임의 순서 (기록 스레드에서만 증가)
+    private long nextSequence = 0;
+
+    // 카운터
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+
+    private FrameRecorder(RandomAccessFile file, FrameFile format) throws IOException {
+        this.file = file;
+        this.format = format;
+        FileChannel channel = file.getChannel();
+        // 녹화 중에 파일 크기가 바뀌지 않도록 처음에 전체 크기를 잡아 둠
+        file.setLength(format.getFileSize());
+        format.writeHeader(channel.map(FileChannel.MapMode.READ_WRITE, 0, FrameFile.HEADER_SIZE));
+        maps = format.mapRecords(channel, FileChannel.MapMode.READ_WRITE);
+        recordsPerMap = format.getRecordsPerMap();
+        slotSequence = new long[format.capacity];
+        slotTimestamp = new long[format.capacity];
+        for (int i = 0; i < format.capacity; i++) {
+            slotSequence[i] = FrameFile.EMPTY_SEQUENCE;
+            record(i).putLong(FrameFile.SEQUENCE_OFFSET, FrameFile.EMPTY_SEQUENCE);
+        }
+        Arrays.fill(pendingClass, -1);
+        for (int i = 0; i < STAGING_FRAMES; i++) {
+            freeFrames.add(new StagedFrame());
+        }
+        writer = new Thread(this::writeLoop, "FrameRecorder");
+        writer.setDaemon(true);
+        writer.setPriority(Thread.NORM_PRIORITY - 1);
+        writer.start();
+    }
+
+    // width x height 프레임을 최근 capacity 개까지 녹화하는 파일을 만드는 메소드
+    // 같은 이름의 파일이 있으면 덮어씁니다.
+    public static FrameRecorder create(File path, int width, int height, int capacity)
+            throws IOException {
+        RandomAccessFile file = new RandomAccessFile(path, "rw");
+        try {
+            return new FrameRecorder(file, FrameFile.compact(width, height, capacity));
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    // 최근 seconds 초를 남기기 위한 레코드 수
+    public static int capacityFor(int seconds, int framesPerSecond) {
+        return Math.max(1, seconds * framesPerSecond);
+    }
+
+    public int getWidth() {
+        return format.width;
+    }
+
+    public int getHeight() {
+        return format.height;
+    }
+
+    public int getCapacity() {
+        return format.capacity;
+    }
+
+    // 파일에 기록한 프레임 수
+    public long getWritten() {
+        return written.get();
+    }
+
+    // 기록 스레드가 밀렸거나 크기가 달라서 버린 프레임 수
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    // 카메라 스레드에서 프레임을 녹화하도록 넘기는 메소드
+    // 자르기 영역을 복사하므로 리턴한 뒤에는 프레임을 돌려줘도 됩니다.
+    // 임시 버퍼가 없거나 크기가 파일과 다르면 기다리지 않고 버린 뒤 false 를 리턴합니다.
+    public boolean record(YuvFrame frame, int orientation) {
+        if (closed || frame.width != format.width || frame.height != format.height) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        StagedFrame staged = freeFrames.poll();
+        if (staged == null) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        staged.frame.copyFrom(frame);
+        staged.orientation = orientation;
+        filledFrames.add(staged);
+        return true;
+    }
+
+    // 촬영 시각이 timestampNs 인 프레임의 추론 결과를 레코드 헤더에 남기는 메소드
+    // 아직 파일에 기록되지 않은 프레임이면 기록할 때 함께 남깁니다.
+    public void setResult(long timestampNs, int classIndex, float score) {
+        synchronized (lock) {
+            long newest = nextSequence - 1;
+            long oldest = Math.max(0, newest - Math.min(format.capacity, RESULT_SEARCH_DEPTH) + 1);
+            for (long sequence = newest; sequence >= oldest; sequence--) {
+                int slot = (int) (sequence % format.capacity);
+                if (slotSequence[slot] == sequence && slotTimestamp[slot] == timestampNs) {
+                    writeResult(record(slot), classIndex, score);
+                    return;
+                }
+            }
+            int index = pendingNext++ % PENDING_RESULTS;
+            pendingTimestamp[index] = timestampNs;
+            pendingClass[index] = classIndex;
+            pendingScore[index] = score;
+        }
+    }
+
+    // 기록 스레드
+    // 임시 버퍼의 프레임을 다음 레코드에 기록하고 버퍼를 돌려줍니다.
+    private void writeLoop() {
+        while (!closed || !filledFrames.isEmpty()) {
+            StagedFrame staged;
+            try {
+                staged = filledFrames.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (staged != null) {
+                write(staged);
+                freeFrames.add(staged);
+            }
+        }
+    }
+
+    private void write(StagedFrame staged) {
+        long sequence = nextSequence;
+        int slot = (int) (sequence % format.capacity);
+        ByteBuffer record = record(slot);
+        // 평면을 덮어쓰는 동안에는 빈 레코드로 표시해서 재생할 때 섞인 프레임을 읽지 않도록 함
+        synchronized (lock) {
+            slotSequence[slot] = FrameFile.EMPTY_SEQUENCE;
+            record.putLong(FrameFile.SEQUENCE_OFFSET, FrameFile.EMPTY_SEQUENCE);
+        }
+        YuvFrame frame = staged.frame;
+        record.position(FrameFile.RECORD_HEADER_SIZE);
+        // copyFrom 으로 만든 프레임은 FrameFile.compact 와 같은 I420 배치
+        record.put(frame.yPlane.duplicate());
+        record.put(frame.uPlane.duplicate());
+        record.put(frame.vPlane.duplicate());
+        synchronized (lock) {
+            record.putLong(FrameFile.TIMESTAMP_OFFSET, frame.timestampNs);
+            record.putInt(FrameFile.ORIENTATION_OFFSET, staged.orientation);
+            writeResult(record, -1, 0f);
+            for (int i = 0; i < PENDING_RESULTS; i++) {
+                if (pendingTimestamp[i] == frame.timestampNs && pendingClass[i] >= 0) {
+                    writeResult(record, pendingClass[i], pendingScore[i]);
+                    pendingClass[i] = -1;
+                }
+            }
+            record.putLong(FrameFile.SEQUENCE_OFFSET, sequence);
+            slotTimestamp[slot] = frame.timestampNs;
+            slotSequence[slot] = sequence;
+            nextSequence = sequence + 1;
+        }
+        written.incrementAndGet();
+    }
+
+    private static void writeResult(ByteBuffer record, int classIndex, float score) {
+        record.putInt(FrameFile.CLASS_INDEX_OFFSET, classIndex);
+        record.putFloat(FrameFile.SCORE_OFFSET, score);
+    }
+
+    // slot 번째 레코드만 가리키는 버퍼
+    private ByteBuffer record(int slot) {
+        ByteBuffer record = maps[slot / recordsPerMap].duplicate();
+        int offset = (slot % recordsPerMap) * format.getRecordSize();
+        record.limit(offset + format.getRecordSize()).position(offset);
+        return record.slice().order(FrameFile.ORDER);
+    }
+
+    // 남은 프레임을 모두 기록하고 파일을 닫는 메소드
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        for (MappedByteBuffer map : maps) {
+            map.force();
+        }
+        file.close();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
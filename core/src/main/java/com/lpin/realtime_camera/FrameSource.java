@@ -0,0 +1,25 @@
+package com.lpin.realtime_camera;
+
+// 카메라 프레임을 공급하는 쪽의 공통 인터페이스
+// ImageReader 와 같은 방식으로 새 프레임이 있다고 알리면 받는 쪽이 가장 최근 프레임을 가져가고,
+// 처리가 끝나면 돌려줍니다. 카메라와 녹화 파일 재생이 같은 처리 경로를 사용합니다.
+public interface FrameSource {
+    // 새 프레임이 있을 때 프레임 공급 스레드에서 호출되는 인터페이스
+    interface Listener {
+        void onFrameAvailable(FrameSource source);
+    }
+
+    // 프레임 전달을 시작하는 메소드
+    void start(Listener listener);
+
+    // 프레임 전달을 멈추는 메소드
+    // 리턴한 뒤에는 listener 가 호출되지 않습니다.
+    void stop();
+
+    // 가장 최근 프레임을 리턴하는 메소드 (없으면 null)
+    // 리턴한 프레임은 releaseFrame 을 호출할 때까지만 사용할 수 있습니다.
+    YuvFrame acquireLatestFrame();
+
+    // 다 사용한 프레임을 돌려주는 메소드
+    void releaseFrame(YuvFrame frame);
+}
@@ -0,0 +1,320 @@
+package com.lpin.realtime_camera;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// 독립된 추론 인스턴스 N 개에 프레임을 나눠 주고 결과를 프레임 순서대로 전달하는 디스패처
+// 인스턴스마다 전용 스레드와 입력 슬롯을 가지며, 비어 있는 인스턴스에만 프레임을 줍니다.
+// 결과는 프레임 번호가 작은 것부터 전달하므로 새 결과 뒤에 오래된 결과가 보이는 일이 없습니다.
+// 결과 전달은 lock 밖에서 한 번에 한 스레드만 하므로, 느린 listener 가 다른 인스턴스의 추론을 막지 않고
+// listener 에서 풀을 다시 호출해도 됩니다.
+public class InferencePool<F, R> {
+    // 인스턴스 하나에서 추론을 수행하는 인터페이스
+    public interface Engine<F, R> {
+        void run(F input, R output) throws Exception;
+    }
+
+    // 결과를 받는 인터페이스
+    // 프레임 번호 순서대로 호출되며 result 는 호출이 끝나면 재사용됩니다.
+    public interface ResultListener<R> {
+        void onResult(long sequence, R result, boolean failed);
+    }
+
+    // 인스턴스 번호를 받아서 객체를 만드는 인터페이스
+    public interface Factory<T> {
+        T create(int instance);
+    }
+
+    private final List<Instance> instances;
+    private final ResultListener<R> listener;
+    private final long startNs = System.nanoTime();
+
+    // 아래 변수는 lock 으로 보호
+    private final Object lock = new Object();
+    // 결과 보관함 (최대 2N 개: 처리 중 N 개 + 순서를 기다리는 N - 1 개)
+    private final ArrayDeque<Delivery> freeDeliveries = new ArrayDeque<>();
+    // 처리 중이거나 전달을 기다리는 결과 (프레임 번호 순서)
+    private final ArrayDeque<Delivery> inFlight = new ArrayDeque<>();
+    private long nextSequence = 0;
+    private boolean isShutdown = false;
+    // 결과를 전달하고 있는 스레드가 있는지 여부
+    private boolean isDelivering = false;
+    // 전달할 결과 (isDelivering 을 잡은 스레드만 사용)
+    private final List<Delivery> ready = new ArrayList<>();
+
+    // 카운터
+    private long submitted = 0;
+    private long rejected = 0;
+    private long completed = 0;
+    private long failed = 0;
+
+    public InferencePool(int size, Factory<Engine<F, R>> engines, Factory<F> inputs,
+                         Factory<R> results, ResultListener<R> listener) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        this.listener = listener;
+        instances = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            instances.add(new Instance(i, engines.create(i), inputs.create(i)));
+        }
+        for (int i = 0; i < size * 2; i++) {
+            freeDeliveries.add(new Delivery(results.create(i)));
+        }
+    }
+
+    // 기본 인스턴스 수
+    // 인스턴스마다 스레드를 쓰므로 코어의 절반 정도를 사용 (최소 1, 최대 4)
+    public static int defaultSize() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return Math.max(1, Math.min(4, cores / 2));
+    }
+
+    public int size() {
+        return instances.size();
+    }
+
+    // 비어 있는 인스턴스의 입력 슬롯을 예약해서 리턴하는 메소드
+    // 모두 바쁘면 null 을 리턴하고 버린 프레임으로 셉니다.
+    // 예약한 슬롯은 채운 뒤 submit 또는 cancel 해야 합니다.
+    public F acquireInput() {
+        synchronized (lock) {
+            if (!isShutdown && !freeDeliveries.isEmpty()) {
+                for (int i = 0; i < instances.size(); i++) {
+                    Instance instance = instances.get(i);
+                    if (instance.state == Instance.IDLE) {
+                        instance.state = Instance.RESERVED;
+                        return instance.input;
+                    }
+                }
+            }
+            rejected++;
+            return null;
+        }
+    }
+
+    // 예약한 슬롯을 추론하도록 넘기고 프레임 번호를 리턴하는 메소드
+    public long submit(F input) {
+        Instance instance;
+        long sequence;
+        synchronized (lock) {
+            instance = find(input);
+            Delivery delivery = freeDeliveries.poll();
+            sequence = nextSequence++;
+            delivery.sequence = sequence;
+            delivery.done = false;
+            delivery.failed = false;
+            inFlight.add(delivery);
+            instance.delivery = delivery;
+            instance.state = Instance.BUSY;
+            submitted++;
+        }
+        instance.executor.execute(instance);
+        return sequence;
+    }
+
+    // 예약한 슬롯을 사용하지 않고 돌려주는 메소드
+    public void cancel(F input) {
+        synchronized (lock) {
+            find(input).state = Instance.IDLE;
+        }
+    }
+
+    private Instance find(F input) {
+        for (int i = 0; i < instances.size(); i++) {
+            Instance instance = instances.get(i);
+            if (instance.input == input) {
+                if (instance.state != Instance.RESERVED) {
+                    throw new IllegalStateException("input is not reserved");
+                }
+                return instance;
+            }
+        }
+        throw new IllegalArgumentException("input does not belong to this pool");
+    }
+
+    // 인스턴스 하나의 추론이 끝났을 때 호출
+    // 앞선 프레임이 모두 끝난 결과부터 순서대로 전달합니다.
+    // 다른 스레드가 전달 중이면 그 스레드가 이 결과까지 전달하므로 바로 돌아감
+    private void onFinished(Instance instance, boolean error) {
+        synchronized (lock) {
+            instance.delivery.done = true;
+            instance.delivery.failed = error;
+            instance.delivery = null;
+            instance.state = Instance.IDLE;
+            if (error) {
+                failed++;
+            } else {
+                completed++;
+            }
+            if (isDelivering) {
+                return;
+            }
+            isDelivering = true;
+        }
+        deliverReady();
+    }
+
+    // 앞선 프레임이 모두 끝난 결과를 lock 밖에서 listener 에 전달하는 메소드
+    // 전달하는 동안 끝난 결과도 이어서 전달하고, 전달할 결과가 없으면 끝남
+    private void deliverReady() {
+        while (true) {
+            synchronized (lock) {
+                while (!inFlight.isEmpty() && inFlight.peek().done) {
+                    ready.add(inFlight.poll());
+                }
+                if (ready.isEmpty()) {
+                    isDelivering = false;
+                    return;
+                }
+            }
+            boolean delivered = false;
+            try {
+                for (int i = 0; i < ready.size(); i++) {
+                    Delivery delivery = ready.get(i);
+                    try {
+                        listener.onResult(delivery.sequence, delivery.result, delivery.failed);
+                    } catch (Exception e) {
+                        // listener 의 오류로 다음 결과의 전달이 멈추지 않도록 기록만 함
+                        e.printStackTrace();
+                    }
+                }
+                delivered = true;
+            } finally {
+                // listener 가 Error 를 던지면 보관함을 돌려주고 전달을 다음 스레드에 맡김
+                synchronized (lock) {
+                    for (int i = 0; i < ready.size(); i++) {
+                        freeDeliveries.add(ready.get(i));
+                    }
+                    if (!delivered) {
+                        isDelivering = false;
+                    }
+                }
+                ready.clear();
+            }
+        }
+    }
+
+    // 처리한 프레임 수 / 경과 시간
+    public double getThroughput() {
+        double seconds = (System.nanoTime() - startNs) / 1e9;
+        synchronized (lock) {
+            return seconds > 0 ? completed / seconds : 0;
+        }
+    }
+
+    // 인스턴스가 추론하느라 바빴던 시간의 비율 (0 ~ 1)
+    public double getUtilization(int instance) {
+        long elapsed = System.nanoTime() - startNs;
+        return elapsed > 0 ? (double) instances.get(instance).busyNs / elapsed : 0;
+    }
+
+    // 인스턴스가 처리한 프레임 수
+    public long getFrameCount(int instance) {
+        return instances.get(instance).frames;
+    }
+
+    public long getSubmitted() {
+        synchronized (lock) {
+            return submitted;
+        }
+    }
+
+    // 모든 인스턴스가 바빠서 버린 프레임 수
+    public long getRejected() {
+        synchronized (lock) {
+            return rejected;
+        }
+    }
+
+    public long getCompleted() {
+        synchronized (lock) {
+            return completed;
+        }
+    }
+
+    public long getFailed() {
+        synchronized (lock) {
+            return failed;
+        }
+    }
+
+    // 진행 중인 추론이 끝날 때까지 기다리고 스레드를 정리하는 메소드
+    public void shutdown() {
+        synchronized (lock) {
+            isShutdown = true;
+        }
+        for (Instance instance : instances) {
+            instance.executor.shutdown();
+        }
+        for (Instance instance : instances) {
+            try {
+                instance.executor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // 추론 인스턴스 하나
+    // 전용 스레드에서 자신의 입력 슬롯으로 추론하는 작업 객체를 겸합니다.
+    private class Instance implements Runnable {
+        static final int IDLE = 0;
+        static final int RESERVED = 1;
+        static final int BUSY = 2;
+
+        final Engine<F, R> engine;
+        final F input;
+        final ExecutorService executor;
+        int state = IDLE;
+        Delivery delivery;
+
+        // 추론 스레드에서만 쓰고 다른 스레드에서는 읽기만 하는 카운터
+        volatile long busyNs = 0;
+        volatile long frames = 0;
+
+        Instance(int index, Engine<F, R> engine, F input) {
+            this.engine = engine;
+            this.input = input;
+            executor = Executors.newSingleThreadExecutor(
+                    r -> new Thread(r, "InferenceThread-" + index));
+        }
+
+        @Override
+        public void run() {
+            Delivery target;
+            synchronized (lock) {
+                target = delivery;
+            }
+            long start = System.nanoTime();
+            boolean error = true;
+            try {
+                engine.run(input, target.result);
+                error = false;
+            } catch (Exception e) {
+                e.printStackTrace();
+            } finally {
+                // Error 는 그대로 던지지만, 그 전에 실패한 결과로 전달해서 이 프레임이 뒤의 결과를 막지 않도록 함
+                busyNs += System.nanoTime() - start;
+                frames++;
+                onFinished(this, error);
+            }
+        }
+    }
+
+    // 프레임 번호와 결과 객체
+    private class Delivery {
+        final R result;
+        long sequence;
+        boolean done;
+        boolean failed;
+
+        Delivery(R result) {
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.lpin.realtime_camera;
+
+// 검출 모델을 실행할 키프레임을 정하는 클래스
+// K 프레임마다 한 번 검출하고, 키프레임마다 추적기의 예측 오차를 보고 K 를 바꿉니다.
+// 장면이 빠르게 움직여서 예측이 빗나가거나 새 물체가 나타나면 K 를 절반으로 줄이고,
+// 예측이 잘 맞으면 K 를 하나씩 늘립니다.
+public class KeyframeScheduler {
+    private final int minInterval;
+    private final int maxInterval;
+    // 예측 오차가 lowError 보다 작으면 K 를 늘리고 highError 보다 크면 줄임
+    private final float lowError;
+    private final float highError;
+
+    private int interval;
+    // 마지막 키프레임 이후 지난 프레임 수
+    private int framesSinceKeyframe;
+    private long keyframes = 0;
+    private long frames = 0;
+
+    public KeyframeScheduler(int minInterval, int maxInterval, float lowError, float highError) {
+        if (minInterval < 1 || maxInterval < minInterval) {
+            throw new IllegalArgumentException("need 1 <= minInterval <= maxInterval");
+        }
+        if (!(lowError < highError)) {
+            throw new IllegalArgumentException("lowError must be smaller than highError");
+        }
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        this.lowError = lowError;
+        this.highError = highError;
+        interval = minInterval;
+        // 첫 프레임은 바로 검출
+        framesSinceKeyframe = interval;
+    }
+
+    // 프레임마다 호출해서 이 프레임이 키프레임이어야 하는지 확인하는 메소드
+    // 검출이 끝나지 않아서 시작하지 못하면 다음 프레임에서도 true 를 리턴
+    public synchronized boolean onFrame() {
+        frames++;
+        return ++framesSinceKeyframe >= interval;
+    }
+
+    // 키프레임 검출을 시작했을 때 호출하는 메소드
+    public synchronized void keyframeStarted() {
+        framesSinceKeyframe = 0;
+        keyframes++;
+    }
+
+    // 키프레임 검출과 추적기 갱신이 끝났을 때 호출해서 K 를 바꾸는 메소드
+    // error : 추적기의 예측 오차 (ObjectTracker.getLastError), births : 새로 생긴 추적 수
+    public synchronized void keyframeFinished(float error, int births) {
+        if (births > 0 || error > highError) {
+            interval = Math.max(minInterval, interval / 2);
+        } else if (error < lowError) {
+            interval = Math.min(maxInterval, interval + 1);
+        }
+    }
+
+    // 지금 키프레임 간격 K
+    public synchronized int getInterval() {
+        return interval;
+    }
+
+    public synchronized long getKeyframes() {
+        return keyframes;
+    }
+
+    public synchronized long getFrames() {
+        return frames;
+    }
+}
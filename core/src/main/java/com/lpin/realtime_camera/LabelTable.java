@@ -0,0 +1,147 @@
+package com.lpin.realtime_camera;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// 레이블 파일(한 줄에 하나, UTF-8)을 문자열 목록 대신 byte 덩어리 하나와 위치 표로 보관하는 클래스
+// 클래스 수만큼 String 을 만들지 않고, 레이블을 화면에 표시할 때만 문자열로 만듭니다.
+// 최근에 만든 문자열은 작은 캐시에 보관하므로 같은 결과를 계속 표시해도 새로 만들지 않습니다.
+// 빈 줄(공백만 있는 줄)은 FileUtil.loadLabels 와 같이 건너뜁니다.
+public class LabelTable {
+    // 캐시 크기 (2 의 거듭제곱, 클래스 번호의 하위 비트로 자리를 정함)
+    private static final int CACHE_SIZE = 16;
+
+    // 캐시 항목 하나 (불변이라 여러 스레드에서 잠금 없이 읽어도 됨)
+    private static final class Entry {
+        final int index;
+        final String label;
+
+        Entry(int index, String label) {
+            this.index = index;
+            this.label = label;
+        }
+    }
+
+    // 레이블 파일의 내용 (배열을 감싼 버퍼 또는 메모리에 매핑한 버퍼)
+    private final ByteBuffer blob;
+    // 레이블 i 의 시작 위치는 offsets[2 * i], 끝 위치는 offsets[2 * i + 1] (줄바꿈 제외)
+    private final int[] offsets;
+    private final int size;
+    private final Entry[] cache = new Entry[CACHE_SIZE];
+
+    private LabelTable(ByteBuffer blob, int[] offsets, int size) {
+        this.blob = blob;
+        this.offsets = offsets;
+        this.size = size;
+    }
+
+    // 레이블 파일 전체를 담은 버퍼로 표를 만드는 메소드
+    // 버퍼(position ~ limit)는 복사하지 않고 그대로 참조하므로 메모리에 매핑한 파일을 넘기면 됩니다.
+    public static LabelTable wrap(ByteBuffer buffer) {
+        ByteBuffer blob = buffer.slice();
+        int length = blob.remaining();
+        int[] offsets = new int[64];
+        int size = 0;
+        int start = 0;
+        while (start < length) {
+            int end = start;
+            while (end < length && blob.get(end) != '\n' && blob.get(end) != '\r') {
+                end++;
+            }
+            if (!isBlank(blob, start, end)) {
+                if (2 * size + 2 > offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                }
+                offsets[2 * size] = start;
+                offsets[2 * size + 1] = end;
+                size++;
+            }
+            // \r\n 은 줄바꿈 하나로 처리
+            if (end < length && blob.get(end) == '\r' && end + 1 < length
+                    && blob.get(end + 1) == '\n') {
+                end++;
+            }
+            start = end + 1;
+        }
+        return new LabelTable(blob, Arrays.copyOf(offsets, 2 * size), size);
+    }
+
+    // 스트림(압축된 asset 등)을 byte 배열 하나로 읽어서 표를 만드는 메소드
+    // 스트림은 닫지 않습니다.
+    public static LabelTable read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(in.available(), 4096));
+        byte[] chunk = new byte[8192];
+        int n;
+        while ((n = in.read(chunk)) != -1) {
+            out.write(chunk, 0, n);
+        }
+        return wrap(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    // String.trim 과 같이 ' ' 이하의 byte 만 있으면 빈 줄
+    private static boolean isBlank(ByteBuffer blob, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if ((blob.get(i) & 0xff) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 레이블 수
+    public int size() {
+        return size;
+    }
+
+    // 레이블 파일의 크기 (byte)
+    public int getBlobBytes() {
+        return blob.capacity();
+    }
+
+    // 레이블의 UTF-8 길이 (byte)
+    public int getByteLength(int index) {
+        checkIndex(index);
+        return offsets[2 * index + 1] - offsets[2 * index];
+    }
+
+    // 클래스 번호의 레이블을 문자열로 리턴하는 메소드 (범위를 벗어나면 빈 문자열)
+    // 캐시에 있으면 같은 객체를 리턴하고, 없으면 만들어서 캐시에 넣음
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            return "";
+        }
+        int slot = index & (CACHE_SIZE - 1);
+        Entry entry = cache[slot];
+        if (entry != null && entry.index == index) {
+            return entry.label;
+        }
+        String label = decode(index);
+        cache[slot] = new Entry(index, label);
+        return label;
+    }
+
+    // 레이블 하나를 UTF-8 로 읽어서 문자열을 만드는 메소드
+    private String decode(int index) {
+        int start = offsets[2 * index];
+        int length = offsets[2 * index + 1] - start;
+        if (blob.hasArray()) {
+            return new String(blob.array(), blob.arrayOffset() + start, length,
+                    StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        ByteBuffer view = blob.duplicate();
+        view.position(start);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+    }
+}
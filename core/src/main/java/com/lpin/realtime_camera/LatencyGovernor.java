@@ -0,0 +1,202 @@
+package com.lpin.realtime_camera;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+// 지연 시간 목표(p95)를 맞추기 위해 프레임 간격, 인터프리터 스레드 수, 입력 크기를 조절하는 클래스
+// 측정한 추론 시간과 전체 지연 시간(카메라 프레임을 받은 때부터 결과가 나올 때까지)을
+// window 개씩 모아서 판단합니다.
+// 목표를 넘으면 바로 한 단계 낮추고, 목표보다 충분히 낮은 상태가 여러 번 이어져야
+// 한 단계 올려서 두 상태를 오가지 않도록 합니다.
+public class LatencyGovernor {
+    // 추론 시간이 목표의 이 비율을 넘으면 추론 자체가 느린 것으로 봄
+    private static final float INFERENCE_SHARE = 0.8f;
+
+    // 설정
+    private final long targetNs;
+    private final long recoverNs;
+    private final int windowSize;
+    private final int recoverWindows;
+    private final int maxStride;
+    private final int minThreads, maxThreads;
+    private final float[] scaleLevels;
+
+    // 측정값 (window 마다 비움)
+    private final long[] inferenceNs;
+    private final long[] endToEndNs;
+    private final long[] sorted;
+    private int inferenceCount = 0;
+    private int endToEndCount = 0;
+
+    // 상태
+    private volatile int frameStride = 1;
+    private volatile int numThreads;
+    private volatile int scaleLevel = 0;
+    private int goodWindows = 0;
+    private long frameCounter = 0;
+
+    // 마지막 판단 (로그 출력용)
+    private long lastInferenceP95Ns;
+    private long lastEndToEndP95Ns;
+    private String lastDecision = "none";
+    private int decisions = 0;
+
+    // targetNs : 전체 지연 시간 p95 목표
+    // recoverRatio : p95 가 목표의 이 비율보다 낮아야 한 단계 올림 (0 ~ 1)
+    // windowSize : 한 번 판단할 때 사용하는 측정값 수
+    // recoverWindows : 한 단계 올리기 위해 연속으로 필요한 좋은 window 수
+    // maxStride : 최대 프레임 간격 (1 이면 모든 프레임 처리)
+    // initialThreads, minThreads, maxThreads : 인터프리터 스레드 수
+    // scaleLevels : 사용할 입력 크기 비율 (첫 번째가 기본, 점점 작아지는 순서)
+    public LatencyGovernor(long targetNs, float recoverRatio, int windowSize, int recoverWindows,
+                           int maxStride, int initialThreads, int minThreads, int maxThreads,
+                           float[] scaleLevels) {
+        if (targetNs <= 0 || windowSize <= 0 || recoverWindows <= 0 || maxStride <= 0
+                || minThreads <= 0 || maxThreads < minThreads || scaleLevels.length == 0) {
+            throw new IllegalArgumentException("invalid governor configuration");
+        }
+        this.targetNs = targetNs;
+        this.recoverNs = (long) (targetNs * recoverRatio);
+        this.windowSize = windowSize;
+        this.recoverWindows = recoverWindows;
+        this.maxStride = maxStride;
+        this.minThreads = minThreads;
+        this.maxThreads = maxThreads;
+        this.numThreads = Math.max(minThreads, Math.min(maxThreads, initialThreads));
+        this.scaleLevels = scaleLevels.clone();
+        inferenceNs = new long[windowSize];
+        endToEndNs = new long[windowSize];
+        sorted = new long[windowSize];
+    }
+
+    // 기본 설정으로 만드는 메소드
+    // 30 개씩 판단하고, 목표의 60% 아래로 3 번 이어지면 한 단계 올림
+    public static LatencyGovernor create(long targetMs, int initialThreads, int maxThreads,
+                                         float[] scaleLevels) {
+        return new LatencyGovernor(targetMs * 1_000_000L, 0.6f, 30, 3, 4,
+                initialThreads, 1, maxThreads, scaleLevels);
+    }
+
+    // 카메라 스레드에서 프레임마다 호출해서 이 프레임을 처리할지 정하는 메소드
+    public boolean admitFrame() {
+        int stride = frameStride;
+        return frameCounter++ % stride == 0;
+    }
+
+    // 추론 한 번의 시간을 기록하는 메소드
+    public synchronized void recordInference(long ns) {
+        if (inferenceCount < windowSize) {
+            inferenceNs[inferenceCount++] = ns;
+        }
+    }
+
+    // 프레임 하나의 전체 지연 시간을 기록하는 메소드
+    // window 가 차면 판단하고, 설정이 바뀌었으면 true 를 리턴
+    public synchronized boolean recordEndToEnd(long ns) {
+        endToEndNs[endToEndCount++] = ns;
+        if (endToEndCount < windowSize) {
+            return false;
+        }
+        lastEndToEndP95Ns = p95(endToEndNs, endToEndCount);
+        lastInferenceP95Ns = inferenceCount > 0 ? p95(inferenceNs, inferenceCount) : 0;
+        endToEndCount = 0;
+        inferenceCount = 0;
+        return evaluate(lastEndToEndP95Ns, lastInferenceP95Ns);
+    }
+
+    // window 하나의 p95 로 다음 설정을 정하는 메소드
+    private boolean evaluate(long endToEndP95, long inferenceP95) {
+        if (endToEndP95 > targetNs) {
+            goodWindows = 0;
+            return degrade(inferenceP95 > targetNs * INFERENCE_SHARE);
+        }
+        if (endToEndP95 < recoverNs) {
+            if (++goodWindows >= recoverWindows) {
+                goodWindows = 0;
+                return upgrade();
+            }
+            return false;
+        }
+        // 두 기준 사이에서는 그대로 유지
+        goodWindows = 0;
+        return false;
+    }
+
+    // 추론이 느리면 스레드를 늘리고, 그래도 안 되면 입력을 줄이고, 마지막으로 프레임을 건너뜀
+    // 추론은 빠른데 전체 지연이 길면 (대기 시간) 먼저 프레임을 건너뛰고,
+    // 더 건너뛸 수 없으면 추론을 빠르게 함
+    private boolean degrade(boolean inferenceBound) {
+        if (!inferenceBound && frameStride < maxStride) {
+            return decide("stride " + frameStride + " -> " + ++frameStride);
+        }
+        if (numThreads < maxThreads) {
+            return decide("threads " + numThreads + " -> " + ++numThreads);
+        }
+        if (scaleLevel < scaleLevels.length - 1) {
+            return decide("scale " + scaleLevels[scaleLevel] + " -> " + scaleLevels[++scaleLevel]);
+        }
+        if (frameStride < maxStride) {
+            return decide("stride " + frameStride + " -> " + ++frameStride);
+        }
+        return false;
+    }
+
+    // 낮출 때와 반대 순서로 프레임 간격, 입력 크기, 스레드 수(발열)를 되돌림
+    private boolean upgrade() {
+        if (frameStride > 1) {
+            return decide("stride " + frameStride + " -> " + --frameStride);
+        }
+        if (scaleLevel > 0) {
+            return decide("scale " + scaleLevels[scaleLevel] + " -> " + scaleLevels[--scaleLevel]);
+        }
+        if (numThreads > minThreads) {
+            return decide("threads " + numThreads + " -> " + --numThreads);
+        }
+        return false;
+    }
+
+    private boolean decide(String change) {
+        decisions++;
+        lastDecision = String.format(Locale.ENGLISH, "%s (e2e p95 %.1f ms, infer p95 %.1f ms)",
+                change, lastEndToEndP95Ns / 1e6, lastInferenceP95Ns / 1e6);
+        return true;
+    }
+
+    // 정렬용 배열에 복사해서 95 번째 백분위 값을 구하는 메소드
+    private long p95(long[] values, int count) {
+        System.arraycopy(values, 0, sorted, 0, count);
+        Arrays.sort(sorted, 0, count);
+        int index = (int) Math.ceil(count * 0.95) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))];
+    }
+
+    // 몇 프레임마다 하나씩 처리하는지
+    public int getFrameStride() {
+        return frameStride;
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    // 입력 크기 비율 (1 이면 모델 기본 크기)
+    public float getInputScale() {
+        return scaleLevels[scaleLevel];
+    }
+
+    public synchronized String getLastDecision() {
+        return lastDecision;
+    }
+
+    public synchronized int getDecisionCount() {
+        return decisions;
+    }
+
+    public synchronized long getLastEndToEndP95Ns() {
+        return lastEndToEndP95Ns;
+    }
+
+    public synchronized long getLastInferenceP95Ns() {
+        return lastInferenceP95Ns;
+    }
+}
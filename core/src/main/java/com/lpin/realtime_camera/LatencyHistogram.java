@@ -0,0 +1,124 @@
+package com.lpin.realtime_camera;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 지연 시간을 마이크로초 단위로 세는 로그-선형 히스토그램
+// 2 의 거듭제곱 구간마다 8 개의 같은 폭 구간을 두므로 상대 오차가 12.5% 이하입니다.
+// 구간은 만들 때 모두 할당하고 기록은 원자적 증가만 사용하므로
+// 여러 스레드에서 락과 할당 없이 기록할 수 있습니다.
+public class LatencyHistogram {
+    // 2 의 거듭제곱 구간 하나를 나누는 수 (2^SUB_BITS)
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    // 기록할 수 있는 최대 지수 (2^36 us, 약 19 시간)
+    private static final int MAX_EXPONENT = 36;
+    static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BITS + 2) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sumUs = new AtomicLong();
+    private final AtomicLong maxUs = new AtomicLong();
+
+    // 지연 시간 하나를 기록하는 메소드
+    public void record(long ns) {
+        long us = Math.max(0, ns / 1000);
+        counts.incrementAndGet(bucketOf(us));
+        count.incrementAndGet();
+        sumUs.addAndGet(us);
+        long max = maxUs.get();
+        while (us > max && !maxUs.compareAndSet(max, us)) {
+            max = maxUs.get();
+        }
+    }
+
+    // 값이 들어갈 구간 번호
+    static int bucketOf(long us) {
+        if (us < SUB_COUNT) {
+            return (int) us;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(us);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int sub = (int) (us >> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    // 구간의 최솟값 (포함)
+    static long bucketLowerUs(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_COUNT + SUB_BITS - 1;
+        int sub = bucket % SUB_COUNT;
+        return (long) (SUB_COUNT + sub) << (exponent - SUB_BITS);
+    }
+
+    // 구간의 최댓값 (제외)
+    static long bucketUpperUs(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket + 1;
+        }
+        int exponent = bucket / SUB_COUNT + SUB_BITS - 1;
+        return bucketLowerUs(bucket) + (1L << (exponent - SUB_BITS));
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public double getMeanMs() {
+        long n = count.get();
+        return n > 0 ? sumUs.get() / 1000.0 / n : 0;
+    }
+
+    public double getMaxMs() {
+        return maxUs.get() / 1000.0;
+    }
+
+    // p(0 ~ 1) 백분위 값을 밀리초로 리턴하는 메소드 (구간의 가운데 값)
+    // 기록 중에 호출해도 되며 그 경우 값은 근사값입니다.
+    public double getPercentileMs(double p) {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(p * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                double middleUs = (bucketLowerUs(i) + bucketUpperUs(i) - 1) / 2.0;
+                return Math.min(middleUs, maxUs.get()) / 1000.0;
+            }
+        }
+        return getMaxMs();
+    }
+
+    // 기록을 모두 지우는 메소드
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        sumUs.set(0);
+        maxUs.set(0);
+    }
+
+    // 비어 있지 않은 구간을 "최솟값 us,최댓값 us,개수" 형식의 줄로 출력하는 메소드
+    public void writeBuckets(Appendable out, String prefix) throws IOException {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long n = counts.get(i);
+            if (n > 0) {
+                out.append(prefix).append(Long.toString(bucketLowerUs(i))).append(',')
+                        .append(Long.toString(bucketUpperUs(i))).append(',')
+                        .append(Long.toString(n)).append('\n');
+            }
+        }
+    }
+}
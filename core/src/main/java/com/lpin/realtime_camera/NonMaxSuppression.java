@@ -0,0 +1,167 @@
+package com.lpin.realtime_camera;
+
+import java.util.Arrays;
+
+// 클래스별 NMS(겹치는 상자 제거)를 하는 클래스
+// 후보마다 객체를 만들지 않고, 점수와 후보 번호를 long 하나에 담아서 기본형 배열로 정렬합니다.
+// 점수가 높은 후보부터 같은 클래스의 남긴 상자와만 비교하고, 결과가 가득 차면 바로 멈춥니다.
+// 후보 배열은 필요할 때만 늘어나므로 처음 몇 프레임 이후에는 새로 할당하지 않습니다.
+// 한 스레드에서만 사용합니다.
+public class NonMaxSuppression {
+    // 같은 클래스의 남긴 상자와 IoU 가 이 값보다 크면 제거
+    private float iouThreshold;
+
+    // 후보 (상위 32 비트는 점수, 하위 32 비트는 먼저 추가한 후보가 큰 값이 되는 번호)
+    private long[] keys;
+    // 후보의 상자 번호와 클래스 번호
+    private int[] candidateBoxes;
+    private int[] candidateClasses;
+    private int candidateCount = 0;
+
+    public NonMaxSuppression(float iouThreshold) {
+        this(256, iouThreshold);
+    }
+
+    // initialCapacity : 처음에 준비할 후보 수
+    public NonMaxSuppression(int initialCapacity, float iouThreshold) {
+        setIouThreshold(iouThreshold);
+        int capacity = Math.max(1, initialCapacity);
+        keys = new long[capacity];
+        candidateBoxes = new int[capacity];
+        candidateClasses = new int[capacity];
+    }
+
+    public float getIouThreshold() {
+        return iouThreshold;
+    }
+
+    public void setIouThreshold(float iouThreshold) {
+        if (!(iouThreshold >= 0 && iouThreshold <= 1)) {
+            throw new IllegalArgumentException("iouThreshold must be in [0, 1]");
+        }
+        this.iouThreshold = iouThreshold;
+    }
+
+    // 모은 후보를 지우는 메소드 (프레임마다 처음에 호출)
+    public void reset() {
+        candidateCount = 0;
+    }
+
+    public int getCandidateCount() {
+        return candidateCount;
+    }
+
+    // 후보 하나를 추가하는 메소드
+    // 점수가 0 이하이거나 NaN 이면 추가하지 않음
+    public void add(int box, int classIndex, float score) {
+        if (!(score > 0)) {
+            return;
+        }
+        if (candidateCount == keys.length) {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            candidateBoxes = Arrays.copyOf(candidateBoxes, capacity);
+            candidateClasses = Arrays.copyOf(candidateClasses, capacity);
+        }
+        int slot = candidateCount++;
+        // 양수 float 의 비트는 값과 같은 순서이므로 정수로 비교해도 점수 순서가 됨
+        keys[slot] = ((long) Float.floatToIntBits(score) << 32) | (Integer.MAX_VALUE - slot);
+        candidateBoxes[slot] = box;
+        candidateClasses[slot] = classIndex;
+    }
+
+    // 상자마다 클래스 점수가 있는 출력 (scores[box * numClasses + class]) 에서 후보를 모으는 메소드
+    // firstClass 보다 앞의 클래스(배경)는 건너뛰고, 결과의 클래스 번호는 class - firstClass
+    public void addScores(float[] scores, int count, int numClasses, int firstClass,
+                          float minScore) {
+        checkMinScore(minScore);
+        for (int box = 0; box < count; box++) {
+            int row = box * numClasses;
+            for (int c = firstClass; c < numClasses; c++) {
+                float score = scores[row + c];
+                if (score > minScore) {
+                    add(box, c - firstClass, score);
+                }
+            }
+        }
+    }
+
+    // 시그모이드를 취하기 전의 로짓에서 후보를 모으는 메소드
+    // 임계값을 로짓으로 바꿔서 비교하므로 임계값을 넘은 후보만 exp 를 계산
+    public void addLogits(float[] logits, int count, int numClasses, int firstClass,
+                          float minScore) {
+        checkMinScore(minScore);
+        float minLogit = minScore >= 1 ? Float.POSITIVE_INFINITY
+                : minScore <= 0 ? Float.NEGATIVE_INFINITY
+                : (float) Math.log(minScore / (1 - minScore));
+        for (int box = 0; box < count; box++) {
+            int row = box * numClasses;
+            for (int c = firstClass; c < numClasses; c++) {
+                float logit = logits[row + c];
+                if (logit > minLogit) {
+                    float score = (float) (1 / (1 + Math.exp(-logit)));
+                    if (score > minScore) {
+                        add(box, c - firstClass, score);
+                    }
+                }
+            }
+        }
+    }
+
+    // YOLO 출력 (한 행에 cx, cy, w, h, objectness, 클래스 점수들) 에서 후보를 모으는 메소드
+    // 점수는 objectness * 클래스 점수, objectness 가 임계값 이하인 행은 클래스 점수를 보지 않음
+    public void addYolo(float[] rows, int rowStride, int count, int numClasses, float minScore) {
+        checkMinScore(minScore);
+        for (int box = 0; box < count; box++) {
+            int row = box * rowStride;
+            float objectness = rows[row + 4];
+            if (!(objectness > minScore)) {
+                continue;
+            }
+            for (int c = 0; c < numClasses; c++) {
+                float score = objectness * rows[row + 5 + c];
+                if (score > minScore) {
+                    add(box, c, score);
+                }
+            }
+        }
+    }
+
+    private static void checkMinScore(float minScore) {
+        if (!(minScore >= 0)) {
+            throw new IllegalArgumentException("minScore must not be negative");
+        }
+    }
+
+    // 모은 후보를 점수 순서로 보면서 겹치는 상자를 제거하고 out 에 기록하는 메소드
+    // boxes : 상자 번호 i 의 좌표가 boxes[4 * i] ~ boxes[4 * i + 3] (left, top, right, bottom)
+    // out 의 이전 내용은 지우고, 남긴 상자 수를 리턴
+    public int run(float[] boxes, DetectionResult out) {
+        out.clear();
+        Arrays.sort(keys, 0, candidateCount);
+        for (int k = candidateCount - 1; k >= 0 && !out.isFull(); k--) {
+            long key = keys[k];
+            int slot = Integer.MAX_VALUE - (int) key;
+            int box = candidateBoxes[slot];
+            int classIndex = candidateClasses[slot];
+            if (isSuppressed(boxes, box, classIndex, out)) {
+                continue;
+            }
+            int b = 4 * box;
+            out.add(boxes[b], boxes[b + 1], boxes[b + 2], boxes[b + 3], classIndex,
+                    Float.intBitsToFloat((int) (key >>> 32)));
+        }
+        return out.size();
+    }
+
+    // 이미 남긴 같은 클래스의 상자와 많이 겹치는지 확인하는 메소드
+    private boolean isSuppressed(float[] boxes, int box, int classIndex, DetectionResult out) {
+        for (int i = 0; i < out.size; i++) {
+            if (out.classes[i] == classIndex
+                    && BoxDecoder.iou(boxes, box, out.boxes, i) > iouThreshold) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,340 @@
+package com.lpin.realtime_camera;
+
+import java.util.Arrays;
+
+// 키프레임의 검출 결과를 다음 키프레임까지 이어 주는 다중 물체 추적기
+// 추적 중인 상자를 검출 결과와 IoU 로 짝짓고, 상자의 중심(x, y)과 크기(w, h)마다
+// 등속 칼만 필터로 위치와 속도를 추정합니다.
+// 키프레임 사이의 프레임은 모델을 실행하지 않고 추정한 속도로 상자를 옮겨서 표시합니다.
+// 추적 정보는 추적마다 객체를 만들지 않고 항목별 기본형 배열에 담으며,
+// 짝지어진 추적은 키프레임이 바뀌어도 같은 추적 번호를 유지합니다.
+// 메소드가 synchronized 이므로 검출 스레드에서 갱신하고 카메라 스레드에서 읽어도 됩니다.
+public class ObjectTracker {
+    // 추적하는 값의 수 (중심 x, 중심 y, 너비, 높이)
+    private static final int DIMS = 4;
+    // 위치 하나의 공분산 원소 수 (p00, p01, p11)
+    private static final int COV = 3;
+    // 새 추적의 속도 분산 ((정규화 좌표 / 초)^2)
+    private static final float INITIAL_VELOCITY_VARIANCE = 1.0f;
+    // 키프레임 사이에 상자를 옮길 최대 시간 (초), 이보다 오래 검출하지 못하면 더 옮기지 않음
+    private static final float MAX_EXTRAPOLATION_SECONDS = 1.0f;
+    // 검출기가 한 번 놓친 물체는 상자가 깜빡이지 않도록 예측한 위치에 계속 표시
+    private static final int MAX_DISPLAY_MISSES = 1;
+
+    private final int capacity;
+    private final float iouThreshold;
+    private final int maxMisses;
+    // 가속도 잡음의 분산, 측정 잡음의 분산
+    private final float accelerationVariance;
+    private final float measurementVariance;
+
+    // 추적 i 의 정보 (0 ~ size - 1 만 사용, 추적이 끝나면 마지막 추적을 그 자리로 옮김)
+    private final int[] ids;
+    private final int[] classes;
+    private final float[] scores;
+    // 연속으로 짝짓지 못한 키프레임 수
+    private final int[] misses;
+    // 추적 i 의 값 d 의 위치와 속도는 position[DIMS * i + d], velocity[DIMS * i + d]
+    private final float[] position;
+    private final float[] velocity;
+    // 추적 i 의 값 d 의 공분산은 covariance[COV * (DIMS * i + d)] 부터 3 개
+    private final float[] covariance;
+    private int size = 0;
+    private int nextId = 1;
+    // 추적 상태의 시각 (마지막으로 갱신한 키프레임의 촬영 시각)
+    private long stateTimestampNs = Long.MIN_VALUE;
+    // 마지막 검출 결과의 레이블 표 (추적 결과에도 같은 표를 붙임)
+    private LabelTable labelTable;
+    private int labelOffset;
+
+    // 짝짓기에 사용하는 버퍼 (IoU 와 추적, 검출 번호를 long 하나에 담음)
+    private long[] pairs = new long[64];
+    private final boolean[] trackMatched;
+    private boolean[] detectionMatched = new boolean[16];
+    private final float[] trackBoxes;
+
+    // 마지막 키프레임의 통계
+    private float lastError = 0;
+    private int lastMatched = 0;
+    private int lastBirths = 0;
+    private int lastDeaths = 0;
+
+    // capacity : 최대 추적 수
+    // iouThreshold : 짝지을 최소 IoU
+    // maxMisses : 짝짓지 못해도 추적을 유지할 연속 키프레임 수
+    // accelerationStd : 등속에서 벗어나는 정도 (정규화 좌표 / 초^2)
+    // measurementStd : 검출 상자의 흔들림 (정규화 좌표)
+    public ObjectTracker(int capacity, float iouThreshold, int maxMisses, float accelerationStd,
+                         float measurementStd) {
+        if (capacity <= 0 || capacity > 0xffff) {
+            throw new IllegalArgumentException("capacity must be in [1, 65535]");
+        }
+        this.capacity = capacity;
+        this.iouThreshold = iouThreshold;
+        this.maxMisses = maxMisses;
+        this.accelerationVariance = accelerationStd * accelerationStd;
+        this.measurementVariance = measurementStd * measurementStd;
+        ids = new int[capacity];
+        classes = new int[capacity];
+        scores = new float[capacity];
+        misses = new int[capacity];
+        position = new float[DIMS * capacity];
+        velocity = new float[DIMS * capacity];
+        covariance = new float[COV * DIMS * capacity];
+        trackMatched = new boolean[capacity];
+        trackBoxes = new float[4 * capacity];
+    }
+
+    // 기본 설정 (IoU 0.3, 키프레임 3 번까지 놓쳐도 유지, 손에 든 카메라 정도의 가속도)
+    public static ObjectTracker create(int capacity) {
+        return new ObjectTracker(capacity, 0.3f, 3, 8.0f, 0.01f);
+    }
+
+    // 추적 중인 물체 수
+    public synchronized int size() {
+        return size;
+    }
+
+    // 키프레임의 검출 결과로 추적을 갱신하는 메소드
+    // timestampNs : 검출한 프레임의 촬영 시각
+    // 모든 추적을 그 시각으로 예측한 뒤, 같은 클래스끼리 IoU 가 큰 순서로 짝지어서 측정값을 반영하고
+    // 짝이 없는 검출은 새 추적으로, 오래 짝이 없는 추적은 삭제합니다.
+    public synchronized void update(long timestampNs, DetectionResult detections) {
+        predict(timestampNs);
+        labelTable = detections.labelTable;
+        labelOffset = detections.labelOffset;
+        int count = detections.size();
+        if (detectionMatched.length < count) {
+            detectionMatched = new boolean[Math.max(count, 2 * detectionMatched.length)];
+        }
+        Arrays.fill(trackMatched, 0, size, false);
+        Arrays.fill(detectionMatched, 0, count, false);
+
+        // 짝지을 수 있는 쌍을 모아서 IoU 순서로 정렬
+        for (int t = 0; t < size; t++) {
+            writeBox(t, trackBoxes, t);
+        }
+        int pairCount = 0;
+        for (int t = 0; t < size; t++) {
+            for (int d = 0; d < count; d++) {
+                if (classes[t] != detections.classes[d]) {
+                    continue;
+                }
+                float iou = BoxDecoder.iou(trackBoxes, t, detections.boxes, d);
+                if (iou < iouThreshold || iou <= 0) {
+                    continue;
+                }
+                if (pairCount == pairs.length) {
+                    pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                }
+                pairs[pairCount++] = ((long) Float.floatToIntBits(iou) << 32)
+                        | ((long) t << 16) | d;
+            }
+        }
+        Arrays.sort(pairs, 0, pairCount);
+
+        // IoU 가 큰 쌍부터 짝짓기 (한 번 짝지어진 추적과 검출은 다시 사용하지 않음)
+        float errorSum = 0;
+        int matched = 0;
+        for (int k = pairCount - 1; k >= 0; k--) {
+            int t = (int) (pairs[k] >>> 16) & 0xffff;
+            int d = (int) pairs[k] & 0xffff;
+            if (trackMatched[t] || detectionMatched[d]) {
+                continue;
+            }
+            trackMatched[t] = true;
+            detectionMatched[d] = true;
+            errorSum += correct(t, detections.boxes, d);
+            scores[t] = detections.scores[d];
+            misses[t] = 0;
+            matched++;
+        }
+
+        // 짝이 없는 추적은 놓친 횟수를 늘리고 너무 오래 놓치면 삭제
+        int deaths = 0;
+        for (int t = size - 1; t >= 0; t--) {
+            if (!trackMatched[t] && ++misses[t] > maxMisses) {
+                remove(t);
+                deaths++;
+            }
+        }
+        // 짝이 없는 검출은 새 추적으로 추가 (자리가 없으면 버림)
+        int births = 0;
+        for (int d = 0; d < count && size < capacity; d++) {
+            if (!detectionMatched[d]) {
+                add(detections, d);
+                births++;
+            }
+        }
+        lastMatched = matched;
+        lastError = matched > 0 ? errorSum / matched : 0;
+        lastBirths = births;
+        lastDeaths = deaths;
+    }
+
+    // 모든 추적을 timestampNs 시각으로 예측하는 메소드 (공분산도 갱신)
+    private void predict(long timestampNs) {
+        if (stateTimestampNs != Long.MIN_VALUE && timestampNs > stateTimestampNs) {
+            float dt = (timestampNs - stateTimestampNs) / 1e9f;
+            float q00 = accelerationVariance * dt * dt * dt * dt / 4;
+            float q01 = accelerationVariance * dt * dt * dt / 2;
+            float q11 = accelerationVariance * dt * dt;
+            for (int i = 0; i < DIMS * size; i++) {
+                position[i] += velocity[i] * dt;
+                int c = COV * i;
+                float p00 = covariance[c];
+                float p01 = covariance[c + 1];
+                float p11 = covariance[c + 2];
+                covariance[c] = p00 + dt * (2 * p01 + dt * p11) + q00;
+                covariance[c + 1] = p01 + dt * p11 + q01;
+                covariance[c + 2] = p11 + q11;
+            }
+        }
+        if (timestampNs > stateTimestampNs) {
+            stateTimestampNs = timestampNs;
+        }
+    }
+
+    // 추적 t 에 검출 상자 d 를 측정값으로 반영하는 메소드
+    // 예측한 중심과 측정한 중심의 거리를 상자 크기로 나눈 값(예측 오차)을 리턴
+    private float correct(int t, float[] boxes, int d) {
+        int b = 4 * d;
+        float cx = (boxes[b] + boxes[b + 2]) * 0.5f;
+        float cy = (boxes[b + 1] + boxes[b + 3]) * 0.5f;
+        float w = boxes[b + 2] - boxes[b];
+        float h = boxes[b + 3] - boxes[b + 1];
+        int s = DIMS * t;
+        float dx = cx - position[s];
+        float dy = cy - position[s + 1];
+        float error = (float) (Math.sqrt(dx * dx + dy * dy) / Math.sqrt(Math.max(w * h, 1e-6f)));
+        correctValue(s, cx);
+        correctValue(s + 1, cy);
+        correctValue(s + 2, w);
+        correctValue(s + 3, h);
+        return error;
+    }
+
+    // 값 하나의 칼만 필터 갱신 (측정 행렬 H = [1, 0])
+    private void correctValue(int i, float measurement) {
+        int c = COV * i;
+        float p00 = covariance[c];
+        float p01 = covariance[c + 1];
+        float p11 = covariance[c + 2];
+        float innovation = measurement - position[i];
+        float s = p00 + measurementVariance;
+        float k0 = p00 / s;
+        float k1 = p01 / s;
+        position[i] += k0 * innovation;
+        velocity[i] += k1 * innovation;
+        covariance[c] = (1 - k0) * p00;
+        covariance[c + 1] = (1 - k0) * p01;
+        covariance[c + 2] = p11 - k1 * p01;
+    }
+
+    // 검출 상자 d 로 새 추적을 만드는 메소드 (속도 0, 속도 분산은 크게)
+    private void add(DetectionResult detections, int d) {
+        int t = size++;
+        int b = 4 * d;
+        float[] boxes = detections.boxes;
+        ids[t] = nextId++;
+        classes[t] = detections.classes[d];
+        scores[t] = detections.scores[d];
+        misses[t] = 0;
+        int s = DIMS * t;
+        position[s] = (boxes[b] + boxes[b + 2]) * 0.5f;
+        position[s + 1] = (boxes[b + 1] + boxes[b + 3]) * 0.5f;
+        position[s + 2] = boxes[b + 2] - boxes[b];
+        position[s + 3] = boxes[b + 3] - boxes[b + 1];
+        for (int i = s; i < s + DIMS; i++) {
+            velocity[i] = 0;
+            int c = COV * i;
+            covariance[c] = measurementVariance;
+            covariance[c + 1] = 0;
+            covariance[c + 2] = INITIAL_VELOCITY_VARIANCE;
+        }
+    }
+
+    // 추적 t 를 삭제하는 메소드 (마지막 추적을 그 자리로 옮김)
+    private void remove(int t) {
+        int last = --size;
+        if (t == last) {
+            return;
+        }
+        ids[t] = ids[last];
+        classes[t] = classes[last];
+        scores[t] = scores[last];
+        misses[t] = misses[last];
+        trackMatched[t] = trackMatched[last];
+        System.arraycopy(position, DIMS * last, position, DIMS * t, DIMS);
+        System.arraycopy(velocity, DIMS * last, velocity, DIMS * t, DIMS);
+        System.arraycopy(covariance, COV * DIMS * last, covariance, COV * DIMS * t, COV * DIMS);
+    }
+
+    // 추적 t 의 지금 상자를 boxes 의 index 번째 자리에 기록하는 메소드
+    private void writeBox(int t, float[] boxes, int index) {
+        writeBox(t, 0, boxes, index);
+    }
+
+    // 추적 t 를 dt 초만큼 옮긴 상자를 기록하는 메소드
+    private void writeBox(int t, float dt, float[] boxes, int index) {
+        int s = DIMS * t;
+        float cx = position[s] + velocity[s] * dt;
+        float cy = position[s + 1] + velocity[s + 1] * dt;
+        float halfW = Math.max(0, position[s + 2] + velocity[s + 2] * dt) * 0.5f;
+        float halfH = Math.max(0, position[s + 3] + velocity[s + 3] * dt) * 0.5f;
+        int b = 4 * index;
+        boxes[b] = cx - halfW;
+        boxes[b + 1] = cy - halfH;
+        boxes[b + 2] = cx + halfW;
+        boxes[b + 3] = cy + halfH;
+    }
+
+    // timestampNs 시각의 추적 상자를 out 에 기록하는 메소드 (추적 상태는 바꾸지 않음)
+    // 키프레임 사이의 모든 프레임에서 호출해서 화면에 표시
+    // 연속으로 놓친 횟수가 MAX_DISPLAY_MISSES 이하인 추적만 기록하고, out 이 가득 차면 나머지는 버림
+    public synchronized void snapshot(long timestampNs, DetectionResult out) {
+        out.clear();
+        out.labelTable = labelTable;
+        out.labelOffset = labelOffset;
+        float dt = 0;
+        if (stateTimestampNs != Long.MIN_VALUE && timestampNs > stateTimestampNs) {
+            dt = Math.min(MAX_EXTRAPOLATION_SECONDS, (timestampNs - stateTimestampNs) / 1e9f);
+        }
+        for (int t = 0; t < size && !out.isFull(); t++) {
+            if (misses[t] > MAX_DISPLAY_MISSES) {
+                continue;
+            }
+            writeBox(t, dt, out.boxes, out.size);
+            int i = out.size;
+            out.classes[i] = classes[t];
+            out.scores[i] = scores[t];
+            out.trackIds[i] = ids[t];
+            out.size++;
+        }
+    }
+
+    // 모든 추적을 지우는 메소드 (추적 번호는 이어서 사용)
+    public synchronized void clear() {
+        size = 0;
+        stateTimestampNs = Long.MIN_VALUE;
+    }
+
+    // 마지막 키프레임에서 짝지어진 추적의 평균 예측 오차 (중심 거리 / 상자 크기)
+    // 키프레임 사이에 상자를 얼마나 잘 옮겼는지 나타내며 키프레임 간격을 정하는 데 사용
+    public synchronized float getLastError() {
+        return lastError;
+    }
+
+    public synchronized int getLastMatched() {
+        return lastMatched;
+    }
+
+    // 마지막 키프레임에서 새로 생긴 추적 수와 삭제된 추적 수
+    public synchronized int getLastBirths() {
+        return lastBirths;
+    }
+
+    public synchronized int getLastDeaths() {
+        return lastDeaths;
+    }
+}
@@ -0,0 +1,88 @@
+package com.lpin.realtime_camera;
+
+// 프레임의 밝기(Y) 평면으로 64 비트 지각 해시를 만드는 메소드 모음
+// 영역을 아주 작은 썸네일(블록별 평균 밝기)로 줄인 뒤 비트로 바꾸므로,
+// 같은 장면은 잡음이나 약간의 움직임이 있어도 몇 비트만 다르고 다른 장면은 많은 비트가 다릅니다.
+// 두 해시의 다른 비트 수(해밍 거리)로 비슷한 장면인지 판단합니다.
+// dHash : 9x8 썸네일에서 가로로 이웃한 블록의 밝기 비교 (노출이 바뀌어도 잘 유지됨)
+// aHash : 8x8 썸네일에서 블록 밝기가 평균보다 밝은지 비교
+public final class PerceptualHash {
+    // 블록 하나에서 읽는 가로, 세로 샘플 수
+    private static final int SAMPLES_PER_BLOCK = 4;
+    private static final int SIZE = 8;
+
+    private PerceptualHash() {
+    }
+
+    // 두 해시의 다른 비트 수 (0 ~ 64)
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    // 자르기 영역 가운데의 정사각형(분류기가 사용하는 영역)의 dHash
+    public static long dHash(YuvFrame f) {
+        int size = Math.min(f.getWidth(), f.getHeight());
+        return dHash(f, (f.getWidth() - size) / 2, (f.getHeight() - size) / 2, size, size);
+    }
+
+    // 자르기 영역 기준 (left, top, width, height) 영역의 dHash
+    // 행마다 9 개 블록을 차례로 계산하면서 비교하므로 썸네일 버퍼가 필요 없음
+    public static long dHash(YuvFrame f, int left, int top, int width, int height) {
+        long hash = 0;
+        for (int by = 0; by < SIZE; by++) {
+            int previous = blockMean(f, left, top, width, height, 0, by, SIZE + 1, SIZE);
+            for (int bx = 1; bx <= SIZE; bx++) {
+                int value = blockMean(f, left, top, width, height, bx, by, SIZE + 1, SIZE);
+                hash <<= 1;
+                if (previous < value) {
+                    hash |= 1;
+                }
+                previous = value;
+            }
+        }
+        return hash;
+    }
+
+    // 자르기 영역 기준 (left, top, width, height) 영역의 aHash
+    // scratch : 블록 밝기를 담을 64 개 이상의 버퍼
+    public static long aHash(YuvFrame f, int left, int top, int width, int height,
+                             int[] scratch) {
+        int sum = 0;
+        for (int by = 0; by < SIZE; by++) {
+            for (int bx = 0; bx < SIZE; bx++) {
+                int value = blockMean(f, left, top, width, height, bx, by, SIZE, SIZE);
+                scratch[by * SIZE + bx] = value;
+                sum += value;
+            }
+        }
+        long hash = 0;
+        for (int i = 0; i < SIZE * SIZE; i++) {
+            hash <<= 1;
+            // 평균과 비교할 때 나눗셈 대신 64 배한 값을 비교
+            if (scratch[i] * SIZE * SIZE > sum) {
+                hash |= 1;
+            }
+        }
+        return hash;
+    }
+
+    // 영역을 columns x rows 블록으로 나눴을 때 (bx, by) 블록의 평균 밝기 (일부 픽셀만 읽음)
+    private static int blockMean(YuvFrame f, int left, int top, int width, int height,
+                                 int bx, int by, int columns, int rows) {
+        int blockTop = top + by * height / rows;
+        int blockHeight = Math.max(1, top + (by + 1) * height / rows - blockTop);
+        int blockLeft = left + bx * width / columns;
+        int blockWidth = Math.max(1, left + (bx + 1) * width / columns - blockLeft);
+        int sum = 0;
+        for (int sy = 0; sy < SAMPLES_PER_BLOCK; sy++) {
+            int y = f.cropTop + blockTop + (sy * 2 + 1) * blockHeight / (SAMPLES_PER_BLOCK * 2);
+            int rowStart = y * f.yRowStride;
+            for (int sx = 0; sx < SAMPLES_PER_BLOCK; sx++) {
+                int x = f.cropLeft + blockLeft
+                        + (sx * 2 + 1) * blockWidth / (SAMPLES_PER_BLOCK * 2);
+                sum += f.yPlane.get(rowStart + x * f.yPixelStride) & 0xff;
+            }
+        }
+        return sum / (SAMPLES_PER_BLOCK * SAMPLES_PER_BLOCK);
+    }
+}
@@ -0,0 +1,107 @@
+package com.lpin.realtime_camera;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 프레임 처리 단계별 지연 시간 히스토그램과 FPS 를 모아 두는 클래스
+// 카메라 스레드, 추론 스레드 등 어디서나 기록할 수 있도록 앱 전체에서 하나를 사용합니다.
+public class PerfStats {
+    // 측정하는 단계
+    public enum Stage {
+        // reader.acquireLatestImage
+        ACQUIRE,
+        // YUV 평면을 배열로 다시 담기 (imageToByteArray, YuvFrame.copyFrom)
+        REPACK,
+        // YUV -> RGB 비트맵 변환
+        CONVERT,
+        // 모델 입력 만들기 (loadImage, preprocess)
+        PREPROCESS,
+        // 인터프리터 실행
+        INFERENCE,
+        // 상위 k 개 선택과 레이블, 점수 복사
+        POSTPROCESS,
+        // 결과 평균과 화면 표시
+        PUBLISH
+    }
+
+    private static final PerfStats GLOBAL = new PerfStats();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+    // FPS 를 계산하기 위한 프레임 수와 시작 시간
+    private final AtomicLong frames = new AtomicLong();
+    private volatile long startNs = System.nanoTime();
+
+    public PerfStats() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    // 앱 전체에서 사용하는 인스턴스
+    public static PerfStats global() {
+        return GLOBAL;
+    }
+
+    // 단계 하나의 시간을 기록하는 메소드
+    // 보통 record(stage, System.nanoTime() - start) 형태로 호출
+    public void record(Stage stage, long ns) {
+        histograms[stage.ordinal()].record(ns);
+    }
+
+    public LatencyHistogram get(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    // 결과가 나온 프레임 하나를 세는 메소드
+    public void frame() {
+        frames.incrementAndGet();
+    }
+
+    // 초기화한 뒤의 평균 FPS
+    public double getFps() {
+        double seconds = (System.nanoTime() - startNs) / 1e9;
+        return seconds > 0 ? frames.get() / seconds : 0;
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        frames.set(0);
+        startNs = System.nanoTime();
+    }
+
+    // 화면에 표시할 요약 (단계별 p50 / p95 / p99, 밀리초)
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ENGLISH, "%.1f fps   p50 / p95 / p99 ms", getFps()));
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram histogram = get(stage);
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            sb.append(String.format(Locale.ENGLISH, "\n%-11s %6.2f %6.2f %6.2f",
+                    stage.name().toLowerCase(Locale.ENGLISH),
+                    histogram.getPercentileMs(0.50), histogram.getPercentileMs(0.95),
+                    histogram.getPercentileMs(0.99)));
+        }
+        return sb.toString();
+    }
+
+    // 오프라인 비교를 위해 요약과 모든 구간을 CSV 형식으로 출력하는 메소드
+    // 요약 : summary,stage,count,mean,p50,p95,p99,max (밀리초)
+    // 구간 : bucket,stage,최솟값 us,최댓값 us,개수
+    public void dump(Appendable out) throws IOException {
+        out.append(String.format(Locale.ENGLISH, "fps,%.2f\n", getFps()));
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram h = get(stage);
+            out.append(String.format(Locale.ENGLISH, "summary,%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f\n",
+                    stage.name(), h.getCount(), h.getMeanMs(), h.getPercentileMs(0.50),
+                    h.getPercentileMs(0.95), h.getPercentileMs(0.99), h.getMaxMs()));
+        }
+        for (Stage stage : Stage.values()) {
+            get(stage).writeBuckets(out, "bucket," + stage.name() + ",");
+        }
+    }
+}
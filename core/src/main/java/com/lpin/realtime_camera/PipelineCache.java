@@ -0,0 +1,92 @@
+package com.lpin.realtime_camera;
+
+// 프레임 기하 정보(원본 너비, 높이, 회전)를 키로 미리 만든 전처리 파이프라인을 보관하는 캐시
+// 크기가 작으므로 배열을 순서대로 검사하고, 가득 차면 가장 오래 사용하지 않은 항목을 교체합니다.
+// 키를 객체로 만들지 않으므로 조회할 때 할당이 없습니다.
+public class PipelineCache<T> {
+    private final int[] widths;
+    private final int[] heights;
+    private final int[] rotations;
+    private final Object[] values;
+    private final long[] lastUsed;
+    private long clock = 0;
+    private int size = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+
+    public PipelineCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        widths = new int[capacity];
+        heights = new int[capacity];
+        rotations = new int[capacity];
+        values = new Object[capacity];
+        lastUsed = new long[capacity];
+    }
+
+    // 키에 맞는 파이프라인을 리턴하는 메소드
+    // 없으면 null
+    @SuppressWarnings("unchecked")
+    public T get(int width, int height, int rotation) {
+        for (int i = 0; i < size; i++) {
+            if (widths[i] == width && heights[i] == height && rotations[i] == rotation) {
+                lastUsed[i] = ++clock;
+                hits++;
+                return (T) values[i];
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    // 파이프라인을 저장하는 메소드
+    // 같은 키가 있으면 덮어쓰고, 가득 차 있으면 가장 오래 사용하지 않은 항목을 교체
+    public void put(int width, int height, int rotation, T value) {
+        int slot = -1;
+        for (int i = 0; i < size; i++) {
+            if (widths[i] == width && heights[i] == height && rotations[i] == rotation) {
+                slot = i;
+                break;
+            }
+        }
+        if (slot < 0) {
+            if (size < values.length) {
+                slot = size++;
+            } else {
+                slot = 0;
+                for (int i = 1; i < size; i++) {
+                    if (lastUsed[i] < lastUsed[slot]) {
+                        slot = i;
+                    }
+                }
+            }
+        }
+        widths[slot] = width;
+        heights[slot] = height;
+        rotations[slot] = rotation;
+        values[slot] = value;
+        lastUsed[slot] = ++clock;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    // 모든 항목을 지우는 메소드
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            values[i] = null;
+        }
+        size = 0;
+    }
+}
@@ -0,0 +1,60 @@
+package com.lpin.realtime_camera;
+
+import java.nio.ByteBuffer;
+
+// YUV_420_888 평면(행 간격, 픽셀 간격이 기기마다 다름)을 NV21 배열로 다시 담는 클래스
+// RenderScript 변환기의 입력을 만들 때 사용하며 Android 없이 배열과 ByteBuffer 만 사용합니다.
+// 행 버퍼는 더 큰 행 간격이 들어올 때만 늘립니다.
+public class PlaneRepacker {
+    private byte[] rowBuffer = new byte[0];
+
+    // 프레임의 자르기 영역을 NV21 (Y 평면 다음에 V, U 교대) 형태로 output 에 기록하는 메소드
+    // output 의 크기는 width * height * 3 / 2 이상이어야 합니다.
+    public void toNv21(YuvFrame frame, byte[] output) {
+        int pixelCount = frame.width * frame.height;
+        repackPlane(frame.yPlane, frame.yRowStride, frame.yPixelStride,
+                frame.cropLeft, frame.cropTop, frame.width, frame.height, output, 0, 1);
+        int uvLeft = frame.cropLeft / 2;
+        int uvTop = frame.cropTop / 2;
+        int uvWidth = (frame.cropLeft + frame.width) / 2 - uvLeft;
+        int uvHeight = (frame.cropTop + frame.height) / 2 - uvTop;
+        repackPlane(frame.uPlane, frame.uvRowStride, frame.uvPixelStride,
+                uvLeft, uvTop, uvWidth, uvHeight, output, pixelCount + 1, 2);
+        repackPlane(frame.vPlane, frame.uvRowStride, frame.uvPixelStride,
+                uvLeft, uvTop, uvWidth, uvHeight, output, pixelCount, 2);
+    }
+
+    // 평면 하나의 (left, top, width, height) 영역을 output 의 outputOffset 부터
+    // outputStride 간격으로 기록하는 메소드
+    // plane 의 position 은 바뀌지 않습니다.
+    public void repackPlane(ByteBuffer plane, int rowStride, int pixelStride,
+                            int left, int top, int width, int height,
+                            byte[] output, int outputOffset, int outputStride) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        if (rowBuffer.length < rowStride) {
+            rowBuffer = new byte[rowStride];
+        }
+        boolean contiguous = pixelStride == 1 && outputStride == 1;
+        int rowLength = contiguous ? width : (width - 1) * pixelStride + 1;
+        int position = plane.position();
+        try {
+            for (int row = 0; row < height; row++) {
+                plane.position((row + top) * rowStride + left * pixelStride);
+                if (contiguous) {
+                    plane.get(output, outputOffset, rowLength);
+                    outputOffset += rowLength;
+                } else {
+                    plane.get(rowBuffer, 0, rowLength);
+                    for (int col = 0; col < width; col++) {
+                        output[outputOffset] = rowBuffer[col * pixelStride];
+                        outputOffset += outputStride;
+                    }
+                }
+            }
+        } finally {
+            plane.position(position);
+        }
+    }
+}
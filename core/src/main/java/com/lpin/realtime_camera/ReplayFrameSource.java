@@ -0,0 +1,270 @@
+package com.lpin.realtime_camera;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+// 녹화한 프레임 파일(FrameFile 형식)을 카메라 대신 공급하는 프레임 소스
+// 파일을 메모리에 매핑하고 평면 버퍼가 매핑을 그대로 가리키므로 프레임을 복사하지 않습니다.
+// 프레임은 기록한 순서대로 전달하며, 촬영 시각에 맞춰 전달하거나 최대한 빨리 전달할 수 있습니다.
+// 카메라 없이 JVM 에서도 같은 입력으로 처리량과 결과를 반복해서 측정할 수 있습니다.
+public class ReplayFrameSource implements FrameSource, Closeable {
+    // 프레임을 전달하는 속도
+    public enum Pacing {
+        // 촬영 시각 간격에 맞춰 전달 (처리가 늦으면 카메라처럼 지난 프레임을 건너뜀)
+        REAL_TIME,
+        // 받는 쪽의 처리가 끝나는 대로 다음 프레임을 전달 (모든 프레임을 전달)
+        AS_FAST_AS_POSSIBLE
+    }
+
+    private final RandomAccessFile file;
+    private final FrameFile format;
+    private final Pacing pacing;
+    // 기록한 순서대로 정렬한 프레임과 방향
+    private final YuvFrame[] frames;
+    private final int[] orientations;
+    private volatile boolean looping = false;
+
+    // 받는 쪽이 아직 가져가지 않은 프레임
+    private final AtomicReference<YuvFrame> pending = new AtomicReference<>();
+    private volatile int currentOrientation;
+
+    private Thread thread;
+    private volatile boolean running = false;
+
+    // 통계
+    private volatile long delivered = 0;
+    private volatile long skipped = 0;
+    private volatile long playStartNs = 0;
+    private volatile long playEndNs = 0;
+
+    private ReplayFrameSource(RandomAccessFile file, Pacing pacing) throws IOException {
+        this.file = file;
+        this.pacing = pacing;
+        FileChannel channel = file.getChannel();
+        format = FrameFile.readHeader(
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, FrameFile.HEADER_SIZE));
+        if (channel.size() < format.getFileSize()) {
+            throw new IOException("frame file is truncated");
+        }
+        int recordSize = format.getRecordSize();
+        int recordsPerMap = format.getRecordsPerMap();
+        MappedByteBuffer[] maps = format.mapRecords(channel, FileChannel.MapMode.READ_ONLY);
+        long[] keys = new long[format.capacity];
+        YuvFrame[] all = new YuvFrame[format.capacity];
+        int[] allOrientations = new int[format.capacity];
+        int count = 0;
+        for (int record = 0; record < format.capacity; record++) {
+            MappedByteBuffer map = maps[record / recordsPerMap];
+            int offset = (record % recordsPerMap) * recordSize;
+            ByteBuffer header = map.duplicate().order(FrameFile.ORDER);
+            long sequence = header.getLong(offset + FrameFile.SEQUENCE_OFFSET);
+            if (sequence == FrameFile.EMPTY_SEQUENCE) {
+                continue;
+            }
+            YuvFrame frame = new YuvFrame();
+            ByteBuffer view = map.duplicate();
+            view.position(offset);
+            format.wrapRecord(view, frame);
+            // 기록 순서를 위쪽 비트에, 레코드 번호를 아래쪽 비트에 담아서 한 번에 정렬
+            keys[count] = (sequence << 32) | count;
+            all[count] = frame;
+            allOrientations[count] = header.getInt(offset + FrameFile.ORIENTATION_OFFSET);
+            count++;
+        }
+        Arrays.sort(keys, 0, count);
+        frames = new YuvFrame[count];
+        orientations = new int[count];
+        for (int i = 0; i < count; i++) {
+            int index = (int) keys[i];
+            frames[i] = all[index];
+            orientations[i] = allOrientations[index];
+        }
+    }
+
+    // 파일을 열어서 재생할 준비를 하는 메소드
+    public static ReplayFrameSource open(File path, Pacing pacing) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(path, "r");
+        try {
+            return new ReplayFrameSource(file, pacing);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    public int getWidth() {
+        return format.width;
+    }
+
+    public int getHeight() {
+        return format.height;
+    }
+
+    public int getFrameCount() {
+        return frames.length;
+    }
+
+    // 마지막 프레임 다음에 처음부터 다시 재생할지 여부
+    public void setLooping(boolean looping) {
+        this.looping = looping;
+    }
+
+    // 현재 프레임을 녹화할 때의 센서 방향
+    public int getSensorOrientation() {
+        return currentOrientation;
+    }
+
+    // 별도 스레드에서 재생을 시작하는 메소드
+    @Override
+    public synchronized void start(Listener listener) {
+        if (thread != null) {
+            throw new IllegalStateException("replay is already started");
+        }
+        running = true;
+        thread = new Thread(() -> playUntilStopped(listener), "ReplayFrameSource");
+        thread.start();
+    }
+
+    // 재생을 멈추고 재생 스레드가 끝날 때까지 기다리는 메소드
+    @Override
+    public synchronized void stop() {
+        running = false;
+        Thread t = thread;
+        thread = null;
+        if (t == null || t == Thread.currentThread()) {
+            return;
+        }
+        LockSupport.unpark(t);
+        boolean interrupted = false;
+        while (t.isAlive()) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 재생이 끝날 때까지 기다리는 메소드
+    // 시간 안에 끝나면 (또는 시작하지 않았으면) true
+    public boolean awaitCompletion(long timeoutMs) throws InterruptedException {
+        Thread t;
+        synchronized (this) {
+            t = thread;
+        }
+        if (t == null) {
+            return true;
+        }
+        t.join(timeoutMs);
+        return !t.isAlive();
+    }
+
+    // 호출한 스레드에서 파일을 끝까지 재생하는 메소드 (반복 재생이면 stop 할 때까지)
+    // start 를 사용하지 않고 테스트나 측정 코드에서 직접 호출할 수도 있습니다.
+    public void play(Listener listener) {
+        running = true;
+        playUntilStopped(listener);
+    }
+
+    private void playUntilStopped(Listener listener) {
+        delivered = 0;
+        skipped = 0;
+        playStartNs = System.nanoTime();
+        playEndNs = 0;
+        try {
+            do {
+                playOnce(listener);
+            } while (looping && running && frames.length > 0);
+        } finally {
+            pending.set(null);
+            playEndNs = System.nanoTime();
+            running = false;
+        }
+    }
+
+    private void playOnce(Listener listener) {
+        long baseNs = System.nanoTime();
+        long firstTimestamp = frames.length > 0 ? frames[0].timestampNs : 0;
+        for (int i = 0; i < frames.length && running; i++) {
+            if (pacing == Pacing.REAL_TIME) {
+                // 다음 프레임의 시각도 이미 지났으면 이 프레임은 건너뜀
+                if (i + 1 < frames.length
+                        && System.nanoTime() >= baseNs + frames[i + 1].timestampNs - firstTimestamp) {
+                    skipped++;
+                    continue;
+                }
+                if (!waitUntil(baseNs + frames[i].timestampNs - firstTimestamp)) {
+                    return;
+                }
+            }
+            currentOrientation = orientations[i];
+            pending.set(frames[i]);
+            listener.onFrameAvailable(this);
+            // 가져가지 않은 프레임은 버림
+            if (pending.getAndSet(null) != null) {
+                skipped++;
+            }
+        }
+    }
+
+    // 정해진 시각까지 기다리는 메소드 (중간에 멈추면 false)
+    private boolean waitUntil(long deadlineNs) {
+        long remaining;
+        while (running && (remaining = deadlineNs - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+        return running;
+    }
+
+    // 평면은 매핑한 파일을 그대로 가리키므로 복사하지 않습니다.
+    @Override
+    public YuvFrame acquireLatestFrame() {
+        YuvFrame frame = pending.getAndSet(null);
+        if (frame != null) {
+            delivered++;
+        }
+        return frame;
+    }
+
+    // 매핑은 close 할 때까지 유지되므로 돌려받을 때 할 일이 없습니다.
+    @Override
+    public void releaseFrame(YuvFrame frame) {
+    }
+
+    // 받는 쪽이 가져간 프레임 수
+    public long getDelivered() {
+        return delivered;
+    }
+
+    // 시각이 지났거나 받는 쪽이 가져가지 않아서 버린 프레임 수
+    public long getSkipped() {
+        return skipped;
+    }
+
+    // 마지막 재생의 초당 전달 프레임 수 (재생 중이면 지금까지)
+    public double getThroughput() {
+        long start = playStartNs;
+        if (start == 0) {
+            return 0;
+        }
+        long end = playEndNs != 0 ? playEndNs : System.nanoTime();
+        return end > start ? delivered * 1e9 / (end - start) : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        stop();
+        file.close();
+    }
+}
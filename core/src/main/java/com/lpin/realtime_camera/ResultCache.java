@@ -0,0 +1,259 @@
+package com.lpin.realtime_camera;
+
+import java.util.Locale;
+
+// 지각 해시(long)를 키로 상위 K 개의 추론 결과를 보관하는 크기가 정해진 LRU 캐시
+// 카메라가 같은 곳을 다시 비추면 해시가 몇 비트만 다르므로, 해밍 거리가 maxDistance 이하인
+// 가장 가까운 항목의 결과를 추론 없이 돌려줍니다.
+// 항목은 객체를 만들지 않고 기본형 배열에 담으며, 사용 순서는 배열 번호로 만든 이중 연결 리스트로 관리합니다.
+// 항목 수는 maxEntries 와 메모리 상한(maxBytes) 중 작은 쪽으로 정하고, 가득 차면 가장 오래 쓰지 않은 항목을 버립니다.
+// 항목은 넣은 뒤 ttlNs 가 지나면 찾지 않습니다. (찾아도 수명은 늘어나지 않음)
+// 메소드가 synchronized 이므로 여러 스레드에서 사용할 수 있습니다.
+public class ResultCache {
+    private static final int NONE = -1;
+
+    private final int capacity;
+    private final int topK;
+    private final int maxDistance;
+    private final long ttlNs;
+
+    // 항목 i 의 해시, 넣은 시각, 결과 수, 결과 (indices, scores 의 topK * i 부터)
+    private final long[] keys;
+    private final long[] insertedNs;
+    private final int[] sizes;
+    private final int[] indices;
+    private final float[] scores;
+    // 사용 순서 (head 가 가장 최근, tail 이 가장 오래됨)
+    private final int[] prev;
+    private final int[] next;
+    private int head = NONE;
+    private int tail = NONE;
+    private int size = 0;
+    // 비어 있는 항목 자리 (스택)
+    private final int[] freeSlots;
+    private int freeCount;
+    // 결과의 레이블을 찾을 표 (마지막으로 넣은 결과의 표)
+    private LabelTable labelTable;
+
+    // 통계
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long expirations = 0;
+
+    // maxEntries : 최대 항목 수
+    // maxBytes : 항목 배열이 사용할 최대 메모리 (byte)
+    // topK : 항목마다 보관할 결과 수
+    // maxDistance : 같은 장면으로 볼 최대 해밍 거리 (0 이면 해시가 같아야 함)
+    // ttlNs : 항목의 수명
+    public ResultCache(int maxEntries, long maxBytes, int topK, int maxDistance, long ttlNs) {
+        if (maxEntries <= 0 || topK <= 0) {
+            throw new IllegalArgumentException("maxEntries and topK must be positive");
+        }
+        if (maxDistance < 0 || maxDistance > 64) {
+            throw new IllegalArgumentException("maxDistance must be in [0, 64]");
+        }
+        int fit = (int) Math.min(Integer.MAX_VALUE, maxBytes / bytesPerEntry(topK));
+        if (fit <= 0) {
+            throw new IllegalArgumentException("maxBytes " + maxBytes
+                    + " is smaller than one entry (" + bytesPerEntry(topK) + " bytes)");
+        }
+        this.capacity = Math.min(maxEntries, fit);
+        this.topK = topK;
+        this.maxDistance = maxDistance;
+        this.ttlNs = ttlNs;
+        keys = new long[capacity];
+        insertedNs = new long[capacity];
+        sizes = new int[capacity];
+        indices = new int[capacity * topK];
+        scores = new float[capacity * topK];
+        prev = new int[capacity];
+        next = new int[capacity];
+        freeSlots = new int[capacity];
+        resetFreeSlots();
+    }
+
+    private void resetFreeSlots() {
+        for (int i = 0; i < capacity; i++) {
+            freeSlots[i] = capacity - 1 - i;
+        }
+        freeCount = capacity;
+    }
+
+    // 항목 하나가 사용하는 메모리 (키, 시각, 결과 수, 연결 두 개, 빈 자리 표, 결과)
+    public static long bytesPerEntry(int topK) {
+        return 8 + 8 + 4 + 4 + 4 + 4 + topK * (4L + 4L);
+    }
+
+    // 항목 배열이 사용하는 메모리 (byte)
+    public long getMemoryBytes() {
+        return capacity * bytesPerEntry(topK);
+    }
+
+    // 항목마다 보관하는 결과 수
+    public int getTopK() {
+        return topK;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // hash 와 가장 가까운 항목을 찾아서 상위 k 개 중 점수가 minScore 이상인 결과를 out 에 기록하는 메소드
+    // 찾으면 그 항목을 가장 최근에 사용한 항목으로 옮기고 true 를 리턴
+    // 찾는 동안 수명이 지난 항목은 지움
+    public synchronized boolean lookup(long hash, long nowNs, int k, float minScore,
+                                       TopKResult out) {
+        int best = NONE;
+        int bestDistance = maxDistance + 1;
+        int entry = head;
+        while (entry != NONE) {
+            int following = next[entry];
+            if (nowNs - insertedNs[entry] > ttlNs) {
+                unlink(entry);
+                freeSlots[freeCount++] = entry;
+                expirations++;
+            } else {
+                int distance = Long.bitCount(keys[entry] ^ hash);
+                if (distance < bestDistance) {
+                    best = entry;
+                    bestDistance = distance;
+                    if (distance == 0) {
+                        break;
+                    }
+                }
+            }
+            entry = following;
+        }
+        if (best == NONE) {
+            misses++;
+            return false;
+        }
+        hits++;
+        moveToHead(best);
+        int count = Math.min(Math.min(k, sizes[best]), out.capacity());
+        int base = best * topK;
+        out.size = 0;
+        for (int i = 0; i < count && scores[base + i] >= minScore; i++) {
+            out.indices[i] = indices[base + i];
+            out.scores[i] = scores[base + i];
+            out.labels[i] = null;
+            out.size++;
+        }
+        out.labelTable = labelTable;
+        return true;
+    }
+
+    // hash 의 결과를 넣는 메소드
+    // 해시가 같은 항목이 있으면 그 항목을 바꾸고, 가득 차 있으면 가장 오래 쓰지 않은 항목을 버림
+    public synchronized void put(long hash, long nowNs, TopKResult result) {
+        int entry = find(hash);
+        if (entry == NONE) {
+            if (freeCount > 0) {
+                entry = freeSlots[--freeCount];
+            } else {
+                entry = tail;
+                unlink(entry);
+                evictions++;
+            }
+            insertAtHead(entry);
+        } else {
+            moveToHead(entry);
+        }
+        keys[entry] = hash;
+        insertedNs[entry] = nowNs;
+        int count = Math.min(topK, result.size());
+        int base = entry * topK;
+        for (int i = 0; i < count; i++) {
+            indices[base + i] = result.indices[i];
+            scores[base + i] = result.scores[i];
+        }
+        sizes[entry] = count;
+        labelTable = result.labelTable;
+    }
+
+    public synchronized void clear() {
+        head = NONE;
+        tail = NONE;
+        size = 0;
+        resetFreeSlots();
+    }
+
+    // 해시가 정확히 같은 항목 (없으면 NONE)
+    private int find(long hash) {
+        for (int entry = head; entry != NONE; entry = next[entry]) {
+            if (keys[entry] == hash) {
+                return entry;
+            }
+        }
+        return NONE;
+    }
+
+    private void insertAtHead(int entry) {
+        prev[entry] = NONE;
+        next[entry] = head;
+        if (head != NONE) {
+            prev[head] = entry;
+        }
+        head = entry;
+        if (tail == NONE) {
+            tail = entry;
+        }
+        size++;
+    }
+
+    private void unlink(int entry) {
+        if (prev[entry] != NONE) {
+            next[prev[entry]] = next[entry];
+        } else {
+            head = next[entry];
+        }
+        if (next[entry] != NONE) {
+            prev[next[entry]] = prev[entry];
+        } else {
+            tail = prev[entry];
+        }
+        size--;
+    }
+
+    private void moveToHead(int entry) {
+        if (entry != head) {
+            unlink(entry);
+            insertAtHead(entry);
+        }
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getExpirations() {
+        return expirations;
+    }
+
+    // 찾은 비율 (0 ~ 1)
+    public synchronized float getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (float) hits / lookups;
+    }
+
+    // 예: "cache : hit 42.0% (420 / 1000), entries 37 / 256, evicted 0, expired 12, 11 KB"
+    public synchronized String summary() {
+        return String.format(Locale.ENGLISH,
+                "cache : hit %.1f%% (%d / %d), entries %d / %d, evicted %d, expired %d, %d KB",
+                getHitRate() * 100, hits, hits + misses, size, capacity, evictions, expirations,
+                getMemoryBytes() / 1024);
+    }
+}
@@ -0,0 +1,229 @@
+package com.lpin.realtime_camera;
+
+import java.util.Arrays;
+
+// 이전 결과(추적 상자)에서 분류할 관심 영역(ROI)을 고르는 클래스
+// 프레임 전체를 모델 크기로 줄이면 멀리 있는 작은 물체는 몇 픽셀밖에 남지 않으므로,
+// 추적 상자 주변을 원래 해상도의 프레임에서 정사각형으로 잘라서 모델 크기로 분류합니다.
+// 영역은 최소 모델 입력 크기로 잘라서 작은 물체를 늘리지 않고 원래 픽셀 그대로 사용하며,
+// 한 프레임에서 고르는 영역 수는 maxRois 로 제한하고 추적이 더 많으면 돌아가면서 고릅니다.
+// 추적 중인 물체가 없으면 영역을 고르지 않으므로 호출하는 쪽에서 프레임 전체를 분류합니다.
+public class RoiSelector {
+    // 영역 크기를 이 단위로 올림 (크기가 같은 영역은 전처리기를 같이 사용)
+    public static final int SIZE_STEP = 32;
+    // 영역 크기는 minSize 에서 2 배가 될 때마다 이 수만큼의 단계로만 고름
+    // 크기 종류가 적어야 크기별 전처리기 캐시에서 밀려나지 않음 (짧은 변이 1080 이어도 8 가지)
+    public static final int LEVELS_PER_OCTAVE = 3;
+    private static final int MAX_LEVEL_SIZE = 8192;
+
+    private final int maxRois;
+    private final int minSize;
+    // 상자 둘레에 더할 여백 (상자 긴 변에 대한 비율)
+    private final float margin;
+    // 고를 수 있는 영역 크기 (작은 것부터)
+    private final int[] sizeLevels;
+
+    // 영역 i 는 회전 전 프레임(자르기 영역 기준)의 (left[i], top[i]) 에서 시작하는 sizes[i] 크기의 정사각형
+    private final int[] lefts;
+    private final int[] tops;
+    private final int[] sizes;
+    // 영역을 만든 추적 번호와 결과 안의 위치
+    private final int[] trackIds;
+    private final int[] sources;
+    private int size = 0;
+    // 추적이 maxRois 보다 많을 때 다음 프레임에서 처음 고를 위치
+    private int cursor = 0;
+
+    // 통계
+    private long roiFrames = 0;
+    private long fullFrames = 0;
+    private long rois = 0;
+
+    // maxRois : 한 프레임에서 고를 최대 영역 수
+    // minSize : 최소 영역 크기 (픽셀), 보통 모델 입력 크기
+    // margin : 상자 둘레에 더할 여백 비율
+    public RoiSelector(int maxRois, int minSize, float margin) {
+        if (maxRois <= 0) {
+            throw new IllegalArgumentException("maxRois must be positive");
+        }
+        if (minSize <= 0) {
+            throw new IllegalArgumentException("minSize must be positive");
+        }
+        if (margin < 0) {
+            throw new IllegalArgumentException("margin must not be negative");
+        }
+        this.maxRois = maxRois;
+        this.minSize = minSize;
+        this.margin = margin;
+        sizeLevels = sizeLevels(minSize);
+        lefts = new int[maxRois];
+        tops = new int[maxRois];
+        sizes = new int[maxRois];
+        trackIds = new int[maxRois];
+        sources = new int[maxRois];
+    }
+
+    // 추적 결과에서 영역을 고르고 고른 영역 수를 리턴하는 메소드 (0 이면 프레임 전체를 분류)
+    // tracked : 회전한 프레임 기준 0~1 좌표의 상자
+    // frameWidth, frameHeight : 회전 전 프레임(자르기 영역)의 크기
+    // sensorOrientation : 상자를 만들 때 사용한 회전 (FramePreprocessor 와 같이 반시계 방향)
+    public int select(DetectionResult tracked, int frameWidth, int frameHeight,
+                      int sensorOrientation) {
+        size = 0;
+        int count = tracked.size();
+        if (count == 0) {
+            fullFrames++;
+            return 0;
+        }
+        int numRotation = ((sensorOrientation / 90) % 4 + 4) % 4;
+        int maxSize = Math.min(frameWidth, frameHeight);
+        int start = count > maxRois ? cursor % count : 0;
+        int selected = Math.min(count, maxRois);
+        for (int k = 0; k < selected; k++) {
+            int i = (start + k) % count;
+            int b = 4 * i;
+            addRoi(tracked.boxes[b], tracked.boxes[b + 1], tracked.boxes[b + 2],
+                    tracked.boxes[b + 3], numRotation, frameWidth, frameHeight, maxSize);
+            trackIds[size - 1] = tracked.trackIds[i];
+            sources[size - 1] = i;
+        }
+        cursor = start + selected;
+        roiFrames++;
+        rois += size;
+        return size;
+    }
+
+    // 회전한 프레임 기준 상자를 회전 전 프레임의 정사각형 영역으로 바꿔서 추가하는 메소드
+    private void addRoi(float left, float top, float right, float bottom, int numRotation,
+                        int frameWidth, int frameHeight, int maxSize) {
+        // 회전한 좌표를 회전 전 좌표로 되돌림 (FramePreprocessor 의 resizedX, resizedY 와 같은 대응)
+        float x0, x1, y0, y1;
+        switch (numRotation) {
+            case 1:
+                x0 = 1 - bottom;
+                x1 = 1 - top;
+                y0 = left;
+                y1 = right;
+                break;
+            case 2:
+                x0 = 1 - right;
+                x1 = 1 - left;
+                y0 = 1 - bottom;
+                y1 = 1 - top;
+                break;
+            case 3:
+                x0 = top;
+                x1 = bottom;
+                y0 = 1 - right;
+                y1 = 1 - left;
+                break;
+            default:
+                x0 = left;
+                x1 = right;
+                y0 = top;
+                y1 = bottom;
+                break;
+        }
+        float centerX = (x0 + x1) * 0.5f * frameWidth;
+        float centerY = (y0 + y1) * 0.5f * frameHeight;
+        float longSide = Math.max((x1 - x0) * frameWidth, (y1 - y0) * frameHeight);
+        int side = (int) Math.ceil(longSide * (1 + 2 * margin));
+        // 작은 물체는 늘리지 않고 최소 크기만큼 주변을 포함해서 자름
+        side = Math.max(side, minSize);
+        side = quantize(side);
+        side = Math.min(side, maxSize);
+        // 영역이 프레임 밖으로 나가면 안쪽으로 밀어 넣음
+        int roiLeft = clamp(Math.round(centerX - side * 0.5f), 0, frameWidth - side);
+        int roiTop = clamp(Math.round(centerY - side * 0.5f), 0, frameHeight - side);
+        lefts[size] = roiLeft;
+        tops[size] = roiTop;
+        sizes[size] = side;
+        size++;
+    }
+
+    // minSize 에서 시작해서 2^(1 / LEVELS_PER_OCTAVE) 배씩 커지는 크기를 SIZE_STEP 단위로 올린 목록
+    static int[] sizeLevels(int minSize) {
+        int count = 0;
+        int[] levels = new int[64];
+        for (int i = 0; count < levels.length; i++) {
+            double size = minSize * Math.pow(2, (double) i / LEVELS_PER_OCTAVE);
+            int level = (int) Math.ceil(size / SIZE_STEP - 1e-6) * SIZE_STEP;
+            if (count == 0 || level > levels[count - 1]) {
+                levels[count++] = level;
+            }
+            if (level >= MAX_LEVEL_SIZE) {
+                break;
+            }
+        }
+        return Arrays.copyOf(levels, count);
+    }
+
+    // side 이상인 가장 작은 영역 크기
+    private int quantize(int side) {
+        for (int level : sizeLevels) {
+            if (level >= side) {
+                return level;
+            }
+        }
+        return side;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getMaxRois() {
+        return maxRois;
+    }
+
+    public int getLeft(int i) {
+        checkIndex(i);
+        return lefts[i];
+    }
+
+    public int getTop(int i) {
+        checkIndex(i);
+        return tops[i];
+    }
+
+    // 정사각형 영역 한 변의 길이 (픽셀)
+    public int getSize(int i) {
+        checkIndex(i);
+        return sizes[i];
+    }
+
+    public int getTrackId(int i) {
+        checkIndex(i);
+        return trackIds[i];
+    }
+
+    // 영역을 만든 상자의 추적 결과 안의 위치
+    public int getSourceIndex(int i) {
+        checkIndex(i);
+        return sources[i];
+    }
+
+    // 영역을 분류한 프레임 수와 추적이 없어서 프레임 전체를 분류한 프레임 수
+    public long getRoiFrames() {
+        return roiFrames;
+    }
+
+    public long getFullFrames() {
+        return fullFrames;
+    }
+
+    // 영역을 분류한 프레임의 평균 영역 수
+    public float getAverageRois() {
+        return roiFrames == 0 ? 0 : (float) rois / roiFrames;
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("index " + i + ", size " + size);
+        }
+    }
+}
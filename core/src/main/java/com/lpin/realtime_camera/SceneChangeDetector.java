@@ -0,0 +1,150 @@
+package com.lpin.realtime_camera;
+
+// 밝기(Y) 평면만 보고 장면이 바뀌었는지 판단하는 클래스
+// 프레임을 작은 썸네일(블록별 평균 밝기)로 줄여서 마지막으로 처리한 프레임의 썸네일과
+// 블록 평균 절대 차이(SAD)를 비교합니다. 색 변환이나 전체 프레임 복사 없이 일부 픽셀만 읽습니다.
+// 차이가 기준보다 작으면 건너뛰고, 그래도 refreshNs 마다 한 번은 처리하도록 합니다.
+public class SceneChangeDetector {
+    // 블록 하나에서 읽는 가로, 세로 샘플 수
+    private static final int SAMPLES_PER_BLOCK = 4;
+
+    private final int columns, rows;
+    private final float threshold;
+    private final long refreshNs;
+
+    // 마지막으로 처리한 프레임의 썸네일과 지금 프레임의 썸네일
+    private int[] reference;
+    private int[] current;
+    private boolean hasReference = false;
+    private long lastProcessedNs;
+    // check 에서 처리하기로 했지만 아직 commit 하지 않은 썸네일(current)과 그 시각
+    private boolean hasPending = false;
+    private long pendingNs;
+
+    // 통계
+    private long frames = 0;
+    private long skipped = 0;
+    private float lastDifference = 0;
+
+    // columns, rows : 썸네일 크기 (블록 수)
+    // threshold : 처리할 최소 차이 (블록 평균 밝기의 평균 절대 차이, 0 ~ 255)
+    // refreshNs : 장면이 그대로여도 이 시간이 지나면 처리
+    public SceneChangeDetector(int columns, int rows, float threshold, long refreshNs) {
+        if (columns <= 0 || rows <= 0) {
+            throw new IllegalArgumentException("thumbnail size must be positive");
+        }
+        this.columns = columns;
+        this.rows = rows;
+        this.threshold = threshold;
+        this.refreshNs = refreshNs;
+        reference = new int[columns * rows];
+        current = new int[columns * rows];
+    }
+
+    // 이 프레임을 처리해야 하면 true 를 리턴하고 바로 다음 비교의 기준으로 삼는 메소드
+    // 처리하기로 한 프레임을 항상 처리할 수 있을 때 사용
+    public boolean shouldProcess(YuvFrame frame, long nowNs) {
+        boolean process = check(frame, nowNs);
+        if (process) {
+            commit();
+        }
+        return process;
+    }
+
+    // 이 프레임을 처리해야 하면 true 를 리턴하는 메소드 (기준은 바꾸지 않음)
+    // 프레임을 실제로 넘긴 뒤에 commit 을 호출해야 다음 비교의 기준이 됩니다.
+    // 넘기지 못하고 버린 프레임은 commit 하지 않으므로 다음 프레임을 이전 기준과 비교
+    public boolean check(YuvFrame frame, long nowNs) {
+        frames++;
+        thumbnail(frame, current);
+        boolean process;
+        if (!hasReference || nowNs - lastProcessedNs >= refreshNs) {
+            lastDifference = hasReference ? difference(current, reference) : Float.MAX_VALUE;
+            process = true;
+        } else {
+            lastDifference = difference(current, reference);
+            process = lastDifference >= threshold;
+        }
+        if (process) {
+            hasPending = true;
+            pendingNs = nowNs;
+        } else {
+            hasPending = false;
+            skipped++;
+        }
+        return process;
+    }
+
+    // 마지막으로 check 에서 true 를 리턴한 프레임을 다음 비교의 기준으로 삼는 메소드
+    public void commit() {
+        if (!hasPending) {
+            return;
+        }
+        // 배열을 바꿔서 복사 없이 기준을 갱신
+        int[] swap = reference;
+        reference = current;
+        current = swap;
+        hasReference = true;
+        lastProcessedNs = pendingNs;
+        hasPending = false;
+    }
+
+    // 다음 프레임을 반드시 처리하도록 기준을 지우는 메소드
+    // (예: 카메라 설정이 바뀌었을 때)
+    public void reset() {
+        hasReference = false;
+        hasPending = false;
+    }
+
+    // 자르기 영역을 columns x rows 블록으로 나눠서 블록마다 평균 밝기를 구하는 메소드
+    void thumbnail(YuvFrame f, int[] out) {
+        int width = f.getWidth();
+        int height = f.getHeight();
+        for (int by = 0; by < rows; by++) {
+            int top = by * height / rows;
+            int blockHeight = Math.max(1, (by + 1) * height / rows - top);
+            for (int bx = 0; bx < columns; bx++) {
+                int left = bx * width / columns;
+                int blockWidth = Math.max(1, (bx + 1) * width / columns - left);
+                int sum = 0;
+                for (int sy = 0; sy < SAMPLES_PER_BLOCK; sy++) {
+                    int y = f.cropTop + top + (sy * 2 + 1) * blockHeight / (SAMPLES_PER_BLOCK * 2);
+                    int rowStart = y * f.yRowStride;
+                    for (int sx = 0; sx < SAMPLES_PER_BLOCK; sx++) {
+                        int x = f.cropLeft + left
+                                + (sx * 2 + 1) * blockWidth / (SAMPLES_PER_BLOCK * 2);
+                        sum += f.yPlane.get(rowStart + x * f.yPixelStride) & 0xff;
+                    }
+                }
+                out[by * columns + bx] = sum / (SAMPLES_PER_BLOCK * SAMPLES_PER_BLOCK);
+            }
+        }
+    }
+
+    // 두 썸네일의 블록 평균 절대 차이
+    private static float difference(int[] a, int[] b) {
+        long sad = 0;
+        for (int i = 0; i < a.length; i++) {
+            sad += Math.abs(a[i] - b[i]);
+        }
+        return (float) sad / a.length;
+    }
+
+    public long getFrameCount() {
+        return frames;
+    }
+
+    public long getSkippedCount() {
+        return skipped;
+    }
+
+    // 건너뛴 프레임의 비율 (0 ~ 1)
+    public float getSkipRatio() {
+        return frames > 0 ? (float) skipped / frames : 0;
+    }
+
+    // 마지막 프레임과 기준 프레임의 차이
+    public float getLastDifference() {
+        return lastDifference;
+    }
+}
@@ -0,0 +1,125 @@
+package com.lpin.realtime_camera;
+
+// 최근 프레임들의 점수를 합쳐서 결과가 프레임마다 바뀌는 것을 줄이는 클래스
+// 최근 N 개의 점수 벡터 평균(원형 버퍼) 또는 지수 이동 평균(EMA)을 사용합니다.
+// 프레임마다 클래스 수만큼만 계산하고 배열은 만들 때 한 번만 할당합니다.
+public class ScoreSmoother {
+    private final int numClasses;
+    // 원형 버퍼 방식의 크기 (EMA 이면 0)
+    private final int windowSize;
+    // EMA 방식에서 새 점수의 비율
+    private final float alpha;
+
+    // 최근 N 개의 점수 (windowSize x numClasses) 와 그 합
+    // 합은 오래 더하고 빼도 오차가 쌓이지 않도록 double 로 유지
+    private final float[] history;
+    private final double[] sum;
+    private int next = 0;
+    private int filled = 0;
+
+    // 평균(또는 EMA) 점수
+    private final float[] smoothed;
+    private int topIndex = -1;
+    private float topScore = 0;
+
+    private ScoreSmoother(int numClasses, int windowSize, float alpha) {
+        if (numClasses <= 0) {
+            throw new IllegalArgumentException("numClasses must be positive");
+        }
+        this.numClasses = numClasses;
+        this.windowSize = windowSize;
+        this.alpha = alpha;
+        history = new float[windowSize * numClasses];
+        sum = new double[windowSize > 0 ? numClasses : 0];
+        smoothed = new float[numClasses];
+    }
+
+    // 최근 windowSize 개 프레임의 평균을 사용하는 메소드
+    public static ScoreSmoother window(int numClasses, int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be positive");
+        }
+        return new ScoreSmoother(numClasses, windowSize, 0);
+    }
+
+    // smoothed = alpha * 새 점수 + (1 - alpha) * smoothed 를 사용하는 메소드
+    public static ScoreSmoother ema(int numClasses, float alpha) {
+        if (alpha <= 0 || alpha > 1) {
+            throw new IllegalArgumentException("alpha must be in (0, 1]");
+        }
+        return new ScoreSmoother(numClasses, 0, alpha);
+    }
+
+    // 새 점수 벡터를 반영하고, 가장 높은 클래스가 바뀌었으면 true 를 리턴하는 메소드
+    public boolean update(float[] scores) {
+        if (windowSize > 0) {
+            updateWindow(scores);
+        } else {
+            updateEma(scores);
+        }
+        int previous = topIndex;
+        topIndex = TopKSelector.argmax(smoothed, numClasses);
+        topScore = topIndex >= 0 ? smoothed[topIndex] : 0;
+        return topIndex != previous;
+    }
+
+    // 가장 오래된 벡터를 합에서 빼고 새 벡터를 더함
+    private void updateWindow(float[] scores) {
+        int offset = next * numClasses;
+        boolean full = filled == windowSize;
+        if (!full) {
+            filled++;
+        }
+        float inverse = 1.0f / filled;
+        for (int i = 0; i < numClasses; i++) {
+            float value = scores[i];
+            double total = sum[i] + value;
+            if (full) {
+                total -= history[offset + i];
+            }
+            sum[i] = total;
+            history[offset + i] = value;
+            smoothed[i] = (float) total * inverse;
+        }
+        next = (next + 1) % windowSize;
+    }
+
+    private void updateEma(float[] scores) {
+        if (topIndex < 0) {
+            System.arraycopy(scores, 0, smoothed, 0, numClasses);
+            return;
+        }
+        float keep = 1 - alpha;
+        for (int i = 0; i < numClasses; i++) {
+            smoothed[i] = alpha * scores[i] + keep * smoothed[i];
+        }
+    }
+
+    // 지금까지 반영한 점수를 모두 지우는 메소드
+    public void reset() {
+        next = 0;
+        filled = 0;
+        topIndex = -1;
+        topScore = 0;
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] = 0;
+        }
+    }
+
+    public int getNumClasses() {
+        return numClasses;
+    }
+
+    // 평균 점수가 가장 높은 클래스 (아직 반영한 것이 없으면 -1)
+    public int getTopIndex() {
+        return topIndex;
+    }
+
+    public float getTopScore() {
+        return topScore;
+    }
+
+    public float getScore(int index) {
+        return smoothed[index];
+    }
+}
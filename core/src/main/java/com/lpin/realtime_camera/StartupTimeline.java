@@ -0,0 +1,86 @@
+package com.lpin.realtime_camera;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 앱 시작부터 첫 결과가 나올 때까지 단계별 시각을 기록하는 클래스
+// 단계마다 처음 한 번만 기록되므로 여러 스레드에서 매 프레임 호출해도 됩니다.
+public class StartupTimeline {
+    // 기록하는 단계 (보통 이 순서대로 일어남)
+    public enum Milestone {
+        // onCreate 호출
+        CREATE,
+        // 모델과 레이블을 읽고 인터프리터를 만듦
+        MODEL_LOADED,
+        // 합성 입력으로 미리 추론을 마침
+        WARMED_UP,
+        // 프레임 소스에서 첫 프레임을 받음
+        FIRST_FRAME,
+        // 첫 추론 결과를 화면에 표시
+        FIRST_RESULT
+    }
+
+    private static final long NOT_MARKED = -1;
+
+    // 기준 시각 (System.nanoTime 기준, 보통 프로세스 시작 시각)
+    private final long originNs;
+    // 단계별 기준 시각부터 지난 시간 (나노초)
+    private final AtomicLongArray elapsed = new AtomicLongArray(Milestone.values().length);
+
+    public StartupTimeline() {
+        this(System.nanoTime());
+    }
+
+    // originNs : 시간을 잴 기준 시각 (System.nanoTime 값)
+    public StartupTimeline(long originNs) {
+        this.originNs = originNs;
+        for (int i = 0; i < elapsed.length(); i++) {
+            elapsed.set(i, NOT_MARKED);
+        }
+    }
+
+    // 지금 시각을 기록하는 메소드
+    // 처음 기록했으면 true 를 리턴
+    public boolean mark(Milestone milestone) {
+        return mark(milestone, System.nanoTime());
+    }
+
+    public boolean mark(Milestone milestone, long nowNs) {
+        int index = milestone.ordinal();
+        if (elapsed.get(index) != NOT_MARKED) {
+            return false;
+        }
+        return elapsed.compareAndSet(index, NOT_MARKED, Math.max(0, nowNs - originNs));
+    }
+
+    public boolean isMarked(Milestone milestone) {
+        return elapsed.get(milestone.ordinal()) != NOT_MARKED;
+    }
+
+    // 기준 시각부터 지난 시간 (나노초), 기록하지 않았으면 -1
+    public long getElapsedNs(Milestone milestone) {
+        return elapsed.get(milestone.ordinal());
+    }
+
+    // 첫 결과까지 걸린 시간 (밀리초), 아직 결과가 없으면 -1
+    public double getTimeToFirstResultMs() {
+        long ns = getElapsedNs(Milestone.FIRST_RESULT);
+        return ns == NOT_MARKED ? -1 : ns / 1e6;
+    }
+
+    // 로그와 화면에 표시할 요약 (기준 시각부터 밀리초)
+    public String summary() {
+        StringBuilder sb = new StringBuilder("startup ms");
+        for (Milestone milestone : Milestone.values()) {
+            long ns = getElapsedNs(milestone);
+            sb.append(milestone == Milestone.CREATE ? " : " : ", ")
+                    .append(milestone.name().toLowerCase(Locale.ENGLISH)).append(' ');
+            if (ns == NOT_MARKED) {
+                sb.append('-');
+            } else {
+                sb.append(String.format(Locale.ENGLISH, "%.0f", ns / 1e6));
+            }
+        }
+        return sb.toString();
+    }
+}
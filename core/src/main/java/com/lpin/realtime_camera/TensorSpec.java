@@ -0,0 +1,70 @@
+package com.lpin.realtime_camera;
+
+// 모델 입출력 텐서의 자료형과 양자화 정보
+// float 모델은 scale 과 zeroPoint 를 사용하지 않습니다.
+public class TensorSpec {
+    // 텐서 원소의 자료형
+    public enum ElementType {
+        FLOAT32(4),
+        UINT8(1),
+        INT8(1);
+
+        final int byteSize;
+
+        ElementType(int byteSize) {
+            this.byteSize = byteSize;
+        }
+
+        public int byteSize() {
+            return byteSize;
+        }
+    }
+
+    public static final TensorSpec FLOAT32 = new TensorSpec(ElementType.FLOAT32, 1f, 0);
+
+    final ElementType type;
+    // 실제 값 = scale * (양자화 값 - zeroPoint)
+    final float scale;
+    final int zeroPoint;
+
+    public TensorSpec(ElementType type, float scale, int zeroPoint) {
+        if (type != ElementType.FLOAT32 && !(scale > 0)) {
+            throw new IllegalArgumentException("quantized tensor needs a positive scale");
+        }
+        this.type = type;
+        this.scale = scale;
+        this.zeroPoint = zeroPoint;
+    }
+
+    public ElementType getType() {
+        return type;
+    }
+
+    public boolean isQuantized() {
+        return type != ElementType.FLOAT32;
+    }
+
+    public float getScale() {
+        return scale;
+    }
+
+    public int getZeroPoint() {
+        return zeroPoint;
+    }
+
+    // 저장된 byte 를 정수 값으로 읽는 메소드
+    public int rawValue(byte value) {
+        return type == ElementType.INT8 ? value : value & 0xff;
+    }
+
+    // 양자화된 값을 실제 값으로 바꾸는 메소드
+    public float dequantize(int raw) {
+        return scale * (raw - zeroPoint);
+    }
+
+    @Override
+    public String toString() {
+        return isQuantized() ? type + "(scale=" + scale + ", zeroPoint=" + zeroPoint + ")"
+                : type.toString();
+    }
+}
@@ -0,0 +1,85 @@
+package com.lpin.realtime_camera;
+
+import java.util.Arrays;
+
+// 상위 K 개의 추론 결과를 담는 재사용 가능한 객체
+// 인덱스와 점수는 기본형 배열에 담고, 레이블은 읽을 때 레이블 표에서 찾습니다.
+// 레이블을 직접 채운 경우는 그 문자열을 그대로 리턴합니다.
+// 점수가 높은 순서로 정렬되어 있습니다.
+public class TopKResult {
+    final int[] indices;
+    final float[] scores;
+    final String[] labels;
+    // 레이블을 채우지 않은 순위의 레이블을 찾을 표 (없으면 null)
+    LabelTable labelTable;
+    int size = 0;
+
+    public TopKResult(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        indices = new int[capacity];
+        scores = new float[capacity];
+        labels = new String[capacity];
+    }
+
+    public int capacity() {
+        return indices.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getIndex(int rank) {
+        checkRank(rank);
+        return indices[rank];
+    }
+
+    public float getScore(int rank) {
+        checkRank(rank);
+        return scores[rank];
+    }
+
+    // 레이블을 채우지 않았으면 레이블 표에서 찾고, 표도 없으면 null
+    public String getLabel(int rank) {
+        checkRank(rank);
+        if (labels[rank] != null) {
+            return labels[rank];
+        }
+        return labelTable != null ? labelTable.get(indices[rank]) : null;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    // other 의 상위 k 개 중 점수가 minScore 이상인 결과를 복사하는 메소드 (capacity 를 넘으면 버림)
+    public void copyFrom(TopKResult other, int k, float minScore) {
+        int count = Math.min(Math.min(k, other.size), indices.length);
+        size = 0;
+        for (int i = 0; i < count && other.scores[i] >= minScore; i++) {
+            indices[i] = other.indices[i];
+            scores[i] = other.scores[i];
+            labels[i] = other.labels[i];
+            size++;
+        }
+        labelTable = other.labelTable;
+    }
+
+    // 결과에 없는 클래스는 0 으로 채운 전체 점수를 out 에 기록하는 메소드
+    public void fillScores(float[] out) {
+        Arrays.fill(out, 0);
+        for (int i = 0; i < size; i++) {
+            if (indices[i] < out.length) {
+                out[indices[i]] = scores[i];
+            }
+        }
+    }
+
+    private void checkRank(int rank) {
+        if (rank < 0 || rank >= size) {
+            throw new IndexOutOfBoundsException("rank " + rank + ", size " + size);
+        }
+    }
+}
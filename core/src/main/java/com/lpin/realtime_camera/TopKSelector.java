@@ -0,0 +1,132 @@
+package com.lpin.realtime_camera;
+
+// 점수 배열에서 상위 K 개를 고르는 메소드 모음
+// 결과 객체의 배열을 크기 K 의 최소 힙으로 사용하므로 할당이 없습니다.
+public class TopKSelector {
+    private TopKSelector() {
+    }
+
+    // scores 의 앞 count 개 중에서 minScore 이상인 상위 k 개를 result 에 기록하는 메소드
+    // 점수가 같으면 인덱스가 작은 것을 먼저 둡니다.
+    public static void select(float[] scores, int count, int k, float minScore,
+                              TopKResult result) {
+        int limit = Math.min(k, result.capacity());
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            float score = scores[i];
+            if (score >= minScore) {
+                size = offer(result, size, limit, i, score);
+            }
+        }
+        finish(result, size);
+    }
+
+    // 양자화된 점수(byte)에서 상위 k 개를 고르는 메소드
+    // scale 이 양수이면 정수 값의 순서가 실제 값의 순서와 같으므로
+    // 정수 값으로 고른 뒤 상위 k 개만 실제 값으로 바꿉니다.
+    public static void selectQuantized(byte[] raw, int count, TensorSpec spec, int k,
+                                       float minScore, TopKResult result) {
+        int limit = Math.min(k, result.capacity());
+        // minScore 이상이 되는 가장 작은 정수 값
+        double minRaw = Math.ceil(minScore / (double) spec.scale + spec.zeroPoint);
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            int value = spec.rawValue(raw[i]);
+            if (value >= minRaw) {
+                size = offer(result, size, limit, i, value);
+            }
+        }
+        finish(result, size);
+        for (int i = 0; i < size; i++) {
+            result.scores[i] = spec.dequantize((int) result.scores[i]);
+        }
+    }
+
+    // 힙에 후보를 넣고 힙의 크기를 리턴하는 메소드
+    private static int offer(TopKResult result, int size, int limit, int index, float score) {
+        int[] heapIndices = result.indices;
+        float[] heapScores = result.scores;
+        if (size < limit) {
+            heapIndices[size] = index;
+            heapScores[size] = score;
+            siftUp(heapIndices, heapScores, size);
+            return size + 1;
+        }
+        if (limit > 0 && score > heapScores[0]) {
+            // 힙의 가장 작은 값보다 크면 교체
+            heapIndices[0] = index;
+            heapScores[0] = score;
+            siftDown(heapIndices, heapScores, 0, size);
+        }
+        return size;
+    }
+
+    // 힙을 내림차순으로 정렬하는 메소드
+    // 가장 작은 값을 뒤로 보내면서 정렬하면 내림차순이 됨
+    private static void finish(TopKResult result, int size) {
+        for (int end = size - 1; end > 0; end--) {
+            swap(result.indices, result.scores, 0, end);
+            siftDown(result.indices, result.scores, 0, end);
+        }
+        for (int i = 0; i < size; i++) {
+            result.labels[i] = null;
+        }
+        result.size = size;
+    }
+
+    // 가장 큰 값의 인덱스를 리턴하는 메소드
+    public static int argmax(float[] scores, int count) {
+        int maxIndex = -1;
+        float maxValue = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            if (scores[i] > maxValue) {
+                maxValue = scores[i];
+                maxIndex = i;
+            }
+        }
+        return maxIndex;
+    }
+
+    // a 가 b 보다 순위가 낮은지 확인
+    private static boolean lower(int[] indices, float[] scores, int a, int b) {
+        return scores[a] < scores[b] || (scores[a] == scores[b] && indices[a] > indices[b]);
+    }
+
+    private static void siftUp(int[] indices, float[] scores, int pos) {
+        while (pos > 0) {
+            int parent = (pos - 1) / 2;
+            if (!lower(indices, scores, pos, parent)) {
+                return;
+            }
+            swap(indices, scores, pos, parent);
+            pos = parent;
+        }
+    }
+
+    private static void siftDown(int[] indices, float[] scores, int pos, int size) {
+        while (true) {
+            int left = pos * 2 + 1;
+            if (left >= size) {
+                return;
+            }
+            int child = left;
+            if (left + 1 < size && lower(indices, scores, left + 1, left)) {
+                child = left + 1;
+            }
+            if (!lower(indices, scores, child, pos)) {
+                return;
+            }
+            swap(indices, scores, pos, child);
+            pos = child;
+        }
+    }
+
+    private static void swap(int[] indices, float[] scores, int a, int b) {
+        int index = indices[a];
+        indices[a] = indices[b];
+        indices[b] = index;
+        float score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
@@ -0,0 +1,128 @@
+package com.lpin.realtime_camera;
+
+import java.nio.ByteBuffer;
+
+// 안드로이드 클래스에 의존하지 않는 YUV_420 프레임 정보
+// Image.Plane 의 버퍼를 그대로 가리키거나 byte 배열(NV21)을 감싸서 사용합니다.
+// 버퍼는 절대 위치(get(index))로만 읽기 때문에 여러 스레드가 동시에 읽어도 됩니다.
+public class YuvFrame {
+    // 자르기 영역의 크기와 시작 위치 (Y 평면 기준)
+    int width, height;
+    int cropLeft, cropTop;
+
+    // 각 평면의 버퍼와 stride
+    ByteBuffer yPlane, uPlane, vPlane;
+    int yRowStride, yPixelStride;
+    int uvRowStride, uvPixelStride;
+
+    // 촬영 시각 (나노초)
+    long timestampNs;
+
+    // NV21 을 감쌀 때 다시 만들지 않기 위해 기억해 두는 배열
+    private byte[] wrappedNv21;
+
+    // copyFrom 으로 복사한 경우 프레임이 소유하는 버퍼 (I420 순서)
+    private byte[] ownedData;
+    private ByteBuffer ownedY, ownedU, ownedV;
+    private byte[] rowBuffer = new byte[0];
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public long getTimestampNs() {
+        return timestampNs;
+    }
+
+    // 평면 정보를 설정하는 메소드
+    public void setPlanes(ByteBuffer y, int yRowStride, int yPixelStride,
+                          ByteBuffer u, ByteBuffer v, int uvRowStride, int uvPixelStride) {
+        this.yPlane = y;
+        this.yRowStride = yRowStride;
+        this.yPixelStride = yPixelStride;
+        this.uPlane = u;
+        this.vPlane = v;
+        this.uvRowStride = uvRowStride;
+        this.uvPixelStride = uvPixelStride;
+        this.wrappedNv21 = null;
+    }
+
+    // 자르기 영역을 설정하는 메소드
+    public void setCrop(int left, int top, int width, int height) {
+        this.cropLeft = left;
+        this.cropTop = top;
+        this.width = width;
+        this.height = height;
+    }
+
+    // NV21 배열을 감싸는 메소드
+    // 같은 배열이면 ByteBuffer 를 다시 만들지 않습니다.
+    public void setNv21(byte[] nv21, int width, int height) {
+        if (nv21 != wrappedNv21 || width != this.width || height != this.height) {
+            int pixelCount = width * height;
+            ByteBuffer y = ByteBuffer.wrap(nv21, 0, pixelCount).slice();
+            ByteBuffer v = ByteBuffer.wrap(nv21, pixelCount, nv21.length - pixelCount).slice();
+            ByteBuffer u = ByteBuffer.wrap(nv21, pixelCount + 1, nv21.length - pixelCount - 1).slice();
+            setPlanes(y, width, 1, u, v, width, 2);
+            wrappedNv21 = nv21;
+        }
+        setCrop(0, 0, width, height);
+    }
+
+    // 다른 프레임의 자르기 영역을 이 프레임이 소유한 버퍼에 복사하는 메소드
+    // Image 를 바로 닫아야 할 때 사용합니다.
+    // 크기가 커질 때만 버퍼를 다시 만듭니다.
+    public void copyFrom(YuvFrame src) {
+        int w = src.width;
+        int h = src.height;
+        int cw = (w + 1) / 2;
+        int ch = (h + 1) / 2;
+        int size = w * h + 2 * cw * ch;
+        if (ownedData == null || ownedData.length < size
+                || ownedY.capacity() != w * h || ownedU.capacity() != cw * ch) {
+            if (ownedData == null || ownedData.length < size) {
+                ownedData = new byte[size];
+            }
+            ownedY = ByteBuffer.wrap(ownedData, 0, w * h).slice();
+            ownedU = ByteBuffer.wrap(ownedData, w * h, cw * ch).slice();
+            ownedV = ByteBuffer.wrap(ownedData, w * h + cw * ch, cw * ch).slice();
+        }
+        copyPlane(src.yPlane, src.yRowStride, src.yPixelStride,
+                src.cropLeft, src.cropTop, w, h, ownedData, 0);
+        copyPlane(src.uPlane, src.uvRowStride, src.uvPixelStride,
+                src.cropLeft / 2, src.cropTop / 2, cw, ch, ownedData, w * h);
+        copyPlane(src.vPlane, src.uvRowStride, src.uvPixelStride,
+                src.cropLeft / 2, src.cropTop / 2, cw, ch, ownedData, w * h + cw * ch);
+        setPlanes(ownedY, w, 1, ownedU, ownedV, cw, 1);
+        setCrop(0, 0, w, h);
+        timestampNs = src.timestampNs;
+    }
+
+    // 한 평면의 영역을 빈틈없이(pixelStride 1) 복사하는 메소드
+    private void copyPlane(ByteBuffer plane, int rowStride, int pixelStride,
+                           int left, int top, int width, int height,
+                           byte[] output, int outputOffset) {
+        int rowLength = (width - 1) * pixelStride + 1;
+        if (rowBuffer.length < rowLength) {
+            rowBuffer = new byte[rowLength];
+        }
+        int savedPosition = plane.position();
+        for (int row = 0; row < height; row++) {
+            plane.position((top + row) * rowStride + left * pixelStride);
+            if (pixelStride == 1) {
+                plane.get(output, outputOffset, width);
+                outputOffset += width;
+            } else {
+                plane.get(rowBuffer, 0, rowLength);
+                for (int col = 0; col < width; col++) {
+                    output[outputOffset++] = rowBuffer[col * pixelStride];
+                }
+            }
+        }
+        plane.position(savedPosition);
+    }
+}
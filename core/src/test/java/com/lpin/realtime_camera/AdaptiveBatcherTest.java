@@ -0,0 +1,150 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 부하에 따라 묶음 크기가 바뀌고, 덜 찬 묶음은 시간이 지나면 처리되며,
+ * 슬롯이 모자라면 가장 오래된 프레임을 버리는지 확인하는 테스트
+ */
+public class AdaptiveBatcherTest {
+    private static final long FLUSH_TIMEOUT_MS = 30;
+
+    static class Slot {
+        long sequence;
+        long submitNs;
+    }
+
+    @Test
+    public void lightLoad_processesSingleFramesWithoutWaiting() throws Exception {
+        final List<Long> waits = Collections.synchronizedList(new ArrayList<>());
+        final List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+        AdaptiveBatcher<Slot> batcher = new AdaptiveBatcher<>(4, FLUSH_TIMEOUT_MS,
+                index -> new Slot(), batch -> {
+            sizes.add(batch.size());
+            waits.add(System.nanoTime() - batch.get(0).submitNs);
+        });
+        // 처리보다 훨씬 느리게 들어오는 프레임
+        for (int i = 0; i < 10; i++) {
+            submit(batcher, i);
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        batcher.shutdown();
+
+        assertEquals(10, batcher.getProcessed());
+        assertEquals(1, batcher.getTargetBatch());
+        for (int size : sizes) {
+            assertEquals(1, size);
+        }
+        // 묶음을 채우려고 기다리지 않음
+        for (long wait : waits) {
+            assertTrue("wait " + wait / 1e6 + " ms", wait < TimeUnit.MILLISECONDS.toNanos(FLUSH_TIMEOUT_MS) / 2);
+        }
+    }
+
+    @Test
+    public void heavyLoad_growsToFullBatchesAndShrinksAfterwards() throws Exception {
+        final List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+        final List<Long> lastWait = Collections.synchronizedList(new ArrayList<>());
+        AdaptiveBatcher<Slot> batcher = new AdaptiveBatcher<>(4, FLUSH_TIMEOUT_MS,
+                index -> new Slot(), batch -> {
+            for (int i = 0; i < batch.size(); i++) {
+                sequences.add(batch.get(i).sequence);
+            }
+            lastWait.add(System.nanoTime() - batch.get(0).submitNs);
+            // 묶음 크기와 관계없이 시간이 거의 같은 추론
+            Thread.sleep(16);
+        });
+        // 처리 한 번 동안 4 개씩 들어오는 부하
+        for (int i = 0; i < 100; i++) {
+            submit(batcher, i);
+            Thread.sleep(4);
+        }
+        Thread.sleep(100);
+        assertTrue(batcher.getStats(), batcher.getAverageBatchSize() > 2);
+        assertTrue(batcher.getStats(), batcher.getFullBatches() > 0);
+        // 슬롯이 모자라서 버린 프레임을 빼면 모두 순서대로 처리
+        assertEquals(100 - batcher.getDropped(), sequences.size());
+        for (int i = 1; i < sequences.size(); i++) {
+            assertTrue(sequences.get(i) > sequences.get(i - 1));
+        }
+
+        // 부하가 끝난 뒤 하나만 들어오면 묶음이 줄어들어서 제한 시간 안에 처리
+        long batches = batcher.getBatches();
+        submit(batcher, 1000);
+        Thread.sleep(FLUSH_TIMEOUT_MS + 40);
+        assertEquals(batches + 1, batcher.getBatches());
+        long wait = lastWait.get(lastWait.size() - 1);
+        assertTrue("wait " + wait / 1e6 + " ms",
+                wait <= TimeUnit.MILLISECONDS.toNanos(FLUSH_TIMEOUT_MS + 20));
+        submit(batcher, 1001);
+        Thread.sleep(20);
+        batcher.shutdown();
+        assertEquals(1, batcher.getTargetBatch());
+    }
+
+    @Test
+    public void obtain_dropsOldestWhenSlotsRunOut() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+        AdaptiveBatcher<Slot> batcher = new AdaptiveBatcher<>(2, FLUSH_TIMEOUT_MS,
+                index -> new Slot(), batch -> {
+            for (int i = 0; i < batch.size(); i++) {
+                sequences.add(batch.get(i).sequence);
+            }
+            started.countDown();
+            release.await();
+        });
+        submit(batcher, 0);
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        // 처리 중인 1 개를 빼고 남은 슬롯은 3 개
+        for (int i = 1; i <= 6; i++) {
+            submit(batcher, i);
+        }
+        assertEquals(3, batcher.getDropped());
+        release.countDown();
+        Thread.sleep(100);
+        batcher.shutdown();
+        // 가장 최근 프레임만 남음
+        assertEquals(java.util.Arrays.asList(0L, 4L, 5L, 6L), sequences);
+    }
+
+    @Test
+    public void handlerException_doesNotStopBatcher() throws Exception {
+        final List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+        AdaptiveBatcher<Slot> batcher = new AdaptiveBatcher<>(2, FLUSH_TIMEOUT_MS,
+                index -> new Slot(), batch -> {
+            sequences.add(batch.get(0).sequence);
+            if (batch.get(0).sequence == 0) {
+                throw new IllegalStateException("test");
+            }
+        });
+        // 예외가 난 묶음의 슬롯도 돌려받아서 다음 프레임을 계속 처리
+        for (int i = 0; i < 6; i++) {
+            submit(batcher, i);
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        batcher.shutdown();
+        assertEquals(6, batcher.getProcessed());
+        assertEquals(0, batcher.getDropped());
+        assertEquals(6, sequences.size());
+    }
+
+    private static void submit(AdaptiveBatcher<Slot> batcher, long sequence) {
+        Slot slot = batcher.obtain();
+        assertNotNull(slot);
+        slot.sequence = sequence;
+        slot.submitNs = System.nanoTime();
+        batcher.submit(slot);
+    }
+}
@@ -0,0 +1,124 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 실행 환경 측정, 저장, 실패 처리를 확인하는 테스트
+ */
+public class BackendTunerTest {
+
+    static class MapStore implements BackendTuner.Store {
+        final Map<String, String> values = new HashMap<>();
+
+        @Override
+        public String load(String key) {
+            return values.get(key);
+        }
+
+        @Override
+        public void save(String key, String value) {
+            values.put(key, value);
+        }
+    }
+
+    @Test
+    public void choose_picksFastestAndSavesIt() {
+        List<ClassifierOptions> candidates = BackendTuner.defaultCandidates("m.tflite", 8);
+        List<ClassifierOptions> measured = new ArrayList<>();
+        MapStore store = new MapStore();
+        BackendTuner tuner = new BackendTuner((options, warmups, runs) -> {
+            measured.add(options);
+            // 2 스레드 + XNNPACK 이 가장 빠르다고 가정
+            long ns = 1000L * (10 + Math.abs(options.getNumThreads() - 2));
+            return options.isUseXnnpack() ? ns : ns * 2;
+        }, store, 1, 1);
+
+        ClassifierOptions best = tuner.choose("device", candidates);
+
+        assertEquals(candidates, measured);
+        assertEquals(ClassifierOptions.Delegate.CPU, best.getDelegate());
+        assertEquals(2, best.getNumThreads());
+        assertTrue(best.isUseXnnpack());
+        assertEquals(best.serialize(), store.values.get("device"));
+        assertEquals(candidates.size(), tuner.getReport().size());
+    }
+
+    @Test
+    public void choose_usesSavedOptionsWithoutMeasuring() {
+        List<ClassifierOptions> candidates = BackendTuner.defaultCandidates("m.tflite", 4);
+        MapStore store = new MapStore();
+        ClassifierOptions saved = candidates.get(candidates.size() - 1);
+        store.save("device", saved.serialize());
+        BackendTuner tuner = new BackendTuner((options, warmups, runs) -> {
+            fail("saved options should be used");
+            return 0;
+        }, store, 1, 1);
+
+        assertEquals(saved, tuner.loadSaved("device", candidates));
+        assertEquals(saved, tuner.choose("device", candidates));
+        // 다른 기기 키는 저장된 값이 없음
+        assertNull(tuner.loadSaved("other", candidates));
+    }
+
+    @Test
+    public void choose_skipsFailingCandidates() {
+        List<ClassifierOptions> candidates = BackendTuner.defaultCandidates("m.tflite", 4);
+        MapStore store = new MapStore();
+        BackendTuner tuner = new BackendTuner((options, warmups, runs) -> {
+            if (options.getDelegate() != ClassifierOptions.Delegate.NNAPI) {
+                throw new IllegalStateException("unsupported");
+            }
+            return 5000;
+        }, store, 1, 1);
+
+        ClassifierOptions best = tuner.choose("device", candidates);
+
+        assertEquals(ClassifierOptions.Delegate.NNAPI, best.getDelegate());
+        assertEquals(best.serialize(), store.values.get("device"));
+    }
+
+    @Test
+    public void choose_fallsBackToFirstWhenAllFail() {
+        List<ClassifierOptions> candidates = BackendTuner.defaultCandidates("m.tflite", 4);
+        MapStore store = new MapStore();
+        BackendTuner tuner = new BackendTuner((options, warmups, runs) -> {
+            throw new IllegalStateException("unsupported");
+        }, store, 1, 1);
+
+        assertEquals(candidates.get(0), tuner.choose("device", candidates));
+        // 실패한 결과는 저장하지 않아서 다음 실행에서 다시 측정
+        assertTrue(store.values.isEmpty());
+    }
+
+    @Test
+    public void defaultCandidates_respectCoreCount() {
+        for (ClassifierOptions options : BackendTuner.defaultCandidates("m.tflite", 2)) {
+            assertTrue(options.getNumThreads() <= 2);
+        }
+        assertEquals(3, BackendTuner.defaultCandidates("m.tflite", 1).size());
+    }
+
+    @Test
+    public void options_serializeRoundTrip() {
+        ClassifierOptions options = new ClassifierOptions.Builder()
+                .setModelPath("models/a;b.tflite")
+                .setNumThreads(4)
+                .setUseXnnpack(false)
+                .setDelegate(ClassifierOptions.Delegate.GPU)
+                .build();
+
+        assertEquals(options, ClassifierOptions.parse(options.serialize()));
+        assertEquals(ClassifierOptions.defaults(),
+                ClassifierOptions.parse(ClassifierOptions.defaults().serialize()));
+        assertNull(ClassifierOptions.parse(null));
+        assertNull(ClassifierOptions.parse("TPU;1;true;m.tflite"));
+        assertNull(ClassifierOptions.parse("CPU;x;true;m.tflite"));
+    }
+}
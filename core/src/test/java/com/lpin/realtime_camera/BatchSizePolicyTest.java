@@ -0,0 +1,63 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 묶음 크기에 맞춰 배치 크기를 키우고 연속으로 작을 때만 줄이는 BatchSizePolicy 를 확인하는 테스트
+ */
+public class BatchSizePolicyTest {
+
+    @Test
+    public void singleFrames_useBatchOfOne() {
+        BatchSizePolicy policy = new BatchSizePolicy(new int[]{1, 2, 4}, 4);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(1, policy.update(1));
+        }
+        assertEquals(0, policy.getChanges());
+    }
+
+    @Test
+    public void growsAtOnceToSmallestSizeThatFits() {
+        BatchSizePolicy policy = new BatchSizePolicy(new int[]{1, 2, 4}, 4);
+        assertEquals(4, policy.update(3));
+        assertEquals(4, policy.update(4));
+        // 가장 큰 크기보다 많으면 가장 큰 크기
+        assertEquals(4, policy.update(7));
+        assertEquals(1, policy.getChanges());
+    }
+
+    @Test
+    public void shrinksOnlyAfterConsecutiveSmallBatches() {
+        BatchSizePolicy policy = new BatchSizePolicy(new int[]{1, 2, 4}, 3);
+        policy.update(4);
+        // 작은 묶음 사이에 큰 묶음이 끼면 다시 셈
+        assertEquals(4, policy.update(1));
+        assertEquals(4, policy.update(1));
+        assertEquals(4, policy.update(4));
+        assertEquals(4, policy.update(1));
+        assertEquals(4, policy.update(2));
+        // 그동안 필요했던 가장 큰 크기(2)로 줄임
+        assertEquals(2, policy.update(1));
+        assertEquals(2, policy.update(1));
+        assertEquals(2, policy.update(1));
+        assertEquals(1, policy.update(1));
+        assertEquals(3, policy.getChanges());
+    }
+
+    @Test
+    public void alternatingLoad_doesNotResizeEveryBatch() {
+        BatchSizePolicy policy = new BatchSizePolicy(new int[]{1, 2, 4}, 4);
+        for (int i = 0; i < 100; i++) {
+            policy.update(i % 2 == 0 ? 4 : 1);
+        }
+        assertEquals(1, policy.getChanges());
+        assertEquals(4, policy.getBatchSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sizesMustIncrease() {
+        new BatchSizePolicy(new int[]{1, 4, 2}, 4);
+    }
+}
@@ -0,0 +1,120 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 검출 모델 상자 출력 해석과 SSD 앵커 생성을 단순한 참조 구현과 비교하는 테스트
+ */
+public class BoxDecoderTest {
+
+    private static final float EPSILON = 1e-5f;
+
+    @Test
+    public void ssdAnchors_matchMobileNetLayout() {
+        float[] anchors = BoxDecoder.ssdAnchors(300);
+        // 19x19x3 + (10x10 + 5x5 + 3x3 + 2x2 + 1x1) x 6
+        assertEquals(1917 * 4, anchors.length);
+
+        // 첫 앵커 : 가장 낮은 층 (0, 0) 위치, 크기 0.1, 비율 1
+        assertEquals(0.5f / 19, anchors[0], EPSILON);
+        assertEquals(0.5f / 19, anchors[1], EPSILON);
+        assertEquals(0.1f, anchors[2], EPSILON);
+        assertEquals(0.1f, anchors[3], EPSILON);
+        // 두 번째 앵커 : 크기 0.2, 비율 2 (가로가 긴 상자)
+        assertEquals(0.2f / (float) Math.sqrt(2), anchors[6], EPSILON);
+        assertEquals(0.2f * (float) Math.sqrt(2), anchors[7], EPSILON);
+        // 마지막 앵커 : 가장 높은 층의 가운데, 크기 sqrt(0.95 * 1.0), 비율 1
+        int last = anchors.length - 4;
+        float interpolated = (float) Math.sqrt(0.95);
+        assertEquals(0.5f, anchors[last], EPSILON);
+        assertEquals(0.5f, anchors[last + 1], EPSILON);
+        assertEquals(interpolated, anchors[last + 2], EPSILON);
+        assertEquals(interpolated, anchors[last + 3], EPSILON);
+    }
+
+    @Test
+    public void decodeSsd_matchesReference() {
+        Random random = new Random(7);
+        float[] anchors = BoxDecoder.ssdAnchors(300);
+        int count = anchors.length / 4;
+        float[] raw = new float[4 * count];
+        for (int i = 0; i < raw.length; i++) {
+            raw[i] = (float) random.nextGaussian() * 2;
+        }
+        float[] out = new float[4 * count];
+        BoxDecoder.decodeSsd(raw, anchors, count, out);
+
+        for (int i = 0; i < count; i++) {
+            double[] expected = referenceSsd(raw, anchors, i);
+            for (int j = 0; j < 4; j++) {
+                assertEquals("box " + i + "[" + j + "]", expected[j], out[4 * i + j], 1e-4);
+            }
+        }
+    }
+
+    @Test
+    public void decodeSsd_zeroOffsetsGiveAnchorBox() {
+        float[] anchors = {0.5f, 0.25f, 0.2f, 0.1f};
+        float[] out = new float[4];
+        BoxDecoder.decodeSsd(new float[4], anchors, 1, out);
+
+        assertArrayEquals(new float[]{0.2f, 0.4f, 0.3f, 0.6f}, out, EPSILON);
+    }
+
+    @Test
+    public void decodeCenterSize_scalesPixelsAndSkipsScores() {
+        // 행 : cx, cy, w, h, objectness, 클래스 점수 2 개
+        float[] rows = {
+                160, 120, 64, 32, 0.9f, 0.1f, 0.8f,
+                0, 0, 320, 320, 0.5f, 0.5f, 0.5f
+        };
+        float[] out = new float[8];
+        BoxDecoder.decodeCenterSize(rows, 7, 2, 1 / 320f, 1 / 320f, out);
+
+        assertArrayEquals(new float[]{0.4f, 0.325f, 0.6f, 0.425f, -0.5f, -0.5f, 0.5f, 0.5f},
+                out, EPSILON);
+    }
+
+    @Test
+    public void decodeCorners_reordersToLeftTopRightBottom() {
+        float[] raw = {0.1f, 0.2f, 0.3f, 0.4f};
+        float[] out = new float[4];
+        BoxDecoder.decodeCorners(raw, 1, out);
+
+        assertArrayEquals(new float[]{0.2f, 0.1f, 0.4f, 0.3f}, out, EPSILON);
+    }
+
+    @Test
+    public void iou_handlesOverlapAndDegenerateBoxes() {
+        float[] boxes = {
+                0, 0, 2, 2,
+                1, 0, 3, 2,
+                2, 2, 3, 3,
+                0, 0, 0, 1
+        };
+        assertEquals(1.0f, BoxDecoder.iou(boxes, 0, boxes, 0), EPSILON);
+        // 겹치는 넓이 2, 합친 넓이 6
+        assertEquals(1 / 3f, BoxDecoder.iou(boxes, 0, boxes, 1), EPSILON);
+        // 꼭짓점만 닿는 경우
+        assertEquals(0f, BoxDecoder.iou(boxes, 0, boxes, 2), EPSILON);
+        // 넓이가 0 인 상자
+        assertEquals(0f, BoxDecoder.iou(boxes, 0, boxes, 3), EPSILON);
+    }
+
+    // TF Object Detection API 의 FasterRcnnBoxCoder.decode 를 그대로 옮긴 참조 구현
+    private static double[] referenceSsd(float[] raw, float[] anchors, int i) {
+        double ya = anchors[4 * i], xa = anchors[4 * i + 1];
+        double ha = anchors[4 * i + 2], wa = anchors[4 * i + 3];
+        double ty = raw[4 * i] / 10.0, tx = raw[4 * i + 1] / 10.0;
+        double th = raw[4 * i + 2] / 5.0, tw = raw[4 * i + 3] / 5.0;
+        double w = Math.exp(tw) * wa;
+        double h = Math.exp(th) * ha;
+        double yc = ty * ha + ya;
+        double xc = tx * wa + xa;
+        return new double[]{xc - w / 2, yc - h / 2, xc + w / 2, yc + h / 2};
+    }
+}
@@ -0,0 +1,125 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 모델 묶음에서 다음 모델로 넘기는 기준과 넘긴 비율, 실제 평균 지연 시간 계산을 확인하는 테스트
+ */
+public class CascadePolicyTest {
+
+    private static TopKResult result(float... scores) {
+        TopKResult result = new TopKResult(Math.max(1, scores.length));
+        TopKSelector.select(scores, scores.length, scores.length, -Float.MAX_VALUE, result);
+        return result;
+    }
+
+    @Test
+    public void escalates_onLowConfidenceOrSmallMargin() {
+        CascadePolicy policy = new CascadePolicy(2, 0.6f, 0.2f);
+        // 확실한 결과
+        assertFalse(policy.shouldEscalate(result(0.9f, 0.05f, 0.05f)));
+        // 1 순위 점수가 낮음
+        assertTrue(policy.shouldEscalate(result(0.5f, 0.1f, 0.4f)));
+        // 1 순위는 높지만 2 순위와 차이가 작음
+        assertTrue(policy.shouldEscalate(0.62f, 0.45f));
+        assertFalse(policy.shouldEscalate(0.62f, 0.41f));
+        // 결과가 없으면 넘김
+        assertTrue(policy.shouldEscalate(new TopKResult(2)));
+
+        // 기준을 0 으로 두면 넘기지 않음
+        CascadePolicy never = new CascadePolicy(2, 0f, 0f);
+        assertFalse(never.shouldEscalate(0.1f, 0.1f));
+    }
+
+    @Test
+    public void reportsEscalationRateAndEffectiveLatency() {
+        CascadePolicy policy = new CascadePolicy(3, 0.6f, 0.2f);
+        assertEquals(0f, policy.getEscalationRate(), 0f);
+        assertEquals(0, policy.getEffectiveLatencyMs(), 0);
+        // 10 프레임 중 3 프레임은 2 단계까지, 1 프레임은 3 단계까지
+        for (int i = 0; i < 10; i++) {
+            long ns = 0;
+            policy.recordStage(0, 5_000_000L);
+            ns += 5_000_000L;
+            if (i < 3) {
+                policy.recordStage(1, 20_000_000L);
+                ns += 20_000_000L;
+            }
+            if (i < 1) {
+                policy.recordStage(2, 60_000_000L);
+                ns += 60_000_000L;
+            }
+            policy.recordFrame(ns);
+        }
+        assertEquals(10, policy.getFrames());
+        assertEquals(0.3f, policy.getEscalationRate(), 1e-6f);
+        assertEquals(1f, policy.getStageRate(0), 0f);
+        assertEquals(0.1f, policy.getStageRate(2), 1e-6f);
+        // (10 * 5 + 3 * 20 + 60) / 10
+        assertEquals(17.0, policy.getEffectiveLatencyMs(), 1e-9);
+        assertEquals(20.0, policy.getStageLatencyMs(1), 1e-9);
+        assertEquals("cascade : escalated 30.0%, effective 17.0 ms "
+                + "(stage 0 5.0 ms, stage 1 20.0 ms, stage 2 60.0 ms)", policy.summary());
+
+        policy.reset();
+        assertEquals(0, policy.getFrames());
+        assertEquals(0, policy.getStageLatencyMs(2), 0);
+    }
+
+    @Test
+    public void cascade_isCheaperThanLargeModelAndMoreAccurateThanSmall() {
+        // 작은 모델은 쉬운 입력에서만 확실하고 맞으며, 큰 모델은 항상 맞는다고 가정한 모의 실험
+        Random random = new Random(3);
+        CascadePolicy policy = new CascadePolicy(2, 0.6f, 0.2f);
+        int classes = 10;
+        float[] scores = new float[classes];
+        TopKResult decision = new TopKResult(2);
+        int smallCorrect = 0;
+        int cascadeCorrect = 0;
+        int frames = 1000;
+        for (int frame = 0; frame < frames; frame++) {
+            int truth = random.nextInt(classes);
+            boolean easy = random.nextFloat() < 0.75f;
+            // 어려운 입력은 점수가 퍼지고 절반은 틀린 클래스가 1 순위
+            int predicted = easy || random.nextBoolean() ? truth : (truth + 1) % classes;
+            for (int c = 0; c < classes; c++) {
+                scores[c] = easy ? 0.01f : 0.06f;
+            }
+            scores[predicted] = easy ? 0.91f : 0.3f;
+            TopKSelector.select(scores, classes, 2, -Float.MAX_VALUE, decision);
+            policy.recordStage(0, 5_000_000L);
+            long ns = 5_000_000L;
+            int answer = decision.getIndex(0);
+            smallCorrect += answer == truth ? 1 : 0;
+            if (policy.shouldEscalate(decision)) {
+                policy.recordStage(1, 40_000_000L);
+                ns += 40_000_000L;
+                answer = truth;
+            }
+            cascadeCorrect += answer == truth ? 1 : 0;
+            policy.recordFrame(ns);
+        }
+        assertEquals(frames, cascadeCorrect);
+        assertTrue(smallCorrect < frames * 0.95f);
+        // 어려운 입력(약 25%)만 넘기므로 평균 지연 시간은 큰 모델보다 훨씬 짧음
+        assertEquals(0.25f, policy.getEscalationRate(), 0.05f);
+        assertTrue(policy.getEffectiveLatencyMs() < 20);
+    }
+
+    @Test
+    public void topK_copyKeepsRanksAboveMinScore() {
+        TopKResult source = result(0.1f, 0.5f, 0.3f, 0.05f);
+        TopKResult copy = new TopKResult(2);
+        copy.copyFrom(source, 3, -Float.MAX_VALUE);
+        assertEquals(2, copy.size());
+        assertEquals(1, copy.getIndex(0));
+        assertEquals(2, copy.getIndex(1));
+        copy.copyFrom(source, 3, 0.4f);
+        assertEquals(1, copy.size());
+        assertEquals(0.5f, copy.getScore(0), 0f);
+    }
+}
@@ -0,0 +1,184 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * FixedPointYuvConverter 를 float 기준 구현과 비교하는 JVM 테스트
+ */
+public class FixedPointYuvConverterTest {
+
+    // BT.601 (video range) float 기준 구현
+    static int referenceArgb(int y, int u, int v) {
+        float c = 1.164f * (y - 16);
+        float d = u - 128;
+        float e = v - 128;
+        int r = clamp(Math.round(c + 1.596f * e));
+        int g = clamp(Math.round(c - 0.813f * e - 0.391f * d));
+        int b = clamp(Math.round(c + 2.018f * d));
+        return 0xff000000 | (r << 16) | (g << 8) | b;
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : (value > 255 ? 255 : value);
+    }
+
+    static void referenceConvert(YuvFrame f, int[] argb) {
+        for (int row = 0; row < f.height; row++) {
+            for (int col = 0; col < f.width; col++) {
+                int yIndex = (f.cropTop + row) * f.yRowStride + (f.cropLeft + col) * f.yPixelStride;
+                int uvIndex = ((f.cropTop + row) / 2) * f.uvRowStride
+                        + ((f.cropLeft + col) / 2) * f.uvPixelStride;
+                argb[row * f.width + col] = referenceArgb(
+                        f.yPlane.get(yIndex) & 0xff,
+                        f.uPlane.get(uvIndex) & 0xff,
+                        f.vPlane.get(uvIndex) & 0xff);
+            }
+        }
+    }
+
+    // 행 끝에 여백이 있는 임의의 프레임을 만드는 메소드
+    // uvPixelStride 가 2 이면 semi-planar(NV12), 1 이면 planar(I420) 형태
+    static YuvFrame randomFrame(Random random, int width, int height, int rowPadding,
+                                int uvPixelStride) {
+        int yRowStride = width + rowPadding;
+        int uvRowStride = (width / 2) * uvPixelStride + rowPadding;
+        byte[] y = new byte[yRowStride * height];
+        random.nextBytes(y);
+        YuvFrame frame = new YuvFrame();
+        ByteBuffer u, v;
+        if (uvPixelStride == 2) {
+            byte[] uv = new byte[uvRowStride * height / 2];
+            random.nextBytes(uv);
+            u = ByteBuffer.wrap(uv);
+            v = ByteBuffer.wrap(uv, 1, uv.length - 1).slice();
+        } else {
+            byte[] ub = new byte[uvRowStride * height / 2];
+            byte[] vb = new byte[uvRowStride * height / 2];
+            random.nextBytes(ub);
+            random.nextBytes(vb);
+            u = ByteBuffer.wrap(ub);
+            v = ByteBuffer.wrap(vb);
+        }
+        frame.setPlanes(ByteBuffer.wrap(y), yRowStride, 1, u, v, uvRowStride, uvPixelStride);
+        frame.setCrop(0, 0, width, height);
+        return frame;
+    }
+
+    private static void assertWithinOne(int[] expected, int[] actual, int count) {
+        for (int i = 0; i < count; i++) {
+            for (int shift = 0; shift <= 16; shift += 8) {
+                int e = (expected[i] >> shift) & 0xff;
+                int a = (actual[i] >> shift) & 0xff;
+                assertTrue("pixel " + i + " channel " + shift + " : " + e + " vs " + a,
+                        Math.abs(e - a) <= 1);
+            }
+            assertEquals(0xff, actual[i] >>> 24);
+        }
+    }
+
+    @Test
+    public void everyYuvValue_matchesReference() {
+        for (int y = 0; y < 256; y++) {
+            for (int u = 0; u < 256; u++) {
+                for (int v = 0; v < 256; v++) {
+                    int[] e = {referenceArgb(y, u, v)};
+                    int[] a = {FixedPointYuvConverter.yuvToArgb(y, u, v)};
+                    assertWithinOne(e, a, 1);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void semiPlanarWithPadding_matchesReference() {
+        Random random = new Random(1);
+        YuvFrame frame = randomFrame(random, 64, 48, 16, 2);
+        int[] expected = new int[64 * 48];
+        int[] actual = new int[64 * 48];
+        referenceConvert(frame, expected);
+        FixedPointYuvConverter converter = new FixedPointYuvConverter(4);
+        converter.convert(frame, actual);
+        converter.release();
+        assertWithinOne(expected, actual, expected.length);
+    }
+
+    @Test
+    public void planarWithCrop_matchesReference() {
+        Random random = new Random(2);
+        YuvFrame frame = randomFrame(random, 80, 60, 8, 1);
+        frame.setCrop(8, 4, 40, 30);
+        int[] expected = new int[40 * 30];
+        int[] actual = new int[40 * 30];
+        referenceConvert(frame, expected);
+        FixedPointYuvConverter converter = new FixedPointYuvConverter(3);
+        converter.convert(frame, actual);
+        converter.release();
+        assertWithinOne(expected, actual, expected.length);
+    }
+
+    @Test
+    public void oddCrop_readsChromaOfSourcePixel() {
+        Random random = new Random(5);
+        YuvFrame frame = randomFrame(random, 80, 60, 8, 2);
+        frame.setCrop(7, 5, 41, 31);
+        int[] expected = new int[41 * 31];
+        int[] actual = new int[41 * 31];
+        referenceConvert(frame, expected);
+        FixedPointYuvConverter converter = new FixedPointYuvConverter(3);
+        converter.convert(frame, actual);
+        converter.release();
+        assertWithinOne(expected, actual, expected.length);
+        // 자르기 영역의 (0, 0) 은 원래 프레임의 (7, 5) 이므로 색차 블록 (3, 2) 를 읽어야 함
+        int uv = 2 * frame.uvRowStride + 3 * frame.uvPixelStride;
+        int pixel = referenceArgb(frame.yPlane.get(5 * frame.yRowStride + 7) & 0xff,
+                frame.uPlane.get(uv) & 0xff, frame.vPlane.get(uv) & 0xff);
+        assertWithinOne(new int[]{pixel}, new int[]{actual[0]}, 1);
+        // (1, 1) 은 원래 프레임의 (8, 6) 이므로 색차 블록 (4, 3)
+        uv = 3 * frame.uvRowStride + 4 * frame.uvPixelStride;
+        pixel = referenceArgb(frame.yPlane.get(6 * frame.yRowStride + 8) & 0xff,
+                frame.uPlane.get(uv) & 0xff, frame.vPlane.get(uv) & 0xff);
+        assertWithinOne(new int[]{pixel}, new int[]{actual[41 + 1]}, 1);
+    }
+
+    @Test
+    public void nv21Array_matchesReference() {
+        Random random = new Random(3);
+        byte[] nv21 = new byte[32 * 16 * 3 / 2];
+        random.nextBytes(nv21);
+        YuvFrame frame = new YuvFrame();
+        frame.setNv21(nv21, 32, 16);
+        int[] actual = new int[32 * 16];
+        new FixedPointYuvConverter(1).convert(frame, actual);
+        // NV21 은 V 가 먼저 오는 interleaved 색차 평면
+        int pixelCount = 32 * 16;
+        for (int row = 0; row < 16; row++) {
+            for (int col = 0; col < 32; col++) {
+                int uv = pixelCount + (row / 2) * 32 + (col / 2) * 2;
+                int expected = referenceArgb(nv21[row * 32 + col] & 0xff,
+                        nv21[uv + 1] & 0xff, nv21[uv] & 0xff);
+                assertWithinOne(new int[]{expected}, new int[]{actual[row * 32 + col]}, 1);
+            }
+        }
+    }
+
+    // 행을 나눠서 여러 스레드로 변환해도 한 스레드로 변환한 결과와 같아야 함
+    // 처리량 비교는 benchmark 모듈의 YuvConversionBenchmark 에서 합니다.
+    @Test
+    public void multiThreaded_matchesSingleThreaded() {
+        YuvFrame frame = randomFrame(new Random(4), 1280, 720, 0, 2);
+        int[] expected = new int[1280 * 720];
+        int[] actual = new int[1280 * 720];
+        FixedPointYuvConverter single = new FixedPointYuvConverter(1);
+        FixedPointYuvConverter multi = new FixedPointYuvConverter(4);
+        single.convert(frame, expected);
+        multi.convert(frame, actual);
+        single.release();
+        multi.release();
+        assertArrayEquals(expected, actual);
+    }
+}
@@ -0,0 +1,136 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * 가장 최근 프레임만 넘기는 우편함의 동작과 동시성을 확인하는 테스트
+ */
+public class FrameMailboxTest {
+
+    static class Buffer {
+        final int index;
+        // 지금 이 버퍼를 사용하는 스레드 수 (1 을 넘으면 안 됨)
+        final AtomicInteger owners = new AtomicInteger();
+        volatile long sequence;
+
+        Buffer(int index) {
+            this.index = index;
+        }
+    }
+
+    @Test
+    public void newestFrame_replacesUnconsumedOne() {
+        FrameMailbox<Buffer> mailbox = new FrameMailbox<>(Buffer::new);
+        Buffer first = mailbox.obtain();
+        first.sequence = 1;
+        assertTrue(mailbox.post(first));
+        Buffer second = mailbox.obtain();
+        second.sequence = 2;
+        assertFalse(mailbox.post(second));
+
+        Buffer taken = mailbox.take();
+        assertSame(second, taken);
+        assertNull(mailbox.take());
+        mailbox.release(taken);
+
+        assertEquals(2, mailbox.getDelivered());
+        assertEquals(1, mailbox.getDropped());
+        assertEquals(1, mailbox.getProcessed());
+    }
+
+    @Test
+    public void buffers_areRecycledWithoutAllocation() {
+        FrameMailbox<Buffer> mailbox = new FrameMailbox<>(Buffer::new);
+        for (int i = 0; i < 100; i++) {
+            Buffer buffer = mailbox.obtain();
+            assertNotNull(buffer);
+            assertTrue(buffer.index < FrameMailbox.DEFAULT_CAPACITY);
+            mailbox.post(buffer);
+        }
+        // 처리하는 쪽이 하나를 가지고 있어도 채울 버퍼가 남아 있어야 함
+        Buffer consumed = mailbox.take();
+        Buffer filling = mailbox.obtain();
+        assertNotNull(filling);
+        mailbox.post(filling);
+        assertNotNull(mailbox.obtain());
+        mailbox.release(consumed);
+    }
+
+    @Test
+    public void stress_singleProducerSingleConsumer() throws Exception {
+        final long frames = 200_000;
+        final FrameMailbox<Buffer> mailbox = new FrameMailbox<>(Buffer::new);
+        final AtomicBoolean done = new AtomicBoolean(false);
+        final AtomicReference<String> error = new AtomicReference<>();
+        final long[] consumed = new long[1];
+
+        Thread producer = new Thread(() -> {
+            for (long seq = 1; seq <= frames; seq++) {
+                Buffer buffer = mailbox.obtain();
+                if (buffer == null) {
+                    error.compareAndSet(null, "no free buffer at " + seq);
+                    break;
+                }
+                if (buffer.owners.incrementAndGet() != 1) {
+                    error.compareAndSet(null, "buffer shared while filling");
+                }
+                buffer.sequence = seq;
+                buffer.owners.decrementAndGet();
+                mailbox.post(buffer);
+            }
+            done.set(true);
+        }, "producer");
+
+        Thread consumer = new Thread(() -> {
+            long last = 0;
+            while (true) {
+                boolean finished = done.get();
+                Buffer buffer = mailbox.take();
+                if (buffer == null) {
+                    if (finished) {
+                        break;
+                    }
+                    Thread.yield();
+                    continue;
+                }
+                if (buffer.owners.incrementAndGet() != 1) {
+                    error.compareAndSet(null, "buffer shared while consuming");
+                }
+                long seq = buffer.sequence;
+                // 항상 더 새로운 프레임만 받아야 함
+                if (seq <= last) {
+                    error.compareAndSet(null, "stale frame " + seq + " after " + last);
+                }
+                last = seq;
+                consumed[0]++;
+                buffer.owners.decrementAndGet();
+                mailbox.release(buffer);
+            }
+            // 마지막 프레임은 버려지지 않고 처리되어야 함
+            if (last != frames) {
+                error.compareAndSet(null, "last frame " + last + " was not processed");
+            }
+        }, "consumer");
+
+        producer.start();
+        consumer.start();
+        producer.join(30_000);
+        consumer.join(30_000);
+
+        assertNull(error.get(), error.get());
+        assertEquals(frames, mailbox.getDelivered());
+        assertEquals(consumed[0], mailbox.getProcessed());
+        assertEquals(mailbox.getDelivered(), mailbox.getDropped() + mailbox.getProcessed());
+        // 모든 버퍼가 돌아왔는지 확인
+        for (int i = 0; i < FrameMailbox.DEFAULT_CAPACITY; i++) {
+            assertNotNull(mailbox.obtain());
+        }
+        assertNull(mailbox.obtain());
+    }
+}
@@ -0,0 +1,175 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 단계별 스레드로 나눈 파이프라인의 순서, 처리량, 버리기 정책을 확인하는 테스트
+ */
+public class FramePipelineTest {
+
+    static class Slot {
+        long sequence;
+        long value;
+    }
+
+    @Test
+    public void frames_flowThroughStagesInOrder() throws Exception {
+        final int frames = 200;
+        final List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch done = new CountDownLatch(1);
+        FramePipeline<Slot> pipeline = new FramePipeline<>(frames, index -> new Slot());
+        pipeline.addStage("a", slot -> {
+            slot.value = slot.sequence * 2;
+            return true;
+        }).addStage("b", slot -> {
+            slot.value += 1;
+            return true;
+        }).addStage("c", slot -> {
+            assertEquals(slot.sequence * 2 + 1, slot.value);
+            sequences.add(slot.sequence);
+            if (slot.sequence == frames - 1) {
+                done.countDown();
+            }
+            return true;
+        });
+        pipeline.start();
+
+        for (int i = 0; i < frames; i++) {
+            Slot slot = pipeline.obtain();
+            assertNotNull(slot);
+            slot.sequence = i;
+            pipeline.submit(slot);
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        pipeline.shutdown();
+
+        assertEquals(frames, sequences.size());
+        for (int i = 0; i < frames; i++) {
+            assertEquals(i, (long) sequences.get(i));
+        }
+        for (int stage = 0; stage < 3; stage++) {
+            assertEquals(frames, pipeline.getProcessed(stage));
+            assertEquals(0, pipeline.getDropped(stage));
+        }
+    }
+
+    @Test
+    public void throughput_isLimitedBySlowestStage() throws Exception {
+        final int frames = 30;
+        final long stageMs = 20;
+        final CountDownLatch done = new CountDownLatch(frames);
+        FramePipeline<Slot> pipeline = new FramePipeline<>(frames, index -> new Slot());
+        for (String name : new String[]{"convert", "infer", "present"}) {
+            pipeline.addStage(name, slot -> {
+                Thread.sleep(stageMs);
+                return true;
+            });
+        }
+        pipeline.addStage("count", slot -> {
+            done.countDown();
+            return true;
+        });
+        pipeline.start();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < frames; i++) {
+            Slot slot = pipeline.obtain();
+            pipeline.submit(slot);
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        pipeline.shutdown();
+
+        // 단계를 순서대로 실행하면 frames * 3 * stageMs (1800 ms) 가 걸림
+        // 겹쳐서 실행하면 (frames + 2) * stageMs (640 ms) 정도
+        assertTrue("elapsed " + elapsedMs, elapsedMs < frames * 3 * stageMs * 2 / 3);
+        // 가장 느린 단계 앞의 큐에 프레임이 쌓이고 기다린 시간이 기록됨
+        assertTrue(pipeline.getMaxQueueDepth(0) > 1);
+        assertTrue(pipeline.getAverageWaitMs(0) > 0);
+        assertEquals(stageMs, pipeline.getAverageProcessMs(1), stageMs);
+    }
+
+    @Test
+    public void fullQueue_dropsOldestFrame() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch entered = new CountDownLatch(1);
+        final List<Long> processed = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch finished = new CountDownLatch(2);
+        FramePipeline<Slot> pipeline = new FramePipeline<>(1, index -> new Slot());
+        pipeline.addStage("slow", slot -> {
+            entered.countDown();
+            release.await();
+            processed.add(slot.sequence);
+            finished.countDown();
+            return false;
+        });
+        pipeline.start();
+
+        // 첫 프레임이 처리되는 동안 큐(깊이 1)에 두 프레임을 넣으면 오래된 것이 밀려남
+        Slot first = pipeline.obtain();
+        first.sequence = 0;
+        pipeline.submit(first);
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        for (long seq = 1; seq <= 2; seq++) {
+            Slot slot = pipeline.obtain();
+            assertNotNull(slot);
+            slot.sequence = seq;
+            pipeline.submit(slot);
+        }
+        assertEquals(1, pipeline.getQueueDepth(0));
+        assertEquals(1, pipeline.getDropped(0));
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        pipeline.shutdown();
+
+        assertEquals(2, processed.size());
+        assertEquals(0, (long) processed.get(0));
+        assertEquals(2, (long) processed.get(1));
+    }
+
+    @Test
+    public void slots_areReusedWithoutRunningOut() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        final int frames = 10_000;
+        FramePipeline<Slot> pipeline = new FramePipeline<>(2, index -> new Slot());
+        pipeline.addStage("a", slot -> true).addStage("b", slot -> {
+            if (slot.sequence == frames - 1) {
+                done.countDown();
+            }
+            return true;
+        });
+        pipeline.start();
+        for (int i = 0; i < frames; i++) {
+            Slot slot = pipeline.obtain();
+            assertNotNull("slot " + i, slot);
+            slot.sequence = i;
+            pipeline.submit(slot);
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        pipeline.shutdown();
+        assertEquals(frames, pipeline.getProcessed(0) + pipeline.getDropped(0));
+    }
+
+    @Test
+    public void noFreeSlot_isCountedAsRejected() {
+        FramePipeline<Slot> pipeline = new FramePipeline<>(1, index -> new Slot());
+        pipeline.addStage("a", slot -> false);
+        pipeline.start();
+        // 슬롯 수는 단계 1 개 x (깊이 1 + 처리 중 1) + 채우는 중 1 = 3
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(pipeline.obtain());
+        }
+        assertNull(pipeline.obtain());
+        assertEquals(1, pipeline.getRejected());
+        assertTrue(pipeline.getStats(), pipeline.getStats().contains("rejected 1"));
+        pipeline.shutdown();
+    }
+}
@@ -0,0 +1,186 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * FramePreprocessor 를 비트맵 경로(변환 → 자르기 → 크기 조정 → 회전 → 정규화)와 비교하는 테스트
+ */
+public class FramePreprocessorTest {
+
+    // 비트맵 경로를 단계별로 따라하는 기준 구현
+    private static int[] referencePipeline(YuvFrame frame, int numRotation, int outW, int outH) {
+        int w = frame.getWidth();
+        int h = frame.getHeight();
+        int[] argb = new int[w * h];
+        new FixedPointYuvConverter(1).convert(frame, argb);
+
+        // 1. 가운데 정사각형 자르기
+        int size = Math.min(w, h);
+        int left = (w - size) / 2;
+        int top = (h - size) / 2;
+        int[] cropped = new int[size * size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                cropped[y * size + x] = argb[(top + y) * w + left + x];
+            }
+        }
+        // 2. 최근접 크기 조정 (회전 후 outW x outH 가 되도록)
+        int k = ((numRotation % 4) + 4) % 4;
+        int rw = (k & 1) == 1 ? outH : outW;
+        int rh = (k & 1) == 1 ? outW : outH;
+        int[] resized = new int[rw * rh];
+        float scaleX = (float) size / rw;
+        float scaleY = (float) size / rh;
+        for (int y = 0; y < rh; y++) {
+            for (int x = 0; x < rw; x++) {
+                int sx = Math.min((int) ((x + 0.5f) * scaleX), size - 1);
+                int sy = Math.min((int) ((y + 0.5f) * scaleY), size - 1);
+                resized[y * rw + x] = cropped[sy * size + sx];
+            }
+        }
+        // 3. 반시계 방향으로 90도씩 k 번 회전
+        int[] image = resized;
+        int iw = rw;
+        int ih = rh;
+        for (int i = 0; i < k; i++) {
+            int[] rotated = new int[iw * ih];
+            for (int y = 0; y < ih; y++) {
+                for (int x = 0; x < iw; x++) {
+                    // (x, y) -> (y, iw - 1 - x), 새 이미지의 너비는 ih
+                    rotated[(iw - 1 - x) * ih + y] = image[y * iw + x];
+                }
+            }
+            image = rotated;
+            int t = iw;
+            iw = ih;
+            ih = t;
+        }
+        return image;
+    }
+
+    private static ByteBuffer newOutput(int w, int h) {
+        return ByteBuffer.allocateDirect(w * h * 3 * 4).order(ByteOrder.nativeOrder());
+    }
+
+    @Test
+    public void nearest_matchesBitmapPipelineForEveryRotation() {
+        Random random = new Random(7);
+        YuvFrame frame = FixedPointYuvConverterTest.randomFrame(random, 96, 64, 8, 2);
+        int outW = 24;
+        int outH = 16;
+        for (int rotation = -3; rotation <= 4; rotation++) {
+            FramePreprocessor preprocessor = FramePreprocessor.centerCrop(
+                    96, 64, rotation, outW, outH,
+                    FramePreprocessor.ResizeMethod.NEAREST_NEIGHBOR, 0f, 255f);
+            ByteBuffer output = newOutput(outW, outH);
+            preprocessor.process(frame, output, 0);
+            int[] expected = referencePipeline(frame, rotation, outW, outH);
+            for (int i = 0; i < outW * outH; i++) {
+                assertEquals(((expected[i] >> 16) & 0xff) / 255f, output.getFloat(i * 12), 1e-6f);
+                assertEquals(((expected[i] >> 8) & 0xff) / 255f, output.getFloat(i * 12 + 4), 1e-6f);
+                assertEquals((expected[i] & 0xff) / 255f, output.getFloat(i * 12 + 8), 1e-6f);
+            }
+            assertEquals(0, output.position());
+        }
+    }
+
+    @Test
+    public void bilinear_interpolatesLuma() {
+        // 색차가 없는 회색 가로 그라데이션
+        int w = 64;
+        int h = 64;
+        byte[] nv21 = new byte[w * h * 3 / 2];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                nv21[y * w + x] = (byte) (16 + x * 3);
+            }
+        }
+        for (int i = w * h; i < nv21.length; i++) {
+            nv21[i] = (byte) 128;
+        }
+        YuvFrame frame = new YuvFrame();
+        frame.setNv21(nv21, w, h);
+        FramePreprocessor preprocessor = FramePreprocessor.centerCrop(
+                w, h, 0, 16, 16, FramePreprocessor.ResizeMethod.BILINEAR, 0f, 1f);
+        ByteBuffer output = newOutput(16, 16);
+        preprocessor.process(frame, output, 0);
+        float scale = w / 16f;
+        for (int x = 0; x < 16; x++) {
+            float src = (x + 0.5f) * scale - 0.5f;
+            float luma = 16 + src * 3;
+            float expected = Math.round(1.164f * (luma - 16));
+            for (int c = 0; c < 3; c++) {
+                assertEquals(expected, output.getFloat((5 * 16 + x) * 12 + c * 4), 1.5f);
+            }
+        }
+    }
+
+    @Test
+    public void writesAtOffsetAndNormalizes() {
+        YuvFrame frame = FixedPointYuvConverterTest.randomFrame(new Random(9), 32, 32, 0, 1);
+        FramePreprocessor preprocessor = FramePreprocessor.centerCrop(
+                32, 32, 1, 8, 8, FramePreprocessor.ResizeMethod.NEAREST_NEIGHBOR, 127.5f, 127.5f);
+        ByteBuffer output = newOutput(8, 16);
+        int offset = 8 * 8 * 12;
+        preprocessor.process(frame, output, offset);
+        int[] expected = referencePipeline(frame, 1, 8, 8);
+        for (int i = 0; i < 64; i++) {
+            assertEquals(0f, output.getFloat(i * 12), 0f);
+            float red = (((expected[i] >> 16) & 0xff) - 127.5f) / 127.5f;
+            assertEquals(red, output.getFloat(offset + i * 12), 1e-6f);
+        }
+    }
+
+    @Test
+    public void processAtOrigin_matchesPreprocessorBuiltAtThatOrigin() {
+        YuvFrame frame = FixedPointYuvConverterTest.randomFrame(new Random(11), 96, 64, 8, 2);
+        FramePreprocessor shared = new FramePreprocessor(0, 0, 32, 32, 1, 16, 16,
+                FramePreprocessor.ResizeMethod.BILINEAR, 0f, 255f);
+        assertTrue(shared.matchesSize(32, 32, 5));
+        assertFalse(shared.matchesSize(32, 48, 1));
+        ByteBuffer actual = newOutput(16, 16);
+        ByteBuffer expected = newOutput(16, 16);
+        int[][] origins = {{0, 0}, {17, 9}, {64, 32}};
+        for (int[] origin : origins) {
+            shared.process(frame, origin[0], origin[1], actual, 0);
+            new FramePreprocessor(origin[0], origin[1], 32, 32, 1, 16, 16,
+                    FramePreprocessor.ResizeMethod.BILINEAR, 0f, 255f)
+                    .process(frame, expected, 0);
+            for (int i = 0; i < 16 * 16 * 3; i++) {
+                assertEquals(expected.getFloat(i * 4), actual.getFloat(i * 4), 0f);
+            }
+        }
+    }
+
+    @Test
+    public void oddFrameCrop_readsChromaOfSourcePixel() {
+        YuvFrame frame = FixedPointYuvConverterTest.randomFrame(new Random(13), 80, 60, 8, 2);
+        frame.setCrop(7, 5, 33, 25);
+        // 크기를 바꾸지 않으면 출력 픽셀 하나가 원래 프레임의 픽셀 하나
+        FramePreprocessor preprocessor = new FramePreprocessor(0, 0, 33, 25, 0, 33, 25,
+                FramePreprocessor.ResizeMethod.NEAREST_NEIGHBOR, 0f, 1f);
+        ByteBuffer output = newOutput(33, 25);
+        preprocessor.process(frame, output, 0);
+        for (int y = 0; y < 25; y++) {
+            for (int x = 0; x < 33; x++) {
+                // 자르기 전 프레임 좌표로 밝기와 색차를 직접 읽은 기준 값
+                int sx = 7 + x;
+                int sy = 5 + y;
+                int uv = (sy / 2) * frame.uvRowStride + (sx / 2) * frame.uvPixelStride;
+                int expected = FixedPointYuvConverterTest.referenceArgb(
+                        frame.yPlane.get(sy * frame.yRowStride + sx) & 0xff,
+                        frame.uPlane.get(uv) & 0xff, frame.vPlane.get(uv) & 0xff);
+                int i = y * 33 + x;
+                assertEquals((expected >> 16) & 0xff, output.getFloat(i * 12), 1f);
+                assertEquals((expected >> 8) & 0xff, output.getFloat(i * 12 + 4), 1f);
+                assertEquals(expected & 0xff, output.getFloat(i * 12 + 8), 1f);
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.lpin.realtime_camera;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 녹화한 링 파일을 재생하면 최근 프레임과 추론 결과가 순서대로 나오는지,
+ * 기록이 밀리면 기다리지 않고 버리는지 확인하는 테스트
+ */
+public class FrameRecorderTest {
+    private static final int WIDTH = 32;
+    private static final int HEIGHT = 24;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("record", ".yuv");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    // 기록 스레드가 임시 버퍼를 비울 때까지 기다리는 메소드
+    private static void awaitWritten(FrameRecorder recorder, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (recorder.getWritten() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(count, recorder.getWritten());
+    }
+
+    @Test
+    public void ring_keepsLatestFramesInOrder() throws Exception {
+        Random random = new Random(51);
+        // 행 여백, 픽셀 간격 2, 자르기 영역이 있는 카메라 프레임
+        YuvFrame camera = FixedPointYuvConverterTest.randomFrame(random, WIDTH + 8, HEIGHT + 4, 16, 2);
+        camera.setCrop(4, 2, WIDTH, HEIGHT);
+        List<byte[]> expected = new ArrayList<>();
+        try (FrameRecorder recorder = FrameRecorder.create(file, WIDTH, HEIGHT, 4)) {
+            for (int i = 0; i < 7; i++) {
+                camera.yPlane.put((2 + 1) * camera.yRowStride + 4, (byte) i);
+                camera.timestampNs = 1000 + i;
+                assertTrue(recorder.record(camera, 90));
+                YuvFrame copy = new YuvFrame();
+                copy.copyFrom(camera);
+                expected.add(nv21(copy));
+                awaitWritten(recorder, i + 1);
+            }
+            assertEquals(0, recorder.getDropped());
+        }
+
+        try (ReplayFrameSource replay = ReplayFrameSource.open(file,
+                ReplayFrameSource.Pacing.AS_FAST_AS_POSSIBLE)) {
+            assertEquals(4, replay.getFrameCount());
+            List<Long> timestamps = new ArrayList<>();
+            List<byte[]> frames = new ArrayList<>();
+            replay.play(s -> {
+                YuvFrame frame = s.acquireLatestFrame();
+                timestamps.add(frame.getTimestampNs());
+                frames.add(nv21(frame));
+                assertEquals(90, replay.getSensorOrientation());
+            });
+            assertEquals(java.util.Arrays.asList(1003L, 1004L, 1005L, 1006L), timestamps);
+            for (int i = 0; i < 4; i++) {
+                assertArrayEquals(expected.get(3 + i), frames.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void setResult_writesNextToFrame() throws Exception {
+        YuvFrame camera = FixedPointYuvConverterTest.randomFrame(new Random(52), WIDTH, HEIGHT, 0, 1);
+        try (FrameRecorder recorder = FrameRecorder.create(file, WIDTH, HEIGHT, 3)) {
+            camera.timestampNs = 10;
+            recorder.record(camera, 0);
+            awaitWritten(recorder, 1);
+            // 기록한 뒤에 도착한 결과
+            recorder.setResult(10, 7, 0.5f);
+            // 기록하기 전에 도착한 결과
+            recorder.setResult(20, 9, 0.25f);
+            camera.timestampNs = 20;
+            recorder.record(camera, 0);
+            awaitWritten(recorder, 2);
+        }
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            FrameFile format = FrameFile.readHeader(in.getChannel()
+                    .map(FileChannel.MapMode.READ_ONLY, 0, FrameFile.HEADER_SIZE));
+            ByteBuffer map = in.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, in.length())
+                    .order(FrameFile.ORDER);
+            int first = (int) format.getRecordOffset(0);
+            int second = (int) format.getRecordOffset(1);
+            int third = (int) format.getRecordOffset(2);
+            assertEquals(7, map.getInt(first + FrameFile.CLASS_INDEX_OFFSET));
+            assertEquals(0.5f, map.getFloat(first + FrameFile.SCORE_OFFSET), 0f);
+            assertEquals(9, map.getInt(second + FrameFile.CLASS_INDEX_OFFSET));
+            assertEquals(0.25f, map.getFloat(second + FrameFile.SCORE_OFFSET), 0f);
+            assertEquals(FrameFile.EMPTY_SEQUENCE, map.getLong(third + FrameFile.SEQUENCE_OFFSET));
+        }
+    }
+
+    @Test
+    public void record_dropsInsteadOfBlockingWhenWriterFallsBehind() throws Exception {
+        YuvFrame camera = FixedPointYuvConverterTest.randomFrame(new Random(53), WIDTH, HEIGHT, 0, 1);
+        try (FrameRecorder recorder = FrameRecorder.create(file, WIDTH, HEIGHT, 8)) {
+            int accepted = 0;
+            long start = System.nanoTime();
+            // 기록 스레드가 따라오지 못할 만큼 한꺼번에 넘김
+            for (int i = 0; i < 1000; i++) {
+                camera.timestampNs = i;
+                if (recorder.record(camera, 0)) {
+                    accepted++;
+                }
+            }
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            assertTrue("elapsed " + elapsedMs, elapsedMs < 2000);
+            assertEquals(1000 - accepted, recorder.getDropped());
+            assertTrue(recorder.getDropped() > 0);
+            awaitWritten(recorder, accepted);
+
+            // 크기가 다른 프레임도 버림
+            assertFalse(recorder.record(
+                    FixedPointYuvConverterTest.randomFrame(new Random(54), 16, 16, 0, 1), 0));
+        }
+    }
+
+    private static byte[] nv21(YuvFrame frame) {
+        byte[] output = new byte[frame.getWidth() * frame.getHeight() * 3 / 2];
+        new PlaneRepacker().toNv21(frame, output);
+        return output;
+    }
+}
@@ -0,0 +1,211 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * 여러 인스턴스로 추론하고 결과를 프레임 순서대로 전달하는지 확인하는 테스트
+ */
+public class InferencePoolTest {
+
+    static class Input {
+        int value;
+        long delayMs;
+    }
+
+    static class Output {
+        int value;
+    }
+
+    @Test
+    public void results_areDeliveredInSequenceOrder() throws Exception {
+        List<Long> sequences = new ArrayList<>();
+        List<Integer> values = new ArrayList<>();
+        InferencePool<Input, Output> pool = new InferencePool<>(3,
+                instance -> (input, output) -> {
+                    Thread.sleep(input.delayMs);
+                    output.value = input.value;
+                },
+                instance -> new Input(),
+                instance -> new Output(),
+                (sequence, result, failed) -> {
+                    sequences.add(sequence);
+                    values.add(result.value);
+                });
+        Random random = new Random(21);
+        List<Integer> submittedValues = new ArrayList<>();
+        int frames = 0;
+        while (frames < 60) {
+            Input input = pool.acquireInput();
+            if (input == null) {
+                Thread.sleep(1);
+                continue;
+            }
+            input.value = frames * 10;
+            // 늦게 들어온 프레임이 먼저 끝나도록 처리 시간을 섞음
+            input.delayMs = random.nextInt(8);
+            assertEquals(frames, pool.submit(input));
+            submittedValues.add(input.value);
+            frames++;
+        }
+        pool.shutdown();
+
+        assertEquals(60, sequences.size());
+        for (int i = 0; i < sequences.size(); i++) {
+            assertEquals(i, (long) sequences.get(i));
+            assertEquals(submittedValues.get(i), values.get(i));
+        }
+        assertEquals(60, pool.getCompleted());
+        assertEquals(60, pool.getSubmitted());
+        long total = 0;
+        for (int i = 0; i < pool.size(); i++) {
+            total += pool.getFrameCount(i);
+            assertTrue(pool.getUtilization(i) >= 0 && pool.getUtilization(i) <= 1);
+        }
+        assertEquals(60, total);
+        assertTrue(pool.getThroughput() > 0);
+    }
+
+    @Test
+    public void acquire_rejectsWhenAllInstancesAreBusy() throws Exception {
+        Object gate = new Object();
+        boolean[] open = {false};
+        InferencePool<Input, Output> pool = new InferencePool<>(2,
+                instance -> (input, output) -> {
+                    synchronized (gate) {
+                        while (!open[0]) {
+                            gate.wait();
+                        }
+                    }
+                },
+                instance -> new Input(),
+                instance -> new Output(),
+                (sequence, result, failed) -> { });
+        pool.submit(pool.acquireInput());
+        pool.submit(pool.acquireInput());
+        assertNull(pool.acquireInput());
+        assertEquals(1, pool.getRejected());
+        synchronized (gate) {
+            open[0] = true;
+            gate.notifyAll();
+        }
+        pool.shutdown();
+        assertEquals(2, pool.getCompleted());
+    }
+
+    @Test
+    public void failedRun_isReportedInOrder() throws Exception {
+        List<Boolean> failures = new ArrayList<>();
+        InferencePool<Input, Output> pool = new InferencePool<>(1,
+                instance -> (input, output) -> {
+                    if (input.value < 0) {
+                        throw new IllegalStateException("test failure");
+                    }
+                },
+                instance -> new Input(),
+                instance -> new Output(),
+                (sequence, result, failed) -> failures.add(failed));
+        Input input = pool.acquireInput();
+        input.value = -1;
+        pool.submit(input);
+        pool.shutdown();
+        assertEquals(1, failures.size());
+        assertTrue(failures.get(0));
+        assertEquals(1, pool.getFailed());
+    }
+
+    @Test
+    public void engineError_isReportedAndDoesNotBlockLaterResults() throws Exception {
+        List<Boolean> failures = new ArrayList<>();
+        InferencePool<Input, Output> pool = new InferencePool<>(1,
+                instance -> (input, output) -> {
+                    if (input.value < 0) {
+                        throw new OutOfMemoryError("test error");
+                    }
+                },
+                instance -> new Input(),
+                instance -> new Output(),
+                (sequence, result, failed) -> failures.add(failed));
+        Input input = pool.acquireInput();
+        input.value = -1;
+        pool.submit(input);
+        // Error 는 추론 스레드 밖으로 던져지지만, 그 프레임도 실패한 결과로 전달되어
+        // 다음 프레임의 결과가 막히지 않음
+        while ((input = pool.acquireInput()) == null) {
+            Thread.sleep(1);
+        }
+        input.value = 1;
+        pool.submit(input);
+        pool.shutdown();
+        assertEquals(Arrays.asList(true, false), failures);
+        assertEquals(1, pool.getFailed());
+        assertEquals(1, pool.getCompleted());
+    }
+
+    @Test
+    public void slowListener_doesNotBlockOtherInstances() throws Exception {
+        final CountDownLatch listenerEntered = new CountDownLatch(1);
+        final AtomicReference<InferencePool<Input, Output>> poolRef = new AtomicReference<>();
+        final boolean[] otherFinished = {false};
+        final List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+        InferencePool<Input, Output> pool = new InferencePool<>(2,
+                instance -> (input, output) -> {
+                    if (input.value == 1) {
+                        listenerEntered.await(1, TimeUnit.SECONDS);
+                    }
+                },
+                instance -> new Input(),
+                instance -> new Output(),
+                (sequence, result, failed) -> {
+                    if (sequence == 0) {
+                        // 첫 결과를 전달하는 동안 다른 인스턴스가 추론을 끝낼 수 있어야 함
+                        // (listener 에서 풀을 다시 호출해도 됨)
+                        listenerEntered.countDown();
+                        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+                        while (poolRef.get().getCompleted() < 2 && System.nanoTime() < deadline) {
+                            Thread.yield();
+                        }
+                        otherFinished[0] = poolRef.get().getCompleted() == 2;
+                    }
+                    sequences.add(sequence);
+                });
+        poolRef.set(pool);
+        Input first = pool.acquireInput();
+        Input second = pool.acquireInput();
+        first.value = 0;
+        second.value = 1;
+        pool.submit(first);
+        pool.submit(second);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (sequences.size() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        pool.shutdown();
+        assertTrue(otherFinished[0]);
+        assertEquals(Arrays.asList(0L, 1L), sequences);
+    }
+
+    @Test
+    public void cancel_returnsReservedSlot() {
+        InferencePool<Input, Output> pool = new InferencePool<>(1,
+                instance -> (input, output) -> { },
+                instance -> new Input(),
+                instance -> new Output(),
+                (sequence, result, failed) -> { });
+        Input input = pool.acquireInput();
+        assertNull(pool.acquireInput());
+        pool.cancel(input);
+        assertSame(input, pool.acquireInput());
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,107 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * byte 덩어리와 위치 표로 보관하는 레이블 표가 FileUtil.loadLabels 와 같은 목록을 만드는지 확인하는 테스트
+ */
+public class LabelTableTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static LabelTable read(String text) throws IOException {
+        return LabelTable.read(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void lines_skipBlankAndHandleLineEndings() throws IOException {
+        LabelTable table = read("background\r\ntench\n\n   \ngoldfish\rgreat white shark");
+
+        assertEquals(4, table.size());
+        assertEquals("background", table.get(0));
+        assertEquals("tench", table.get(1));
+        assertEquals("goldfish", table.get(2));
+        assertEquals("great white shark", table.get(3));
+        assertEquals(17, table.getByteLength(3));
+    }
+
+    @Test
+    public void utf8Labels_areDecoded() throws IOException {
+        LabelTable table = read("고양이\n강아지\n");
+
+        assertEquals(2, table.size());
+        assertEquals("고양이", table.get(0));
+        assertEquals("강아지", table.get(1));
+        assertEquals(9, table.getByteLength(0));
+    }
+
+    @Test
+    public void outOfRange_returnsEmptyString() throws IOException {
+        LabelTable table = read("a\nb\n");
+
+        assertEquals("", table.get(-1));
+        assertEquals("", table.get(2));
+        assertEquals(0, read("").size());
+        assertEquals(0, read("\n \r\n").size());
+    }
+
+    @Test
+    public void repeatedLookups_reuseCachedString() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1001; i++) {
+            sb.append("label").append(i).append('\n');
+        }
+        LabelTable table = read(sb.toString());
+
+        assertEquals(1001, table.size());
+        String first = table.get(981);
+        assertEquals("label981", first);
+        assertSame(first, table.get(981));
+        for (int i = 0; i < 1001; i++) {
+            assertEquals("label" + i, table.get(i));
+        }
+    }
+
+    @Test
+    public void mappedFile_isReadInPlace() throws IOException {
+        File file = folder.newFile("labels.txt");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("cat\ndog\nbird\n".getBytes(StandardCharsets.UTF_8));
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            ByteBuffer mapped = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            LabelTable table = LabelTable.wrap(mapped);
+
+            assertEquals(3, table.size());
+            assertEquals(13, table.getBlobBytes());
+            assertEquals("dog", table.get(1));
+            assertEquals("bird", table.get(2));
+        }
+    }
+
+    @Test
+    public void topKResult_readsLabelsFromTable() throws IOException {
+        LabelTable table = read("zero\none\ntwo\nthree\n");
+        TopKResult result = new TopKResult(2);
+        TopKSelector.select(new float[]{0.1f, 0.5f, 0.05f, 0.35f}, 4, 2, 0f, result);
+        assertNull(result.getLabel(0));
+
+        result.labelTable = table;
+        assertEquals("one", result.getLabel(0));
+        assertEquals("three", result.getLabel(1));
+    }
+}
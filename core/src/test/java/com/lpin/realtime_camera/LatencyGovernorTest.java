@@ -0,0 +1,150 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 가상의 지연 시간으로 거버너의 판단과 히스테리시스를 확인하는 테스트
+ */
+public class LatencyGovernorTest {
+
+    private static final long MS = 1_000_000L;
+    private static final int WINDOW = 20;
+
+    private static LatencyGovernor governor(float[] scales) {
+        return new LatencyGovernor(100 * MS, 0.6f, WINDOW, 3, 4, 1, 1, 4, scales);
+    }
+
+    // 같은 지연 시간으로 window 하나를 채우고 설정이 바뀌었는지 리턴
+    private static boolean window(LatencyGovernor governor, long inferenceNs, long endToEndNs) {
+        boolean changed = false;
+        for (int i = 0; i < WINDOW; i++) {
+            governor.recordInference(inferenceNs);
+            changed |= governor.recordEndToEnd(endToEndNs);
+        }
+        return changed;
+    }
+
+    // 거버너 설정에 따라 지연 시간이 정해지는 가상의 기기
+    // 추론 시간은 스레드 수에 반비례(효율 70%)하고 입력 면적에 비례하며 발열(drift)로 늘어남
+    // 카메라는 33 ms 마다 프레임을 주므로 추론이 그보다 느리면 대기 시간이 생김
+    static class SimulatedDevice {
+        final long baseInferenceNs;
+        double drift = 1.0;
+
+        SimulatedDevice(long baseInferenceNs) {
+            this.baseInferenceNs = baseInferenceNs;
+        }
+
+        long inferenceNs(LatencyGovernor governor) {
+            double speedup = 1 + 0.7 * (governor.getNumThreads() - 1);
+            float scale = governor.getInputScale();
+            return (long) (baseInferenceNs * drift * scale * scale / speedup);
+        }
+
+        long endToEndNs(LatencyGovernor governor) {
+            long inference = inferenceNs(governor);
+            long frameInterval = 33 * MS * governor.getFrameStride();
+            // 처리 중인 프레임이 끝나기를 기다리는 시간
+            long queueing = inference > frameInterval ? 2 * inference : inference / 2;
+            return inference + queueing;
+        }
+    }
+
+    @Test
+    public void admitFrame_followsStride() {
+        LatencyGovernor governor = governor(new float[]{1f});
+        // 추론은 빠르지만 대기 시간이 길면 프레임 간격을 늘림
+        assertTrue(window(governor, 20 * MS, 150 * MS));
+        assertEquals(2, governor.getFrameStride());
+        int admitted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (governor.admitFrame()) {
+                admitted++;
+            }
+        }
+        assertEquals(5, admitted);
+    }
+
+    @Test
+    public void inferenceBound_raisesThreadsThenScaleThenStride() {
+        LatencyGovernor governor = governor(new float[]{1f, 0.5f});
+        for (int expected = 2; expected <= 4; expected++) {
+            assertTrue(window(governor, 150 * MS, 160 * MS));
+            assertEquals(expected, governor.getNumThreads());
+            assertEquals(1, governor.getFrameStride());
+        }
+        assertTrue(window(governor, 150 * MS, 160 * MS));
+        assertEquals(0.5f, governor.getInputScale(), 0);
+        assertTrue(window(governor, 150 * MS, 160 * MS));
+        assertEquals(2, governor.getFrameStride());
+        assertTrue(governor.getLastDecision().startsWith("stride 1 -> 2"));
+    }
+
+    @Test
+    public void hysteresis_holdsBetweenThresholds() {
+        LatencyGovernor governor = governor(new float[]{1f});
+        assertTrue(window(governor, 150 * MS, 160 * MS));
+        assertEquals(2, governor.getNumThreads());
+        // 목표의 60% ~ 100% 사이는 유지
+        for (int i = 0; i < 20; i++) {
+            long latency = (i % 2 == 0 ? 65 : 95) * MS;
+            assertFalse(window(governor, latency / 2, latency));
+        }
+        assertEquals(2, governor.getNumThreads());
+        // 충분히 빠른 window 가 3 번 이어져야 되돌림
+        assertFalse(window(governor, 20 * MS, 40 * MS));
+        assertFalse(window(governor, 20 * MS, 40 * MS));
+        assertTrue(window(governor, 20 * MS, 40 * MS));
+        assertEquals(1, governor.getNumThreads());
+        // 좋은 window 사이에 나쁜 window 가 있으면 처음부터 다시 셈
+        assertTrue(window(governor, 150 * MS, 160 * MS));
+        assertFalse(window(governor, 20 * MS, 40 * MS));
+        assertFalse(window(governor, 80 * MS, 80 * MS));
+        assertFalse(window(governor, 20 * MS, 40 * MS));
+        assertFalse(window(governor, 20 * MS, 40 * MS));
+        assertEquals(2, governor.getNumThreads());
+    }
+
+    @Test
+    public void p95_ignoresRareSpikes() {
+        LatencyGovernor governor = governor(new float[]{1f});
+        boolean changed = false;
+        for (int i = 0; i < WINDOW; i++) {
+            // 20 개 중 1 개 (5%) 만 목표를 넘음
+            long latency = (i == 7 ? 400 : 70) * MS;
+            governor.recordInference(latency / 2);
+            changed |= governor.recordEndToEnd(latency);
+        }
+        assertFalse(changed);
+        assertEquals(70 * MS, governor.getLastEndToEndP95Ns());
+    }
+
+    @Test
+    public void simulatedThermalDrift_staysWithinTargetWithoutOscillating() {
+        LatencyGovernor governor = governor(new float[]{1f, 0.75f, 0.5f});
+        SimulatedDevice device = new SimulatedDevice(60 * MS);
+        int windows = 300;
+        int changesInSecondHalf = 0;
+        long worstLateP95 = 0;
+        for (int w = 0; w < windows; w++) {
+            // 처음 100 window 동안 발열로 추론이 3 배까지 느려지고 그 뒤로 유지
+            device.drift = 1.0 + 2.0 * Math.min(1.0, w / 100.0);
+            boolean changed = window(governor, device.inferenceNs(governor),
+                    device.endToEndNs(governor));
+            if (w >= windows / 2) {
+                if (changed) {
+                    changesInSecondHalf++;
+                }
+                worstLateP95 = Math.max(worstLateP95, governor.getLastEndToEndP95Ns());
+            }
+        }
+        // 부하가 일정해진 뒤에는 목표를 지키고 설정이 거의 바뀌지 않아야 함
+        assertTrue("p95 " + worstLateP95 / MS + " ms", worstLateP95 <= 100 * MS);
+        assertTrue("changes " + changesInSecondHalf, changesInSecondHalf <= 2);
+        // 발열이 진행되는 동안에도 window 마다 설정을 바꾸지 않아야 함
+        assertTrue(governor.getLastDecision(), governor.getDecisionCount() < windows / 10);
+        assertTrue(governor.getNumThreads() > 1);
+    }
+}
@@ -0,0 +1,126 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 로그-선형 히스토그램의 구간, 백분위 정확도, 동시 기록을 확인하는 테스트
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void buckets_areContiguousAndContainTheirValues() {
+        for (int i = 0; i < LatencyHistogram.BUCKET_COUNT - 1; i++) {
+            assertEquals(LatencyHistogram.bucketUpperUs(i), LatencyHistogram.bucketLowerUs(i + 1));
+        }
+        Random random = new Random(4);
+        for (int i = 0; i < 100_000; i++) {
+            long us = (long) Math.exp(random.nextDouble() * 20);
+            int bucket = LatencyHistogram.bucketOf(us);
+            assertTrue(LatencyHistogram.bucketLowerUs(bucket) <= us);
+            assertTrue(us < LatencyHistogram.bucketUpperUs(bucket));
+            // 구간 폭은 값의 1/8 이하
+            long width = LatencyHistogram.bucketUpperUs(bucket) - LatencyHistogram.bucketLowerUs(bucket);
+            assertTrue(width <= Math.max(1, us / 8));
+        }
+    }
+
+    @Test
+    public void percentiles_areWithinBucketError() {
+        Random random = new Random(9);
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] values = new long[20_000];
+        for (int i = 0; i < values.length; i++) {
+            // 평균 30 ms 근처의 로그 정규 분포 (긴 꼬리)
+            values[i] = (long) (30e6 * Math.exp(random.nextGaussian() * 0.4));
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double p : new double[]{0.5, 0.95, 0.99}) {
+            double exactMs = values[(int) Math.ceil(p * values.length) - 1] / 1e6;
+            double ms = histogram.getPercentileMs(p);
+            assertEquals("p" + p, exactMs, ms, exactMs * 0.125);
+        }
+        assertEquals(values.length, histogram.getCount());
+        assertEquals(values[values.length - 1] / 1e6, histogram.getMaxMs(), 0.001);
+    }
+
+    @Test
+    public void concurrentRecording_countsEverySample() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final int threads = 4;
+        final int perThread = 100_000;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int seed = t;
+            workers[t] = new Thread(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < perThread; i++) {
+                    histogram.record(random.nextInt(50_000_000));
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(threads * perThread, histogram.getCount());
+        StringBuilder sb = new StringBuilder();
+        histogram.writeBuckets(sb, "");
+        long total = 0;
+        for (String line : sb.toString().split("\n")) {
+            total += Long.parseLong(line.split(",")[2]);
+        }
+        assertEquals(threads * perThread, total);
+    }
+
+    @Test
+    public void record_doesNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        PerfStats stats = new PerfStats();
+        for (int i = 0; i < 20000; i++) {
+            stats.record(PerfStats.Stage.INFERENCE, i * 1000L);
+            stats.frame();
+        }
+        long threadId = Thread.currentThread().getId();
+        int calls = 1000;
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < calls; i++) {
+            stats.record(PerfStats.Stage.INFERENCE, i * 1000L);
+            stats.frame();
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        assertTrue("allocated " + allocated + " bytes in " + calls + " calls", allocated < calls);
+    }
+
+    @Test
+    public void perfStats_summaryAndDumpListRecordedStages() throws Exception {
+        PerfStats stats = new PerfStats();
+        stats.record(PerfStats.Stage.ACQUIRE, 200_000);
+        stats.record(PerfStats.Stage.INFERENCE, 25_000_000);
+        stats.frame();
+        String summary = stats.summary();
+        assertTrue(summary, summary.contains("inference"));
+        assertTrue(summary, summary.contains("acquire"));
+        assertFalse(summary, summary.contains("convert"));
+
+        StringBuilder dump = new StringBuilder();
+        stats.dump(dump);
+        assertTrue(dump.toString().startsWith("fps,"));
+        assertTrue(dump.toString().contains("summary,INFERENCE,1,"));
+        assertTrue(dump.toString().contains("bucket,ACQUIRE,"));
+        stats.reset();
+        assertEquals(0, stats.get(PerfStats.Stage.INFERENCE).getCount());
+    }
+}
@@ -0,0 +1,256 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 기본형 배열로 정렬하는 클래스별 NMS 가 객체 목록으로 구현한 참조 NMS 와 같은 결과를 내는지 확인하는 테스트
+ */
+public class NonMaxSuppressionTest {
+
+    private static final int NUM_BOXES = 1917;
+    private static final int NUM_CLASSES = 91;
+
+    // 참조 구현에서 사용하는 후보 객체
+    static class Candidate {
+        final int box;
+        final int classIndex;
+        final float score;
+
+        Candidate(int box, int classIndex, float score) {
+            this.box = box;
+            this.classIndex = classIndex;
+            this.score = score;
+        }
+    }
+
+    @Test
+    public void perClassNms_matchesReference() {
+        for (long seed = 1; seed <= 5; seed++) {
+            Random random = new Random(seed);
+            float[] boxes = clusteredBoxes(random, NUM_BOXES, 12);
+            float[] scores = sparseScores(random, NUM_BOXES, NUM_CLASSES);
+
+            NonMaxSuppression nms = new NonMaxSuppression(16, 0.5f);
+            nms.addScores(scores, NUM_BOXES, NUM_CLASSES, 1, 0.3f);
+            DetectionResult result = new DetectionResult(1000);
+            nms.run(boxes, result);
+
+            List<Candidate> expected =
+                    reference(boxes, scores, NUM_BOXES, NUM_CLASSES, 1, 0.3f, 0.5f, 1000);
+            assertMatches(expected, boxes, result);
+            assertTrue(result.size() > 10);
+        }
+    }
+
+    @Test
+    public void fullResult_stopsAtHighestScores() {
+        Random random = new Random(11);
+        float[] boxes = clusteredBoxes(random, NUM_BOXES, 30);
+        float[] scores = sparseScores(random, NUM_BOXES, NUM_CLASSES);
+
+        NonMaxSuppression nms = new NonMaxSuppression(0.6f);
+        nms.addScores(scores, NUM_BOXES, NUM_CLASSES, 1, 0.2f);
+        DetectionResult result = new DetectionResult(10);
+        assertEquals(10, nms.run(boxes, result));
+
+        List<Candidate> expected =
+                reference(boxes, scores, NUM_BOXES, NUM_CLASSES, 1, 0.2f, 0.6f, 10);
+        assertMatches(expected, boxes, result);
+    }
+
+    @Test
+    public void overlappingBoxes_ofDifferentClassesAreKept() {
+        float[] boxes = {
+                0.1f, 0.1f, 0.5f, 0.5f,
+                0.12f, 0.1f, 0.52f, 0.5f,
+                0.6f, 0.6f, 0.9f, 0.9f
+        };
+        NonMaxSuppression nms = new NonMaxSuppression(0.5f);
+        nms.add(0, 0, 0.9f);
+        nms.add(1, 0, 0.8f);
+        nms.add(1, 1, 0.7f);
+        nms.add(2, 0, 0.6f);
+        nms.add(2, 0, 0f);
+        nms.add(2, 0, Float.NaN);
+        assertEquals(4, nms.getCandidateCount());
+
+        DetectionResult result = new DetectionResult(10);
+        assertEquals(3, nms.run(boxes, result));
+        assertEquals(0, result.getClassIndex(0));
+        assertEquals(0.9f, result.getScore(0), 0);
+        assertEquals(1, result.getClassIndex(1));
+        assertEquals(0.12f, result.getLeft(1), 0);
+        assertEquals(0.6f, result.getScore(2), 0);
+
+        // 같은 점수는 먼저 추가한 후보가 앞
+        nms.reset();
+        nms.add(2, 0, 0.5f);
+        nms.add(0, 0, 0.5f);
+        nms.run(boxes, result);
+        assertEquals(0.6f, result.getLeft(0), 0);
+        assertEquals(0.1f, result.getLeft(1), 0);
+    }
+
+    @Test
+    public void logits_giveSameResultAsProbabilities() {
+        Random random = new Random(3);
+        float[] boxes = clusteredBoxes(random, NUM_BOXES, 12);
+        float[] logits = new float[NUM_BOXES * NUM_CLASSES];
+        float[] probabilities = new float[logits.length];
+        for (int i = 0; i < logits.length; i++) {
+            logits[i] = (float) random.nextGaussian() * 3 - 6;
+            probabilities[i] = (float) (1 / (1 + Math.exp(-logits[i])));
+        }
+
+        NonMaxSuppression fromLogits = new NonMaxSuppression(0.5f);
+        fromLogits.addLogits(logits, NUM_BOXES, NUM_CLASSES, 1, 0.4f);
+        NonMaxSuppression fromScores = new NonMaxSuppression(0.5f);
+        fromScores.addScores(probabilities, NUM_BOXES, NUM_CLASSES, 1, 0.4f);
+        assertEquals(fromScores.getCandidateCount(), fromLogits.getCandidateCount());
+
+        DetectionResult a = new DetectionResult(100);
+        DetectionResult b = new DetectionResult(100);
+        fromLogits.run(boxes, a);
+        fromScores.run(boxes, b);
+        assertEquals(b.size(), a.size());
+        for (int i = 0; i < a.size(); i++) {
+            assertEquals(b.getClassIndex(i), a.getClassIndex(i));
+            assertEquals(b.getScore(i), a.getScore(i), 0);
+            assertEquals(b.getLeft(i), a.getLeft(i), 0);
+        }
+    }
+
+    @Test
+    public void yoloRows_useObjectnessTimesClassScore() {
+        int stride = 5 + 3;
+        float[] rows = {
+                0.3f, 0.3f, 0.2f, 0.2f, 0.9f, 0.1f, 0.8f, 0.1f,
+                0.31f, 0.3f, 0.2f, 0.2f, 0.8f, 0.1f, 0.9f, 0.1f,
+                0.7f, 0.7f, 0.2f, 0.2f, 0.2f, 1.0f, 1.0f, 1.0f,
+                0.7f, 0.3f, 0.2f, 0.2f, 0.6f, 0.9f, 0.0f, 0.0f
+        };
+        float[] boxes = new float[4 * 4];
+        BoxDecoder.decodeCenterSize(rows, stride, 4, 1, 1, boxes);
+        NonMaxSuppression nms = new NonMaxSuppression(0.5f);
+        nms.addYolo(rows, stride, 4, 3, 0.25f);
+
+        DetectionResult result = new DetectionResult(10);
+        assertEquals(2, nms.run(boxes, result));
+        // 0.9 * 0.8 = 0.72 (상자 1 의 0.72 와 같으면 먼저 추가한 상자 0)
+        assertEquals(1, result.getClassIndex(0));
+        assertEquals(0.72f, result.getScore(0), 1e-6f);
+        assertEquals(0.2f, result.getLeft(0), 1e-6f);
+        assertEquals(0, result.getClassIndex(1));
+        assertEquals(0.54f, result.getScore(1), 1e-6f);
+    }
+
+    @Test
+    public void run_doesNotAllocateAfterWarmUp() {
+        Random random = new Random(5);
+        float[] boxes = clusteredBoxes(random, NUM_BOXES, 12);
+        float[] scores = sparseScores(random, NUM_BOXES, NUM_CLASSES);
+        NonMaxSuppression nms = new NonMaxSuppression(0.5f);
+        DetectionResult result = new DetectionResult(100);
+        nms.addScores(scores, NUM_BOXES, NUM_CLASSES, 1, 0.3f);
+        int expected = nms.run(boxes, result);
+
+        for (int i = 0; i < 100; i++) {
+            nms.reset();
+            nms.addScores(scores, NUM_BOXES, NUM_CLASSES, 1, 0.3f);
+            assertEquals(expected, nms.run(boxes, result));
+        }
+    }
+
+    // 상자를 몇 개의 물체 주위에 모아서 만드는 메소드 (같은 물체 주위의 상자는 많이 겹침)
+    private static float[] clusteredBoxes(Random random, int count, int objects) {
+        float[] centers = new float[2 * objects];
+        for (int i = 0; i < centers.length; i++) {
+            centers[i] = 0.1f + 0.8f * random.nextFloat();
+        }
+        float[] boxes = new float[4 * count];
+        for (int i = 0; i < count; i++) {
+            int object = random.nextInt(objects);
+            float cx = centers[2 * object] + (float) random.nextGaussian() * 0.02f;
+            float cy = centers[2 * object + 1] + (float) random.nextGaussian() * 0.02f;
+            float w = 0.1f + 0.05f * random.nextFloat();
+            float h = 0.1f + 0.05f * random.nextFloat();
+            boxes[4 * i] = cx - w / 2;
+            boxes[4 * i + 1] = cy - h / 2;
+            boxes[4 * i + 2] = cx + w / 2;
+            boxes[4 * i + 3] = cy + h / 2;
+        }
+        return boxes;
+    }
+
+    // 대부분 작고 일부만 큰 점수 (검출 모델 출력과 비슷한 분포)
+    private static float[] sparseScores(Random random, int count, int numClasses) {
+        float[] scores = new float[count * numClasses];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = random.nextFloat() < 0.01f ? random.nextFloat() : random.nextFloat() * 0.1f;
+        }
+        return scores;
+    }
+
+    // 후보 객체 목록을 점수 순서로 정렬해서 클래스별로 겹치는 상자를 제거하는 참조 구현
+    private static List<Candidate> reference(float[] boxes, float[] scores, int count,
+                                             int numClasses, int firstClass, float minScore,
+                                             float iouThreshold, int maxDetections) {
+        List<Candidate> candidates = new ArrayList<>();
+        for (int box = 0; box < count; box++) {
+            for (int c = firstClass; c < numClasses; c++) {
+                float score = scores[box * numClasses + c];
+                if (score > minScore) {
+                    candidates.add(new Candidate(box, c - firstClass, score));
+                }
+            }
+        }
+        // 점수가 같으면 먼저 추가한 후보가 앞 (안정 정렬)
+        candidates.sort((a, b) -> Float.compare(b.score, a.score));
+        List<Candidate> kept = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (kept.size() == maxDetections) {
+                break;
+            }
+            boolean suppressed = false;
+            for (Candidate other : kept) {
+                if (other.classIndex == candidate.classIndex
+                        && referenceIou(boxes, candidate.box, other.box) > iouThreshold) {
+                    suppressed = true;
+                    break;
+                }
+            }
+            if (!suppressed) {
+                kept.add(candidate);
+            }
+        }
+        return kept;
+    }
+
+    private static double referenceIou(float[] boxes, int a, int b) {
+        double ax0 = boxes[4 * a], ay0 = boxes[4 * a + 1], ax1 = boxes[4 * a + 2], ay1 = boxes[4 * a + 3];
+        double bx0 = boxes[4 * b], by0 = boxes[4 * b + 1], bx1 = boxes[4 * b + 2], by1 = boxes[4 * b + 3];
+        double w = Math.max(0, Math.min(ax1, bx1) - Math.max(ax0, bx0));
+        double h = Math.max(0, Math.min(ay1, by1) - Math.max(ay0, by0));
+        double intersection = w * h;
+        double union = (ax1 - ax0) * (ay1 - ay0) + (bx1 - bx0) * (by1 - by0) - intersection;
+        return union > 0 ? intersection / union : 0;
+    }
+
+    private static void assertMatches(List<Candidate> expected, float[] boxes,
+                                      DetectionResult result) {
+        assertEquals(expected.size(), result.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Candidate candidate = expected.get(i);
+            assertEquals("class " + i, candidate.classIndex, result.getClassIndex(i));
+            assertEquals("score " + i, candidate.score, result.getScore(i), 0);
+            assertEquals("left " + i, boxes[4 * candidate.box], result.getLeft(i), 0);
+            assertEquals("bottom " + i, boxes[4 * candidate.box + 3], result.getBottom(i), 0);
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package com.lpin.realtime_camera;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 칼만 필터 예측, 추적 번호 유지, 녹화 파일 재생으로 측정한 추적 번호 바뀜 비율을 확인하는 테스트
+ */
+public class ObjectTrackerTest {
+    private static final long FRAME_NS = 33_333_333L;
+    private static final long BASE_NS = 5_000_000_000L;
+
+    // 재생 장면 크기와 물체 (물체마다 다른 높이의 띠에서 좌우로 움직임)
+    private static final int WIDTH = 320;
+    private static final int HEIGHT = 240;
+    private static final int FRAMES = 240;
+    private static final int[] OBJECT_SIZE = {40, 36, 44};
+    private static final int[] OBJECT_TOP = {20, 95, 170};
+    private static final float[] OBJECT_PHASE = {0f, 2.1f, 4.2f};
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("tracker", ".yuv");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private static DetectionResult detections(float[][] boxes) {
+        DetectionResult result = new DetectionResult(16);
+        for (float[] box : boxes) {
+            result.add(box[0], box[1], box[2], box[3], (int) box[4], 0.9f);
+        }
+        return result;
+    }
+
+    @Test
+    public void constantVelocity_isExtrapolatedBetweenKeyframes() {
+        ObjectTracker tracker = ObjectTracker.create(8);
+        // 초당 0.3 만큼 오른쪽으로 움직이는 상자를 10 번 검출
+        for (int i = 0; i < 10; i++) {
+            float x = 0.1f + 0.3f * i * 0.1f;
+            tracker.update(BASE_NS + i * 100_000_000L,
+                    detections(new float[][]{{x, 0.4f, x + 0.2f, 0.6f, 0}}));
+        }
+        DetectionResult out = new DetectionResult(8);
+        // 마지막 검출 0.2 초 뒤에는 0.06 만큼 더 오른쪽
+        tracker.snapshot(BASE_NS + 1_100_000_000L, out);
+        assertEquals(1, out.size());
+        assertEquals(0.1f + 0.27f + 0.06f, out.getLeft(0), 0.01f);
+        assertEquals(0.4f, out.getTop(0), 0.01f);
+        assertEquals(0.2f, out.getRight(0) - out.getLeft(0), 0.005f);
+        assertEquals(1, out.getTrackId(0));
+        // 예측이 잘 맞으므로 오차가 작음
+        assertTrue(tracker.getLastError() < 0.05f);
+    }
+
+    @Test
+    public void ids_stayStableAndUnmatchedTracksExpire() {
+        ObjectTracker tracker = new ObjectTracker(8, 0.3f, 1, 2.0f, 0.01f);
+        tracker.update(BASE_NS, detections(new float[][]{
+                {0.1f, 0.1f, 0.3f, 0.3f, 0},
+                {0.6f, 0.6f, 0.8f, 0.8f, 1}}));
+        assertEquals(2, tracker.getLastBirths());
+
+        // 순서가 바뀌고 조금 움직인 검출도 같은 추적 번호
+        tracker.update(BASE_NS + FRAME_NS, detections(new float[][]{
+                {0.61f, 0.6f, 0.81f, 0.8f, 1},
+                {0.11f, 0.1f, 0.31f, 0.3f, 0}}));
+        assertEquals(2, tracker.getLastMatched());
+        assertEquals(0, tracker.getLastBirths());
+        DetectionResult out = new DetectionResult(8);
+        tracker.snapshot(BASE_NS + FRAME_NS, out);
+        assertEquals(2, out.size());
+        for (int i = 0; i < out.size(); i++) {
+            assertEquals(out.getClassIndex(i) == 0 ? 1 : 2, out.getTrackId(i));
+        }
+
+        // 같은 위치라도 클래스가 다르면 새 추적, 한 번 놓친 추적은 예측한 위치에 계속 표시
+        tracker.update(BASE_NS + 2 * FRAME_NS, detections(new float[][]{
+                {0.12f, 0.1f, 0.32f, 0.3f, 1}}));
+        assertEquals(0, tracker.getLastMatched());
+        assertEquals(1, tracker.getLastBirths());
+        assertEquals(3, tracker.size());
+        tracker.snapshot(BASE_NS + 2 * FRAME_NS, out);
+        assertEquals(3, out.size());
+
+        // 두 번 연속 놓치면 삭제
+        tracker.update(BASE_NS + 3 * FRAME_NS, detections(new float[][]{
+                {0.12f, 0.1f, 0.32f, 0.3f, 1}}));
+        assertEquals(2, tracker.getLastDeaths());
+        assertEquals(1, tracker.size());
+        tracker.snapshot(BASE_NS + 3 * FRAME_NS, out);
+        assertEquals(1, out.size());
+        assertEquals(3, out.getTrackId(0));
+    }
+
+    @Test
+    public void association_prefersHighestIou() {
+        ObjectTracker tracker = ObjectTracker.create(8);
+        tracker.update(BASE_NS, detections(new float[][]{
+                {0.10f, 0.1f, 0.30f, 0.3f, 0},
+                {0.25f, 0.1f, 0.45f, 0.3f, 0}}));
+        // 두 추적과 모두 겹치지만 두 번째 추적과 더 많이 겹치는 검출
+        tracker.update(BASE_NS + FRAME_NS, detections(new float[][]{
+                {0.24f, 0.1f, 0.44f, 0.3f, 0},
+                {0.11f, 0.1f, 0.31f, 0.3f, 0}}));
+        DetectionResult out = new DetectionResult(8);
+        tracker.snapshot(BASE_NS + FRAME_NS, out);
+        assertEquals(2, out.size());
+        for (int i = 0; i < 2; i++) {
+            assertEquals(out.getLeft(i) < 0.2f ? 1 : 2, out.getTrackId(i));
+        }
+    }
+
+    @Test
+    public void scheduler_adaptsIntervalToError() {
+        KeyframeScheduler scheduler = new KeyframeScheduler(1, 8, 0.05f, 0.2f);
+        assertTrue(scheduler.onFrame());
+        scheduler.keyframeStarted();
+        for (int i = 0; i < 10; i++) {
+            scheduler.keyframeFinished(0.01f, 0);
+        }
+        assertEquals(8, scheduler.getInterval());
+
+        // 8 프레임마다 키프레임
+        int keyframes = 0;
+        for (int i = 0; i < 32; i++) {
+            if (scheduler.onFrame()) {
+                scheduler.keyframeStarted();
+                keyframes++;
+            }
+        }
+        assertEquals(4, keyframes);
+
+        // 예측 오차가 크면 절반, 새 물체가 나타나도 절반, 중간이면 그대로
+        scheduler.keyframeFinished(0.5f, 0);
+        assertEquals(4, scheduler.getInterval());
+        scheduler.keyframeFinished(0.01f, 1);
+        assertEquals(2, scheduler.getInterval());
+        scheduler.keyframeFinished(0.1f, 0);
+        assertEquals(2, scheduler.getInterval());
+    }
+
+    @Test
+    public void replay_slowScene_keepsIdsWithFewKeyframes() throws IOException {
+        writeScene(file, 240);
+        ReplayStats stats = replay(file, 240, new Random(1));
+
+        assertTrue(stats.toString(), stats.coverage() > 0.9);
+        assertTrue(stats.toString(), stats.switchRate() <= 0.01);
+        // 같은 장면을 재생하므로 ID 가 바뀌는 횟수도 몇 번을 넘지 않아야 함
+        assertTrue(stats.toString(), stats.switches <= 2);
+        // 예측이 잘 맞으므로 대부분의 프레임은 모델을 실행하지 않음
+        assertTrue(stats.toString(), stats.keyframes < FRAMES / 3);
+    }
+
+    @Test
+    public void replay_fastScene_usesMoreKeyframes() throws IOException {
+        writeScene(file, 240);
+        ReplayStats slow = replay(file, 240, new Random(2));
+        writeScene(file, 40);
+        ReplayStats fast = replay(file, 40, new Random(2));
+
+        assertTrue(fast.toString(), fast.coverage() > 0.9);
+        assertTrue(fast.toString(), fast.switchRate() <= 0.01);
+        assertTrue(fast.toString(), fast.switches <= 8);
+        assertTrue(slow + " / " + fast, fast.keyframes > slow.keyframes);
+    }
+
+    // 재생 결과
+    static class ReplayStats {
+        int frames;
+        long keyframes;
+        // 정답 물체가 추적 상자와 짝지어진 프레임 수와 그 사이 추적 번호가 바뀐 횟수
+        int covered;
+        int switches;
+        int total;
+
+        double coverage() {
+            return (double) covered / total;
+        }
+
+        double switchRate() {
+            return covered == 0 ? 1 : (double) switches / covered;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(java.util.Locale.ENGLISH,
+                    "frames %d, keyframes %d, coverage %.3f, id switches %d (%.4f)",
+                    frames, keyframes, coverage(), switches, switchRate());
+        }
+    }
+
+    // 녹화 파일을 재생하면서 키프레임에서만 검출하고 모든 프레임에서 추적 상자를 정답과 비교하는 메소드
+    // 검출기는 밝은 영역을 찾고, 키프레임마다 물체 하나를 15% 확률로 놓치고 1 픽셀 정도 흔들림
+    private static ReplayStats replay(File file, int periodFrames, Random random)
+            throws IOException {
+        ObjectTracker tracker = ObjectTracker.create(16);
+        KeyframeScheduler scheduler = new KeyframeScheduler(1, 12, 0.05f, 0.15f);
+        DetectionResult detections = new DetectionResult(16);
+        DetectionResult display = new DetectionResult(16);
+        ReplayStats stats = new ReplayStats();
+        int[] lastIds = new int[OBJECT_SIZE.length];
+        float[] truth = new float[4];
+        try (ReplayFrameSource source = ReplayFrameSource.open(file,
+                ReplayFrameSource.Pacing.AS_FAST_AS_POSSIBLE)) {
+            source.play(s -> {
+                YuvFrame frame = s.acquireLatestFrame();
+                long timestampNs = frame.getTimestampNs();
+                int index = (int) Math.round((double) (timestampNs - BASE_NS) / FRAME_NS);
+                if (scheduler.onFrame()) {
+                    scheduler.keyframeStarted();
+                    detectBlobs(frame, random, detections);
+                    tracker.update(timestampNs, detections);
+                    scheduler.keyframeFinished(tracker.getLastError(), tracker.getLastBirths());
+                }
+                tracker.snapshot(timestampNs, display);
+                s.releaseFrame(frame);
+
+                stats.frames++;
+                for (int object = 0; object < OBJECT_SIZE.length; object++) {
+                    objectBox(object, index, periodFrames, truth);
+                    int id = bestMatch(truth, display);
+                    stats.total++;
+                    if (id < 0) {
+                        continue;
+                    }
+                    stats.covered++;
+                    if (lastIds[object] != 0 && lastIds[object] != id) {
+                        stats.switches++;
+                    }
+                    lastIds[object] = id;
+                }
+            });
+        }
+        stats.keyframes = scheduler.getKeyframes();
+        assertEquals(FRAMES, stats.frames);
+        return stats;
+    }
+
+    // 정답 상자와 IoU 가 0.3 이상인 추적 중 가장 많이 겹치는 추적의 번호 (없으면 -1)
+    private static int bestMatch(float[] truth, DetectionResult display) {
+        int best = -1;
+        float bestIou = 0.3f;
+        for (int i = 0; i < display.size(); i++) {
+            float iou = BoxDecoder.iou(truth, 0, display.boxes, i);
+            if (iou >= bestIou) {
+                bestIou = iou;
+                best = display.getTrackId(i);
+            }
+        }
+        return best;
+    }
+
+    // 물체의 frame 번째 프레임 정답 상자 (정규화 좌표)
+    // 좌우로 sin 곡선을 따라 움직이므로 가속도가 있고, 주기가 짧을수록 빠름
+    private static void objectBox(int object, int frame, int periodFrames, float[] out) {
+        int size = OBJECT_SIZE[object];
+        float amplitude = (WIDTH - size) / 2f - 10;
+        float x = (WIDTH - size) / 2f
+                + amplitude * (float) Math.sin(2 * Math.PI * frame / periodFrames + OBJECT_PHASE[object]);
+        int left = Math.round(x);
+        int top = OBJECT_TOP[object];
+        out[0] = (float) left / WIDTH;
+        out[1] = (float) top / HEIGHT;
+        out[2] = (float) (left + size) / WIDTH;
+        out[3] = (float) (top + size) / HEIGHT;
+    }
+
+    // 어두운 배경에 밝은 정사각형이 움직이는 장면을 FrameRecorder 로 녹화하는 메소드
+    private static void writeScene(File file, int periodFrames) throws IOException {
+        byte[] nv21 = new byte[WIDTH * HEIGHT * 3 / 2];
+        YuvFrame frame = new YuvFrame();
+        float[] box = new float[4];
+        try (FrameRecorder recorder = FrameRecorder.create(file, WIDTH, HEIGHT, FRAMES)) {
+            for (int i = 0; i < FRAMES; i++) {
+                Arrays.fill(nv21, 0, WIDTH * HEIGHT, (byte) 16);
+                Arrays.fill(nv21, WIDTH * HEIGHT, nv21.length, (byte) 128);
+                for (int object = 0; object < OBJECT_SIZE.length; object++) {
+                    objectBox(object, i, periodFrames, box);
+                    int left = Math.round(box[0] * WIDTH);
+                    int top = Math.round(box[1] * HEIGHT);
+                    for (int y = top; y < top + OBJECT_SIZE[object]; y++) {
+                        Arrays.fill(nv21, y * WIDTH + left, y * WIDTH + left + OBJECT_SIZE[object],
+                                (byte) 235);
+                    }
+                }
+                frame.setNv21(nv21, WIDTH, HEIGHT);
+                frame.timestampNs = BASE_NS + i * FRAME_NS;
+                // 기록이 밀리면 기다렸다가 다시 넘김
+                while (!recorder.record(frame, 0)) {
+                    Thread.yield();
+                }
+                while (recorder.getWritten() < i + 1) {
+                    Thread.yield();
+                }
+            }
+        }
+    }
+
+    // 밝기가 128 보다 큰 연결 영역을 찾아 클래스 0 검출로 기록하는 테스트용 검출기
+    private static void detectBlobs(YuvFrame frame, Random random, DetectionResult out) {
+        int w = frame.getWidth();
+        int h = frame.getHeight();
+        boolean[] visited = new boolean[w * h];
+        int[] stack = new int[w * h];
+        out.clear();
+        for (int start = 0; start < w * h; start++) {
+            if (visited[start] || luma(frame, start % w, start / w) <= 128) {
+                continue;
+            }
+            int minX = w, minY = h, maxX = -1, maxY = -1;
+            int top = 0;
+            stack[top++] = start;
+            visited[start] = true;
+            while (top > 0) {
+                int p = stack[--top];
+                int x = p % w;
+                int y = p / w;
+                minX = Math.min(minX, x);
+                maxX = Math.max(maxX, x);
+                minY = Math.min(minY, y);
+                maxY = Math.max(maxY, y);
+                int[] neighbors = {p - 1, p + 1, p - w, p + w};
+                for (int n : neighbors) {
+                    if (n < 0 || n >= w * h || visited[n]
+                            || (n == p - 1 && x == 0) || (n == p + 1 && x == w - 1)) {
+                        continue;
+                    }
+                    if (luma(frame, n % w, n / w) > 128) {
+                        visited[n] = true;
+                        stack[top++] = n;
+                    }
+                }
+            }
+            // 가끔 놓치고, 상자 경계가 조금 흔들림
+            if (random.nextFloat() < 0.15f) {
+                continue;
+            }
+            float jitter = (random.nextInt(3) - 1) / (float) w;
+            out.add((float) minX / w + jitter, (float) minY / h,
+                    (float) (maxX + 1) / w + jitter, (float) (maxY + 1) / h, 0, 0.9f);
+        }
+    }
+
+    private static int luma(YuvFrame f, int x, int y) {
+        return f.yPlane.get((f.cropTop + y) * f.yRowStride + (f.cropLeft + x) * f.yPixelStride)
+                & 0xff;
+    }
+}
@@ -0,0 +1,108 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 같은 장면을 다시 비춘 프레임은 해시가 가깝고 다른 장면은 멀리 있는지 확인하는 테스트
+ */
+public class PerceptualHashTest {
+    private static final int WIDTH = 320;
+    private static final int HEIGHT = 240;
+
+    // 주기와 위상이 seed 마다 다른 낮은 주파수 물결을 더한 장면 (seed 마다 다른 장면)
+    // shift 만큼 옆으로 움직이고 noise 만큼 밝기 잡음과 exposure 만큼 밝기 차이를 더함
+    private static YuvFrame scene(long seed, int shift, int noise, int exposure, Random random) {
+        Random layout = new Random(seed);
+        double[] fx = new double[3];
+        double[] fy = new double[3];
+        double[] phase = new double[3];
+        for (int i = 0; i < 3; i++) {
+            fx[i] = (layout.nextDouble() * 4 - 2) * Math.PI / WIDTH;
+            fy[i] = (layout.nextDouble() * 4 - 2) * Math.PI / HEIGHT;
+            phase[i] = layout.nextDouble() * 2 * Math.PI;
+        }
+        byte[] nv21 = new byte[WIDTH * HEIGHT * 3 / 2];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                double wave = 0;
+                for (int i = 0; i < 3; i++) {
+                    wave += Math.cos(fx[i] * (x + shift) + fy[i] * y + phase[i]);
+                }
+                int value = 128 + (int) (wave * 35) + exposure;
+                if (noise > 0) {
+                    value += random.nextInt(2 * noise + 1) - noise;
+                }
+                nv21[y * WIDTH + x] = (byte) Math.max(0, Math.min(255, value));
+            }
+        }
+        for (int i = WIDTH * HEIGHT; i < nv21.length; i++) {
+            nv21[i] = (byte) 128;
+        }
+        YuvFrame frame = new YuvFrame();
+        frame.setNv21(nv21, WIDTH, HEIGHT);
+        return frame;
+    }
+
+    @Test
+    public void nearDuplicates_areClose_differentScenes_areFar() {
+        Random random = new Random(5);
+        int[] scratch = new int[64];
+        for (long seed = 1; seed <= 5; seed++) {
+            YuvFrame original = scene(seed, 0, 0, 0, random);
+            YuvFrame again = scene(seed, 2, 6, 10, random);
+            YuvFrame other = scene(seed + 100, 0, 0, 0, random);
+
+            long d0 = PerceptualHash.dHash(original);
+            long d1 = PerceptualHash.dHash(again);
+            long d2 = PerceptualHash.dHash(other);
+            assertTrue("seed " + seed, PerceptualHash.distance(d0, d1) <= 8);
+            assertTrue("seed " + seed, PerceptualHash.distance(d0, d2) >= 16);
+
+            long a0 = PerceptualHash.aHash(original, 0, 0, WIDTH, HEIGHT, scratch);
+            long a1 = PerceptualHash.aHash(again, 0, 0, WIDTH, HEIGHT, scratch);
+            long a2 = PerceptualHash.aHash(other, 0, 0, WIDTH, HEIGHT, scratch);
+            assertTrue("seed " + seed, PerceptualHash.distance(a0, a1) <= 8);
+            assertTrue("seed " + seed, PerceptualHash.distance(a0, a2) >= 16);
+        }
+    }
+
+    @Test
+    public void hash_usesCenterSquareAndIsDeterministic() {
+        Random random = new Random(6);
+        YuvFrame frame = scene(3, 0, 0, 0, random);
+        int left = (WIDTH - HEIGHT) / 2;
+        assertEquals(PerceptualHash.dHash(frame, left, 0, HEIGHT, HEIGHT),
+                PerceptualHash.dHash(frame));
+        assertEquals(PerceptualHash.dHash(frame), PerceptualHash.dHash(frame));
+        assertEquals(0, PerceptualHash.distance(5L, 5L));
+        assertEquals(64, PerceptualHash.distance(0L, -1L));
+    }
+
+    @Test
+    public void panningBack_hitsCache() {
+        // 두 장면을 오가며 비출 때 처음 본 장면만 추론하고 다시 돌아오면 캐시에서 찾음
+        Random random = new Random(8);
+        ResultCache cache = new ResultCache(16, 1 << 16, 1, 6, 10_000_000_000L);
+        TopKResult out = new TopKResult(1);
+        int inferences = 0;
+        for (int frame = 0; frame < 20; frame++) {
+            long seed = frame % 4 < 2 ? 1 : 2;
+            long hash = PerceptualHash.dHash(scene(seed, frame % 3, 4, 0, random));
+            long now = frame * 33_000_000L;
+            if (!cache.lookup(hash, now, 1, -Float.MAX_VALUE, out)) {
+                inferences++;
+                out.indices[0] = (int) seed;
+                out.scores[0] = 0.9f;
+                out.size = 1;
+                cache.put(hash, now, out);
+            }
+            assertEquals(seed, out.getIndex(0));
+        }
+        assertTrue("inferences " + inferences, inferences <= 4);
+        assertTrue(cache.getHitRate() >= 0.8f);
+    }
+}
@@ -0,0 +1,93 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 기하 정보별 파이프라인 캐시와 전처리의 할당 횟수를 확인하는 테스트
+ */
+public class PipelineCacheTest {
+
+    @Test
+    public void get_returnsCachedValueForSameGeometry() {
+        PipelineCache<String> cache = new PipelineCache<>(2);
+        assertNull(cache.get(640, 480, 1));
+        cache.put(640, 480, 1, "a");
+        assertEquals("a", cache.get(640, 480, 1));
+        assertNull(cache.get(640, 480, 0));
+        assertNull(cache.get(480, 640, 1));
+        assertEquals(1, cache.getHits());
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsed() {
+        PipelineCache<String> cache = new PipelineCache<>(2);
+        cache.put(1, 1, 0, "a");
+        cache.put(2, 2, 0, "b");
+        // a 를 사용해서 b 가 가장 오래된 항목이 됨
+        cache.get(1, 1, 0);
+        cache.put(3, 3, 0, "c");
+        assertEquals(2, cache.size());
+        assertEquals("a", cache.get(1, 1, 0));
+        assertNull(cache.get(2, 2, 0));
+        assertEquals("c", cache.get(3, 3, 0));
+    }
+
+    @Test
+    public void put_replacesExistingKey() {
+        PipelineCache<String> cache = new PipelineCache<>(2);
+        cache.put(1, 1, 0, "a");
+        cache.put(1, 1, 0, "b");
+        assertEquals(1, cache.size());
+        assertEquals("b", cache.get(1, 1, 0));
+    }
+
+    // 캐시 조회와 전처리를 반복할 때 힙 할당이 없는지 확인
+    @Test
+    public void steadyStatePreprocessing_doesNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        PipelineCache<FramePreprocessor> cache = new PipelineCache<>(4);
+        YuvFrame frame = FixedPointYuvConverterTest.randomFrame(new Random(5), 64, 48, 0, 2);
+        int[] pixels = new int[64 * 48];
+        ByteBuffer input = ByteBuffer.allocateDirect(16 * 16 * 3 * 4).order(ByteOrder.nativeOrder());
+
+        Runnable step = () -> {
+            FramePreprocessor preprocessor = cache.get(64, 48, 1);
+            if (preprocessor == null) {
+                preprocessor = FramePreprocessor.centerCrop(64, 48, 1, 16, 16,
+                        FramePreprocessor.ResizeMethod.NEAREST_NEIGHBOR, 0f, 255f);
+                cache.put(64, 48, 1, preprocessor);
+            }
+            preprocessor.process(frame, input, 0);
+            preprocessor.process(pixels, 64, input, 0);
+        };
+        // 처음 호출에서 파이프라인을 만들고 JIT 가 끝날 때까지 실행
+        for (int i = 0; i < 20000; i++) {
+            step.run();
+        }
+
+        long threadId = Thread.currentThread().getId();
+        int calls = 1000;
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < calls; i++) {
+            step.run();
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        // 측정 자체에 드는 몇 바이트를 제외하면 호출당 할당이 없어야 함
+        assertTrue("allocated " + allocated + " bytes in " + calls + " calls", allocated < calls);
+        assertEquals(1, cache.getMisses());
+    }
+}
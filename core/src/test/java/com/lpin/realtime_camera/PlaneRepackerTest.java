@@ -0,0 +1,76 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * PlaneRepacker 가 평면 배치(교대 / 분리), 행 여백, 자르기 영역에 관계없이
+ * 같은 NV21 배열을 만드는지 확인하는 테스트
+ */
+public class PlaneRepackerTest {
+
+    @Test
+    public void toNv21_semiPlanarWithPadding() {
+        YuvFrame frame = FixedPointYuvConverterTest.randomFrame(new Random(41), 64, 48, 16, 2);
+        assertArrayEquals(expectedNv21(frame), repack(frame));
+    }
+
+    @Test
+    public void toNv21_planar() {
+        YuvFrame frame = FixedPointYuvConverterTest.randomFrame(new Random(42), 64, 48, 0, 1);
+        assertArrayEquals(expectedNv21(frame), repack(frame));
+    }
+
+    @Test
+    public void toNv21_cropRegion() {
+        YuvFrame frame = FixedPointYuvConverterTest.randomFrame(new Random(43), 64, 48, 8, 2);
+        frame.setCrop(6, 4, 40, 30);
+        assertArrayEquals(expectedNv21(frame), repack(frame));
+    }
+
+    @Test
+    public void repackPlane_keepsPosition() {
+        ByteBuffer plane = ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        plane.position(3);
+        byte[] output = new byte[4];
+        new PlaneRepacker().repackPlane(plane, 4, 2, 0, 0, 2, 2, output, 0, 1);
+        assertArrayEquals(new byte[]{1, 3, 5, 7}, output);
+        assertEquals(3, plane.position());
+    }
+
+    private static byte[] repack(YuvFrame frame) {
+        byte[] output = new byte[frame.width * frame.height * 3 / 2];
+        new PlaneRepacker().toNv21(frame, output);
+        return output;
+    }
+
+    // 화소 하나씩 절대 위치로 읽어서 만드는 기준 결과
+    private static byte[] expectedNv21(YuvFrame frame) {
+        int pixelCount = frame.width * frame.height;
+        byte[] expected = new byte[pixelCount * 3 / 2];
+        int index = 0;
+        for (int row = 0; row < frame.height; row++) {
+            for (int col = 0; col < frame.width; col++) {
+                expected[index++] = frame.yPlane.get((frame.cropTop + row) * frame.yRowStride
+                        + (frame.cropLeft + col) * frame.yPixelStride);
+            }
+        }
+        int uvLeft = frame.cropLeft / 2;
+        int uvTop = frame.cropTop / 2;
+        int uvWidth = (frame.cropLeft + frame.width) / 2 - uvLeft;
+        int uvHeight = (frame.cropTop + frame.height) / 2 - uvTop;
+        for (int row = 0; row < uvHeight; row++) {
+            for (int col = 0; col < uvWidth; col++) {
+                int src = (uvTop + row) * frame.uvRowStride + (uvLeft + col) * frame.uvPixelStride;
+                int dst = pixelCount + (row * uvWidth + col) * 2;
+                expected[dst] = frame.vPlane.get(src);
+                expected[dst + 1] = frame.uPlane.get(src);
+            }
+        }
+        return expected;
+    }
+}
@@ -0,0 +1,99 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * float, uint8, int8 모델의 입력 전처리와 결과 해석을 확인하는 테스트
+ */
+public class QuantizedModelTest {
+
+    private static ByteBuffer preprocess(YuvFrame frame, TensorSpec.ElementType type) {
+        FramePreprocessor preprocessor = FramePreprocessor.centerCrop(
+                48, 32, 1, 16, 16, FramePreprocessor.ResizeMethod.NEAREST_NEIGHBOR,
+                0f, 255f, type);
+        ByteBuffer output = ByteBuffer.allocateDirect(preprocessor.getOutputBytes())
+                .order(ByteOrder.nativeOrder());
+        preprocessor.process(frame, output, 0);
+        return output;
+    }
+
+    @Test
+    public void float32Input_isNormalized() {
+        YuvFrame frame = FixedPointYuvConverterTest.randomFrame(new Random(41), 48, 32, 0, 2);
+        ByteBuffer output = preprocess(frame, TensorSpec.ElementType.FLOAT32);
+        assertEquals(16 * 16 * 3 * 4, output.capacity());
+        for (int i = 0; i < 16 * 16 * 3; i++) {
+            float value = output.getFloat(i * 4);
+            assertTrue(value >= 0f && value <= 1f);
+        }
+    }
+
+    @Test
+    public void uint8Input_usesRawPixels() {
+        YuvFrame frame = FixedPointYuvConverterTest.randomFrame(new Random(42), 48, 32, 0, 2);
+        ByteBuffer floats = preprocess(frame, TensorSpec.ElementType.FLOAT32);
+        ByteBuffer bytes = preprocess(frame, TensorSpec.ElementType.UINT8);
+        assertEquals(16 * 16 * 3, bytes.capacity());
+        for (int i = 0; i < 16 * 16 * 3; i++) {
+            assertEquals(Math.round(floats.getFloat(i * 4) * 255), bytes.get(i) & 0xff);
+        }
+    }
+
+    @Test
+    public void int8Input_isShiftedBy128() {
+        YuvFrame frame = FixedPointYuvConverterTest.randomFrame(new Random(43), 48, 32, 0, 2);
+        ByteBuffer floats = preprocess(frame, TensorSpec.ElementType.FLOAT32);
+        ByteBuffer bytes = preprocess(frame, TensorSpec.ElementType.INT8);
+        for (int i = 0; i < 16 * 16 * 3; i++) {
+            assertEquals(Math.round(floats.getFloat(i * 4) * 255) - 128, bytes.get(i));
+        }
+    }
+
+    // 모든 점수를 실제 값으로 바꾼 뒤 고르는 기준 구현과 비교
+    private static void checkQuantizedTopK(TensorSpec spec, long seed) {
+        Random random = new Random(seed);
+        byte[] raw = new byte[1001];
+        random.nextBytes(raw);
+        float[] dequantized = new float[raw.length];
+        for (int i = 0; i < raw.length; i++) {
+            dequantized[i] = spec.dequantize(spec.rawValue(raw[i]));
+        }
+        TopKResult expected = new TopKResult(5);
+        TopKResult actual = new TopKResult(5);
+        for (float minScore : new float[]{-Float.MAX_VALUE, 0f, 0.3f, 0.99f}) {
+            TopKSelector.select(dequantized, raw.length, 5, minScore, expected);
+            TopKSelector.selectQuantized(raw, raw.length, spec, 5, minScore, actual);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.getIndex(i), actual.getIndex(i));
+                assertEquals(expected.getScore(i), actual.getScore(i), 1e-6f);
+            }
+        }
+    }
+
+    @Test
+    public void uint8Output_dequantizesTopK() {
+        TensorSpec spec = new TensorSpec(TensorSpec.ElementType.UINT8, 1f / 256, 0);
+        assertEquals(200, spec.rawValue((byte) 200));
+        checkQuantizedTopK(spec, 44);
+    }
+
+    @Test
+    public void int8Output_dequantizesTopK() {
+        TensorSpec spec = new TensorSpec(TensorSpec.ElementType.INT8, 1f / 256, -128);
+        assertEquals(-56, spec.rawValue((byte) 200));
+        assertEquals(0f, spec.dequantize(-128), 0f);
+        checkQuantizedTopK(spec, 45);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void quantizedSpec_needsPositiveScale() {
+        new TensorSpec(TensorSpec.ElementType.UINT8, 0f, 0);
+    }
+}
@@ -0,0 +1,193 @@
+package com.lpin.realtime_camera;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 녹화 파일을 기록한 순서대로, 복사 없이, 정해진 속도로 재생하는지 확인하는 테스트
+ */
+public class ReplayFrameSourceTest {
+    private static final int WIDTH = 32;
+    private static final int HEIGHT = 24;
+    private static final long FRAME_NS = 20_000_000L;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("replay", ".yuv");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    // 레코드마다 Y 평면의 첫 바이트에 기록 순서를 남긴 파일을 만드는 메소드
+    // sequences 의 순서대로 레코드를 채우고 -1 은 빈 레코드로 둡니다.
+    static void writeFile(File path, FrameFile format, long[] sequences, Random random)
+            throws IOException {
+        try (RandomAccessFile out = new RandomAccessFile(path, "rw")) {
+            out.setLength(format.getFileSize());
+            FileChannel channel = out.getChannel();
+            ByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, format.getFileSize())
+                    .order(FrameFile.ORDER);
+            format.writeHeader(map);
+            byte[] planes = new byte[format.getRecordSize() - FrameFile.RECORD_HEADER_SIZE];
+            for (int i = 0; i < format.capacity; i++) {
+                int offset = (int) format.getRecordOffset(i);
+                long sequence = sequences[i];
+                map.putLong(offset + FrameFile.TIMESTAMP_OFFSET, 1_000_000_000L + sequence * FRAME_NS);
+                map.putLong(offset + FrameFile.SEQUENCE_OFFSET, sequence);
+                map.putInt(offset + FrameFile.ORIENTATION_OFFSET, (int) (sequence % 4) * 90);
+                random.nextBytes(planes);
+                planes[0] = (byte) sequence;
+                map.position(offset + FrameFile.RECORD_HEADER_SIZE);
+                map.put(planes);
+            }
+        }
+    }
+
+    @Test
+    public void play_deliversRecordsInSequenceOrder() throws IOException {
+        // 링 파일처럼 중간에서 다시 처음으로 이어지고 빈 레코드가 하나 있는 파일
+        writeFile(file, FrameFile.compact(WIDTH, HEIGHT, 5), new long[]{3, 4, -1, 1, 2},
+                new Random(1));
+        try (ReplayFrameSource source = ReplayFrameSource.open(file,
+                ReplayFrameSource.Pacing.AS_FAST_AS_POSSIBLE)) {
+            assertEquals(4, source.getFrameCount());
+            assertEquals(WIDTH, source.getWidth());
+            List<Integer> order = new ArrayList<>();
+            List<Integer> orientations = new ArrayList<>();
+            source.play(s -> {
+                YuvFrame frame = s.acquireLatestFrame();
+                assertEquals(WIDTH, frame.getWidth());
+                assertEquals(HEIGHT, frame.getHeight());
+                order.add((int) frame.yPlane.get(0));
+                orientations.add(source.getSensorOrientation());
+                s.releaseFrame(frame);
+            });
+            assertEquals(java.util.Arrays.asList(1, 2, 3, 4), order);
+            assertEquals(java.util.Arrays.asList(90, 180, 270, 0), orientations);
+            assertEquals(4, source.getDelivered());
+            assertEquals(0, source.getSkipped());
+        }
+    }
+
+    @Test
+    public void play_framesMatchRecordedPlanesWithoutCopy() throws IOException {
+        // 픽셀 간격 2, 행 여백이 있는 카메라 배치 그대로 저장한 파일
+        FrameFile format = new FrameFile(WIDTH, HEIGHT, WIDTH + 8, WIDTH + 8, 2, 2);
+        writeFile(file, format, new long[]{0, 1}, new Random(2));
+        byte[] expectedY = new byte[format.getYPlaneSize()];
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            in.seek(format.getRecordOffset(0) + FrameFile.RECORD_HEADER_SIZE);
+            in.readFully(expectedY);
+        }
+        try (ReplayFrameSource source = ReplayFrameSource.open(file,
+                ReplayFrameSource.Pacing.AS_FAST_AS_POSSIBLE)) {
+            YuvFrame[] first = new YuvFrame[1];
+            source.play(s -> {
+                YuvFrame frame = s.acquireLatestFrame();
+                if (first[0] == null) {
+                    first[0] = frame;
+                }
+            });
+            YuvFrame frame = first[0];
+            assertTrue(frame.yPlane.isDirect());
+            assertEquals(WIDTH + 8, frame.yRowStride);
+            assertEquals(2, frame.uvPixelStride);
+            assertEquals(1_000_000_000L, frame.getTimestampNs());
+            byte[] actualY = new byte[expectedY.length];
+            frame.yPlane.duplicate().get(actualY);
+            assertArrayEquals(expectedY, actualY);
+
+            // 같은 파일을 다시 재생하면 같은 프레임을 같은 순서로 받음
+            YuvFrame[] again = new YuvFrame[1];
+            source.play(s -> {
+                YuvFrame f = s.acquireLatestFrame();
+                if (again[0] == null) {
+                    again[0] = f;
+                }
+            });
+            assertSame(frame, again[0]);
+        }
+    }
+
+    @Test
+    public void realTime_followsTimestampsAndSkipsLateFrames() throws Exception {
+        long[] sequences = new long[10];
+        for (int i = 0; i < sequences.length; i++) {
+            sequences[i] = i;
+        }
+        writeFile(file, FrameFile.compact(WIDTH, HEIGHT, sequences.length), sequences,
+                new Random(3));
+        try (ReplayFrameSource source = ReplayFrameSource.open(file,
+                ReplayFrameSource.Pacing.REAL_TIME)) {
+            long start = System.nanoTime();
+            source.play(s -> s.releaseFrame(s.acquireLatestFrame()));
+            long elapsed = System.nanoTime() - start;
+            assertEquals(10, source.getDelivered());
+            assertTrue("elapsed " + elapsed, elapsed >= 9 * FRAME_NS);
+
+            // 처리가 프레임 간격보다 3 배 느리면 지난 프레임은 건너뜀
+            source.play(s -> {
+                s.releaseFrame(s.acquireLatestFrame());
+                sleep(3 * FRAME_NS / 1_000_000);
+            });
+            assertTrue(source.getDelivered() < 10);
+            assertEquals(10, source.getDelivered() + source.getSkipped());
+        }
+    }
+
+    @Test
+    public void startAndStop_runsOnOwnThread() throws Exception {
+        writeFile(file, FrameFile.compact(WIDTH, HEIGHT, 3), new long[]{0, 1, 2}, new Random(4));
+        try (ReplayFrameSource source = ReplayFrameSource.open(file,
+                ReplayFrameSource.Pacing.AS_FAST_AS_POSSIBLE)) {
+            source.setLooping(true);
+            Thread[] thread = new Thread[1];
+            source.start(s -> {
+                thread[0] = Thread.currentThread();
+                s.releaseFrame(s.acquireLatestFrame());
+            });
+            while (source.getDelivered() < 10) {
+                Thread.sleep(1);
+            }
+            source.stop();
+            assertNotSame(Thread.currentThread(), thread[0]);
+            long delivered = source.getDelivered();
+            Thread.sleep(20);
+            assertEquals(delivered, source.getDelivered());
+            assertTrue(source.getThroughput() > 0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void open_rejectsOtherFiles() throws IOException {
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.write(new byte[FrameFile.HEADER_SIZE]);
+        }
+        ReplayFrameSource.open(file, ReplayFrameSource.Pacing.REAL_TIME);
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * ResultCache 의 LRU 순서, 해밍 거리로 찾기, 수명, 메모리 상한, 통계를 확인하는 테스트
+ */
+public class ResultCacheTest {
+    private static final long TTL_NS = 1_000_000_000L;
+
+    private static TopKResult result(int index, float score) {
+        TopKResult result = new TopKResult(2);
+        result.indices[0] = index;
+        result.scores[0] = score;
+        result.indices[1] = index + 1;
+        result.scores[1] = score / 2;
+        result.size = 2;
+        return result;
+    }
+
+    private static ResultCache cache(int entries, int maxDistance) {
+        return new ResultCache(entries, 1 << 20, 2, maxDistance, TTL_NS);
+    }
+
+    @Test
+    public void evicts_leastRecentlyUsed() {
+        ResultCache cache = cache(3, 0);
+        TopKResult out = new TopKResult(2);
+        cache.put(1L, 0, result(1, 0.9f));
+        cache.put(2L, 0, result(2, 0.9f));
+        cache.put(3L, 0, result(3, 0.9f));
+        // 1 을 사용해서 가장 오래 쓰지 않은 항목은 2
+        assertTrue(cache.lookup(1L, 0, 2, -Float.MAX_VALUE, out));
+        cache.put(4L, 0, result(4, 0.9f));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(3, cache.size());
+        assertFalse(cache.lookup(2L, 0, 2, -Float.MAX_VALUE, out));
+        // 다음은 3, 그 다음은 1
+        cache.put(5L, 0, result(5, 0.9f));
+        assertFalse(cache.lookup(3L, 0, 2, -Float.MAX_VALUE, out));
+        cache.put(6L, 0, result(6, 0.9f));
+        assertFalse(cache.lookup(1L, 0, 2, -Float.MAX_VALUE, out));
+        for (long key = 4; key <= 6; key++) {
+            assertTrue(cache.lookup(key, 0, 2, -Float.MAX_VALUE, out));
+            assertEquals(key, out.getIndex(0));
+        }
+        assertEquals(3, cache.getEvictions());
+    }
+
+    @Test
+    public void sameHash_replacesEntryWithoutEviction() {
+        ResultCache cache = cache(2, 0);
+        TopKResult out = new TopKResult(2);
+        cache.put(7L, 0, result(1, 0.9f));
+        cache.put(7L, 0, result(3, 0.8f));
+        assertEquals(1, cache.size());
+        assertTrue(cache.lookup(7L, 0, 2, -Float.MAX_VALUE, out));
+        assertEquals(3, out.getIndex(0));
+        assertEquals(0.8f, out.getScore(0), 0f);
+        assertEquals(0, cache.getEvictions());
+
+        // 캐시에 있는 순위만 점수를 채우고 나머지는 0
+        float[] scores = {1, 1, 1, 1, 1};
+        out.fillScores(scores);
+        assertArrayEquals(new float[]{0, 0, 0, 0.8f, 0.4f}, scores, 0f);
+    }
+
+    @Test
+    public void nearDuplicate_matchesClosestWithinDistance() {
+        ResultCache cache = cache(8, 4);
+        TopKResult out = new TopKResult(2);
+        long shelf = 0x0F0F_3C3C_5A5A_A5A5L;
+        long door = ~shelf;
+        cache.put(shelf, 0, result(10, 0.9f));
+        cache.put(door, 0, result(20, 0.9f));
+
+        // 3 비트 다른 해시는 shelf 로 찾음
+        assertTrue(cache.lookup(shelf ^ 0b1011L, 0, 2, -Float.MAX_VALUE, out));
+        assertEquals(10, out.getIndex(0));
+        assertEquals(2, out.size());
+        // 5 비트 다른 해시는 찾지 않음
+        assertFalse(cache.lookup(shelf ^ 0b11111L, 0, 2, -Float.MAX_VALUE, out));
+
+        // 두 항목이 모두 가까우면 더 가까운 항목
+        long between = 0;
+        ResultCache near = cache(8, 8);
+        near.put(between ^ 0b111L, 0, result(1, 0.9f));
+        near.put(between ^ (0b11L << 40), 0, result(2, 0.9f));
+        assertTrue(near.lookup(between, 0, 2, -Float.MAX_VALUE, out));
+        assertEquals(2, out.getIndex(0));
+
+        // k 와 minScore 를 적용
+        assertTrue(cache.lookup(door, 0, 1, -Float.MAX_VALUE, out));
+        assertEquals(1, out.size());
+        assertTrue(cache.lookup(door, 0, 2, 0.5f, out));
+        assertEquals(1, out.size());
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.75f, cache.getHitRate(), 1e-6f);
+    }
+
+    @Test
+    public void entries_expireByAge() {
+        ResultCache cache = cache(4, 0);
+        TopKResult out = new TopKResult(2);
+        cache.put(1L, 0, result(1, 0.9f));
+        cache.put(2L, 600_000_000L, result(2, 0.9f));
+        // 사용해도 수명은 늘어나지 않음
+        assertTrue(cache.lookup(1L, 900_000_000L, 2, -Float.MAX_VALUE, out));
+        assertFalse(cache.lookup(1L, 1_100_000_000L, 2, -Float.MAX_VALUE, out));
+        assertEquals(1, cache.getExpirations());
+        assertEquals(1, cache.size());
+        assertTrue(cache.lookup(2L, 1_100_000_000L, 2, -Float.MAX_VALUE, out));
+
+        // 지운 자리는 다시 사용하고 가득 차기 전에는 버리지 않음
+        for (long key = 3; key <= 5; key++) {
+            cache.put(key, 1_100_000_000L, result((int) key, 0.9f));
+        }
+        assertEquals(4, cache.size());
+        assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    public void memoryCap_limitsEntries() {
+        int topK = 5;
+        long perEntry = ResultCache.bytesPerEntry(topK);
+        ResultCache cache = new ResultCache(1000, perEntry * 10 + perEntry / 2, topK, 0, TTL_NS);
+        assertEquals(10, cache.capacity());
+        assertTrue(cache.getMemoryBytes() <= perEntry * 10 + perEntry / 2);
+        for (long key = 0; key < 25; key++) {
+            cache.put(key, 0, result((int) key, 0.9f));
+        }
+        assertEquals(10, cache.size());
+        assertEquals(15, cache.getEvictions());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        cache.put(1L, 0, result(1, 0.9f));
+        assertEquals(1, cache.size());
+        assertTrue(cache.summary(), cache.summary().contains("entries 1 / 10"));
+        try {
+            new ResultCache(10, perEntry - 1, topK, 0, TTL_NS);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * 추적 상자를 회전 전 프레임의 정사각형 영역으로 바꾸는 RoiSelector 의 좌표, 크기, 개수 제한을 확인하는 테스트
+ */
+public class RoiSelectorTest {
+
+    private static DetectionResult tracked(float[][] boxes) {
+        DetectionResult result = new DetectionResult(16);
+        for (int i = 0; i < boxes.length; i++) {
+            float[] box = boxes[i];
+            result.add(box[0], box[1], box[2], box[3], 0, 0.9f, i + 1);
+        }
+        return result;
+    }
+
+    @Test
+    public void noTracks_fallsBackToFullFrame() {
+        RoiSelector selector = new RoiSelector(4, 224, 0.2f);
+        assertEquals(0, selector.select(new DetectionResult(4), 640, 480, 90));
+        assertEquals(0, selector.size());
+        assertEquals(1, selector.getFullFrames());
+        assertEquals(0, selector.getRoiFrames());
+    }
+
+    @Test
+    public void smallObject_isCroppedAtNativeResolution() {
+        RoiSelector selector = new RoiSelector(4, 224, 0.2f);
+        // 1280x960 프레임에서 64x48 픽셀인 물체
+        float[] box = {0.5f, 0.5f, 0.55f, 0.55f};
+        assertEquals(1, selector.select(tracked(new float[][]{box}), 1280, 960, 0));
+        // 늘리지 않고 모델 입력 크기(224)로 자름
+        assertEquals(224, selector.getSize(0));
+        assertEquals(Math.round(0.525f * 1280 - 112), selector.getLeft(0));
+        assertEquals(Math.round(0.525f * 960 - 112), selector.getTop(0));
+        assertEquals(1, selector.getTrackId(0));
+
+        // 큰 물체는 여백을 더한 크기(538) 이상인 가장 작은 크기 단계로 올림, 프레임의 짧은 변보다 크게 자르지 않음
+        float[] large = {0.1f, 0.1f, 0.4f, 0.3f};
+        selector.select(tracked(new float[][]{large}), 1280, 960, 0);
+        assertEquals(576, selector.getSize(0));
+        selector.select(tracked(new float[][]{{0f, 0f, 1f, 1f}}), 1280, 960, 0);
+        assertEquals(960, selector.getSize(0));
+    }
+
+    @Test
+    public void sizes_useFewLevels() {
+        // 크기별 전처리기 캐시(8 개)에 모든 크기가 들어가도록 크기 종류를 제한
+        RoiSelector selector = new RoiSelector(1, 224, 0.2f);
+        TreeSet<Integer> sizes = new TreeSet<>();
+        for (int i = 1; i <= 100; i++) {
+            float side = i / 100f;
+            selector.select(tracked(new float[][]{{0f, 0f, side, side}}), 1920, 1080, 0);
+            sizes.add(selector.getSize(0));
+        }
+        assertTrue(sizes.toString(), sizes.size() <= 8);
+        assertEquals(224, (int) sizes.first());
+        // 가장 큰 영역은 프레임의 짧은 변
+        assertEquals(1080, (int) sizes.last());
+        for (int size : sizes.headSet(1080)) {
+            assertEquals(0, size % RoiSelector.SIZE_STEP);
+        }
+        assertArrayEquals(new int[]{224, 288, 384, 448, 576},
+                Arrays.copyOf(RoiSelector.sizeLevels(224), 5));
+    }
+
+    @Test
+    public void edgeObject_isPushedInsideFrame() {
+        RoiSelector selector = new RoiSelector(4, 224, 0.2f);
+        selector.select(tracked(new float[][]{{0.97f, 0f, 1f, 0.03f}}), 640, 480, 0);
+        assertEquals(640 - 224, selector.getLeft(0));
+        assertEquals(0, selector.getTop(0));
+    }
+
+    @Test
+    public void budget_rotatesThroughTracks() {
+        RoiSelector selector = new RoiSelector(2, 32, 0f);
+        float[][] boxes = new float[5][];
+        for (int i = 0; i < boxes.length; i++) {
+            boxes[i] = new float[]{0.1f * i, 0.1f, 0.1f * i + 0.05f, 0.15f};
+        }
+        DetectionResult result = tracked(boxes);
+        int[] counts = new int[boxes.length + 1];
+        for (int frame = 0; frame < 5; frame++) {
+            assertEquals(2, selector.select(result, 640, 480, 0));
+            for (int i = 0; i < selector.size(); i++) {
+                counts[selector.getTrackId(i)]++;
+                assertEquals(selector.getTrackId(i) - 1, selector.getSourceIndex(i));
+            }
+        }
+        // 5 프레임 동안 모든 추적을 두 번씩 분류
+        assertArrayEquals(new int[]{0, 2, 2, 2, 2, 2}, counts);
+        assertEquals(2f, selector.getAverageRois(), 0f);
+    }
+
+    @Test
+    public void rotatedBox_mapsBackToObjectInFrame() {
+        // 회전 전 프레임의 (200, 40) 에 있는 밝은 16x16 물체
+        int w = 320;
+        int h = 240;
+        byte[] nv21 = new byte[w * h * 3 / 2];
+        Arrays.fill(nv21, 0, w * h, (byte) 16);
+        Arrays.fill(nv21, w * h, nv21.length, (byte) 128);
+        for (int y = 40; y < 56; y++) {
+            Arrays.fill(nv21, y * w + 200, y * w + 216, (byte) 235);
+        }
+        YuvFrame frame = new YuvFrame();
+        frame.setNv21(nv21, w, h);
+
+        for (int rotation = 0; rotation < 360; rotation += 90) {
+            // 검출기처럼 프레임 전체를 회전해서 모델 입력을 만들고, 그 안에서 물체의 상자를 찾음
+            boolean swap = rotation % 180 != 0;
+            int outW = swap ? h : w;
+            int outH = swap ? w : h;
+            FramePreprocessor preprocessor = new FramePreprocessor(0, 0, w, h, rotation / 90,
+                    outW, outH, FramePreprocessor.ResizeMethod.NEAREST_NEIGHBOR, 0f, 1f);
+            ByteBuffer output = ByteBuffer.allocateDirect(outW * outH * 12)
+                    .order(ByteOrder.nativeOrder());
+            preprocessor.process(frame, output, 0);
+            int minX = outW, minY = outH, maxX = -1, maxY = -1;
+            for (int y = 0; y < outH; y++) {
+                for (int x = 0; x < outW; x++) {
+                    if (output.getFloat((y * outW + x) * 12) > 128) {
+                        minX = Math.min(minX, x);
+                        maxX = Math.max(maxX, x);
+                        minY = Math.min(minY, y);
+                        maxY = Math.max(maxY, y);
+                    }
+                }
+            }
+            DetectionResult result = tracked(new float[][]{{(float) minX / outW,
+                    (float) minY / outH, (float) (maxX + 1) / outW, (float) (maxY + 1) / outH}});
+
+            RoiSelector selector = new RoiSelector(1, 64, 0f);
+            selector.select(result, w, h, rotation);
+            assertEquals("rotation " + rotation, 64, selector.getSize(0));
+            assertEquals("rotation " + rotation, 208 - 32, selector.getLeft(0));
+            assertEquals("rotation " + rotation, 48 - 32, selector.getTop(0));
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 합성 프레임 시퀀스로 장면 변화 검출과 건너뛰기 비율을 확인하는 테스트
+ */
+public class SceneChangeDetectorTest {
+
+    private static final int WIDTH = 320;
+    private static final int HEIGHT = 240;
+    private static final long FRAME_NS = 33_000_000L;
+    private static final long REFRESH_NS = 2_000_000_000L;
+
+    private final Random random = new Random(12);
+
+    // 가로 방향 그라데이션 배경에 밝은 정사각형이 있고 픽셀마다 잡음이 있는 NV21 프레임
+    private byte[] scene(int squareX, int brightnessOffset, int noise) {
+        byte[] nv21 = new byte[WIDTH * HEIGHT * 3 / 2];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int value = 40 + x * 120 / WIDTH + brightnessOffset;
+                if (x >= squareX && x < squareX + 60 && y >= 90 && y < 150) {
+                    value = 230;
+                }
+                if (noise > 0) {
+                    value += random.nextInt(noise * 2 + 1) - noise;
+                }
+                nv21[y * WIDTH + x] = (byte) Math.max(0, Math.min(255, value));
+            }
+        }
+        // 색차는 회색
+        for (int i = WIDTH * HEIGHT; i < nv21.length; i++) {
+            nv21[i] = (byte) 128;
+        }
+        return nv21;
+    }
+
+    private static SceneChangeDetector detector() {
+        return new SceneChangeDetector(16, 12, 6.0f, REFRESH_NS);
+    }
+
+    @Test
+    public void staticScene_isSkippedAfterFirstFrame() {
+        SceneChangeDetector detector = detector();
+        YuvFrame frame = new YuvFrame();
+        int processed = 0;
+        for (int i = 0; i < 30; i++) {
+            // 센서 잡음만 있는 같은 장면
+            frame.setNv21(scene(100, 0, 8), WIDTH, HEIGHT);
+            if (detector.shouldProcess(frame, i * FRAME_NS)) {
+                processed++;
+            }
+        }
+        assertEquals(1, processed);
+        assertEquals(29, detector.getSkippedCount());
+        assertEquals(29f / 30, detector.getSkipRatio(), 1e-6);
+        assertTrue(detector.getLastDifference() < 6.0f);
+    }
+
+    @Test
+    public void movingObject_isProcessed() {
+        SceneChangeDetector detector = detector();
+        YuvFrame frame = new YuvFrame();
+        frame.setNv21(scene(0, 0, 4), WIDTH, HEIGHT);
+        assertTrue(detector.shouldProcess(frame, 0));
+        int processed = 0;
+        for (int i = 1; i <= 6; i++) {
+            // 프레임마다 정사각형이 자기 크기의 2/3 만큼 이동
+            frame.setNv21(scene(i * 40, 0, 4), WIDTH, HEIGHT);
+            if (detector.shouldProcess(frame, i * FRAME_NS)) {
+                processed++;
+            }
+        }
+        assertEquals(6, processed);
+    }
+
+    @Test
+    public void slowDrift_accumulatesAgainstLastProcessedFrame() {
+        SceneChangeDetector detector = detector();
+        YuvFrame frame = new YuvFrame();
+        frame.setNv21(scene(100, 0, 0), WIDTH, HEIGHT);
+        assertTrue(detector.shouldProcess(frame, 0));
+        // 프레임마다 밝기가 1 씩 바뀌면 이전 프레임과는 차이가 작지만
+        // 마지막으로 처리한 프레임과의 차이가 쌓여서 결국 처리됨
+        int firstProcessed = -1;
+        for (int i = 1; i <= 20; i++) {
+            frame.setNv21(scene(100, i, 0), WIDTH, HEIGHT);
+            if (detector.shouldProcess(frame, i * FRAME_NS)) {
+                firstProcessed = i;
+                break;
+            }
+        }
+        assertTrue("processed at " + firstProcessed, firstProcessed >= 5 && firstProcessed <= 8);
+    }
+
+    @Test
+    public void staticScene_isRefreshedPeriodically() {
+        SceneChangeDetector detector = detector();
+        YuvFrame frame = new YuvFrame();
+        byte[] still = scene(100, 0, 0);
+        frame.setNv21(still, WIDTH, HEIGHT);
+        int processed = 0;
+        long frames = 3 * REFRESH_NS / FRAME_NS;
+        for (long i = 0; i < frames; i++) {
+            if (detector.shouldProcess(frame, i * FRAME_NS)) {
+                processed++;
+            }
+        }
+        // 처음 한 번 + 2 초마다 한 번
+        assertEquals(3, processed);
+        detector.reset();
+        assertTrue(detector.shouldProcess(frame, frames * FRAME_NS));
+    }
+
+    @Test
+    public void droppedFrame_doesNotBecomeReference() {
+        SceneChangeDetector detector = detector();
+        YuvFrame frame = new YuvFrame();
+        frame.setNv21(scene(0, 0, 4), WIDTH, HEIGHT);
+        assertTrue(detector.check(frame, 0));
+        detector.commit();
+        // 바뀐 장면을 넘기지 못하고 버리면 (commit 하지 않으면) 다음 프레임도 처리
+        frame.setNv21(scene(120, 0, 4), WIDTH, HEIGHT);
+        assertTrue(detector.check(frame, FRAME_NS));
+        assertTrue(detector.check(frame, 2 * FRAME_NS));
+        detector.commit();
+        assertFalse(detector.check(frame, 3 * FRAME_NS));
+        // 건너뛴 뒤의 commit 은 기준을 바꾸지 않음
+        detector.commit();
+        frame.setNv21(scene(0, 0, 4), WIDTH, HEIGHT);
+        assertTrue(detector.check(frame, 4 * FRAME_NS));
+        assertEquals(1, detector.getSkippedCount());
+    }
+
+    @Test
+    public void thumbnail_readsCropRegionWithStrides() {
+        // 행 끝에 여백이 있고 픽셀 간격이 2 인 Y 평면에서 자르기 영역만 읽는지 확인
+        int width = 64, height = 48, rowStride = 200;
+        byte[] y = new byte[rowStride * (height + 10)];
+        for (int row = 0; row < height + 10; row++) {
+            for (int col = 0; col < rowStride / 2; col++) {
+                boolean inside = row >= 10 && col >= 8 && col < 8 + width;
+                y[row * rowStride + col * 2] = (byte) (inside ? 100 : 250);
+            }
+        }
+        YuvFrame frame = new YuvFrame();
+        frame.setPlanes(java.nio.ByteBuffer.wrap(y), rowStride, 2,
+                java.nio.ByteBuffer.allocate(4096), java.nio.ByteBuffer.allocate(4096), 64, 1);
+        frame.setCrop(8, 10, width, height);
+        int[] thumbnail = new int[4 * 3];
+        new SceneChangeDetector(4, 3, 1f, REFRESH_NS).thumbnail(frame, thumbnail);
+        for (int value : thumbnail) {
+            assertEquals(100, value);
+        }
+    }
+}
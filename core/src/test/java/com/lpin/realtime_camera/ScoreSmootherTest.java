@@ -0,0 +1,134 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 최근 프레임 점수 평균과 EMA, 결과가 바뀔 때만 알리는지 확인하는 테스트
+ */
+public class ScoreSmootherTest {
+
+    private static final int CLASSES = 1001;
+
+    // 정답 클래스의 점수가 잡음 때문에 가끔 다른 클래스보다 낮아지는 점수 벡터
+    private static float[] noisyScores(Random random, int trueClass, int rivalClass) {
+        float[] scores = new float[CLASSES];
+        for (int i = 0; i < CLASSES; i++) {
+            scores[i] = random.nextFloat() * 0.001f;
+        }
+        scores[trueClass] = 0.45f + random.nextFloat() * 0.2f;
+        scores[rivalClass] = 0.35f + random.nextFloat() * 0.2f;
+        return scores;
+    }
+
+    @Test
+    public void window_matchesBruteForceAverage() {
+        Random random = new Random(3);
+        int window = 4;
+        ScoreSmoother smoother = ScoreSmoother.window(CLASSES, window);
+        float[][] history = new float[50][];
+        for (int frame = 0; frame < history.length; frame++) {
+            history[frame] = noisyScores(random, random.nextInt(CLASSES), random.nextInt(CLASSES));
+            smoother.update(history[frame]);
+            int from = Math.max(0, frame - window + 1);
+            for (int c = 0; c < CLASSES; c += 97) {
+                double expected = 0;
+                for (int f = from; f <= frame; f++) {
+                    expected += history[f][c];
+                }
+                expected /= frame - from + 1;
+                assertEquals(expected, smoother.getScore(c), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void ema_blendsNewScores() {
+        ScoreSmoother smoother = ScoreSmoother.ema(3, 0.25f);
+        assertTrue(smoother.update(new float[]{1f, 0f, 0f}));
+        assertEquals(0, smoother.getTopIndex());
+        assertFalse(smoother.update(new float[]{0f, 1f, 0f}));
+        assertEquals(0.75f, smoother.getScore(0), 1e-6);
+        assertEquals(0.25f, smoother.getScore(1), 1e-6);
+        assertFalse(smoother.update(new float[]{0f, 1f, 0f}));
+        // 0.5625 vs 0.4375 -> 아직 0
+        assertEquals(0, smoother.getTopIndex());
+        assertTrue(smoother.update(new float[]{0f, 1f, 0f}));
+        assertEquals(1, smoother.getTopIndex());
+    }
+
+    @Test
+    public void noisyStream_publishesFarFewerChanges() {
+        Random random = new Random(8);
+        ScoreSmoother smoother = ScoreSmoother.window(CLASSES, 5);
+        int rawChanges = 0;
+        int smoothedChanges = 0;
+        int previousRaw = -1;
+        for (int frame = 0; frame < 300; frame++) {
+            // 100 프레임마다 장면이 바뀜 (정답 클래스가 바뀜)
+            int trueClass = 10 + frame / 100;
+            float[] scores = noisyScores(random, trueClass, 500);
+            int raw = TopKSelector.argmax(scores, CLASSES);
+            if (raw != previousRaw) {
+                rawChanges++;
+                previousRaw = raw;
+            }
+            if (smoother.update(scores)) {
+                smoothedChanges++;
+            }
+        }
+        // 처음 결과와 장면이 바뀐 2 번 근처에서만 바뀌어야 함
+        assertTrue("smoothed " + smoothedChanges, smoothedChanges <= 10);
+        assertTrue(rawChanges >= smoothedChanges * 5);
+        assertEquals(12, smoother.getTopIndex());
+    }
+
+    @Test
+    public void reset_forgetsHistory() {
+        ScoreSmoother smoother = ScoreSmoother.window(2, 3);
+        smoother.update(new float[]{1f, 0f});
+        smoother.update(new float[]{1f, 0f});
+        smoother.reset();
+        assertEquals(-1, smoother.getTopIndex());
+        assertTrue(smoother.update(new float[]{0f, 1f}));
+        assertEquals(1f, smoother.getScore(1), 0);
+        assertEquals(0f, smoother.getScore(0), 0);
+    }
+
+    // 프레임마다 호출해도 힙 할당이 없는지 확인
+    @Test
+    public void update_doesNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        Random random = new Random(1);
+        float[][] frames = new float[8][];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = noisyScores(random, 1, 2);
+        }
+        ScoreSmoother window = ScoreSmoother.window(CLASSES, 5);
+        ScoreSmoother ema = ScoreSmoother.ema(CLASSES, 0.3f);
+        for (int i = 0; i < 20000; i++) {
+            window.update(frames[i % frames.length]);
+            ema.update(frames[i % frames.length]);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        int calls = 1000;
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < calls; i++) {
+            window.update(frames[i % frames.length]);
+            ema.update(frames[i % frames.length]);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        assertTrue("allocated " + allocated + " bytes in " + calls + " calls", allocated < calls);
+    }
+}
@@ -0,0 +1,70 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 시작 단계 기록이 처음 한 번만 남는지와 요약을 확인하는 테스트
+ */
+public class StartupTimelineTest {
+
+    @Test
+    public void mark_keepsFirstTimeOnly() {
+        StartupTimeline timeline = new StartupTimeline(1_000_000L);
+        assertFalse(timeline.isMarked(StartupTimeline.Milestone.FIRST_RESULT));
+        assertEquals(-1, timeline.getElapsedNs(StartupTimeline.Milestone.FIRST_RESULT));
+        assertEquals(-1, timeline.getTimeToFirstResultMs(), 0);
+
+        assertTrue(timeline.mark(StartupTimeline.Milestone.FIRST_RESULT, 251_000_000L));
+        assertFalse(timeline.mark(StartupTimeline.Milestone.FIRST_RESULT, 900_000_000L));
+
+        assertTrue(timeline.isMarked(StartupTimeline.Milestone.FIRST_RESULT));
+        assertEquals(250_000_000L, timeline.getElapsedNs(StartupTimeline.Milestone.FIRST_RESULT));
+        assertEquals(250.0, timeline.getTimeToFirstResultMs(), 1e-9);
+    }
+
+    @Test
+    public void summary_listsMilestonesInOrder() {
+        StartupTimeline timeline = new StartupTimeline(0);
+        timeline.mark(StartupTimeline.Milestone.CREATE, 12_000_000L);
+        timeline.mark(StartupTimeline.Milestone.MODEL_LOADED, 140_400_000L);
+        timeline.mark(StartupTimeline.Milestone.FIRST_RESULT, 480_000_000L);
+
+        assertEquals("startup ms : create 12, model_loaded 140, warmed_up -, first_frame -, "
+                + "first_result 480", timeline.summary());
+    }
+
+    @Test
+    public void concurrentMarks_recordOnce() throws InterruptedException {
+        StartupTimeline timeline = new StartupTimeline();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger firsts = new AtomicInteger();
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int j = 0; j < 1000; j++) {
+                    if (timeline.mark(StartupTimeline.Milestone.FIRST_FRAME)) {
+                        firsts.incrementAndGet();
+                    }
+                }
+            });
+            workers[i].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(1, firsts.get());
+        assertTrue(timeline.getElapsedNs(StartupTimeline.Milestone.FIRST_FRAME) >= 0);
+    }
+}
@@ -0,0 +1,142 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 상위 K 개 선택의 정확성과 기존 Map + argmax 방식과의 비용 비교
+ */
+public class TopKSelectorTest {
+
+    private static float[] randomScores(Random random, int count) {
+        float[] scores = new float[count];
+        for (int i = 0; i < count; i++) {
+            scores[i] = random.nextFloat();
+        }
+        return scores;
+    }
+
+    // 정렬을 사용한 기준 구현 (점수 내림차순, 같으면 인덱스 오름차순)
+    private static List<Integer> referenceTopK(float[] scores, int k, float minScore) {
+        List<Integer> indices = new ArrayList<>();
+        for (int i = 0; i < scores.length; i++) {
+            if (scores[i] >= minScore) {
+                indices.add(i);
+            }
+        }
+        Collections.sort(indices, (a, b) -> scores[a] != scores[b]
+                ? Float.compare(scores[b], scores[a]) : Integer.compare(a, b));
+        return indices.subList(0, Math.min(k, indices.size()));
+    }
+
+    @Test
+    public void select_matchesSortedReference() {
+        Random random = new Random(11);
+        TopKResult result = new TopKResult(10);
+        for (int trial = 0; trial < 200; trial++) {
+            float[] scores = randomScores(random, 1 + random.nextInt(1001));
+            int k = 1 + random.nextInt(10);
+            float minScore = random.nextBoolean() ? 0f : random.nextFloat();
+            TopKSelector.select(scores, scores.length, k, minScore, result);
+            List<Integer> expected = referenceTopK(scores, k, minScore);
+            assertEquals(expected.size(), result.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals((int) expected.get(i), result.getIndex(i));
+                assertEquals(scores[expected.get(i)], result.getScore(i), 0f);
+            }
+        }
+    }
+
+    @Test
+    public void select_prefersLowerIndexOnTies() {
+        float[] scores = {0.5f, 0.9f, 0.5f, 0.9f, 0.1f};
+        TopKResult result = new TopKResult(3);
+        TopKSelector.select(scores, scores.length, 3, 0f, result);
+        assertEquals(3, result.size());
+        assertEquals(1, result.getIndex(0));
+        assertEquals(3, result.getIndex(1));
+        assertEquals(0, result.getIndex(2));
+    }
+
+    @Test
+    public void select_appliesMinScoreAndCapacity() {
+        float[] scores = {0.1f, 0.2f, 0.3f};
+        TopKResult result = new TopKResult(2);
+        TopKSelector.select(scores, scores.length, 5, 0.15f, result);
+        assertEquals(2, result.size());
+        assertEquals(2, result.getIndex(0));
+        assertEquals(1, result.getIndex(1));
+        TopKSelector.select(scores, scores.length, 5, 0.5f, result);
+        assertEquals(0, result.size());
+    }
+
+    @Test
+    public void argmax_returnsFirstMaximum() {
+        assertEquals(1, TopKSelector.argmax(new float[]{0.1f, 0.7f, 0.7f}, 3));
+        assertEquals(-1, TopKSelector.argmax(new float[0], 0));
+    }
+
+    // 기존 방식 : 레이블을 키로 하는 HashMap 을 만들고 argmax
+    private static String mapArgmax(List<String> labels, float[] scores) {
+        Map<String, Float> map = new HashMap<>();
+        for (int i = 0; i < labels.size(); i++) {
+            map.put(labels.get(i), scores[i]);
+        }
+        String maxKey = "";
+        float maxVal = -1;
+        for (Map.Entry<String, Float> entry : map.entrySet()) {
+            float f = entry.getValue();
+            if (f > maxVal) {
+                maxKey = entry.getKey();
+                maxVal = f;
+            }
+        }
+        return maxKey;
+    }
+
+    // 1001 개 점수에서 top-1 을 찾아도 맵으로 찾은 결과와 같고, 호출마다 할당하지 않아야 함
+    // 시간 비교는 benchmark 모듈의 Top1Benchmark 에서 합니다.
+    @Test
+    public void select_matchesMapArgmaxWithoutAllocating() {
+        int classes = 1001;
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < classes; i++) {
+            labels.add("label" + i);
+        }
+        float[] scores = randomScores(new Random(12), classes);
+        TopKResult result = new TopKResult(5);
+
+        String expected = mapArgmax(labels, scores);
+        TopKSelector.select(scores, classes, 1, 0f, result);
+        assertEquals(expected, labels.get(result.getIndex(0)));
+
+        long bytes = allocatedBytesPerCall(20000,
+                () -> TopKSelector.select(scores, classes, 5, 0f, result));
+        assertTrue("allocated " + bytes, bytes < 16);
+    }
+
+    // 호출당 할당 바이트
+    private static long allocatedBytesPerCall(int iterations, Runnable r) {
+        for (int i = 0; i < iterations; i++) {
+            r.run();
+        }
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long bytes = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            r.run();
+        }
+        bytes = threads.getThreadAllocatedBytes(threadId) - bytes;
+        return bytes / iterations;
+    }
+}
@@ -0,0 +1,46 @@
+package com.lpin.realtime_camera;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * YuvFrame 의 복사가 원본과 같은 화소를 가리키는지 확인하는 테스트
+ */
+public class YuvFrameTest {
+
+    @Test
+    public void copyFrom_keepsPixelsOfCropRegion() {
+        Random random = new Random(31);
+        YuvFrame source = FixedPointYuvConverterTest.randomFrame(random, 64, 48, 12, 2);
+        source.setCrop(4, 2, 40, 30);
+        source.timestampNs = 1234;
+
+        YuvFrame copy = new YuvFrame();
+        copy.copyFrom(source);
+        assertEquals(40, copy.getWidth());
+        assertEquals(30, copy.getHeight());
+        assertEquals(1234, copy.getTimestampNs());
+
+        int[] expected = new int[40 * 30];
+        int[] actual = new int[40 * 30];
+        FixedPointYuvConverter converter = new FixedPointYuvConverter(1);
+        converter.convert(source, expected);
+        converter.convert(copy, actual);
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    public void copyFrom_reusesBuffersForSameSize() {
+        Random random = new Random(32);
+        YuvFrame copy = new YuvFrame();
+        copy.copyFrom(FixedPointYuvConverterTest.randomFrame(random, 32, 32, 0, 1));
+        java.nio.ByteBuffer y = copy.yPlane;
+        copy.copyFrom(FixedPointYuvConverterTest.randomFrame(random, 32, 32, 4, 2));
+        assertSame(y, copy.yPlane);
+        copy.copyFrom(FixedPointYuvConverterTest.randomFrame(random, 16, 16, 0, 2));
+        assertEquals(16 * 16, copy.yPlane.capacity());
+    }
+}